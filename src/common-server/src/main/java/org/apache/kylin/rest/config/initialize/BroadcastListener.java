@@ -22,6 +22,7 @@ import java.io.IOException;
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 
+import org.apache.kylin.common.KylinConfig;
 import org.apache.kylin.common.persistence.transaction.AccessBatchGrantEventNotifier;
 import org.apache.kylin.common.persistence.transaction.AccessGrantEventNotifier;
 import org.apache.kylin.common.persistence.transaction.AccessRevokeEventNotifier;
@@ -31,9 +32,12 @@ import org.apache.kylin.common.persistence.transaction.AclTCRRevokeEventNotifier
 import org.apache.kylin.common.persistence.transaction.AddCredentialToSparkBroadcastEventNotifier;
 import org.apache.kylin.common.persistence.transaction.AuditLogBroadcastEventNotifier;
 import org.apache.kylin.common.persistence.transaction.BroadcastEventReadyNotifier;
+import org.apache.kylin.common.persistence.transaction.JobSchedulerWakeUpNotifier;
 import org.apache.kylin.common.persistence.transaction.LogicalViewBroadcastNotifier;
 import org.apache.kylin.common.persistence.transaction.StopQueryBroadcastEventNotifier;
 import org.apache.kylin.guava30.shaded.common.eventbus.Subscribe;
+import org.apache.kylin.job.scheduler.JdbcJobScheduler;
+import org.apache.kylin.job.util.JobContextUtil;
 import org.apache.kylin.metadata.model.TableExtDesc;
 import org.apache.kylin.rest.broadcaster.BroadcastEventHandler;
 import org.apache.kylin.rest.broadcaster.Broadcaster;
@@ -126,6 +130,12 @@ public class BroadcastListener implements BroadcastEventHandler {
                     adminUserSyncEventNotifier.isUseEmptyPermission());
         } else if (notifier instanceof LogicalViewBroadcastNotifier) {
             LogicalViewLoader.syncViewAsync();
+        } else if (notifier instanceof JobSchedulerWakeUpNotifier) {
+            JdbcJobScheduler jobScheduler = JobContextUtil.getJobContext(KylinConfig.getInstanceFromEnv())
+                    .getJobScheduler();
+            if (jobScheduler != null) {
+                jobScheduler.wakeUp();
+            }
         }
     }
 
@@ -181,6 +181,10 @@ public class Broadcaster implements Closeable {
         case QUERY_AND_ALL:
             nodes = getNodesByModes(ServerModeEnum.QUERY, ServerModeEnum.ALL);
             break;
+        case SCHEDULER_NODES:
+            nodes = getNodesByModes(ServerModeEnum.ALL, ServerModeEnum.JOB, ServerModeEnum.DATA_LOADING,
+                    ServerModeEnum.COMMON, ServerModeEnum.SMART, ServerModeEnum.OPS);
+            break;
         default:
             nodes = getNodesByModes(ServerModeEnum.ALL, ServerModeEnum.JOB, ServerModeEnum.QUERY,
                     ServerModeEnum.DATA_LOADING, ServerModeEnum.COMMON, ServerModeEnum.SMART, ServerModeEnum.OPS);
@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kylin.rest.cache;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
+
+import org.apache.kylin.guava30.shaded.common.cache.Cache;
+import org.apache.kylin.guava30.shaded.common.cache.CacheBuilder;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * A local in-process cache in front of a remote one, e.g. redis or memcached. A hit of the local tier saves the
+ * network round trip and the deserialization of the remote tier.
+ *
+ * Values are written to both tiers. The local tier is bounded by the weight of its values, and expires after a
+ * short time, so that a value removed from the remote tier by another node is not served for long.
+ */
+public class TwoTierCache implements KylinCache {
+
+    private final Cache<LocalKey, Object> local;
+
+    @Getter
+    private final KylinCache remote;
+
+    public TwoTierCache(KylinCache remote, long maxWeight, long expireSeconds, ToIntFunction<Object> weigher) {
+        this.remote = remote;
+        this.local = CacheBuilder.newBuilder().maximumWeight(maxWeight)
+                .weigher((LocalKey key, Object value) -> weigher.applyAsInt(value))
+                .expireAfterWrite(expireSeconds, TimeUnit.SECONDS).build();
+    }
+
+    @Override
+    public void put(String type, String project, Object key, Object value) {
+        remote.put(type, project, key, value);
+        local.put(new LocalKey(type, project, key), value);
+    }
+
+    @Override
+    public void update(String type, String project, Object key, Object value) {
+        remote.update(type, project, key, value);
+        local.put(new LocalKey(type, project, key), value);
+    }
+
+    @Override
+    public Object get(String type, String project, Object key) {
+        LocalKey localKey = new LocalKey(type, project, key);
+        Object value = local.getIfPresent(localKey);
+        if (value == null) {
+            value = remote.get(type, project, key);
+            if (value != null) {
+                local.put(localKey, value);
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public boolean remove(String type, String project, Object key) {
+        local.invalidate(new LocalKey(type, project, key));
+        return remote.remove(type, project, key);
+    }
+
+    @Override
+    public void clearAll() {
+        local.invalidateAll();
+        remote.clearAll();
+    }
+
+    @Override
+    public void clearByType(String type, String project) {
+        local.asMap().keySet().removeIf(key -> key.type.equals(type) && Objects.equals(key.project, project));
+        remote.clearByType(type, project);
+    }
+
+    public long localSize() {
+        return local.size();
+    }
+
+    @EqualsAndHashCode
+    private static class LocalKey {
+        private final String type;
+        private final String project;
+        private final Object key;
+
+        private LocalKey(String type, String project, Object key) {
+            this.type = type;
+            this.project = project;
+            this.key = key;
+        }
+    }
+}
@@ -30,6 +30,8 @@ import org.apache.kylin.common.KapConfig;
 import org.apache.kylin.common.KylinConfig;
 import org.apache.kylin.common.metrics.MetricsController;
 import org.apache.kylin.common.metrics.MetricsGroup;
+import org.apache.kylin.common.scheduler.EventBusFactory;
+import org.apache.kylin.common.scheduler.ProjectMetricsRemovedNotifier;
 import org.apache.kylin.common.util.NamedThreadFactory;
 import org.apache.kylin.guava30.shaded.common.collect.Sets;
 import org.apache.kylin.metadata.project.NProjectManager;
@@ -108,6 +110,7 @@ public class MetricsConfig {
             for (String outDatedProject : outDatedProjects) {
                 log.info("Remove project metrics for {}", outDatedProject);
                 MetricsGroup.removeProjectMetrics(outDatedProject);
+                EventBusFactory.getInstance().postAsync(new ProjectMetricsRemovedNotifier(outDatedProject));
                 if (KylinConfig.getInstanceFromEnv().isPrometheusMetricsEnabled()) {
                     MetricsRegistry.deletePrometheusProjectMetrics(outDatedProject);
                 }
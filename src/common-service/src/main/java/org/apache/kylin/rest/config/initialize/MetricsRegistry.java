@@ -40,7 +40,9 @@ import org.apache.kylin.common.metrics.MetricsGroup;
 import org.apache.kylin.common.metrics.MetricsName;
 import org.apache.kylin.common.metrics.MetricsTag;
 import org.apache.kylin.common.metrics.prometheus.PrometheusMetrics;
+import org.apache.kylin.common.persistence.ResourceStore;
 import org.apache.kylin.common.persistence.metadata.JdbcDataSource;
+import org.apache.kylin.common.persistence.transaction.AuditLogReplayWorker;
 import org.apache.kylin.common.scheduler.EventBusFactory;
 import org.apache.kylin.guava30.shaded.common.collect.Lists;
 import org.apache.kylin.guava30.shaded.common.collect.Maps;
@@ -259,6 +261,12 @@ public class MetricsRegistry {
         }
     }
 
+    private static AuditLogReplayWorker getAuditLogReplayWorker() {
+        val auditLogStore = ResourceStore.getKylinMetaStore(KylinConfig.getInstanceFromEnv()).getAuditLogStore();
+        val replayWorker = auditLogStore == null ? null : auditLogStore.getReplayWorker();
+        return replayWorker instanceof AuditLogReplayWorker ? (AuditLogReplayWorker) replayWorker : null;
+    }
+
     public static void registerHostMetrics(String host) {
         MetricsGroup.newCounter(MetricsName.SPARDER_RESTART, MetricsCategory.HOST, host);
         MetricsGroup.newCounter(MetricsName.QUERY_HOST, MetricsCategory.HOST, host);
@@ -288,6 +296,15 @@ public class MetricsRegistry {
             return loadDesc.getCoreNum();
         });
 
+        MetricsGroup.newGauge(MetricsName.METADATA_REPLAY_LAG_IDS, MetricsCategory.HOST, host, () -> {
+            AuditLogReplayWorker replayWorker = getAuditLogReplayWorker();
+            return replayWorker == null ? 0 : replayWorker.getReplayLagIds();
+        });
+        MetricsGroup.newGauge(MetricsName.METADATA_REPLAY_LAG_MS, MetricsCategory.HOST, host, () -> {
+            AuditLogReplayWorker replayWorker = getAuditLogReplayWorker();
+            return replayWorker == null ? 0 : replayWorker.getReplayLagMs();
+        });
+
     }
 
     static void registerJobMetrics(KylinConfig config, String project) {
@@ -26,6 +26,8 @@ import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.kylin.common.KylinConfig;
 import org.apache.kylin.common.metrics.MetricsGroup;
+import org.apache.kylin.common.scheduler.EventBusFactory;
+import org.apache.kylin.common.scheduler.ProjectMetricsRemovedNotifier;
 import org.apache.kylin.common.util.HadoopUtil;
 import org.apache.kylin.guava30.shaded.common.collect.Maps;
 import org.apache.kylin.job.execution.ExecutableManager;
@@ -58,6 +60,7 @@ public class ProjectDropListener {
             RawRecManager.getInstance(project).deleteByProject(project);
 
             MetricsGroup.removeProjectMetrics(project);
+            EventBusFactory.getInstance().postAsync(new ProjectMetricsRemovedNotifier(project));
             if (KylinConfig.getInstanceFromEnv().isPrometheusMetricsEnabled()) {
                 MetricsRegistry.deletePrometheusProjectMetrics(project);
             }
@@ -21,6 +21,7 @@ package org.apache.kylin.rest.config.initialize;
 import java.time.Duration;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import org.apache.kylin.common.KylinConfig;
@@ -30,6 +31,7 @@ import org.apache.kylin.common.metrics.MetricsGroup;
 import org.apache.kylin.common.metrics.MetricsName;
 import org.apache.kylin.common.metrics.MetricsTag;
 import org.apache.kylin.common.metrics.prometheus.PrometheusMetrics;
+import org.apache.kylin.common.scheduler.ProjectMetricsRemovedNotifier;
 import org.apache.kylin.guava30.shaded.common.annotations.VisibleForTesting;
 import org.apache.kylin.guava30.shaded.common.collect.Maps;
 import org.apache.kylin.guava30.shaded.common.eventbus.Subscribe;
@@ -48,6 +50,11 @@ import lombok.val;
 
 public class QueryMetricsListener {
 
+    // project -> host tag -> resolved metrics, so that recording a query does not build metric names again
+    private final Map<String, Map<String, ProjectMetrics>> projectMetrics = new ConcurrentHashMap<>();
+
+    private final Map<String, HostMetrics> hostMetrics = new ConcurrentHashMap<>();
+
     @Subscribe
     public void recordMetric(QueryMetrics queryMetric) {
         String project = queryMetric.getProjectName();
@@ -55,28 +62,36 @@ public class QueryMetricsListener {
 
         Map<String, String> tags = Maps.newHashMap();
         tags.put(MetricsTag.HOST.getVal(), queryMetric.getServer().concat("-").concat(project));
+        ProjectMetrics metrics = getProjectMetrics(project, tags);
 
-        MetricsGroup.counterInc(MetricsName.QUERY, MetricsCategory.PROJECT, project, tags);
+        metrics.query.inc();
 
-        updateQueryTimeMetrics(queryMetric.getQueryDuration(), project, tags);
-        updateQueryTypeMetrics(queryMetric, project, tags);
+        updateQueryTimeMetrics(queryMetric.getQueryDuration(), metrics);
+        updateQueryTypeMetrics(queryMetric, metrics);
 
-        MetricsGroup.counterInc(MetricsName.QUERY_HOST, MetricsCategory.HOST, queryMetric.getServer());
-        MetricsGroup.counterInc(MetricsName.QUERY_SCAN_BYTES_HOST, MetricsCategory.HOST, queryMetric.getServer(),
-                queryMetric.getTotalScanBytes());
+        HostMetrics host = hostMetrics.computeIfAbsent(queryMetric.getServer(), HostMetrics::new);
+        host.query.inc();
+        host.scanBytes.inc(queryMetric.getTotalScanBytes());
 
-        MetricsGroup.histogramUpdate(MetricsName.QUERY_LATENCY, MetricsCategory.PROJECT, queryMetric.getProjectName(),
-                tags, queryMetric.getQueryDuration());
-        MetricsGroup.histogramUpdate(MetricsName.QUERY_TIME_HOST, MetricsCategory.HOST, queryMetric.getServer(),
-                queryMetric.getQueryDuration());
+        metrics.latency.update(queryMetric.getQueryDuration());
+        host.time.update(queryMetric.getQueryDuration());
 
-        MetricsGroup.histogramUpdate(MetricsName.QUERY_SCAN_BYTES, MetricsCategory.PROJECT, project, tags,
-                queryMetric.getTotalScanBytes());
+        metrics.scanBytes.update(queryMetric.getTotalScanBytes());
 
         recordQueryPrometheusMetric(queryMetric, modelManager, SpringContext.getBean(MeterRegistry.class));
 
     }
 
+    @Subscribe
+    public void onProjectMetricsRemoved(ProjectMetricsRemovedNotifier notifier) {
+        projectMetrics.remove(notifier.getProject());
+    }
+
+    @VisibleForTesting
+    public boolean hasProjectMetrics(String project) {
+        return projectMetrics.containsKey(project);
+    }
+
     public void recordQueryPrometheusMetric(QueryMetrics queryMetric, NDataModelManager modelManager,
             MeterRegistry meterRegistry) {
         if (!KylinConfig.getInstanceFromEnv().isPrometheusMetricsEnabled()) {
@@ -121,29 +136,29 @@ public class QueryMetricsListener {
         }
     }
 
-    private void updateQueryTypeMetrics(QueryMetrics queryMetrics, String project, Map<String, String> tags) {
+    private void updateQueryTypeMetrics(QueryMetrics queryMetrics, ProjectMetrics metrics) {
         if (QueryHistory.QUERY_HISTORY_FAILED.equals(queryMetrics.getQueryStatus())) {
-            MetricsGroup.counterInc(MetricsName.QUERY_FAILED, MetricsCategory.PROJECT, project, tags);
-            MetricsGroup.meterMark(MetricsName.QUERY_FAILED_RATE, MetricsCategory.PROJECT, project, tags);
+            metrics.failed.inc();
+            metrics.failedRate.mark();
         }
 
         if (queryMetrics.isPushdown()) {
-            MetricsGroup.counterInc(MetricsName.QUERY_PUSH_DOWN, MetricsCategory.PROJECT, project, tags);
-            MetricsGroup.meterMark(MetricsName.QUERY_PUSH_DOWN_RATE, MetricsCategory.PROJECT, project, tags);
+            metrics.pushDown.inc();
+            metrics.pushDownRate.mark();
         }
 
         if ("CONSTANTS".equals(queryMetrics.getEngineType())) {
-            MetricsGroup.counterInc(MetricsName.QUERY_CONSTANTS, MetricsCategory.PROJECT, project, tags);
-            MetricsGroup.meterMark(MetricsName.QUERY_CONSTANTS_RATE, MetricsCategory.PROJECT, project, tags);
+            metrics.constants.inc();
+            metrics.constantsRate.mark();
         }
 
         if (queryMetrics.isTimeout()) {
-            MetricsGroup.counterInc(MetricsName.QUERY_TIMEOUT, MetricsCategory.PROJECT, project, tags);
-            MetricsGroup.meterMark(MetricsName.QUERY_TIMEOUT_RATE, MetricsCategory.PROJECT, project, tags);
+            metrics.timeout.inc();
+            metrics.timeoutRate.mark();
         }
 
         if (queryMetrics.isCacheHit()) {
-            MetricsGroup.counterInc(MetricsName.QUERY_CACHE, MetricsCategory.PROJECT, project, tags);
+            metrics.cache.inc();
         }
 
         if (queryMetrics.getRealizationMetrics() != null) {
@@ -154,29 +169,108 @@ public class QueryMetricsListener {
                     .anyMatch(realization -> realization != null
                             && QueryMetricsContext.TABLE_INDEX.equals(realization.getIndexType()));
             if (hitAggIndex) {
-                MetricsGroup.counterInc(MetricsName.QUERY_AGG_INDEX, MetricsCategory.PROJECT, project, tags);
+                metrics.aggIndex.inc();
             }
             if (hitTableIndex) {
-                MetricsGroup.counterInc(MetricsName.QUERY_TABLE_INDEX, MetricsCategory.PROJECT, project, tags);
+                metrics.tableIndex.inc();
             }
         }
     }
 
     @VisibleForTesting
     public void updateQueryTimeMetrics(long duration, String project, Map<String, String> tags) {
+        updateQueryTimeMetrics(duration, getProjectMetrics(project, tags));
+    }
+
+    private void updateQueryTimeMetrics(long duration, ProjectMetrics metrics) {
         if (duration <= Constant.SECOND) {
-            MetricsGroup.counterInc(MetricsName.QUERY_LT_1S, MetricsCategory.PROJECT, project, tags);
+            metrics.lt1s.inc();
         } else if (duration <= 3 * Constant.SECOND) {
-            MetricsGroup.counterInc(MetricsName.QUERY_1S_3S, MetricsCategory.PROJECT, project, tags);
+            metrics.between1s3s.inc();
         } else if (duration <= 5 * Constant.SECOND) {
-            MetricsGroup.counterInc(MetricsName.QUERY_3S_5S, MetricsCategory.PROJECT, project, tags);
+            metrics.between3s5s.inc();
         } else if (duration <= 10 * Constant.SECOND) {
-            MetricsGroup.counterInc(MetricsName.QUERY_5S_10S, MetricsCategory.PROJECT, project, tags);
+            metrics.between5s10s.inc();
         } else {
-            MetricsGroup.counterInc(MetricsName.QUERY_SLOW, MetricsCategory.PROJECT, project, tags);
-            MetricsGroup.meterMark(MetricsName.QUERY_SLOW_RATE, MetricsCategory.PROJECT, project, tags);
+            metrics.slow.inc();
+            metrics.slowRate.mark();
+        }
+        metrics.totalDuration.inc(duration);
+    }
+
+    private ProjectMetrics getProjectMetrics(String project, Map<String, String> tags) {
+        String hostTag = tags.getOrDefault(MetricsTag.HOST.getVal(), "");
+        return projectMetrics.computeIfAbsent(project, key -> new ConcurrentHashMap<>()).computeIfAbsent(hostTag,
+                key -> new ProjectMetrics(project, tags));
+    }
+
+    private static class ProjectMetrics {
+        private final MetricsGroup.CounterHandle query;
+        private final MetricsGroup.CounterHandle lt1s;
+        private final MetricsGroup.CounterHandle between1s3s;
+        private final MetricsGroup.CounterHandle between3s5s;
+        private final MetricsGroup.CounterHandle between5s10s;
+        private final MetricsGroup.CounterHandle slow;
+        private final MetricsGroup.MeterHandle slowRate;
+        private final MetricsGroup.CounterHandle totalDuration;
+        private final MetricsGroup.CounterHandle failed;
+        private final MetricsGroup.MeterHandle failedRate;
+        private final MetricsGroup.CounterHandle pushDown;
+        private final MetricsGroup.MeterHandle pushDownRate;
+        private final MetricsGroup.CounterHandle constants;
+        private final MetricsGroup.MeterHandle constantsRate;
+        private final MetricsGroup.CounterHandle timeout;
+        private final MetricsGroup.MeterHandle timeoutRate;
+        private final MetricsGroup.CounterHandle cache;
+        private final MetricsGroup.CounterHandle aggIndex;
+        private final MetricsGroup.CounterHandle tableIndex;
+        private final MetricsGroup.HistogramHandle latency;
+        private final MetricsGroup.HistogramHandle scanBytes;
+
+        private ProjectMetrics(String project, Map<String, String> tags) {
+            query = counter(MetricsName.QUERY, project, tags);
+            lt1s = counter(MetricsName.QUERY_LT_1S, project, tags);
+            between1s3s = counter(MetricsName.QUERY_1S_3S, project, tags);
+            between3s5s = counter(MetricsName.QUERY_3S_5S, project, tags);
+            between5s10s = counter(MetricsName.QUERY_5S_10S, project, tags);
+            slow = counter(MetricsName.QUERY_SLOW, project, tags);
+            slowRate = meter(MetricsName.QUERY_SLOW_RATE, project, tags);
+            totalDuration = counter(MetricsName.QUERY_TOTAL_DURATION, project, tags);
+            failed = counter(MetricsName.QUERY_FAILED, project, tags);
+            failedRate = meter(MetricsName.QUERY_FAILED_RATE, project, tags);
+            pushDown = counter(MetricsName.QUERY_PUSH_DOWN, project, tags);
+            pushDownRate = meter(MetricsName.QUERY_PUSH_DOWN_RATE, project, tags);
+            constants = counter(MetricsName.QUERY_CONSTANTS, project, tags);
+            constantsRate = meter(MetricsName.QUERY_CONSTANTS_RATE, project, tags);
+            timeout = counter(MetricsName.QUERY_TIMEOUT, project, tags);
+            timeoutRate = meter(MetricsName.QUERY_TIMEOUT_RATE, project, tags);
+            cache = counter(MetricsName.QUERY_CACHE, project, tags);
+            aggIndex = counter(MetricsName.QUERY_AGG_INDEX, project, tags);
+            tableIndex = counter(MetricsName.QUERY_TABLE_INDEX, project, tags);
+            latency = MetricsGroup.histogramHandle(MetricsName.QUERY_LATENCY, MetricsCategory.PROJECT, project, tags);
+            scanBytes = MetricsGroup.histogramHandle(MetricsName.QUERY_SCAN_BYTES, MetricsCategory.PROJECT, project,
+                    tags);
+        }
+
+        private static MetricsGroup.CounterHandle counter(MetricsName name, String project, Map<String, String> tags) {
+            return MetricsGroup.counterHandle(name, MetricsCategory.PROJECT, project, tags);
+        }
+
+        private static MetricsGroup.MeterHandle meter(MetricsName name, String project, Map<String, String> tags) {
+            return MetricsGroup.meterHandle(name, MetricsCategory.PROJECT, project, tags);
+        }
+    }
+
+    private static class HostMetrics {
+        private final MetricsGroup.CounterHandle query;
+        private final MetricsGroup.CounterHandle scanBytes;
+        private final MetricsGroup.HistogramHandle time;
+
+        private HostMetrics(String server) {
+            query = MetricsGroup.counterHandle(MetricsName.QUERY_HOST, MetricsCategory.HOST, server);
+            scanBytes = MetricsGroup.counterHandle(MetricsName.QUERY_SCAN_BYTES_HOST, MetricsCategory.HOST, server);
+            time = MetricsGroup.histogramHandle(MetricsName.QUERY_TIME_HOST, MetricsCategory.HOST, server);
         }
-        MetricsGroup.counterInc(MetricsName.QUERY_TOTAL_DURATION, MetricsCategory.PROJECT, project, tags, duration);
     }
 
 }
@@ -56,6 +56,8 @@ public class SQLRequest implements Serializable, ProjectInsensitiveRequest, Vali
     private String executeAs;
     private Integer offset = 0;
     private Integer limit = 0;
+    // rows returned per page, the rest rows are fetched by the cursor of the response, 0 returns all rows
+    private Integer fetchSize = 0;
     private boolean acceptPartial = false;
     private Boolean forcedToPushDown;
     @JsonProperty("forced_to_index")
@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kylin.rest.cache;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class TwoTierCacheTest {
+
+    private static final String TYPE = "StorageCache";
+    private static final String PROJECT = "default";
+
+    @Test
+    public void testGetFromLocalTier() {
+        KylinCache remote = Mockito.mock(KylinCache.class);
+        TwoTierCache cache = new TwoTierCache(remote, 100, 60, value -> 1);
+
+        cache.put(TYPE, PROJECT, "key1", "value1");
+        Mockito.verify(remote).put(TYPE, PROJECT, "key1", "value1");
+        Assert.assertEquals("value1", cache.get(TYPE, PROJECT, "key1"));
+        Mockito.verify(remote, Mockito.never()).get(TYPE, PROJECT, "key1");
+
+        // a remote hit fills the local tier
+        Mockito.when(remote.get(TYPE, PROJECT, "key2")).thenReturn("value2");
+        Assert.assertEquals("value2", cache.get(TYPE, PROJECT, "key2"));
+        Assert.assertEquals("value2", cache.get(TYPE, PROJECT, "key2"));
+        Mockito.verify(remote, Mockito.times(1)).get(TYPE, PROJECT, "key2");
+
+        Assert.assertNull(cache.get(TYPE, PROJECT, "key3"));
+        Assert.assertNull(cache.get("SchemaCache", PROJECT, "key1"));
+        Assert.assertEquals(2, cache.localSize());
+    }
+
+    @Test
+    public void testRemoveAndClear() {
+        KylinCache remote = Mockito.mock(KylinCache.class);
+        TwoTierCache cache = new TwoTierCache(remote, 100, 60, value -> 1);
+        cache.put(TYPE, PROJECT, "key1", "value1");
+        cache.put(TYPE, "other", "key1", "value1");
+        cache.put("SchemaCache", PROJECT, "key1", "value1");
+
+        Mockito.when(remote.remove(TYPE, PROJECT, "key1")).thenReturn(true);
+        Assert.assertTrue(cache.remove(TYPE, PROJECT, "key1"));
+        Assert.assertNull(cache.get(TYPE, PROJECT, "key1"));
+
+        cache.clearByType(TYPE, "other");
+        Mockito.verify(remote).clearByType(TYPE, "other");
+        Assert.assertEquals(1, cache.localSize());
+
+        cache.clearAll();
+        Mockito.verify(remote).clearAll();
+        Assert.assertEquals(0, cache.localSize());
+    }
+
+    @Test
+    public void testLocalTierBoundedByWeight() {
+        KylinCache remote = Mockito.mock(KylinCache.class);
+        TwoTierCache cache = new TwoTierCache(remote, 10, 60, value -> ((String) value).length());
+        cache.put(TYPE, PROJECT, "large", "this value is too large");
+        Assert.assertEquals(0, cache.localSize());
+
+        Mockito.when(remote.get(TYPE, PROJECT, "large")).thenReturn("this value is too large");
+        Assert.assertEquals("this value is too large", cache.get(TYPE, PROJECT, "large"));
+        Assert.assertEquals(0, cache.localSize());
+    }
+}
@@ -793,6 +793,30 @@ public abstract class KylinConfigBase implements Serializable {
         return Boolean.parseBoolean(getOptional("kylin.query.snapshot-preferred-for-table-exclusion", TRUE));
     }
 
+    public boolean isQueryLookupCacheEnabled() {
+        return Boolean.parseBoolean(getOptional("kylin.query.lookup-cache-enabled", TRUE));
+    }
+
+    /**
+     * The max estimated size of the snapshots kept in memory by the query driver.
+     */
+    public long getQueryLookupCacheMaxBytes() {
+        return SizeConvertUtil.byteStringAs(getOptional("kylin.query.lookup-cache-max-size", "256mb"), ByteUnit.BYTE);
+    }
+
+    /**
+     * A snapshot whose files are no larger than this is decoded and kept in memory as a local relation,
+     * a larger one is cached as a relation over its files.
+     */
+    public long getQueryLookupLocalRelationMaxBytes() {
+        return SizeConvertUtil.byteStringAs(getOptional("kylin.query.lookup-local-relation-max-size", "8mb"),
+                ByteUnit.BYTE);
+    }
+
+    public long getQueryLookupCacheExpireSeconds() {
+        return TimeUtil.timeStringAs(getOptional("kylin.query.lookup-cache-expire-time", "1h"), TimeUnit.SECONDS);
+    }
+
     public boolean onlyReuseUserDefinedCC() {
         return Boolean.parseBoolean(getOptional("kylin.metadata.only-reuse-user-defined-computed-column", FALSE));
     }
@@ -922,6 +946,10 @@ public abstract class KylinConfigBase implements Serializable {
         return Long.parseLong(getOptional("kylin.dictionary.globalV2-version-ttl", "259200000"));
     }
 
+    public boolean isGlobalDictV2OffHeapEncodeEnabled() {
+        return Boolean.parseBoolean(getOptional("kylin.dictionary.globalV2-off-heap-encode-enabled", FALSE));
+    }
+
     public long getNullEncodingOptimizeThreshold() {
         return Long.parseLong(getOptional("kylin.dictionary.null-encoding-opt-threshold", "40000000"));
     }
@@ -1497,6 +1525,14 @@ public abstract class KylinConfigBase implements Serializable {
         return getOptional("kylin.source.jdbc.convert-to-lowercase", FALSE);
     }
 
+    public int getJdbcReadPartitions() {
+        return Integer.parseInt(getOptional("kylin.source.jdbc.read-partitions", "1"));
+    }
+
+    public int getJdbcFetchSize() {
+        return Integer.parseInt(getOptional("kylin.source.jdbc.fetch-size", "0"));
+    }
+
     // ============================================================================
     // STORAGE.PARQUET
     // ============================================================================
@@ -1867,6 +1903,10 @@ public abstract class KylinConfigBase implements Serializable {
         return getOptional("kylin.streaming.watermark", "");
     }
 
+    public boolean isStreamingProjectedJsonParserEnabled() {
+        return Boolean.parseBoolean(getOptional("kylin.streaming.json-projected-parser-enabled", FALSE));
+    }
+
     public long getStreamingJobExecutionIdCheckInterval() {
         return TimeUtil.timeStringAs(getOptional("kylin.streaming.job-execution-id-check-interval", "1m"),
                 TimeUnit.MINUTES);
@@ -2062,6 +2102,65 @@ public abstract class KylinConfigBase implements Serializable {
         return Boolean.parseBoolean(this.getOptional("kylin.query.cache-enabled", TRUE));
     }
 
+    public boolean isQueryCacheCoalescingEnabled() {
+        return Boolean.parseBoolean(this.getOptional("kylin.query.cache-coalescing-enabled", TRUE));
+    }
+
+    public boolean isQueryCacheLocalTierEnabled() {
+        return Boolean.parseBoolean(this.getOptional("kylin.query.cache-local-tier-enabled", TRUE));
+    }
+
+    /**
+     * The max weight of the local tier in front of redis or memcached, a query response weighs its cell count.
+     */
+    public long getQueryCacheLocalTierMaxWeight() {
+        return Long.parseLong(this.getOptional("kylin.query.cache-local-tier-max-weight", "10000000"));
+    }
+
+    public long getQueryCacheLocalTierExpireSeconds() {
+        return TimeUtil.timeStringAs(this.getOptional("kylin.query.cache-local-tier-expire-time", "60s"),
+                TimeUnit.SECONDS);
+    }
+
+    /**
+     * A result cursor of a query fetched by pages is released when it's not fetched for this long.
+     */
+    public long getQueryResultCursorIdleTimeoutSeconds() {
+        return TimeUtil.timeStringAs(this.getOptional("kylin.query.result-cursor-idle-timeout", "300s"),
+                TimeUnit.SECONDS);
+    }
+
+    /**
+     * Beyond this many open result cursors, a query fetched by pages returns its whole result at once.
+     */
+    public int getQueryResultCursorMaxCount() {
+        return Integer.parseInt(this.getOptional("kylin.query.result-cursor-max-count", "100"));
+    }
+
+    public boolean isQueryPlanCacheEnabled() {
+        return Boolean.parseBoolean(this.getOptional("kylin.query.plan-cache-enabled", FALSE));
+    }
+
+    public long getQueryPlanCacheMaxSize() {
+        return Long.parseLong(this.getOptional("kylin.query.plan-cache-max-size", "1000"));
+    }
+
+    public long getQueryPlanCacheExpireMinutes() {
+        return Long.parseLong(this.getOptional("kylin.query.plan-cache-expire-minutes", "60"));
+    }
+
+    public boolean isQueryMassagedSqlCacheEnabled() {
+        return Boolean.parseBoolean(this.getOptional("kylin.query.massaged-sql-cache-enabled", FALSE));
+    }
+
+    public long getQueryMassagedSqlCacheMaxSize() {
+        return Long.parseLong(this.getOptional("kylin.query.massaged-sql-cache-max-size", "10000"));
+    }
+
+    public long getQueryMassagedSqlCacheExpireMinutes() {
+        return Long.parseLong(this.getOptional("kylin.query.massaged-sql-cache-expire-minutes", "60"));
+    }
+
     public boolean isSchemaCacheEnabled() {
         return Boolean.parseBoolean(this.getOptional("kylin.query.schema-cache-enabled", FALSE));
     }
@@ -2394,6 +2493,14 @@ public abstract class KylinConfigBase implements Serializable {
         return Boolean.parseBoolean(this.getOptional("kylin.query.security.acl-tcr-enabled", TRUE));
     }
 
+    public boolean isAclDigestCacheEnabled() {
+        return Boolean.parseBoolean(this.getOptional("kylin.query.security.acl-digest-cache-enabled", TRUE));
+    }
+
+    public long getAclDigestCacheMaxSize() {
+        return Long.parseLong(this.getOptional("kylin.query.security.acl-digest-cache-max-size", "1000"));
+    }
+
     public boolean inferFiltersEnabled() {
         return Boolean.parseBoolean(this.getOptional("kylin.job.infer-filters-enabled", FALSE));
     }
@@ -2821,6 +2928,14 @@ public abstract class KylinConfigBase implements Serializable {
         return Integer.parseInt(getOptional("kylin.query.calcite.bindable.cache.concurrencyLevel", "5"));
     }
 
+    public boolean isCalciteCompiledBindableCacheEnabled() {
+        return Boolean.parseBoolean(getOptional("kylin.query.calcite.compiled-bindable-cache-enabled", TRUE));
+    }
+
+    public long getCalciteCompiledBindableCacheMaxSize() {
+        return Long.parseLong(getOptional("kylin.query.calcite.compiled-bindable-cache-max-size", "1000"));
+    }
+
     public boolean isCalciteCompatibleWithMsSqlPlusEnabled() {
         return Boolean.parseBoolean(getOptional("kylin.query.calcite.compatible-with-mssql-plus-enabled", FALSE));
     }
@@ -2940,6 +3055,10 @@ public abstract class KylinConfigBase implements Serializable {
         return Boolean.parseBoolean(getOptional("kylin.engine.persist-flattable-enabled", TRUE));
     }
 
+    public boolean isMergeRowGroupConcatEnabled() {
+        return Boolean.parseBoolean(getOptional("kylin.engine.merge-row-group-concat-enabled", FALSE));
+    }
+
     public boolean isFlatTableRedistributionEnabled() {
         return Boolean.parseBoolean(getOptional("kylin.engine.redistribution-flattable-enabled", FALSE));
     }
@@ -3239,6 +3358,26 @@ public abstract class KylinConfigBase implements Serializable {
                 TimeUnit.SECONDS);
     }
 
+    public boolean isQueryHistorySpillEnabled() {
+        return Boolean.parseBoolean(getOptional("kylin.query.queryhistory.spill-enabled", FALSE));
+    }
+
+    public String getQueryHistorySpillDir() {
+        String kylinHome = getKylinHomeWithoutWarn();
+        String spillDir = "query_history_spill";
+        return getOptional("kylin.query.queryhistory.spill-dir",
+                StringUtils.isNotEmpty(kylinHome) ? kylinHome + File.separator + spillDir : spillDir);
+    }
+
+    public long getQueryHistorySpillMaxBytes() {
+        return SizeConvertUtil.byteStringAs(getOptional("kylin.query.queryhistory.spill-max-size", "1gb"),
+                ByteUnit.BYTE);
+    }
+
+    public int getQueryHistorySpillBatchSize() {
+        return Integer.parseInt(getOptional("kylin.query.queryhistory.spill-batch-size", "1000"));
+    }
+
     public int getQueryHistoryAccelerateBatchSize() {
         return Integer.parseInt(this.getOptional("kylin.favorite.query-history-accelerate-batch-size", "1000"));
     }
@@ -3733,6 +3872,10 @@ public abstract class KylinConfigBase implements Serializable {
         return Boolean.parseBoolean(getOptional("kylin.storage.columnar.dimension-range-filter-enabled", TRUE));
     }
 
+    public boolean isFileZoneMapEnabled() {
+        return Boolean.parseBoolean(getOptional("kylin.storage.columnar.file-zone-map-enabled", FALSE));
+    }
+
     public boolean isQueryDimensionRangeFilterEnabled() {
         return Boolean.parseBoolean(getOptional("kylin.query.dimension-range-filter-enabled", FALSE));
     }
@@ -3836,6 +3979,14 @@ public abstract class KylinConfigBase implements Serializable {
         return Integer.parseInt(getOptional("kylin.auditlog.replay-eventual-delay-item-batch", "1000"));
     }
 
+    public int getReplayParallelism() {
+        return Math.max(1, Integer.parseInt(getOptional("kylin.auditlog.replay-parallelism", "4")));
+    }
+
+    public boolean isReplayPrefetchEnabled() {
+        return Boolean.parseBoolean(getOptional("kylin.auditlog.replay-prefetch-enabled", TRUE));
+    }
+
     public boolean skipCheckFlatTable() {
         return Boolean.parseBoolean(getOptional("kylin.model.skip-check-flattable", FALSE));
     }
@@ -4050,6 +4201,18 @@ public abstract class KylinConfigBase implements Serializable {
         return Integer.parseInt(this.getOptional("kylin.job.slave-pull-batch-size", "20"));
     }
 
+    public boolean isJobSchedulerWakeUpEnabled() {
+        return Boolean.parseBoolean(this.getOptional("kylin.job.scheduler.wake-up-enabled", TRUE));
+    }
+
+    /**
+     * The idle poll interval of the job scheduler when woken up by job state changes, to catch the changes missed.
+     * Not positive by default, the master and slave poll intervals are kept.
+     */
+    public long getJobSchedulerFallbackPollIntervalSec() {
+        return Long.parseLong(this.getOptional("kylin.job.scheduler.fallback-poll-interval-second", "-1"));
+    }
+
     public int getJobLockClientRenewalMaxThreads() {
         return Integer.parseInt(this.getOptional("kylin.job.lock-client-renewal-threads", "3"));
     }
@@ -4427,6 +4590,19 @@ public abstract class KylinConfigBase implements Serializable {
                 .parseBoolean(getOptional("kylin.query.using-metadata-answer-minmax-of-dimension-locally", FALSE));
     }
 
+    public boolean isQueryLocalLayoutScanEnabled() {
+        return Boolean.parseBoolean(getOptional("kylin.query.local-layout-scan-enabled", FALSE));
+    }
+
+    public long getQueryLocalLayoutScanMaxBytes() {
+        return SizeConvertUtil.byteStringAs(getOptional("kylin.query.local-layout-scan-max-bytes", "16mb"),
+                ByteUnit.BYTE);
+    }
+
+    public int getQueryLocalLayoutScanBatchSize() {
+        return Integer.parseInt(getOptional("kylin.query.local-layout-scan-batch-size", "4096"));
+    }
+
     public String getSourceJDBCExtend() {
         return getOptional("kylin.source.jdbc.extend", "");
     }
@@ -119,6 +119,20 @@ public class QueryContext implements Closeable {
     @Setter
     private boolean enhancedAggPushDown;
 
+    /**
+     * The result is written in the binary format, the result rows keep the typed values for it
+     */
+    @Getter
+    @Setter
+    private boolean binaryResult = false;
+
+    /**
+     * The result is fetched by pages, it's collected as an iterator as with kylin.query.use-iterable-collect
+     */
+    @Getter
+    @Setter
+    private boolean iterableResult = false;
+
     /**
      * For debug purpose, will show RelNode
      * when dryRun is enabled
@@ -53,4 +53,9 @@ public class JsonSerializer<T extends RootPersistentEntity> implements Serialize
         else
             JsonUtil.writeValueIndent(out, obj);
     }
+
+    @Override
+    public T copy(T obj) throws IOException {
+        return JsonUtil.deepCopyByTokens(obj, clz);
+    }
 }
@@ -18,6 +18,8 @@
 
 package org.apache.kylin.common.persistence;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
@@ -32,4 +34,19 @@ public interface Serializer<T extends RootPersistentEntity> {
 
     public T deserialize(DataInputStream in) throws IOException;
 
+    /**
+     * @return a copy of obj, same as deserializing the serialized obj
+     */
+    default T copy(T obj) throws IOException {
+        byte[] bytes;
+        try (ByteArrayOutputStream buf = new ByteArrayOutputStream();
+                DataOutputStream dout = new DataOutputStream(buf)) {
+            serialize(obj, dout);
+            bytes = buf.toByteArray();
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            return deserialize(in);
+        }
+    }
+
 }
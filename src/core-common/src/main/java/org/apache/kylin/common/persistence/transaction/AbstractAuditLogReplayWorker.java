@@ -18,10 +18,15 @@
 package org.apache.kylin.common.persistence.transaction;
 
 import static org.apache.kylin.common.exception.CommonErrorCode.FAILED_CONNECT_META_DATABASE;
+import static org.apache.kylin.common.persistence.ResourceStore.GLOBAL_PROJECT;
 
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeoutException;
@@ -39,6 +44,7 @@ import org.apache.kylin.common.persistence.metadata.AuditLogStore;
 import org.apache.kylin.common.util.DaemonThreadFactory;
 import org.apache.kylin.common.util.ExecutorServiceUtil;
 import org.apache.kylin.guava30.shaded.common.base.Preconditions;
+import org.apache.kylin.guava30.shaded.common.collect.Lists;
 import org.apache.kylin.guava30.shaded.common.collect.Maps;
 
 import lombok.Getter;
@@ -55,6 +61,9 @@ public abstract class AbstractAuditLogReplayWorker {
 
     protected volatile ScheduledExecutorService consumeExecutor;
 
+    // replays the projects of a batch in parallel, created on first use
+    private volatile ExecutorService replayExecutor;
+
     // only a thread is necessary
     protected static volatile ScheduledExecutorService publicExecutorPool = Executors.newScheduledThreadPool(1,
             new DaemonThreadFactory("PublicReplayWorker"));
@@ -97,6 +106,15 @@ public abstract class AbstractAuditLogReplayWorker {
                 ExecutorServiceUtil.forceShutdown(consumeExecutor);
             }
         }
+        ExecutorService executor = replayExecutor;
+        if (executor != null) {
+            replayExecutor = null;
+            if (isGracefully) {
+                ExecutorServiceUtil.shutdownGracefully(executor, 60);
+            } else {
+                ExecutorServiceUtil.forceShutdown(executor);
+            }
+        }
     }
 
     protected void replayLogs(MessageSynchronization replayer, List<AuditLog> logs) {
@@ -104,6 +122,7 @@ public abstract class AbstractAuditLogReplayWorker {
             return;
         }
         Map<String, UnitMessages> messagesMap = Maps.newLinkedHashMap();
+        Map<String, String> unitProjects = Maps.newHashMap();
         for (AuditLog log : logs) {
             if (modelUuid != null && !modelUuid.equals(log.getModelUuid())) {
                 continue;
@@ -115,19 +134,106 @@ public abstract class AbstractAuditLogReplayWorker {
                 UnitMessages newMessages = new UnitMessages();
                 newMessages.getMessages().add(event);
                 messagesMap.put(unitId, newMessages);
+                unitProjects.put(unitId, laneOf(log));
             } else {
                 messagesMap.get(unitId).getMessages().add(event);
+                if (!Objects.equals(unitProjects.get(unitId), laneOf(log))) {
+                    unitProjects.put(unitId, null);
+                }
+            }
+        }
+
+        for (Map<String, List<UnitMessages>> stage : splitStages(messagesMap, unitProjects)) {
+            if (stage.size() == 1 || config.getReplayParallelism() == 1) {
+                stage.values().forEach(lane -> replayLane(replayer, lane));
+                continue;
             }
+            ExecutorService executor = getReplayExecutor();
+            join(CompletableFuture.allOf(stage.values().stream()
+                    .map(lane -> CompletableFuture.runAsync(() -> replayLane(replayer, lane), executor))
+                    .toArray(CompletableFuture[]::new)));
         }
+    }
 
+    /**
+     * @return the project of a project level resource, null for a global one
+     */
+    private static String laneOf(AuditLog log) {
+        String project = log.getProject();
+        return project == null || GLOBAL_PROJECT.equals(project) ? null : project;
+    }
+
+    /**
+     * Split the units into stages replayed one after another. The units of a stage are grouped by project into
+     * lanes, the lanes may be replayed in parallel and the units of a lane are replayed in order. A unit touching
+     * global resources or more than one project is a stage on its own, and a unit touching a resource of another
+     * lane starts a new stage, so a resource is always replayed in order.
+     */
+    private static List<Map<String, List<UnitMessages>>> splitStages(Map<String, UnitMessages> messagesMap,
+            Map<String, String> unitProjects) {
+        List<Map<String, List<UnitMessages>>> stages = Lists.newArrayList();
+        Map<String, List<UnitMessages>> stage = null;
+        Map<String, String> resPathLanes = Maps.newHashMap();
+        for (Map.Entry<String, UnitMessages> entry : messagesMap.entrySet()) {
+            String project = unitProjects.get(entry.getKey());
+            if (project == null) {
+                Map<String, List<UnitMessages>> barrier = Maps.newLinkedHashMap();
+                barrier.put(GLOBAL_PROJECT, Lists.newArrayList(entry.getValue()));
+                stages.add(barrier);
+                stage = null;
+                continue;
+            }
+            List<String> resPaths = MessageSynchronization.resPathsOf(entry.getValue());
+            if (stage == null
+                    || resPaths.stream().anyMatch(path -> !project.equals(resPathLanes.getOrDefault(path, project)))) {
+                stage = Maps.newLinkedHashMap();
+                stages.add(stage);
+                resPathLanes.clear();
+            }
+            stage.computeIfAbsent(project, key -> Lists.newArrayList()).add(entry.getValue());
+            resPaths.forEach(path -> resPathLanes.put(path, project));
+        }
+        return stages;
+    }
+
+    private void replayLane(MessageSynchronization replayer, List<UnitMessages> lane) {
         try (SetLogCategory ignored = new SetLogCategory(LogConstant.METADATA_CATEGORY)) {
-            for (UnitMessages message : messagesMap.values()) {
+            for (UnitMessages message : lane) {
                 log.debug("replay {} event for project:{}", message.getMessages().size(), message.getKey());
                 replayer.replay(message);
             }
         }
     }
 
+    protected ExecutorService getReplayExecutor() {
+        ExecutorService executor = replayExecutor;
+        if (executor == null) {
+            synchronized (this) {
+                executor = replayExecutor;
+                if (executor == null) {
+                    executor = Executors.newFixedThreadPool(config.getReplayParallelism(),
+                            new DaemonThreadFactory("AuditLogReplayer"));
+                    replayExecutor = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * Wait for the future, and throw its exception as is.
+     */
+    protected static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
     public abstract long getLogOffset();
 
     public abstract void updateOffset(long expected);
@@ -25,6 +25,7 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -64,6 +65,10 @@ public class AuditLogReplayWorker extends AbstractAuditLogReplayWorker {
 
     private final Queue<AuditLogReplayWorker.AuditIdTimeItem> delayIdQueue;
 
+    // for the replay lag
+    private volatile long latestMaxId = 0L;
+    private volatile Long lastReplayedTimestamp;
+
     private final long idEarliestTimeoutMills;
     private final long idTimeoutMills;
     private final int replayDelayBatch;
@@ -198,6 +203,7 @@ public class AuditLogReplayWorker extends AbstractAuditLogReplayWorker {
         val needReplayedIdList = collectReplayDelayedId(replayDelayBatch);
 
         val currentWindow = new FixedWindow(currentId, auditLogStore.getMaxId());
+        latestMaxId = Math.max(latestMaxId, currentWindow.getEnd());
         if (currentWindow.isEmpty() && CollectionUtils.isEmpty(needReplayedIdList)) {
             return;
         }
@@ -227,14 +233,25 @@ public class AuditLogReplayWorker extends AbstractAuditLogReplayWorker {
             log.debug("start restore from {}", currentWindow);
         }
         val stepWin = new SlideWindow(currentWindow);
-
-        while (stepWin.forwardRightStep(STEP)) {
-            val logs = auditLogStore.fetch(stepWin.getStart(), stepWin.length());
-            replayLogs(replayer, logs);
-            if (!allCommitOk) {
-                recordStepAbsentIdList(stepWin, logs);
+        // the next page is fetched while the current one is replayed
+        CompletableFuture<List<AuditLog>> nextPage = stepWin.forwardRightStep(STEP) ? fetchPage(stepWin) : null;
+        try {
+            while (nextPage != null) {
+                val pageWin = new FixedWindow(stepWin.getStart(), stepWin.getEnd());
+                val logs = join(nextPage);
+                stepWin.syncRightStep();
+                nextPage = stepWin.forwardRightStep(STEP) ? fetchPage(stepWin) : null;
+
+                replayLogs(replayer, logs);
+                if (!allCommitOk) {
+                    recordStepAbsentIdList(pageWin, logs);
+                }
+                recordReplayed(logs);
+            }
+        } finally {
+            if (nextPage != null) {
+                nextPage.cancel(true);
             }
-            stepWin.syncRightStep();
         }
         try (SetLogCategory ignored = new SetLogCategory(LogConstant.METADATA_CATEGORY)) {
             log.debug("end restore from {}, delay queue:{}", currentWindow, delayIdQueue.size());
@@ -242,6 +259,39 @@ public class AuditLogReplayWorker extends AbstractAuditLogReplayWorker {
         return currentWindow.getEnd();
     }
 
+    private CompletableFuture<List<AuditLog>> fetchPage(FixedWindow page) {
+        long start = page.getStart();
+        long length = page.length();
+        if (!config.isReplayPrefetchEnabled()) {
+            return CompletableFuture.completedFuture(auditLogStore.fetch(start, length));
+        }
+        return CompletableFuture.supplyAsync(() -> auditLogStore.fetch(start, length), getReplayExecutor());
+    }
+
+    private void recordReplayed(List<AuditLog> logs) {
+        if (CollectionUtils.isNotEmpty(logs)) {
+            lastReplayedTimestamp = logs.get(logs.size() - 1).getTimestamp();
+        }
+    }
+
+    /**
+     * @return the number of audit logs not replayed yet, as of the last catchup
+     */
+    public long getReplayLagIds() {
+        return Math.max(0, latestMaxId - logOffset);
+    }
+
+    /**
+     * @return milliseconds since the last replayed audit log was written if there is any audit log not replayed yet,
+     *         as of the last catchup, otherwise 0
+     */
+    public long getReplayLagMs() {
+        if (getReplayLagIds() == 0 || lastReplayedTimestamp == null) {
+            return 0;
+        }
+        return Math.max(0, System.currentTimeMillis() - lastReplayedTimestamp);
+    }
+
     private boolean waitMaxIdOk(long currentId, long maxId) {
         try {
             if (maxId == currentId) {
@@ -64,6 +64,11 @@ public class BroadcastEventReadyNotifier extends SchedulerEventNotifier {
          */
         QUERY_AND_ALL,
 
+        /**
+         * All、Job、Data loading、Common、Smart、Ops, nodes running a job scheduler
+         */
+        SCHEDULER_NODES,
+
         ALL_NODES, JOB_NODES, QUERY_NODES
     }
 }
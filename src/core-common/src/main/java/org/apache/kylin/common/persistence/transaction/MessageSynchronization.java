@@ -20,6 +20,10 @@ package org.apache.kylin.common.persistence.transaction;
 import static org.apache.kylin.common.persistence.metadata.FileSystemMetadataStore.HDFS_SCHEME;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.locks.Lock;
+import java.util.stream.Collectors;
 
 import org.apache.kylin.common.KylinConfig;
 import org.apache.kylin.common.persistence.RawResource;
@@ -27,9 +31,12 @@ import org.apache.kylin.common.persistence.ResourceStore;
 import org.apache.kylin.common.persistence.UnitMessages;
 import org.apache.kylin.common.persistence.event.ResourceCreateOrUpdateEvent;
 import org.apache.kylin.common.persistence.event.ResourceDeleteEvent;
+import org.apache.kylin.common.persistence.event.ResourceRelatedEvent;
 import org.apache.kylin.common.persistence.metadata.FileSystemMetadataStore;
 import org.apache.kylin.common.scheduler.EventBusFactory;
+import org.apache.kylin.guava30.shaded.common.collect.Lists;
 import org.apache.kylin.guava30.shaded.common.io.ByteSource;
+import org.apache.kylin.guava30.shaded.common.util.concurrent.Striped;
 
 import lombok.Setter;
 import lombok.val;
@@ -38,7 +45,11 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class MessageSynchronization {
 
+    private static final int REPLAY_LOCK_STRIPES = 256;
+
     private final KylinConfig config;
+    // messages on different resources may be replayed in parallel, the same resource is replayed in order
+    private final Striped<Lock> replayLocks = Striped.lock(REPLAY_LOCK_STRIPES);
     private final EventListenerRegistry eventListener;
     @Setter
     private ResourceStore.Callback<Boolean> checker;
@@ -68,18 +79,34 @@ public class MessageSynchronization {
         replayInTransaction(messages);
     }
 
-    synchronized void replayInTransaction(UnitMessages messages) {
-        UnitOfWork.replaying.set(true);
-        messages.getMessages().forEach(event -> {
-            if (event instanceof ResourceCreateOrUpdateEvent) {
-                replayUpdate((ResourceCreateOrUpdateEvent) event);
-                eventListener.onUpdate((ResourceCreateOrUpdateEvent) event);
-            } else if (event instanceof ResourceDeleteEvent) {
-                replayDelete((ResourceDeleteEvent) event);
-                eventListener.onDelete((ResourceDeleteEvent) event);
-            }
-        });
-        UnitOfWork.replaying.remove();
+    void replayInTransaction(UnitMessages messages) {
+        // bulkGet returns the locks in a fixed order to avoid deadlock
+        List<Lock> locks = Lists.newArrayList(replayLocks.bulkGet(resPathsOf(messages)));
+        locks.forEach(Lock::lock);
+        try {
+            UnitOfWork.replaying.set(true);
+            messages.getMessages().forEach(event -> {
+                if (event instanceof ResourceCreateOrUpdateEvent) {
+                    replayUpdate((ResourceCreateOrUpdateEvent) event);
+                    eventListener.onUpdate((ResourceCreateOrUpdateEvent) event);
+                } else if (event instanceof ResourceDeleteEvent) {
+                    replayDelete((ResourceDeleteEvent) event);
+                    eventListener.onDelete((ResourceDeleteEvent) event);
+                }
+            });
+        } finally {
+            UnitOfWork.replaying.remove();
+            Lists.reverse(locks).forEach(Lock::unlock);
+        }
+    }
+
+    /**
+     * @return the distinct paths of the resources in messages, in lower case for the case insensitive metadata
+     */
+    static List<String> resPathsOf(UnitMessages messages) {
+        return messages.getMessages().stream().filter(ResourceRelatedEvent.class::isInstance)
+                .map(event -> ((ResourceRelatedEvent) event).getResPath().toLowerCase(Locale.ROOT)).distinct()
+                .collect(Collectors.toList());
     }
 
     private void replayDelete(ResourceDeleteEvent event) {
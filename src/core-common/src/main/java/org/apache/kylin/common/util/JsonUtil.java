@@ -18,15 +18,13 @@
 
 package org.apache.kylin.common.util;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.DataInputStream;
-import java.io.DataOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Reader;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -43,8 +41,11 @@ import org.apache.kylin.common.persistence.Serializer;
 import org.apache.kylin.guava30.shaded.common.base.Preconditions;
 import org.apache.kylin.shaded.jackson.datatype.guava.GuavaModule;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.core.util.JsonParserDelegate;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.JsonNode;
@@ -56,6 +57,7 @@ import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
 import com.fasterxml.jackson.databind.type.TypeFactory;
 import com.fasterxml.jackson.databind.util.LRUMap;
 import com.fasterxml.jackson.databind.util.LookupCache;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 
 public class JsonUtil {
 
@@ -222,6 +224,18 @@ public class JsonUtil {
         return mapper.readValue(s, valueType);
     }
 
+    /**
+     * Same as deepCopy, but through a token buffer instead of json text, which saves encoding and parsing
+     * the text, and shares the strings of src with the copy.
+     */
+    public static <T> T deepCopyByTokens(T src, Class<T> valueType) throws IOException {
+        TokenBuffer buffer = new TokenBuffer(mapper, false);
+        mapper.writeValue(buffer, src);
+        try (JsonParser parser = new TextNumberParser(buffer.asParser())) {
+            return mapper.readValue(parser, valueType);
+        }
+    }
+
     public static <T> T deepCopyQuietly(T src, Class<T> valueType) {
         try {
             return deepCopy(src, valueType);
@@ -251,16 +265,7 @@ public class JsonUtil {
         Preconditions.checkNotNull(entity);
         T copy;
         try {
-            byte[] bytes;
-            try (ByteArrayOutputStream buf = new ByteArrayOutputStream();
-                    DataOutputStream dout = new DataOutputStream(buf)) {
-                serializer.serialize(entity, dout);
-                bytes = buf.toByteArray();
-            }
-
-            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
-                copy = serializer.deserialize(in);
-            }
+            copy = serializer.copy(entity);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -287,4 +292,54 @@ public class JsonUtil {
 
     public interface PublicView extends PersistenceView {
     }
+
+    /**
+     * Reports the numbers in a token buffer as they are parsed from json text, e.g. an int for a small long,
+     * a double for a float, so that the untyped values and json nodes copied are the same as by json text.
+     */
+    private static class TextNumberParser extends JsonParserDelegate {
+
+        TextNumberParser(JsonParser parser) {
+            super(parser);
+        }
+
+        @Override
+        public NumberType getNumberType() throws IOException {
+            Number value = getNumberValue();
+            if (value instanceof Integer) {
+                return NumberType.INT;
+            } else if (value instanceof Long) {
+                return NumberType.LONG;
+            } else if (value instanceof BigInteger) {
+                return NumberType.BIG_INTEGER;
+            }
+            return NumberType.DOUBLE;
+        }
+
+        @Override
+        public Number getNumberValue() throws IOException {
+            Number value = delegate.getNumberValue();
+            if (currentToken() != JsonToken.VALUE_NUMBER_INT) {
+                return getDoubleValue();
+            }
+            if (value instanceof BigInteger && ((BigInteger) value).bitLength() >= Long.SIZE) {
+                return value;
+            }
+            long longValue = value.longValue();
+            return longValue == (int) longValue ? (Number) (int) longValue : (Number) longValue;
+        }
+
+        @Override
+        public double getDoubleValue() throws IOException {
+            Number value = delegate.getNumberValue();
+            // a float is written as Float.toString
+            return value instanceof Float ? Double.parseDouble(value.toString()) : delegate.getDoubleValue();
+        }
+
+        @Override
+        public BigDecimal getDecimalValue() throws IOException {
+            Number value = delegate.getNumberValue();
+            return value instanceof Float ? new BigDecimal(value.toString()) : delegate.getDecimalValue();
+        }
+    }
 }
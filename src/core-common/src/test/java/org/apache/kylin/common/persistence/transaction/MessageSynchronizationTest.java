@@ -18,21 +18,28 @@
 package org.apache.kylin.common.persistence.transaction;
 
 import static org.apache.kylin.common.persistence.metadata.JdbcAuditLogStoreTool.createEvents;
+import static org.apache.kylin.common.persistence.ResourceStore.GLOBAL_PROJECT;
 import static org.apache.kylin.common.persistence.metadata.JdbcAuditLogStoreTool.createProjectAuditLog;
 import static org.apache.kylin.common.util.TestUtils.getTestConfig;
 
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import org.apache.kylin.common.persistence.AuditLog;
 import org.apache.kylin.common.persistence.ResourceStore;
 import org.apache.kylin.common.persistence.UnitMessages;
 import org.apache.kylin.common.persistence.event.Event;
 import org.apache.kylin.common.persistence.event.ResourceCreateOrUpdateEvent;
+import org.apache.kylin.common.persistence.metadata.AuditLogStore;
+import org.apache.kylin.common.util.RandomUtil;
 import org.apache.kylin.guava30.shaded.common.collect.Lists;
 import org.apache.kylin.junit.annotation.MetadataInfo;
 import org.apache.kylin.junit.annotation.OverwriteProp;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import lombok.SneakyThrows;
 import lombok.val;
@@ -99,4 +106,51 @@ public class MessageSynchronizationTest {
         Assertions.assertEquals(0, nullCount.get());
     }
 
+    @Test
+    public void testReplayProjectsInParallel() {
+        val replayer = MessageSynchronization.getInstance(getTestConfig());
+        val replayWorker = new AuditLogReplayWorker(getTestConfig(), Mockito.mock(AuditLogStore.class));
+        List<AuditLog> logs = Lists.newArrayList();
+        for (int mvcc = 0; mvcc < 100; mvcc++) {
+            logs.add(createProjectAuditLog("abc1", mvcc, "p1", RandomUtil.randomUUIDStr(), false));
+            logs.add(createProjectAuditLog("abc2", mvcc, "p2", RandomUtil.randomUUIDStr(), false));
+            // the same resource in different lanes is still replayed in order
+            logs.add(createProjectAuditLog("abc3", mvcc, "p" + mvcc % 3, RandomUtil.randomUUIDStr(), false));
+            if (mvcc % 10 == 0) {
+                logs.add(createProjectAuditLog("abc4", mvcc / 10, GLOBAL_PROJECT, RandomUtil.randomUUIDStr(), false));
+            }
+        }
+        ReflectionTestUtils.invokeMethod(replayWorker, "replayLogs", replayer, logs);
+
+        val resourceStore = ResourceStore.getKylinMetaStore(getTestConfig());
+        Assertions.assertEquals(99, resourceStore.getResource("PROJECT/abc1").getMvcc());
+        Assertions.assertEquals(99, resourceStore.getResource("PROJECT/abc2").getMvcc());
+        Assertions.assertEquals(99, resourceStore.getResource("PROJECT/abc3").getMvcc());
+        Assertions.assertEquals(9, resourceStore.getResource("PROJECT/abc4").getMvcc());
+        replayWorker.close(true);
+    }
+
+    @Test
+    public void testReplayLag() {
+        val auditLogStore = Mockito.mock(AuditLogStore.class);
+        val replayWorker = new AuditLogReplayWorker(getTestConfig(), auditLogStore);
+        List<AuditLog> logs = Lists.newArrayList(createProjectAuditLog("abc", 0), createProjectAuditLog("abc", 1));
+        logs.get(0).setId(1);
+        logs.get(1).setId(2);
+        Mockito.when(auditLogStore.getMaxId()).thenReturn(2L);
+        Mockito.when(auditLogStore.count(0, 2)).thenReturn(2L);
+        Mockito.when(auditLogStore.fetch(0, 2)).thenThrow(new IllegalStateException("broken")).thenReturn(logs);
+        Assertions.assertEquals(0, replayWorker.getReplayLagIds());
+
+        Assertions.assertThrows(IllegalStateException.class, () -> replayWorker.catchupToMaxId(0));
+        Assertions.assertEquals(2, replayWorker.getReplayLagIds());
+        Assertions.assertEquals(0, replayWorker.getReplayLagMs());
+
+        replayWorker.catchupToMaxId(0);
+        Assertions.assertEquals(2, replayWorker.getLogOffset());
+        Assertions.assertEquals(0, replayWorker.getReplayLagIds());
+        Assertions.assertEquals(0, replayWorker.getReplayLagMs());
+        replayWorker.close(true);
+    }
+
 }
@@ -19,15 +19,25 @@
 package org.apache.kylin.common.util;
 
 import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.apache.kylin.common.persistence.RootPersistentEntity;
+import org.apache.kylin.guava30.shaded.common.collect.Lists;
+import org.apache.kylin.guava30.shaded.common.collect.Maps;
 import org.junit.Assert;
 import org.junit.jupiter.api.Test;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import lombok.Getter;
+import lombok.Setter;
 import lombok.val;
 
 public class JacksonTest {
@@ -69,6 +79,53 @@ public class JacksonTest {
         Assert.assertTrue(str2.contains("mvcc"));
     }
 
+    @Test
+    public void testDeepCopyByTokens() throws IOException {
+        val e = new NumbersEntity();
+        e.setMvcc(2);
+        e.setUuid("123456");
+        e.getValues().put("short", (short) 1);
+        e.getValues().put("long", 2L);
+        e.getValues().put("bigLong", Long.MAX_VALUE);
+        e.getValues().put("bigInteger", BigInteger.TEN);
+        e.getValues().put("hugeInteger", BigInteger.TEN.pow(30));
+        e.getValues().put("float", 1.1f);
+        e.getValues().put("decimal", new BigDecimal("1.50"));
+        e.getValues().put("list", Lists.newArrayList(3L, 0.1f));
+        e.setNode(new ObjectMapper().valueToTree(e.getValues()));
+        e.setFloatValue(1.1f);
+        e.setDoubleValue(1.1f);
+        e.setDecimal(new BigDecimal("1.50"));
+
+        val copy = JsonUtil.deepCopyByTokens(e, NumbersEntity.class);
+        val expected = JsonUtil.deepCopy(e, NumbersEntity.class);
+        Assert.assertNotSame(e.getValues(), copy.getValues());
+        Assert.assertEquals(-1, copy.getMvcc());
+        Assert.assertEquals(expected.getValues(), copy.getValues());
+        Assert.assertEquals(Integer.class, copy.getValues().get("long").getClass());
+        Assert.assertEquals(Double.class, ((List<?>) copy.getValues().get("list")).get(1).getClass());
+        Assert.assertEquals(expected.getNode(), copy.getNode());
+        Assert.assertEquals(expected.getFloatValue(), copy.getFloatValue(), 0);
+        Assert.assertEquals(expected.getDoubleValue(), copy.getDoubleValue(), 0);
+        Assert.assertEquals(expected.getDecimal(), copy.getDecimal());
+        Assert.assertEquals(JsonUtil.writeValueAsIndentString(expected), JsonUtil.writeValueAsIndentString(copy));
+    }
+
     public static class TestEntity extends RootPersistentEntity {
     }
+
+    @Getter
+    @Setter
+    public static class NumbersEntity extends RootPersistentEntity {
+        @JsonProperty("values")
+        private Map<String, Object> values = Maps.newLinkedHashMap();
+        @JsonProperty("node")
+        private JsonNode node;
+        @JsonProperty("float_value")
+        private float floatValue;
+        @JsonProperty("double_value")
+        private double doubleValue;
+        @JsonProperty("decimal")
+        private BigDecimal decimal;
+    }
 }
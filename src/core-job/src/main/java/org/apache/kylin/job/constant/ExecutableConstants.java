@@ -43,6 +43,7 @@ public final class ExecutableConstants {
     public static final String QUEUE_NAME = "queue_name";
     public static final String CORES = "cores";
     public static final String MEMORY = "memory";
+    public static final String JOB_READY_TIME = "job_ready_time";
 
     public static final String HDFS_BYTES_WRITTEN = "hdfs_bytes_written";
     public static final String SOURCE_RECORDS_COUNT = "source_records_count";
@@ -318,6 +318,10 @@ public class ExecutableManager {
             Optional.ofNullable(removeInfo).ifPresent(set -> set.forEach(info::remove));
             if (ExecutableState.READY == newStatus) {
                 Optional.ofNullable(REMOVE_INFO).ifPresent(set -> set.forEach(info::remove));
+                if (oldStatus != newStatus && Objects.equals(taskOrJobId, jobId)) {
+                    // the job is queued again, for the schedule latency
+                    info.put(ExecutableConstants.JOB_READY_TIME, String.valueOf(System.currentTimeMillis()));
+                }
             }
             // check if job is running on current node
             if (hasRunningJob(jobId)) {
@@ -715,6 +719,7 @@ public class ExecutableManager {
             resumeJob(jobId, getJob(jobId), force);
             return true;
         });
+        EventBusFactory.getInstance().postAsync(new JobReadyNotifier(project));
     }
 
     //for ut
@@ -904,6 +909,7 @@ public class ExecutableManager {
             restartJob(jobId, getJob(jobId));
             return true;
         });
+        EventBusFactory.getInstance().postAsync(new JobReadyNotifier(project));
     }
 
     // for ut
@@ -29,22 +29,33 @@ import java.util.Objects;
 import java.util.PriorityQueue;
 import java.util.Set;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
 import java.util.stream.Collectors;
 
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
 import org.apache.kylin.common.KylinConfig;
 import org.apache.kylin.common.constant.LogConstant;
 import org.apache.kylin.common.logging.SetLogCategory;
+import org.apache.kylin.common.metrics.MetricsCategory;
+import org.apache.kylin.common.metrics.MetricsGroup;
+import org.apache.kylin.common.metrics.MetricsName;
+import org.apache.kylin.common.persistence.transaction.JobSchedulerWakeUpNotifier;
+import org.apache.kylin.common.scheduler.EventBusFactory;
+import org.apache.kylin.common.scheduler.JobReadyNotifier;
 import org.apache.kylin.common.util.ExecutorServiceUtil;
 import org.apache.kylin.common.util.Pair;
 import org.apache.kylin.common.util.ThreadUtils;
 import org.apache.kylin.guava30.shaded.common.collect.Lists;
 import org.apache.kylin.guava30.shaded.common.collect.Maps;
+import org.apache.kylin.guava30.shaded.common.eventbus.Subscribe;
 import org.apache.kylin.job.JobContext;
+import org.apache.kylin.job.constant.ExecutableConstants;
 import org.apache.kylin.job.core.AbstractJobExecutable;
 import org.apache.kylin.job.core.lock.JdbcJobLock;
 import org.apache.kylin.job.core.lock.LockAcquireListener;
@@ -57,6 +68,7 @@ import org.apache.kylin.job.execution.AbstractExecutable;
 import org.apache.kylin.job.execution.ExecutableManager;
 import org.apache.kylin.job.execution.ExecutableState;
 import org.apache.kylin.job.execution.JobTypeEnum;
+import org.apache.kylin.job.execution.Output;
 import org.apache.kylin.job.rest.JobMapperFilter;
 import org.apache.kylin.job.runners.JobCheckUtil;
 import org.apache.kylin.job.util.JobContextUtil;
@@ -94,6 +106,12 @@ public class JdbcJobScheduler implements JobScheduler {
 
     private ThreadPoolExecutor executorPool;
 
+    private PollTask producer;
+
+    private PollTask consumer;
+
+    private JobStateListener jobStateListener;
+
     private final int consumerMaxThreads;
 
     public JdbcJobScheduler(JobContext jobContext) {
@@ -111,17 +129,49 @@ public class JdbcJobScheduler implements JobScheduler {
                 jobContext.getKylinConfig().getJobSchedulerMasterRenewalSec(),
                 jobContext.getKylinConfig().getJobSchedulerMasterRenewalRatio(), jobContext.getLockClient(),
                 new MasterAcquireListener());
+        // master: publish job, woken up once becoming master
+        producer = new PollTask(master, this::produceJob);
+
         // standby: acquire master lock
         master.schedule(this::standby, 0, TimeUnit.SECONDS);
 
-        // master: publish job
-        master.schedule(this::produceJob, 0, TimeUnit.SECONDS);
+        producer.schedule(0);
     }
 
     @Override
     public void subscribeJob() {
         // slave: subscribe job
-        slave.schedule(this::consumeJob, 0, TimeUnit.SECONDS);
+        consumer = new PollTask(slave, this::consumeJob);
+        consumer.schedule(0);
+    }
+
+    /**
+     * Publish and subscribe jobs now instead of waiting for the next poll.
+     */
+    public void wakeUp() {
+        if (Objects.nonNull(producer)) {
+            producer.wakeUp();
+        }
+        if (Objects.nonNull(consumer)) {
+            consumer.wakeUp();
+        }
+    }
+
+    // jobs are ready or slots are released, wake up the schedulers of this node and the others
+    private void notifyJobStateChanged() {
+        if (!jobContext.getKylinConfig().isJobSchedulerWakeUpEnabled()) {
+            return;
+        }
+        wakeUp();
+        EventBusFactory.getInstance().postAsync(new JobSchedulerWakeUpNotifier());
+    }
+
+    // a longer idle poll is only safe if every job state change wakes up the schedulers, so it's opt-in
+    private long getIdlePollIntervalSec(long pollIntervalSec) {
+        long fallbackPollIntervalSec = jobContext.getKylinConfig().getJobSchedulerFallbackPollIntervalSec();
+        return jobContext.getKylinConfig().isJobSchedulerWakeUpEnabled() && fallbackPollIntervalSec > 0
+                ? fallbackPollIntervalSec
+                : pollIntervalSec;
     }
 
     // public for UT
@@ -163,11 +213,18 @@ public class JdbcJobScheduler implements JobScheduler {
 
         publishJob();
         subscribeJob();
+
+        jobStateListener = new JobStateListener();
+        EventBusFactory.getInstance().register(jobStateListener, false);
     }
 
     // for UT
     public void destroy() {
 
+        if (Objects.nonNull(jobStateListener)) {
+            EventBusFactory.getInstance().unregister(jobStateListener);
+        }
+
         if (Objects.nonNull(masterLock)) {
             try {
                 masterLock.tryRelease();
@@ -207,12 +264,12 @@ public class JdbcJobScheduler implements JobScheduler {
         }
     }
 
-    private void produceJob() {
-        long delaySec = jobContext.getKylinConfig().getJobSchedulerMasterPollIntervalSec();
+    private long produceJob() {
+        long delaySec = getIdlePollIntervalSec(jobContext.getKylinConfig().getJobSchedulerMasterPollIntervalSec());
         try {
             // only master can publish job
             if (!isMaster.get()) {
-                return;
+                return delaySec;
             }
 
             releaseExpiredLock();
@@ -228,6 +285,7 @@ public class JdbcJobScheduler implements JobScheduler {
                     projectRunningIndexPlannerBuildJobMap, JobTypeEnum.Category.REC);
 
             boolean produced = false;
+            int publishedCount = 0;
             for (Map.Entry<String, Integer> entry : projectProduceCountMap.entrySet()) {
                 String project = entry.getKey();
                 int produceCount = entry.getValue();
@@ -249,19 +307,21 @@ public class JdbcJobScheduler implements JobScheduler {
                 logger.info("Begin to produce job for project: {}, product count: {}", project, produceCount);
 
                 for (int i = 0; i < produceCount; i++) {
-                    produceJobForProject(produceCount, projectReadyJobCache, projectRunningRecModelMap.get(project),
-                            projectProduceIndexPlannerBuildJobCountMap);
+                    publishedCount += produceJobForProject(produceCount, projectReadyJobCache,
+                            projectRunningRecModelMap.get(project), projectProduceIndexPlannerBuildJobCountMap);
                 }
             }
             if (produced) {
                 // maybe more jobs exist, publish job immediately
                 delaySec = 0;
             }
+            if (publishedCount > 0) {
+                notifyJobStateChanged();
+            }
         } catch (Exception e) {
             logger.error("Something's wrong when publishing job", e);
-        } finally {
-            master.schedule(this::produceJob, delaySec, TimeUnit.SECONDS);
         }
+        return delaySec;
     }
 
     private void collectProcessingJobInfo(List<JobInfo> processingJobInfoList,
@@ -294,7 +354,7 @@ public class JdbcJobScheduler implements JobScheduler {
         }
     }
 
-    private void produceJobForProject(int produceCount, PriorityQueue<JobInfo> projectReadyJobCache,
+    private int produceJobForProject(int produceCount, PriorityQueue<JobInfo> projectReadyJobCache,
             Set<String> runningRecModels, Map<String, Integer> projectRunningIndexPlannerBuildJob) {
         int i = 0;
         while (i < produceCount) {
@@ -306,6 +366,7 @@ public class JdbcJobScheduler implements JobScheduler {
                 i++;
             }
         }
+        return i;
     }
 
     private boolean doProduce(JobInfo jobInfo, Set<String> runningRecModels,
@@ -431,14 +492,14 @@ public class JdbcJobScheduler implements JobScheduler {
         }
     }
 
-    private void consumeJob() {
-        long delay = jobContext.getKylinConfig().getSchedulerPollIntervalSecond();
+    private long consumeJob() {
+        long delay = getIdlePollIntervalSec(jobContext.getKylinConfig().getSchedulerPollIntervalSecond());
         try {
             // The number of tasks to be obtained cannot exceed the free slots of the 'executorPool'
             int exeFreeSlots = this.consumerMaxThreads - this.runningJobMap.size();
             if (exeFreeSlots <= 0) {
                 logger.info("No free slots to execute job");
-                return;
+                return delay;
             }
             int batchSize = jobContext.getKylinConfig().getJobSchedulerSlavePollBatchSize();
             if (exeFreeSlots < batchSize) {
@@ -449,7 +510,7 @@ public class JdbcJobScheduler implements JobScheduler {
             List<String> jobIdList = findNonLockIdListInOrder(batchSize, projects);
 
             if (CollectionUtils.isEmpty(jobIdList)) {
-                return;
+                return delay;
             }
             // for slave node, force catchup metadata before execute jobs
             if (!isMaster.get()) {
@@ -479,8 +540,8 @@ public class JdbcJobScheduler implements JobScheduler {
             logger.error("Something's wrong when consuming job", e);
         } finally {
             logger.info("{} running jobs in current scheduler", getRunningJob().size());
-            slave.schedule(this::consumeJob, delay, TimeUnit.SECONDS);
         }
+        return delay;
     }
 
     public List<String> findNonLockIdListInOrder(int batchSize, List<String> projects) {
@@ -536,6 +597,7 @@ public class JdbcJobScheduler implements JobScheduler {
 
     private void executeJob(AbstractJobExecutable jobExecutable, JobInfo jobInfo) {
         JdbcJobLock jobLock = null;
+        boolean executed = false;
         try (JobExecutor jobExecutor = new JobExecutor(jobContext, jobExecutable);
                 SetLogCategory ignore = new SetLogCategory(LogConstant.BUILD_CATEGORY)) {
             // Check job status
@@ -564,6 +626,8 @@ public class JdbcJobScheduler implements JobScheduler {
                     .stopJobIfStorageQuotaLimitReached(jobContext, jobInfo.getProject(), jobInfo.getJobId())) {
                 return;
             }
+            recordScheduleLatency(executable);
+            executed = true;
             // heavy action
             jobExecutor.execute();
         } catch (Exception e) {
@@ -573,6 +637,23 @@ public class JdbcJobScheduler implements JobScheduler {
                 stopJobLockRenewAfterExecute(jobLock);
             }
             runningJobMap.remove(jobExecutable.getJobId());
+            if (executed) {
+                // the slot and the project concurrency are released
+                notifyJobStateChanged();
+            }
+        }
+    }
+
+    // from the job being added, restarted or resumed, to the job being executed
+    private void recordScheduleLatency(AbstractExecutable executable) {
+        try {
+            Output output = executable.getOutput();
+            long readyTime = Math.max(output.getCreateTime(),
+                    NumberUtils.toLong(output.getExtra().get(ExecutableConstants.JOB_READY_TIME)));
+            MetricsGroup.hostTagHistogramUpdate(MetricsName.JOB_SCHEDULE_LATENCY, MetricsCategory.PROJECT,
+                    executable.getProject(), System.currentTimeMillis() - readyTime);
+        } catch (Exception e) {
+            logger.warn("Failed to record the schedule latency of job {}", executable.getJobId(), e);
         }
     }
 
@@ -644,6 +725,7 @@ public class JdbcJobScheduler implements JobScheduler {
         public void onSucceed() {
             if (isMaster.compareAndSet(false, true)) {
                 logger.info("Job scheduler become master.");
+                producer.wakeUp();
             } else {
                 logger.debug("Job scheduler keep on master");
             }
@@ -661,6 +743,67 @@ public class JdbcJobScheduler implements JobScheduler {
         }
     }
 
+    private class JobStateListener {
+
+        @Subscribe
+        public void onJobReady(JobReadyNotifier notifier) {
+            notifyJobStateChanged();
+        }
+    }
+
+    /**
+     * Poll on a single thread executor, again after the delay the poll returns, or as soon as woken up.
+     * Waking up during a poll runs the next poll right after it.
+     */
+    private static class PollTask implements Runnable {
+
+        private final ScheduledExecutorService executor;
+
+        private final LongSupplier poll;
+
+        private ScheduledFuture<?> next;
+
+        private boolean polling;
+
+        private boolean wokenUp;
+
+        PollTask(ScheduledExecutorService executor, LongSupplier poll) {
+            this.executor = executor;
+            this.poll = poll;
+        }
+
+        synchronized void schedule(long delaySec) {
+            if (!executor.isShutdown()) {
+                next = executor.schedule(this, delaySec, TimeUnit.SECONDS);
+            }
+        }
+
+        synchronized void wakeUp() {
+            if (polling) {
+                wokenUp = true;
+            } else if (next != null && next.cancel(false)) {
+                schedule(0);
+            }
+        }
+
+        @Override
+        public void run() {
+            synchronized (this) {
+                polling = true;
+                wokenUp = false;
+            }
+            long delaySec = 0;
+            try {
+                delaySec = poll.getAsLong();
+            } finally {
+                synchronized (this) {
+                    polling = false;
+                    schedule(wokenUp ? 0 : delaySec);
+                }
+            }
+        }
+    }
+
     @Getter
     private static class JobAcquireListener implements LockAcquireListener {
 
@@ -163,6 +163,20 @@ class JdbcJobSchedulerTest extends AbstractTestCase {
                 .getExecutablePOByUuid(p2_0).getOutput().getStartTime());
     }
 
+    @Test
+    void testWakeUpOnJobReady() {
+        KylinConfig config = getTestConfig();
+        config.setProperty("kylin.job.scheduler.fallback-poll-interval-second", "60");
+        jobContext.getJobScheduler().destroy();
+        jobContext.getJobScheduler().start();
+        await().pollDelay(2, TimeUnit.SECONDS).until(() -> true);
+
+        // scheduled long before the next poll
+        String jobId = mockJob();
+        await().atMost(10, TimeUnit.SECONDS).until(() -> jobInfoDao.getExecutablePOByUuid(jobId).getOutput()
+                .getStatus().equals(ExecutableState.SUCCEED.name()));
+    }
+
     @Test
     void testFindNonLockIdListInOrder() {
         jobContext.getJobScheduler().destroy();
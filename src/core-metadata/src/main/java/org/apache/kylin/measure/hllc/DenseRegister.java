@@ -18,8 +18,6 @@
 package org.apache.kylin.measure.hllc;
 
 import java.util.Arrays;
-import java.util.Collection;
-import java.util.Map;
 
 /**
  * Created by xiefan on 16-12-9.
@@ -53,12 +51,7 @@ public class DenseRegister implements Register, java.io.Serializable {
                     register[i] = dr.register[i];
             }
         } else if (another.getRegisterType() == RegisterType.SPARSE) {
-            SparseRegister sr = (SparseRegister) another;
-            Collection<Map.Entry<Integer, Byte>> allValue = sr.getAllValue();
-            for (Map.Entry<Integer, Byte> entry : allValue) {
-                if (entry.getValue() > register[entry.getKey()])
-                    register[entry.getKey()] = entry.getValue();
-            }
+            ((SparseRegister) another).mergeTo(register);
         } else {
             SingleValueRegister sr = (SingleValueRegister) another;
             if (sr.getSize() > 0 && sr.getValue() > register[sr.getSingleValuePos()]) {
@@ -22,8 +22,6 @@ import java.io.IOException;
 import java.io.Serializable;
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
-import java.util.Collection;
-import java.util.Map;
 
 import org.apache.kylin.common.util.BytesUtil;
 import org.apache.kylin.guava30.shaded.common.hash.HashFunction;
@@ -290,11 +288,7 @@ public class HLLCounter implements Serializable, Comparable<HLLCounter> {
                     out.put(sr.getValue());
                 }
             } else if (register.getRegisterType() == RegisterType.SPARSE) { //sparse register
-                Collection<Map.Entry<Integer, Byte>> allValue = ((SparseRegister) register).getAllValue();
-                for (Map.Entry<Integer, Byte> entry : allValue) {
-                    writeUnsigned(entry.getKey(), indexLen, out);
-                    out.put(entry.getValue());
-                }
+                ((SparseRegister) register).writeTo(indexLen, out);
             } else { //dense register
                 byte[] registers = ((DenseRegister) register).getRawRegister();
                 for (int i = 0; i < m; i++) {
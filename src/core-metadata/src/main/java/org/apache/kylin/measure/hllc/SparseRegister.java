@@ -17,68 +17,194 @@
  */
 package org.apache.kylin.measure.hllc;
 
-import java.util.Collection;
-import java.util.Collections;
-import java.util.Map;
-import java.util.TreeMap;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 /**
  * Created by xiefan on 16-12-9.
+ *
+ * The registers are packed into a sorted int array, the position in the high 24 bits and the value
+ * in the low 8 bits, so that sorting by the packed entry is sorting by the position.
  */
 public class SparseRegister implements Register, java.io.Serializable {
 
-    private Map<Integer, Byte> sparseRegister = new TreeMap<>();
+    private static final int INITIAL_CAPACITY = 8;
+
+    private int[] entries;
+
+    private int size;
 
     public SparseRegister() {
+        this.entries = new int[INITIAL_CAPACITY];
+    }
+
+    private static int pack(int pos, byte value) {
+        return (pos << 8) | (value & 0xff);
+    }
+
+    private static int positionOf(int entry) {
+        return entry >>> 8;
+    }
+
+    private static byte valueOf(int entry) {
+        return (byte) entry;
     }
 
     public DenseRegister toDense(int p) {
         DenseRegister dr = new DenseRegister(p);
-        for (Map.Entry<Integer, Byte> entry : sparseRegister.entrySet()) {
-            dr.set(entry.getKey(), entry.getValue());
+        byte[] registers = dr.getRawRegister();
+        for (int i = 0; i < size; i++) {
+            registers[positionOf(entries[i])] = valueOf(entries[i]);
         }
         return dr;
     }
 
+    /**
+     * @return index of the position if present, otherwise (-(insertion point) - 1)
+     */
+    private int indexOf(int pos) {
+        // registers are mostly set in order on deserialization
+        if (size == 0 || positionOf(entries[size - 1]) < pos) {
+            return -size - 1;
+        }
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midPos = positionOf(entries[mid]);
+            if (midPos < pos) {
+                low = mid + 1;
+            } else if (midPos > pos) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > entries.length) {
+            entries = Arrays.copyOf(entries, Math.max(capacity, entries.length << 1));
+        }
+    }
+
     @Override
     public void set(int pos, byte value) {
-        sparseRegister.put(pos, value);
+        int index = indexOf(pos);
+        if (index >= 0) {
+            entries[index] = pack(pos, value);
+            return;
+        }
+        index = -index - 1;
+        ensureCapacity(size + 1);
+        System.arraycopy(entries, index, entries, index + 1, size - index);
+        entries[index] = pack(pos, value);
+        size++;
     }
 
     @Override
     public byte get(int pos) {
-        Byte b = sparseRegister.get(pos);
-        return b == null ? 0 : b;
+        int index = indexOf(pos);
+        return index < 0 ? 0 : valueOf(entries[index]);
     }
 
     @Override
     public void merge(Register another) {
         assert another.getRegisterType() != RegisterType.DENSE;
         if (another.getRegisterType() == RegisterType.SPARSE) {
-            SparseRegister sr = (SparseRegister) another;
-            for (Map.Entry<Integer, Byte> entry : sr.sparseRegister.entrySet()) {
-                byte v = get(entry.getKey());
-                if (entry.getValue() > v)
-                    sparseRegister.put(entry.getKey(), entry.getValue());
-            }
+            merge((SparseRegister) another);
         } else if (another.getRegisterType() == RegisterType.SINGLE_VALUE) {
             SingleValueRegister sr = (SingleValueRegister) another;
             if (sr.getSize() > 0) {
                 byte v = get(sr.getSingleValuePos());
                 if (sr.getValue() > v)
-                    sparseRegister.put(sr.getSingleValuePos(), sr.getValue());
+                    set(sr.getSingleValuePos(), sr.getValue());
+            }
+        }
+    }
+
+    /**
+     * Merge two sorted arrays in place from the back, only grows the array when the union does not fit.
+     */
+    private void merge(SparseRegister another) {
+        int[] others = another.entries;
+        int otherSize = another.size;
+        int unionSize = size + otherSize;
+        for (int i = 0, j = 0; i < size && j < otherSize;) {
+            int pos = positionOf(entries[i]);
+            int otherPos = positionOf(others[j]);
+            if (pos < otherPos) {
+                i++;
+            } else if (pos > otherPos) {
+                j++;
+            } else {
+                unionSize--;
+                i++;
+                j++;
+            }
+        }
+        if (unionSize == size) {
+            // no new position, update the values in place
+            for (int i = 0, j = 0; j < otherSize; i++) {
+                if (positionOf(entries[i]) == positionOf(others[j])) {
+                    if (valueOf(others[j]) > valueOf(entries[i]))
+                        entries[i] = others[j];
+                    j++;
+                }
             }
+            return;
+        }
+
+        ensureCapacity(unionSize);
+        int i = size - 1;
+        int j = otherSize - 1;
+        for (int k = unionSize - 1; j >= 0; k--) {
+            int otherPos = positionOf(others[j]);
+            int pos = i >= 0 ? positionOf(entries[i]) : -1;
+            if (pos > otherPos) {
+                entries[k] = entries[i--];
+            } else if (pos < otherPos) {
+                entries[k] = others[j--];
+            } else {
+                entries[k] = valueOf(others[j]) > valueOf(entries[i]) ? others[j] : entries[i];
+                i--;
+                j--;
+            }
+        }
+        size = unionSize;
+    }
+
+    /**
+     * Merge into the raw registers of a dense register.
+     */
+    void mergeTo(byte[] registers) {
+        for (int i = 0; i < size; i++) {
+            int pos = positionOf(entries[i]);
+            byte value = valueOf(entries[i]);
+            if (value > registers[pos])
+                registers[pos] = value;
+        }
+    }
+
+    /**
+     * Write the registers in the map scheme of {@link HLLCounter#writeRegisters}, ordered by position.
+     */
+    void writeTo(int indexLen, ByteBuffer out) {
+        for (int i = 0; i < size; i++) {
+            HLLCounter.writeUnsigned(positionOf(entries[i]), indexLen, out);
+            out.put(valueOf(entries[i]));
         }
     }
 
     @Override
     public void clear() {
-        sparseRegister.clear();
+        size = 0;
     }
 
     @Override
     public int getSize() {
-        return sparseRegister.size();
+        return size;
     }
 
     @Override
@@ -88,9 +214,10 @@ public class SparseRegister implements Register, java.io.Serializable {
 
     @Override
     public int hashCode() {
-        final int prime = 31;
         int result = 1;
-        result = prime * result + ((sparseRegister == null) ? 0 : sparseRegister.hashCode());
+        for (int i = 0; i < size; i++) {
+            result = 31 * result + entries[i];
+        }
         return result;
     }
 
@@ -103,16 +230,13 @@ public class SparseRegister implements Register, java.io.Serializable {
         if (getClass() != obj.getClass())
             return false;
         SparseRegister other = (SparseRegister) obj;
-        if (sparseRegister == null) {
-            if (other.sparseRegister != null)
-                return false;
-        } else if (!sparseRegister.equals(other.sparseRegister))
+        if (size != other.size)
             return false;
+        for (int i = 0; i < size; i++) {
+            if (entries[i] != other.entries[i])
+                return false;
+        }
         return true;
     }
 
-    public Collection<Map.Entry<Integer, Byte>> getAllValue() {
-        return Collections.unmodifiableCollection(sparseRegister.entrySet());
-    }
-
 }
@@ -18,16 +18,14 @@
 
 package org.apache.kylin.measure.topn;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
-
-import org.apache.kylin.guava30.shaded.common.collect.Lists;
-import org.apache.kylin.guava30.shaded.common.collect.Maps;
+import java.util.NoSuchElementException;
+import java.util.Objects;
 
 /**
  * Modified from the StreamSummary.java in https://github.com/addthis/stream-lib
@@ -37,124 +35,187 @@ import org.apache.kylin.guava30.shaded.common.collect.Maps;
  * <i>Efficient Computation of Frequent and Top-k Elements in Data Streams</i>
  * by Metwally, Agrawal, and Abbadi
  *
+ * The counters are kept in primitive arrays indexed by slot, with an open addressing hash index from item to
+ * slot and an indexed min-heap of slots, so offering an item does not allocate and evicting the minimum does
+ * not need a sort. A counter without count is the smallest, it is null in the {@link Counter} view.
+ *
  * @param <T> type of data in the stream to be summarized
  */
 public class TopNCounter<T> implements Iterable<Counter<T>>, java.io.Serializable {
 
     public static int EXTRA_SPACE_RATE = 50;
 
+    private static final int INITIAL_SLOTS = 16;
+
     protected int capacity;
-    private HashMap<T, Counter<T>> counterMap;
-    protected LinkedList<Counter<T>> counterList; //a linked list, first the is the toppest element
-    private boolean ordered = true;
-    private boolean descending = true;
+    private int size;
+
+    // slot -> item, count and list sequence
+    private Object[] items;
+    private double[] counts;
+    private boolean[] nullCounts;
+    // among equal counts the smaller sequence comes first, same as the position in a linked list:
+    // offer appends to the tail, also when it takes over the slot of the dropped minimum,
+    // and offerToHead puts to the head
+    private long[] sequences;
+    private long tailSequence = 0;
+    private long headSequence = 0;
+
+    // min-heap of slots, heap[0] is the counter to be dropped first
+    private int[] heap;
+    private int[] heapPositions;
+
+    // open addressing hash index, item -> slot + 1, 0 means empty
+    private int[] index;
+
+    // slots in descending order, null if changed since last sort
+    private int[] sortedSlots;
 
     /**
      * @param capacity maximum size (larger capacities improve accuracy)
      */
     public TopNCounter(int capacity) {
         this.capacity = capacity;
-        counterMap = Maps.newHashMap();
-        counterList = Lists.newLinkedList();
+        int slots = Math.max(1, Math.min(capacity, INITIAL_SLOTS));
+        items = new Object[slots];
+        counts = new double[slots];
+        nullCounts = new boolean[slots];
+        sequences = new long[slots];
+        heap = new int[slots];
+        heapPositions = new int[slots];
+        index = new int[indexSizeFor(slots)];
     }
 
     public int getCapacity() {
         return capacity;
     }
 
-    public LinkedList<Counter<T>> getCounterList() {
-        return counterList;
+    /**
+     * @return a read-only view of the counters, in descending order if sorted, otherwise in the order they are
+     * stored; the view is backed by this counter and not valid after it is changed
+     */
+    public List<Counter<T>> getCounterList() {
+        final int[] order = sortedSlots;
+        final int n = size;
+        return new AbstractList<Counter<T>>() {
+            @Override
+            public Counter<T> get(int i) {
+                if (i < 0 || i >= n) {
+                    throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + n);
+                }
+                return counterOf(order == null ? i : order[i]);
+            }
+
+            @Override
+            public int size() {
+                return n;
+            }
+        };
     }
 
     public void offer(T item) {
-        offer(item, 1.0);
+        offerCount(item, 1.0);
     }
 
     /**
      * Algorithm: <i>Space-Saving</i>
      *
      * @param item stream element (<i>e</i>)
-     * @return false if item was already in the stream summary, true otherwise
+     * @param incrementCount the increment, null keeps the count unchanged
      */
     public void offer(T item, Double incrementCount) {
-        Counter<T> counterNode = counterMap.get(item);
-
-        boolean isNewItem = (counterNode == null);
-
-        if (isNewItem) {
-            if (size() < capacity) {
-                counterNode = new Counter<>(item, null);
-                if (this.descending) {
-                    counterList.addLast(counterNode);
-                } else {
-                    counterList.addFirst(counterNode);
-                }
-            } else {
-                // the min item should be dropped
-                if (!ordered) {
-                    sort();
-                }
-                counterNode = this.descending ? counterList.getLast() : counterList.getFirst();
-                counterMap.remove(counterNode.getItem());
-                counterNode.setItem(item);
-            }
-            counterMap.put(item, counterNode);
+        int slot = slotOf(item);
+        if (incrementCount != null) {
+            addCount(slot, incrementCount);
         }
+        siftUp(heapPositions[slot]);
+        siftDown(heapPositions[slot]);
+        sortedSlots = null;
+    }
 
-        incrementCounter(counterNode, incrementCount);
+    /**
+     * Same as {@link #offer(Object, Double)} with a primitive increment.
+     */
+    public void offerCount(T item, double incrementCount) {
+        int slot = slotOf(item);
+        addCount(slot, incrementCount);
+        siftUp(heapPositions[slot]);
+        siftDown(heapPositions[slot]);
+        sortedSlots = null;
+    }
 
-        ordered = false;
+    /**
+     * @return the slot of the item, a new slot or the slot of the dropped minimum if the item is absent
+     */
+    private int slotOf(T item) {
+        int slot = find(item);
+        if (slot >= 0) {
+            return slot;
+        }
+        if (size < capacity || size == 0) {
+            slot = appendSlot(item, tailSequence++);
+            heap[size - 1] = slot;
+            heapPositions[slot] = size - 1;
+            siftUp(size - 1);
+        } else {
+            // the min item should be dropped, the new item takes over its count and goes to the tail
+            slot = heap[0];
+            removeFromIndex(slot);
+            items[slot] = item;
+            sequences[slot] = tailSequence++;
+            addToIndex(slot);
+        }
+        return slot;
     }
 
     /**
      * Sort and keep the expected size;
      */
     public void sortAndRetain() {
-        sort();
+        if (sortedSlots == null) {
+            sort();
+        }
         retain(capacity);
     }
 
     public List<Counter<T>> topK(int k) {
-        if (!ordered) {
+        if (sortedSlots == null) {
             sortAndRetain();
         }
-        List<Counter<T>> topK = new ArrayList<>(k);
-        Iterator<Counter<T>> iterator = counterList.iterator();
-        while (iterator.hasNext()) {
-            Counter<T> b = iterator.next();
-            if (topK.size() == k) {
-                return topK;
-            }
-            topK.add(b);
+        int n = Math.min(k, size);
+        List<Counter<T>> topK = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            topK.add(counterOf(sortedSlots[i]));
         }
-
         return topK;
     }
 
     public void reset() {
-        counterList.clear();
-        counterMap.clear();
-        ordered = false;
-        descending = true;
+        Arrays.fill(items, 0, size, null);
+        Arrays.fill(index, 0);
+        size = 0;
+        tailSequence = 0;
+        headSequence = 0;
+        sortedSlots = null;
     }
 
     /**
      * @return number of items stored
      */
     public int size() {
-        return counterMap.size();
+        return size;
     }
 
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
         sb.append('[');
-        Iterator<Counter<T>> iterator = counterList.iterator();
-        while (iterator.hasNext()) {
-            Counter<T> b = iterator.next();
-            sb.append(b.item);
+        int[] order = sortedSlots;
+        for (int i = 0; i < size; i++) {
+            int slot = order == null ? i : order[i];
+            sb.append(items[slot]);
             sb.append(':');
-            sb.append(b.count);
+            sb.append(nullCounts[slot] ? null : Double.valueOf(counts[slot]));
         }
         sb.append(']');
         return sb.toString();
@@ -169,33 +230,48 @@ public class TopNCounter<T> implements Iterable<Counter<T>>, java.io.Serializabl
      * @param count
      */
     public void offerToHead(T item, double count) {
-        Counter<T> c = new Counter<T>(item, count);
-        counterList.addFirst(c);
-        counterMap.put(c.item, c);
+        int slot = find(item);
+        if (slot < 0) {
+            slot = appendSlot(item, --headSequence);
+            heap[size - 1] = slot;
+            heapPositions[slot] = size - 1;
+        } else {
+            sequences[slot] = --headSequence;
+        }
+        counts[slot] = count;
+        nullCounts[slot] = false;
+        siftUp(heapPositions[slot]);
+        siftDown(heapPositions[slot]);
+        sortedSlots = null;
     }
 
     /**
      * Merge another counter into this counter;
+     * Each item of another counter is offered in one pass, the heap keeps the eviction at O(log n) per item.
      * @param another
      * @return
      */
+    @SuppressWarnings("unchecked")
     public TopNCounter<T> merge(TopNCounter<T> another) {
         boolean thisFull = this.size() >= this.capacity;
         boolean anotherFull = another.size() >= another.capacity;
-        double m1 = thisFull ? this.counterList.getLast().count : 0.0;
-        double m2 = anotherFull ? another.counterList.getLast().count : 0.0;
+        double m1 = thisFull ? this.minCount() : 0.0;
+        double m2 = anotherFull ? another.minCount() : 0.0;
 
         if (anotherFull) {
-            for (Counter<T> entry : this.counterMap.values()) {
-                entry.count += m2;
+            for (int slot = 0; slot < size; slot++) {
+                addCount(slot, m2);
             }
+            rebuildHeap();
         }
 
-        for (Map.Entry<T, Counter<T>> entry : another.counterMap.entrySet()) {
-            if (this.counterMap.containsKey(entry.getKey())) {
-                this.offer(entry.getValue().getItem(), (entry.getValue().count - m2));
+        for (int i = 0; i < another.size; i++) {
+            T item = (T) another.items[i];
+            double delta = find(item) >= 0 ? -m2 : m1;
+            if (another.nullCounts[i]) {
+                this.offer(item, null);
             } else {
-                this.offer(entry.getValue().getItem(), entry.getValue().count + m1);
+                this.offerCount(item, another.counts[i] + delta);
             }
         }
 
@@ -204,19 +280,17 @@ public class TopNCounter<T> implements Iterable<Counter<T>>, java.io.Serializabl
     }
 
     /**
-     * Retain the capacity to the given number; The extra counters will be cut off
+     * Retain the capacity to the given number; The counters are sorted and the smallest ones will be cut off
      * @param newCapacity
      */
     public void retain(int newCapacity) {
         this.capacity = newCapacity;
         if (this.size() > newCapacity) {
-            Counter<T> toRemoved;
-            for (int i = 0, n = this.size() - newCapacity; i < n; i++) {
-                toRemoved = counterList.pollLast();
-                this.counterMap.remove(toRemoved.item);
+            if (sortedSlots == null) {
+                sort();
             }
+            truncate(newCapacity);
         }
-
     }
 
     /**
@@ -225,30 +299,38 @@ public class TopNCounter<T> implements Iterable<Counter<T>>, java.io.Serializabl
      */
     public double[] getCounters() {
         double[] counters = new double[size()];
-        int index = 0;
-
-        if (this.descending) {
-            Iterator<Counter<T>> iterator = counterList.descendingIterator();
-            while (iterator.hasNext()) {
-                Counter<T> b = iterator.next();
-                counters[index] = b.count;
-                index++;
-            }
-        } else {
-            throw new IllegalStateException(); // support in future
+        int[] order = sortedSlots;
+        for (int i = 0; i < size; i++) {
+            int slot = order == null ? size - 1 - i : order[size - 1 - i];
+            counters[i] = counts[slot];
         }
-
-        assert index == size();
         return counters;
     }
 
+    /**
+     * @return the counters in ascending order if sorted
+     */
     @Override
     public Iterator<Counter<T>> iterator() {
-        if (this.descending) {
-            return this.counterList.descendingIterator();
-        } else {
-            throw new IllegalStateException(); // support in future
-        }
+        final int[] order = sortedSlots;
+        return new Iterator<Counter<T>>() {
+            private int next = size - 1;
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public Counter<T> next() {
+                if (next < 0) {
+                    throw new NoSuchElementException();
+                }
+                int slot = order == null ? next : order[next];
+                next--;
+                return counterOf(slot);
+            }
+        };
     }
 
     static final Comparator<Counter> ASC_COMPARATOR = (Counter o1, Counter o2) -> {
@@ -277,19 +359,232 @@ public class TopNCounter<T> implements Iterable<Counter<T>>, java.io.Serializabl
         return Double.compare(o2.getCount(), o1.getCount());
     };
 
-    private void incrementCounter(Counter<T> counterNode, Double incrementCount) {
-        if (incrementCount == null) {
-            return;
+    @SuppressWarnings("unchecked")
+    private Counter<T> counterOf(int slot) {
+        return new Counter<>((T) items[slot], nullCounts[slot] ? null : counts[slot]);
+    }
+
+    private double minCount() {
+        if (size == 0 || nullCounts[heap[0]]) {
+            return 0.0;
         }
-        if (counterNode.getCount() == null) {
-            counterNode.setCount(incrementCount);
+        return counts[heap[0]];
+    }
+
+    private void addCount(int slot, double incrementCount) {
+        if (nullCounts[slot]) {
+            counts[slot] = incrementCount;
+            nullCounts[slot] = false;
         } else {
-            counterNode.setCount(counterNode.getCount() + incrementCount);
+            counts[slot] += incrementCount;
         }
     }
 
     private void sort() {
-        counterList.sort(this.descending ? DESC_COMPARATOR : ASC_COMPARATOR);
-        ordered = true;
+        // heap sort on a copy of the heap, the minimum is moved to the end each time
+        int[] order = Arrays.copyOf(heap, size);
+        for (int end = size - 1; end > 0; end--) {
+            int min = order[0];
+            order[0] = order[end];
+            order[end] = min;
+            int pos = 0;
+            int slot = order[0];
+            while (true) {
+                int child = 2 * pos + 1;
+                if (child >= end) {
+                    break;
+                }
+                if (child + 1 < end && before(order[child + 1], order[child])) {
+                    child++;
+                }
+                if (!before(order[child], slot)) {
+                    break;
+                }
+                order[pos] = order[child];
+                pos = child;
+            }
+            order[pos] = slot;
+        }
+        sortedSlots = order;
+    }
+
+    // ============================================================================
+    // slots
+
+    private int appendSlot(T item, long sequence) {
+        if (size == items.length) {
+            int newLength = items.length * 2;
+            items = Arrays.copyOf(items, newLength);
+            counts = Arrays.copyOf(counts, newLength);
+            nullCounts = Arrays.copyOf(nullCounts, newLength);
+            sequences = Arrays.copyOf(sequences, newLength);
+            heap = Arrays.copyOf(heap, newLength);
+            heapPositions = Arrays.copyOf(heapPositions, newLength);
+        }
+        int slot = size++;
+        items[slot] = item;
+        counts[slot] = 0;
+        nullCounts[slot] = true;
+        sequences[slot] = sequence;
+        if (size * 2 > index.length) {
+            rehash(indexSizeFor(size));
+        } else {
+            addToIndex(slot);
+        }
+        return slot;
+    }
+
+    /**
+     * Keep the first n sorted counters, they are moved to slot 0 to n - 1 in descending order.
+     */
+    private void truncate(int n) {
+        Object[] keptItems = new Object[items.length];
+        double[] keptCounts = new double[counts.length];
+        boolean[] keptNullCounts = new boolean[nullCounts.length];
+        long[] keptSequences = new long[sequences.length];
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            int slot = sortedSlots[i];
+            keptItems[i] = items[slot];
+            keptCounts[i] = counts[slot];
+            keptNullCounts[i] = nullCounts[slot];
+            keptSequences[i] = sequences[slot];
+            order[i] = i;
+        }
+        items = keptItems;
+        counts = keptCounts;
+        nullCounts = keptNullCounts;
+        sequences = keptSequences;
+        size = n;
+        rebuildHeap();
+        rehash(index.length);
+        sortedSlots = order;
+    }
+
+    // ============================================================================
+    // min-heap, ordered by count, a counter without count is the smallest,
+    // among equal counts the one later in the list is dropped first
+
+    private boolean before(int slot1, int slot2) {
+        if (nullCounts[slot1] != nullCounts[slot2]) {
+            return nullCounts[slot1];
+        }
+        if (!nullCounts[slot1] && counts[slot1] != counts[slot2]) {
+            return counts[slot1] < counts[slot2];
+        }
+        return sequences[slot1] > sequences[slot2];
+    }
+
+    private void siftUp(int pos) {
+        int slot = heap[pos];
+        while (pos > 0) {
+            int parent = (pos - 1) >>> 1;
+            if (!before(slot, heap[parent])) {
+                break;
+            }
+            heap[pos] = heap[parent];
+            heapPositions[heap[pos]] = pos;
+            pos = parent;
+        }
+        heap[pos] = slot;
+        heapPositions[slot] = pos;
+    }
+
+    private void siftDown(int pos) {
+        int slot = heap[pos];
+        while (true) {
+            int child = 2 * pos + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && before(heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!before(heap[child], slot)) {
+                break;
+            }
+            heap[pos] = heap[child];
+            heapPositions[heap[pos]] = pos;
+            pos = child;
+        }
+        heap[pos] = slot;
+        heapPositions[slot] = pos;
+    }
+
+    private void rebuildHeap() {
+        for (int i = 0; i < size; i++) {
+            heap[i] = i;
+            heapPositions[i] = i;
+        }
+        for (int i = (size >>> 1) - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    // ============================================================================
+    // hash index, linear probing
+
+    private static int indexSizeFor(int slots) {
+        int n = Integer.highestOneBit(Math.max(slots, 1)) << 2;
+        return Math.max(n, 4);
+    }
+
+    private static int hash(Object item) {
+        int h = item == null ? 0 : item.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private int find(Object item) {
+        int mask = index.length - 1;
+        for (int i = hash(item) & mask;; i = (i + 1) & mask) {
+            int entry = index[i];
+            if (entry == 0) {
+                return -1;
+            }
+            if (Objects.equals(items[entry - 1], item)) {
+                return entry - 1;
+            }
+        }
+    }
+
+    private int indexPositionOf(int slot) {
+        int mask = index.length - 1;
+        for (int i = hash(items[slot]) & mask;; i = (i + 1) & mask) {
+            if (index[i] == slot + 1) {
+                return i;
+            }
+        }
+    }
+
+    private void addToIndex(int slot) {
+        int mask = index.length - 1;
+        int i = hash(items[slot]) & mask;
+        while (index[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        index[i] = slot + 1;
+    }
+
+    private void removeFromIndex(int slot) {
+        int mask = index.length - 1;
+        int hole = indexPositionOf(slot);
+        index[hole] = 0;
+        // shift back the following entries of the probe sequence
+        for (int i = (hole + 1) & mask; index[i] != 0; i = (i + 1) & mask) {
+            int home = hash(items[index[i] - 1]) & mask;
+            boolean movable = hole <= i ? (home <= hole || home > i) : (home <= hole && home > i);
+            if (movable) {
+                index[hole] = index[i];
+                index[i] = 0;
+                hole = i;
+            }
+        }
+    }
+
+    private void rehash(int newSize) {
+        index = new int[newSize];
+        for (int slot = 0; slot < size; slot++) {
+            addToIndex(slot);
+        }
     }
 }
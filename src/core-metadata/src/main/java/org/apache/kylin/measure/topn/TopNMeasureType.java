@@ -171,7 +171,7 @@ public class TopNMeasureType extends MeasureType<TopNCounter<ByteArray>> {
 
                 TopNCounter<ByteArray> topNCounter = new TopNCounter<ByteArray>(
                         dataType.getPrecision() * TopNCounter.EXTRA_SPACE_RATE);
-                topNCounter.offer(key, counter);
+                topNCounter.offerCount(key, counter);
                 return topNCounter;
             }
 
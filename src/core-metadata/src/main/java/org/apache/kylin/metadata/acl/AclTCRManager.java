@@ -20,6 +20,7 @@ package org.apache.kylin.metadata.acl;
 
 import java.util.AbstractMap;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -27,6 +28,7 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.SortedMap;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -40,6 +42,10 @@ import org.apache.kylin.common.persistence.ResourceStore;
 import org.apache.kylin.common.persistence.transaction.UnitOfWork;
 import org.apache.kylin.guava30.shaded.common.base.Joiner;
 import org.apache.kylin.guava30.shaded.common.base.Preconditions;
+import org.apache.kylin.guava30.shaded.common.base.Supplier;
+import org.apache.kylin.guava30.shaded.common.base.Suppliers;
+import org.apache.kylin.guava30.shaded.common.cache.Cache;
+import org.apache.kylin.guava30.shaded.common.cache.CacheBuilder;
 import org.apache.kylin.guava30.shaded.common.collect.ArrayListMultimap;
 import org.apache.kylin.guava30.shaded.common.collect.HashMultimap;
 import org.apache.kylin.guava30.shaded.common.collect.Lists;
@@ -54,6 +60,8 @@ import org.apache.kylin.metadata.model.util.ComputedColumnUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
 import lombok.val;
 
 public class AclTCRManager {
@@ -75,6 +83,9 @@ public class AclTCRManager {
 
     private CachedCrudAssist<AclTCR> crud;
 
+    // compiled authorization of (user, groups), validated against the AclTCRs it was compiled from
+    private final Cache<DigestKey, AclDigest> digestCache;
+
     public AclTCRManager(KylinConfig config, String project) {
         if (!UnitOfWork.isAlreadyInTransaction())
             logger.info("Initializing AclGroupManager with KylinConfig Id: {}", System.identityHashCode(config));
@@ -92,6 +103,7 @@ public class AclTCRManager {
             }
         };
         crud.reloadAll();
+        digestCache = CacheBuilder.newBuilder().maximumSize(config.getAclDigestCacheMaxSize()).build();
     }
 
     public void unloadTable(String dbTblName) {
@@ -103,6 +115,7 @@ public class AclTCRManager {
             copied.getTable().remove(dbTblName);
             crud.save(copied);
         });
+        digestCache.invalidateAll();
     }
 
     public AclTCR getAclTCR(String sid, boolean principal) {
@@ -112,6 +125,7 @@ public class AclTCRManager {
     public void updateAclTCR(AclTCR updateTo, String sid, boolean principal) {
         updateTo.init(AclTCR.generateResourceName(project, sid, principal), project, principal);
         doUpdate(updateTo, crud);
+        digestCache.invalidateAll();
     }
 
     private void doUpdate(AclTCR updateTo, CachedCrudAssist<AclTCR> crud) {
@@ -125,6 +139,7 @@ public class AclTCRManager {
 
     public void revokeAclTCR(String sid, boolean principal) {
         crud.delete(AclTCR.generateResourceName(project, sid, principal));
+        digestCache.invalidateAll();
     }
 
     public List<AclTCR> getAclTCRs(String username, Set<String> groups) {
@@ -309,22 +324,24 @@ public class AclTCRManager {
 
     public Map<String, String> getTableColumnConcatWhereCondition(String username, Set<String> groups) {
         // <DB1.TABLE1, COLUMN_CONCAT_WHERE_CONDITION>
-        Map<String, String> result = Maps.newHashMap();
-        final List<AclTCR> all = getAclTCRs(username, groups);
+        return Maps.newHashMap(getDigest(username, groups).getConditions());
+    }
+
+    private TableConditions compileConditions(List<AclTCR> all) {
+        Map<String, TableDesc> tables = Maps.newHashMap();
         if (isTablesAuthorized(all)) {
-            return result;
+            return new TableConditions(Collections.emptyMap(), tables);
         }
-
-        result = generateCondition(all);
-        return result;
+        return new TableConditions(generateCondition(all, tables), tables);
     }
 
     /**
      * Generate table condition string for different tables for different users/groups
      * @param all list of AclTCR
+     * @param tables collects the table descs the conditions are generated from
      * @return
      */
-    private Map<String, String> generateCondition(List<AclTCR> all) {
+    private Map<String, String> generateCondition(List<AclTCR> all, Map<String, TableDesc> tables) {
         Map<String, String> result = Maps.newHashMap();
         final Map<String, List<PrincipalRowFilter>> dbTblPrincipals = getTblPrincipalSet(all);
         if (MapUtils.isEmpty(dbTblPrincipals)) {
@@ -333,6 +350,7 @@ public class AclTCRManager {
 
         dbTblPrincipals.forEach((dbTblName, principals) -> {
             TableDesc tableDesc = NTableMetadataManager.getInstance(config, project).getTableDesc(dbTblName);
+            tables.put(dbTblName, tableDesc);
             if (Objects.isNull(tableDesc)) {
                 return;
             }
@@ -705,8 +723,11 @@ public class AclTCRManager {
     }
 
     public SensitiveDataMaskInfo getSensitiveDataMaskInfo(String username, Set<String> groups) {
+        return getDigest(username, groups).getMaskInfo();
+    }
+
+    private SensitiveDataMaskInfo compileSensitiveDataMaskInfo(List<AclTCR> aclTCRS) {
         SensitiveDataMaskInfo maskInfo = new SensitiveDataMaskInfo();
-        List<AclTCR> aclTCRS = getAclTCRs(username, groups);
         for (AclTCR aclTCR : aclTCRS) {
             if (aclTCR.getTable() != null) {
                 for (Map.Entry<String, AclTCR.ColumnRow> entry : aclTCR.getTable().entrySet()) {
@@ -726,8 +747,11 @@ public class AclTCRManager {
     }
 
     public DependentColumnInfo getDependentColumns(String username, Set<String> groups) {
+        return getDigest(username, groups).getDependentColumns();
+    }
+
+    private DependentColumnInfo compileDependentColumns(List<AclTCR> aclTCRS) {
         DependentColumnInfo info = new DependentColumnInfo();
-        List<AclTCR> aclTCRS = getAclTCRs(username, groups);
         for (AclTCR aclTCR : aclTCRS) {
             if (aclTCR.getTable() != null) {
                 for (Map.Entry<String, AclTCR.ColumnRow> entry : aclTCR.getTable().entrySet()) {
@@ -746,4 +770,88 @@ public class AclTCRManager {
         info.validate();
         return info;
     }
+
+    private AclDigest getDigest(String username, Set<String> groups) {
+        List<AclTCR> all = getAclTCRs(username, groups);
+        if (!config.isAclDigestCacheEnabled()) {
+            return new AclDigest(all);
+        }
+        DigestKey key = new DigestKey(username, groups == null ? Collections.emptySet() : new TreeSet<>(groups));
+        AclDigest digest = digestCache.getIfPresent(key);
+        if (digest == null || !digest.isCompiledFrom(all)) {
+            digest = new AclDigest(all);
+            digestCache.put(key, digest);
+        }
+        return digest;
+    }
+
+    long digestSize() {
+        return digestCache.size();
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static class DigestKey {
+        private final String username;
+        private final Set<String> groups;
+    }
+
+    @RequiredArgsConstructor
+    private static class TableConditions {
+        private final Map<String, String> conditions;
+        private final Map<String, TableDesc> tables;
+
+        private boolean isCompiledFrom(NTableMetadataManager tableManager) {
+            return tables.entrySet().stream()
+                    .allMatch(entry -> tableManager.getTableDesc(entry.getKey()) == entry.getValue());
+        }
+    }
+
+    /**
+     * Authorization of a user together with the user's groups, each part is compiled on first use.
+     * Cached AclTCRs and TableDescs are replaced on reload, so a digest is stale as soon as
+     * any of them is no longer the same instance.
+     */
+    private class AclDigest {
+        private final List<AclTCR> aclTCRs;
+        private final Supplier<SensitiveDataMaskInfo> maskInfo;
+        private final Supplier<DependentColumnInfo> dependentColumns;
+        private volatile TableConditions conditions;
+
+        private AclDigest(List<AclTCR> aclTCRs) {
+            this.aclTCRs = aclTCRs;
+            this.maskInfo = Suppliers.memoize(() -> compileSensitiveDataMaskInfo(aclTCRs));
+            this.dependentColumns = Suppliers.memoize(() -> compileDependentColumns(aclTCRs));
+        }
+
+        private boolean isCompiledFrom(List<AclTCR> all) {
+            if (all.size() != aclTCRs.size()) {
+                return false;
+            }
+            for (int i = 0; i < all.size(); i++) {
+                if (all.get(i) != aclTCRs.get(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private Map<String, String> getConditions() {
+            TableConditions compiled = conditions;
+            // row filters depend on column types, re-generate them once a table is reloaded
+            if (compiled == null || !compiled.isCompiledFrom(NTableMetadataManager.getInstance(config, project))) {
+                compiled = compileConditions(aclTCRs);
+                conditions = compiled;
+            }
+            return compiled.conditions;
+        }
+
+        private SensitiveDataMaskInfo getMaskInfo() {
+            return maskInfo.get();
+        }
+
+        private DependentColumnInfo getDependentColumns() {
+            return dependentColumns.get();
+        }
+    }
 }
@@ -36,6 +36,10 @@ public class DependentColumnInfo {
         return !infos.isEmpty();
     }
 
+    public boolean needMask(String tableIdentity) {
+        return infos.keySet().stream().anyMatch(column -> column.startsWith(tableIdentity + "."));
+    }
+
     public void add(String dbName, String tableName, Collection<DependentColumn> columnInfos) {
         for (DependentColumn info : columnInfos) {
             infos.putIfAbsent(dbName + "." + tableName + "." + info.getColumn(), new HashMap<>());
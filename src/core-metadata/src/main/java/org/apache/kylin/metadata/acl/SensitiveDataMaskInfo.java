@@ -30,6 +30,10 @@ public class SensitiveDataMaskInfo {
         return !infos.isEmpty();
     }
 
+    public boolean hasMask(String tableIdentity) {
+        return infos.containsKey(tableIdentity);
+    }
+
     public void addMasks(String dbName, String tableName, Collection<SensitiveDataMask> masks) {
         for (SensitiveDataMask mask : masks) {
             infos.putIfAbsent(dbName + "." + tableName, new HashMap<>());
@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.kylin.metadata.cube.model;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Min/max and null count of the dimensions in one parquet file of a layout, keyed by the column id,
+ * used to prune files like {@link NDataSegment#getDimensionRangeInfoMap()} prunes segments.
+ * A dimension without range has only null values in the file, or has no statistics.
+ */
+@Data
+@NoArgsConstructor
+public class FileZoneMap implements Serializable {
+    @JsonProperty("file_name")
+    private String fileName;
+
+    @JsonProperty("rows")
+    private long rows;
+
+    @JsonProperty("ranges")
+    private Map<String, DimensionRangeInfo> ranges = new HashMap<>();
+
+    @JsonProperty("null_counts")
+    private Map<String, Long> nullCounts = new HashMap<>();
+
+    public FileZoneMap(String fileName) {
+        this.fileName = fileName;
+    }
+}
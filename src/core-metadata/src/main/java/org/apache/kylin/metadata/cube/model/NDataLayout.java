@@ -35,6 +35,7 @@ import org.apache.kylin.guava30.shaded.common.primitives.Longs;
 
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import lombok.Getter;
@@ -114,6 +115,10 @@ public class NDataLayout implements Serializable {
     @JsonProperty("abnormal_type")
     private AbnormalType abnormalType;
 
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    @JsonProperty("file_zone_maps")
+    private List<FileZoneMap> fileZoneMaps = new ArrayList<>();
+
     public NDataLayout() {
         this.createTime = System.currentTimeMillis();
     }
@@ -241,6 +246,15 @@ public class NDataLayout implements Serializable {
         this.partitionValues = partitionValues;
     }
 
+    public List<FileZoneMap> getFileZoneMaps() {
+        return fileZoneMaps;
+    }
+
+    public void setFileZoneMaps(List<FileZoneMap> fileZoneMaps) {
+        checkIsNotCachedAndShared();
+        this.fileZoneMaps = fileZoneMaps;
+    }
+
     public void replacePartitions(List<LayoutPartition> update) {
         HashMap<Long, LayoutPartition> partitionMap = Maps.newHashMap();
         multiPartition.forEach(partition -> partitionMap.put(partition.getPartitionId(), partition));
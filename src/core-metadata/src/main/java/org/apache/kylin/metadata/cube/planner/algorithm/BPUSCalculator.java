@@ -19,72 +19,98 @@
 package org.apache.kylin.metadata.cube.planner.algorithm;
 
 import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.Maps;
-import com.google.common.collect.Sets;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
 
+/**
+ * The costs are kept in arrays indexed by CuboidStats.getCuboidIndex, NO_COST for the cuboids without cost.
+ */
 public class BPUSCalculator implements BenefitPolicy {
     private static Logger logger = LoggerFactory.getLogger(BPUSCalculator.class);
 
+    protected static final long NO_COST = Long.MIN_VALUE;
+
     protected final CuboidStats cuboidStats;
-    protected final ImmutableMap<BigInteger, Long> initCuboidAggCostMap;
-    protected final Map<BigInteger, Long> processCuboidAggCostMap;
+    protected final long[] cuboidCosts;
+    protected final long[] initCuboidAggCosts;
+    protected final long[] processCuboidAggCosts;
 
     public BPUSCalculator(CuboidStats cuboidStats) {
         this.cuboidStats = cuboidStats;
-        this.initCuboidAggCostMap = ImmutableMap.copyOf(initCuboidAggCostMap());
-        this.processCuboidAggCostMap = Maps.newHashMap(initCuboidAggCostMap);
+        this.cuboidCosts = initCuboidCosts();
+        this.initCuboidAggCosts = initCuboidAggCosts();
+        this.processCuboidAggCosts = initCuboidAggCosts.clone();
     }
 
-    protected BPUSCalculator(CuboidStats cuboidStats, ImmutableMap<BigInteger, Long> initCuboidAggCostMap) {
+    protected BPUSCalculator(CuboidStats cuboidStats, long[] cuboidCosts, long[] initCuboidAggCosts) {
         this.cuboidStats = cuboidStats;
-        this.initCuboidAggCostMap = initCuboidAggCostMap;
-        this.processCuboidAggCostMap = Maps.newHashMap(initCuboidAggCostMap);
+        this.cuboidCosts = cuboidCosts;
+        this.initCuboidAggCosts = initCuboidAggCosts;
+        this.processCuboidAggCosts = initCuboidAggCosts.clone();
+    }
+
+    private long[] initCuboidCosts() {
+        long[] costs = new long[cuboidStats.getCuboidNum()];
+        for (int i = 0; i < costs.length; i++) {
+            Long cost = getCuboidCost(cuboidStats.getCuboid(i));
+            costs[i] = cost == null ? NO_COST : cost;
+        }
+        return costs;
     }
 
-    private Map<BigInteger, Long> initCuboidAggCostMap() {
-        Map<BigInteger, Long> cuboidAggCostMap = Maps.newHashMap();
+    private long[] initCuboidAggCosts() {
+        long[] cuboidAggCosts = new long[cuboidStats.getCuboidNum()];
+        Arrays.fill(cuboidAggCosts, NO_COST);
         //Initialize stats for mandatory cuboids
+        List<BigInteger> mandatoryCuboids = Lists.newArrayList();
         for (BigInteger cuboid : cuboidStats.getAllCuboidsForMandatory()) {
-            if (getCuboidCost(cuboid) != null) {
-                cuboidAggCostMap.put(cuboid, getCuboidCost(cuboid));
+            int index = cuboidStats.getCuboidIndex(cuboid);
+            if (index >= 0 && cuboidCosts[index] != NO_COST) {
+                cuboidAggCosts[index] = cuboidCosts[index];
+                mandatoryCuboids.add(cuboid);
             }
         }
 
         //Initialize stats for selection cuboids
+        // only the mandatory ancestors are checked, the cost of a selection ancestor is derived from them
         long baseCuboidCost = getCuboidCost(cuboidStats.getBaseCuboid());
         for (BigInteger cuboid : cuboidStats.getAllCuboidsForSelection()) {
             long leastCost = baseCuboidCost;
-            for (Map.Entry<BigInteger, Long> cuboidTargetEntry : cuboidAggCostMap.entrySet()) {
+            for (BigInteger mandatoryCuboid : mandatoryCuboids) {
                 // use the equal to check two value
-                if ((cuboid.or(cuboidTargetEntry.getKey())).equals(cuboidTargetEntry.getKey())) {
-                    if (leastCost > cuboidTargetEntry.getValue()) {
-                        leastCost = cuboidTargetEntry.getValue();
-                    }
+                long cost = cuboidAggCosts[cuboidStats.getCuboidIndex(mandatoryCuboid)];
+                if (cuboid.or(mandatoryCuboid).equals(mandatoryCuboid) && leastCost > cost) {
+                    leastCost = cost;
                 }
             }
-            cuboidAggCostMap.put(cuboid, leastCost);
+            cuboidAggCosts[cuboidStats.getCuboidIndex(cuboid)] = leastCost;
         }
-        return cuboidAggCostMap;
+        return cuboidAggCosts;
     }
 
     @Override
     public CuboidBenefitModel.BenefitModel calculateBenefit(BigInteger cuboid, Set<BigInteger> selected) {
         double totalCostSaving = 0;
         int benefitCount = 0;
-        for (BigInteger descendant : cuboidStats.getAllDescendants(cuboid)) {
-            if (!selected.contains(descendant)) {
-                double costSaving = getCostSaving(descendant, cuboid);
-                if (costSaving > 0) {
-                    totalCostSaving += costSaving;
-                    benefitCount++;
+        int cuboidIndex = cuboidStats.getCuboidIndex(cuboid);
+        if (cuboidIndex >= 0) {
+            BitSet selectedIndexes = getIndexes(selected);
+            for (int descendant : cuboidStats.getAllDescendants(cuboidIndex)) {
+                if (!selectedIndexes.get(descendant)) {
+                    double costSaving = getCostSaving(descendant, cuboidIndex);
+                    if (costSaving > 0) {
+                        totalCostSaving += costSaving;
+                        benefitCount++;
+                    }
                 }
             }
         }
@@ -97,17 +123,18 @@ public class BPUSCalculator implements BenefitPolicy {
     @Override
     public CuboidBenefitModel.BenefitModel calculateBenefitTotal(Set<BigInteger> cuboidsToAdd,
             Set<BigInteger> selected) {
-        Set<BigInteger> selectedInner = Sets.newHashSet(selected);
-        Map<BigInteger, Long> cuboidAggCostMapCopy = Maps.newHashMap(processCuboidAggCostMap);
+        BitSet selectedInner = (BitSet) getIndexes(selected).clone();
+        long[] cuboidAggCostsCopy = processCuboidAggCosts.clone();
         for (BigInteger cuboid : cuboidsToAdd) {
-            selectedInner.add(cuboid);
-            propagateAggregationCost(cuboid, selectedInner, cuboidAggCostMapCopy);
+            int cuboidIndex = getCheckedIndex(cuboid);
+            selectedInner.set(cuboidIndex);
+            propagateAggregationCost(cuboidIndex, selectedInner, cuboidAggCostsCopy);
         }
         double totalCostSaving = 0;
         int benefitCount = 0;
-        for (Map.Entry<BigInteger, Long> entry : cuboidAggCostMapCopy.entrySet()) {
-            if (entry.getValue() < processCuboidAggCostMap.get(entry.getKey())) {
-                totalCostSaving += processCuboidAggCostMap.get(entry.getKey()) - entry.getValue();
+        for (int i = 0; i < cuboidAggCostsCopy.length; i++) {
+            if (cuboidAggCostsCopy[i] != NO_COST && cuboidAggCostsCopy[i] < processCuboidAggCosts[i]) {
+                totalCostSaving += processCuboidAggCosts[i] - cuboidAggCostsCopy[i];
                 benefitCount++;
             }
         }
@@ -116,7 +143,7 @@ public class BPUSCalculator implements BenefitPolicy {
         return new CuboidBenefitModel.BenefitModel(benefitPerUnitSpace, benefitCount);
     }
 
-    protected double getCostSaving(BigInteger descendant, BigInteger cuboid) {
+    protected double getCostSaving(int descendant, int cuboid) {
         long cuboidCost = getCuboidCost(cuboid);
         long descendantAggCost = getCuboidAggregationCost(descendant);
         return (double) descendantAggCost - cuboidCost;
@@ -126,8 +153,19 @@ public class BPUSCalculator implements BenefitPolicy {
         return cuboidStats.getCuboidCount(cuboid);
     }
 
-    private long getCuboidAggregationCost(BigInteger cuboid) {
-        return processCuboidAggCostMap.get(cuboid);
+    private long getCuboidCost(int cuboid) {
+        return checkCost(cuboidCosts[cuboid], cuboid);
+    }
+
+    private long getCuboidAggregationCost(int cuboid) {
+        return checkCost(processCuboidAggCosts[cuboid], cuboid);
+    }
+
+    private long checkCost(long cost, int cuboid) {
+        if (cost == NO_COST) {
+            throw new IllegalStateException("There's no cost for cuboid " + cuboidStats.getCuboid(cuboid));
+        }
+        return cost;
     }
 
     @Override
@@ -146,18 +184,42 @@ public class BPUSCalculator implements BenefitPolicy {
 
     @Override
     public void propagateAggregationCost(BigInteger cuboid, Set<BigInteger> selected) {
-        propagateAggregationCost(cuboid, selected, processCuboidAggCostMap);
+        propagateAggregationCost(getCheckedIndex(cuboid), getIndexes(selected), processCuboidAggCosts);
     }
 
-    private void propagateAggregationCost(BigInteger cuboid, Set<BigInteger> selected,
-            Map<BigInteger, Long> processCuboidAggCostMap) {
+    /**
+     * The new cost is compared with the current process cost, even if it's propagated into a copy.
+     */
+    private void propagateAggregationCost(int cuboid, BitSet selected, long[] cuboidAggCosts) {
         long aggregationCost = getCuboidCost(cuboid);
-        Set<BigInteger> childrenCuboids = cuboidStats.getAllDescendants(cuboid);
-        for (BigInteger child : childrenCuboids) {
-            if (!selected.contains(child) && (aggregationCost < getCuboidAggregationCost(child))) {
-                processCuboidAggCostMap.put(child, aggregationCost);
+        for (int child : cuboidStats.getAllDescendants(cuboid)) {
+            if (!selected.get(child) && (aggregationCost < getCuboidAggregationCost(child))) {
+                cuboidAggCosts[child] = aggregationCost;
+            }
+        }
+    }
+
+    private int getCheckedIndex(BigInteger cuboid) {
+        int index = cuboidStats.getCuboidIndex(cuboid);
+        Preconditions.checkArgument(index >= 0, "There's no statistics for cuboid %s", cuboid);
+        return index;
+    }
+
+    /**
+     * @return the indexes of the selected cuboids, which should not be modified
+     */
+    private BitSet getIndexes(Set<BigInteger> selected) {
+        if (selected instanceof CuboidIndexSet && ((CuboidIndexSet) selected).isIndexedBy(cuboidStats)) {
+            return ((CuboidIndexSet) selected).getIndexes();
+        }
+        BitSet indexes = new BitSet(cuboidStats.getCuboidNum());
+        for (BigInteger cuboid : selected) {
+            int index = cuboidStats.getCuboidIndex(cuboid);
+            if (index >= 0) {
+                indexes.set(index);
             }
         }
+        return indexes;
     }
 
     /**
@@ -170,6 +232,6 @@ public class BPUSCalculator implements BenefitPolicy {
 
     @Override
     public BenefitPolicy getInstance() {
-        return new BPUSCalculator(this.cuboidStats, this.initCuboidAggCostMap);
+        return new BPUSCalculator(this.cuboidStats, this.cuboidCosts, this.initCuboidAggCosts);
     }
 }
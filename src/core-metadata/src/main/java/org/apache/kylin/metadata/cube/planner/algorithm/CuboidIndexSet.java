@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kylin.metadata.cube.planner.algorithm;
+
+import java.math.BigInteger;
+import java.util.AbstractSet;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import com.google.common.collect.Sets;
+
+/**
+ * A set of cuboids in insertion order, which also keeps the indexes of the cuboids in the cuboid stats,
+ * so the benefit policies can check whether a descendant is selected without hashing it.
+ */
+public class CuboidIndexSet extends AbstractSet<BigInteger> {
+
+    private final CuboidStats cuboidStats;
+    private final Set<BigInteger> cuboids = Sets.newLinkedHashSet();
+    private final BitSet indexes;
+
+    public CuboidIndexSet(CuboidStats cuboidStats) {
+        this.cuboidStats = cuboidStats;
+        this.indexes = new BitSet(cuboidStats.getCuboidNum());
+    }
+
+    @Override
+    public boolean add(BigInteger cuboid) {
+        if (!cuboids.add(cuboid)) {
+            return false;
+        }
+        int index = cuboidStats.getCuboidIndex(cuboid);
+        if (index >= 0) {
+            indexes.set(index);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!cuboids.remove(o)) {
+            return false;
+        }
+        clearIndex((BigInteger) o);
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return cuboids.contains(o);
+    }
+
+    @Override
+    public void clear() {
+        cuboids.clear();
+        indexes.clear();
+    }
+
+    @Override
+    public int size() {
+        return cuboids.size();
+    }
+
+    @Override
+    public Iterator<BigInteger> iterator() {
+        final Iterator<BigInteger> iterator = cuboids.iterator();
+        return new Iterator<BigInteger>() {
+            private BigInteger current;
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public BigInteger next() {
+                current = iterator.next();
+                return current;
+            }
+
+            @Override
+            public void remove() {
+                iterator.remove();
+                clearIndex(current);
+            }
+        };
+    }
+
+    boolean isIndexedBy(CuboidStats cuboidStats) {
+        return this.cuboidStats == cuboidStats;
+    }
+
+    BitSet getIndexes() {
+        return indexes;
+    }
+
+    private void clearIndex(BigInteger cuboid) {
+        int index = cuboidStats.getCuboidIndex(cuboid);
+        if (index >= 0) {
+            indexes.clear(index);
+        }
+    }
+}
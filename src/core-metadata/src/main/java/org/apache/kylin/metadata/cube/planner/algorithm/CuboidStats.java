@@ -19,9 +19,13 @@
 package org.apache.kylin.metadata.cube.planner.algorithm;
 
 import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import org.apache.kylin.common.util.Pair;
 import org.slf4j.Logger;
@@ -30,6 +34,7 @@ import org.slf4j.LoggerFactory;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
@@ -150,9 +155,17 @@ public class CuboidStats {
     private ImmutableMap<BigInteger, Double> cuboidHitProbabilityMap;
     private ImmutableMap<BigInteger, Long> cuboidScanCountMap;
 
-    private ImmutableMap<BigInteger, List<BigInteger>> directChildrenCache;
     private Map<BigInteger, Set<BigInteger>> allDescendantsCache;
 
+    // dense index of all the cuboids, ordered by the cuboid id
+    private BigInteger[] cuboids;
+    private Map<BigInteger, Integer> cuboidIndexMap;
+    private long[] cuboidCounts;
+    private double[] cuboidHitProbabilities;
+    private boolean[] selectionCuboids;
+    private int[][] directChildren;
+    private AtomicReferenceArray<int[]> allDescendantsIdxCache;
+
     private CuboidStats(String key, BigInteger baseCuboidId, double queryUncertaintyRatio, double bpusMinBenefitRatio,
             Set<BigInteger> mandatoryCuboids, Map<BigInteger, Long> statistics, Map<BigInteger, Double> size,
             Map<BigInteger, Long> hitFrequencyMap, Map<BigInteger, Map<BigInteger, Long>> scanCountSourceMap) {
@@ -197,10 +210,23 @@ public class CuboidStats {
         }
         this.cuboidScanCountMap = ImmutableMap.<BigInteger, Long> builder().putAll(tmpCuboidScanCountMap).build();
 
-        this.directChildrenCache = ImmutableMap.<BigInteger, List<BigInteger>> builder()
-                .putAll(CuboidStatsUtil.createDirectChildrenCache(statistics.keySet())).build();
+        List<BigInteger> cuboidList = Lists.newArrayList(statistics.keySet());
+        Collections.sort(cuboidList);
+        this.cuboids = cuboidList.toArray(new BigInteger[0]);
+        this.cuboidIndexMap = Maps.newHashMapWithExpectedSize(cuboids.length);
+        this.cuboidCounts = new long[cuboids.length];
+        this.cuboidHitProbabilities = new double[cuboids.length];
+        this.selectionCuboids = new boolean[cuboids.length];
+        for (int i = 0; i < cuboids.length; i++) {
+            cuboidIndexMap.put(cuboids[i], i);
+            cuboidCounts[i] = statistics.get(cuboids[i]);
+            cuboidHitProbabilities[i] = getCuboidHitProbability(cuboids[i]);
+            selectionCuboids[i] = selectionCuboidSet.contains(cuboids[i]);
+        }
+        this.directChildren = CuboidStatsUtil.createDirectChildren(cuboidList);
 
         this.allDescendantsCache = Maps.newConcurrentMap();
+        this.allDescendantsIdxCache = new AtomicReferenceArray<>(cuboids.length);
     }
 
     private long getExpScanCount(BigInteger sourceCuboid, Map<BigInteger, Long> statistics,
@@ -234,21 +260,78 @@ public class CuboidStats {
             if (allDescendantsCache.get(cuboid) != null) {
                 return allDescendantsCache.get(cuboid);
             } else {
-                getAllDescendants(cuboid, allDescendants);
+                for (int descendant : getAllDescendants(getCuboidIndex(cuboid))) {
+                    allDescendants.add(cuboids[descendant]);
+                }
                 allDescendantsCache.put(cuboid, allDescendants);
             }
         }
         return allDescendants;
     }
 
-    private void getAllDescendants(BigInteger cuboid, Set<BigInteger> allDescendants) {
-        if (allDescendants.contains(cuboid)) {
-            return;
+    /**
+     * Same as getAllDescendants, on the indexes of the cuboids.
+     *
+     * @return the indexes of the descendants of a selection cuboid including itself, in the same order
+     * as getAllDescendants, or an empty array for other cuboids
+     */
+    public int[] getAllDescendants(int cuboid) {
+        if (!selectionCuboids[cuboid]) {
+            return new int[0];
         }
-        allDescendants.add(cuboid);
-        for (BigInteger directChild : directChildrenCache.get(cuboid)) {
-            getAllDescendants(directChild, allDescendants);
+        int[] allDescendants = allDescendantsIdxCache.get(cuboid);
+        if (allDescendants == null) {
+            allDescendants = collectAllDescendants(cuboid);
+            allDescendantsIdxCache.set(cuboid, allDescendants);
+        }
+        return allDescendants;
+    }
+
+    /**
+     * Depth first, visiting the direct children in order, without recursion.
+     */
+    private int[] collectAllDescendants(int cuboid) {
+        BitSet visited = new BitSet(cuboids.length);
+        int[] allDescendants = new int[16];
+        int size = 0;
+        int[] stack = new int[16];
+        int top = 0;
+        stack[top++] = cuboid;
+        while (top > 0) {
+            int current = stack[--top];
+            if (visited.get(current)) {
+                continue;
+            }
+            visited.set(current);
+            if (size == allDescendants.length) {
+                allDescendants = Arrays.copyOf(allDescendants, size * 2);
+            }
+            allDescendants[size++] = current;
+            int[] children = directChildren[current];
+            if (top + children.length > stack.length) {
+                stack = Arrays.copyOf(stack, Math.max(stack.length * 2, top + children.length));
+            }
+            for (int i = children.length - 1; i >= 0; i--) {
+                stack[top++] = children[i];
+            }
         }
+        return Arrays.copyOf(allDescendants, size);
+    }
+
+    /**
+     * @return the index of the cuboid in [0, getCuboidNum()), or -1 if there's no statistics for it
+     */
+    public int getCuboidIndex(BigInteger cuboid) {
+        Integer index = cuboidIndexMap.get(cuboid);
+        return index == null ? -1 : index;
+    }
+
+    public BigInteger getCuboid(int index) {
+        return cuboids[index];
+    }
+
+    public int getCuboidNum() {
+        return cuboids.length;
     }
 
     public ImmutableSet<BigInteger> getAllCuboidsForSelection() {
@@ -267,6 +350,10 @@ public class CuboidStats {
         return cuboidCountMap.get(cuboid);
     }
 
+    public long getCuboidCount(int cuboid) {
+        return cuboidCounts[cuboid];
+    }
+
     public Double getCuboidSize(BigInteger cuboid) {
         return cuboidSizeMap.get(cuboid);
     }
@@ -279,6 +366,10 @@ public class CuboidStats {
         }
     }
 
+    public double getCuboidHitProbability(int cuboid) {
+        return cuboidHitProbabilities[cuboid];
+    }
+
     public Map<BigInteger, Long> getStatistics() {
         return cuboidCountMap;
     }
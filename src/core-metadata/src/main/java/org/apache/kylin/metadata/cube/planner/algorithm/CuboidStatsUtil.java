@@ -20,9 +20,9 @@ package org.apache.kylin.metadata.cube.planner.algorithm;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -266,46 +266,72 @@ public class CuboidStatsUtil {
          * */
         final List<BigInteger> cuboidList = Lists.newArrayList(cuboidSet);
         Collections.sort(cuboidList);
+        int[][] directChildrenIdx = createDirectChildren(cuboidList);
+
+        Map<BigInteger, List<BigInteger>> directChildrenCache = Maps.newHashMapWithExpectedSize(cuboidList.size());
+        for (int i = 0; i < cuboidList.size(); i++) {
+            List<BigInteger> directChildren = Lists.newArrayListWithExpectedSize(directChildrenIdx[i].length);
+            for (int childIdx : directChildrenIdx[i]) {
+                directChildren.add(cuboidList.get(childIdx));
+            }
+            directChildrenCache.put(cuboidList.get(i), directChildren);
+        }
+        return directChildrenCache;
+    }
+
+    /**
+     * Same as createDirectChildrenCache, but works on the positions of the cuboids in the sorted list.
+     * The cuboids are packed into longs, one long each if they fit into 64 bits, so checking a descendant
+     * does not allocate any BigInteger.
+     *
+     * @param cuboidList distinct cuboids sorted by ascending order
+     * @return the positions of the direct children of each cuboid
+     */
+    static int[][] createDirectChildren(final List<BigInteger> cuboidList) {
+        final int size = cuboidList.size();
+        int words = 1;
+        for (BigInteger cuboid : cuboidList) {
+            words = Math.max(words, (cuboid.bitLength() + Long.SIZE - 1) / Long.SIZE);
+        }
+        long[] masks = new long[size * words];
+        int[] bitCounts = new int[size];
+        int maxBitCount = 0;
+        for (int i = 0; i < size; i++) {
+            BigInteger cuboid = cuboidList.get(i);
+            for (int w = 0; w < words; w++) {
+                masks[i * words + w] = cuboid.shiftRight(w * Long.SIZE).longValue();
+            }
+            bitCounts[i] = cuboid.bitCount();
+            maxBitCount = Math.max(maxBitCount, bitCounts[i]);
+        }
         /**
-         * Sort the list by ascending order:
+         * Sort the positions by ascending order:
          * 1. the more bit count of its value, the bigger
          * 2. the larger of its value, the bigger
+         * as the list is sorted by value, a stable bucketing by bit count is enough
          * */
-        List<Integer> layerIdxList = Lists.newArrayListWithExpectedSize(cuboidList.size());
-        for (int i = 0; i < cuboidList.size(); i++) {
-            layerIdxList.add(i);
+        int[] layerStart = new int[maxBitCount + 2];
+        for (int i = 0; i < size; i++) {
+            layerStart[bitCounts[i] + 1]++;
+        }
+        for (int b = 1; b < layerStart.length; b++) {
+            layerStart[b] += layerStart[b - 1];
         }
-        Collections.sort(layerIdxList, new Comparator<Integer>() {
-            @Override
-            public int compare(Integer i1, Integer i2) {
-                BigInteger o1 = cuboidList.get(i1);
-                BigInteger o2 = cuboidList.get(i2);
-                int nBitDiff = o1.bitCount() - o2.bitCount();
-                if (nBitDiff != 0) {
-                    return nBitDiff;
-                }
-                return o1.compareTo(o2);
-            }
-        });
         /**
-         * Construct an index array for pointing the position in layerIdxList
-         * (layerCuboidList is for speeding up continuous iteration)
+         * Construct an index array for pointing the position in layerIdxArray
          * */
-        int[] toLayerIdxArray = new int[layerIdxList.size()];
-        final List<BigInteger> layerCuboidList = Lists.newArrayListWithExpectedSize(cuboidList.size());
-        for (int i = 0; i < layerIdxList.size(); i++) {
-            int cuboidIdx = layerIdxList.get(i);
-            toLayerIdxArray[cuboidIdx] = i;
-            layerCuboidList.add(cuboidList.get(cuboidIdx));
+        int[] layerIdxArray = new int[size];
+        int[] toLayerIdxArray = new int[size];
+        int[] previousLayerLastIdxArray = new int[size];
+        for (int i = 0; i < size; i++) {
+            int layerIdx = layerStart[bitCounts[i]]++;
+            layerIdxArray[layerIdx] = i;
+            toLayerIdxArray[i] = layerIdx;
         }
-
-        int[] previousLayerLastIdxArray = new int[layerIdxList.size()];
         int currentBitCount = 0;
         int previousLayerLastIdx = -1;
-        for (int i = 0; i < layerIdxList.size(); i++) {
-            int cuboidIdx = layerIdxList.get(i);
-            // get bit count from the biginteger api
-            int nBits = cuboidList.get(cuboidIdx).bitCount();
+        for (int i = 0; i < size; i++) {
+            int nBits = bitCounts[layerIdxArray[i]];
             if (nBits > currentBitCount) {
                 currentBitCount = nBits;
                 previousLayerLastIdx = i - 1;
@@ -313,10 +339,10 @@ public class CuboidStatsUtil {
             previousLayerLastIdxArray[i] = previousLayerLastIdx;
         }
 
-        Map<BigInteger, List<BigInteger>> directChildrenCache = Maps.newHashMap();
-        for (int i = 0; i < cuboidList.size(); i++) {
-            BigInteger currentCuboid = cuboidList.get(i);
-            LinkedList<BigInteger> directChildren = Lists.newLinkedList();
+        int[][] directChildrenIdx = new int[size][];
+        int[] directChildren = new int[size];
+        for (int i = 0; i < size; i++) {
+            int nChildren = 0;
             int lastLayerIdx = previousLayerLastIdxArray[toLayerIdxArray[i]];
             /**
              * Choose one of the two scan strategies
@@ -328,7 +354,7 @@ public class CuboidStatsUtil {
                  * 1. Adding cuboid by descending order
                  * */
                 for (int j = i - 1; j >= 0; j--) {
-                    checkAndAddDirectChild(directChildren, currentCuboid, cuboidList.get(j));
+                    nChildren = checkAndAddDirectChild(masks, words, directChildren, nChildren, i, j);
                 }
             } else {
                 /**
@@ -336,34 +362,46 @@ public class CuboidStatsUtil {
                  * 2. Check from lower cuboid layer
                  * */
                 for (int j = lastLayerIdx; j >= 0; j--) {
-                    checkAndAddDirectChild(directChildren, currentCuboid, layerCuboidList.get(j));
+                    nChildren = checkAndAddDirectChild(masks, words, directChildren, nChildren, i,
+                            layerIdxArray[j]);
                 }
             }
-            directChildrenCache.put(currentCuboid, directChildren);
+            directChildrenIdx[i] = Arrays.copyOf(directChildren, nChildren);
         }
-        return directChildrenCache;
+        return directChildrenIdx;
     }
 
-    private static void checkAndAddDirectChild(List<BigInteger> directChildren, BigInteger currentCuboid,
-            BigInteger checkedCuboid) {
-        if (isDescendant(checkedCuboid, currentCuboid)) {
-            boolean ifDirectChild = true;
-            for (BigInteger directChild : directChildren) {
-                if (isDescendant(checkedCuboid, directChild)) {
-                    ifDirectChild = false;
-                    break;
+    private static int checkAndAddDirectChild(long[] masks, int words, int[] directChildren, int nChildren,
+            int currentCuboid, int checkedCuboid) {
+        if (isDescendant(masks, words, checkedCuboid, currentCuboid)) {
+            for (int k = 0; k < nChildren; k++) {
+                if (isDescendant(masks, words, checkedCuboid, directChildren[k])) {
+                    return nChildren;
                 }
             }
-            if (ifDirectChild) {
-                directChildren.add(checkedCuboid);
-            }
+            directChildren[nChildren++] = checkedCuboid;
         }
+        return nChildren;
     }
 
     private static boolean isDescendant(BigInteger cuboidToCheck, BigInteger parentCuboid) {
         return (cuboidToCheck.and(parentCuboid)).equals(cuboidToCheck);
     }
 
+    private static boolean isDescendant(long[] masks, int words, int cuboidToCheck, int parentCuboid) {
+        if (words == 1) {
+            return (masks[cuboidToCheck] & ~masks[parentCuboid]) == 0;
+        }
+        int checkOffset = cuboidToCheck * words;
+        int parentOffset = parentCuboid * words;
+        for (int w = 0; w < words; w++) {
+            if ((masks[checkOffset + w] & ~masks[parentOffset + w]) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private static double calculateRollupRatio(Pair<Long, Long> rollupStats) {
         double rollupInputCount = (double) rollupStats.getFirst() + rollupStats.getSecond();
         return rollupInputCount == 0 ? 0 : 1.0 * rollupStats.getFirst() / rollupInputCount;
@@ -18,10 +18,7 @@
 
 package org.apache.kylin.metadata.cube.planner.algorithm;
 
-import java.math.BigInteger;
-
 import com.google.common.base.Preconditions;
-import com.google.common.collect.ImmutableMap;
 
 public class PBPUSCalculator extends BPUSCalculator {
 
@@ -29,16 +26,16 @@ public class PBPUSCalculator extends BPUSCalculator {
         super(cuboidStats);
     }
 
-    protected PBPUSCalculator(CuboidStats cuboidStats, ImmutableMap<BigInteger, Long> initCuboidAggCostMap) {
-        super(cuboidStats, initCuboidAggCostMap);
+    protected PBPUSCalculator(CuboidStats cuboidStats, long[] cuboidCosts, long[] initCuboidAggCosts) {
+        super(cuboidStats, cuboidCosts, initCuboidAggCosts);
     }
 
     @Override
-    protected double getCostSaving(BigInteger descendant, BigInteger cuboid) {
+    protected double getCostSaving(int descendant, int cuboid) {
         return getCuboidHitProbability(descendant) * super.getCostSaving(descendant, cuboid);
     }
 
-    protected double getCuboidHitProbability(BigInteger cuboid) {
+    protected double getCuboidHitProbability(int cuboid) {
         return cuboidStats.getCuboidHitProbability(cuboid);
     }
 
@@ -50,6 +47,6 @@ public class PBPUSCalculator extends BPUSCalculator {
 
     @Override
     public BenefitPolicy getInstance() {
-        return new PBPUSCalculator(this.cuboidStats, this.initCuboidAggCostMap);
+        return new PBPUSCalculator(this.cuboidStats, this.cuboidCosts, this.initCuboidAggCosts);
     }
 }
@@ -20,16 +20,14 @@ package org.apache.kylin.metadata.cube.planner.algorithm;
 
 import java.math.BigInteger;
 
-import com.google.common.collect.ImmutableMap;
-
 public class SPBPUSCalculator extends PBPUSCalculator {
 
     public SPBPUSCalculator(final CuboidStats cuboidStats) {
         super(cuboidStats);
     }
 
-    protected SPBPUSCalculator(CuboidStats cuboidStats, ImmutableMap<BigInteger, Long> initCuboidAggCostMap) {
-        super(cuboidStats, initCuboidAggCostMap);
+    protected SPBPUSCalculator(CuboidStats cuboidStats, long[] cuboidCosts, long[] initCuboidAggCosts) {
+        super(cuboidStats, cuboidCosts, initCuboidAggCosts);
     }
 
     @Override
@@ -39,6 +37,6 @@ public class SPBPUSCalculator extends PBPUSCalculator {
 
     @Override
     public BenefitPolicy getInstance() {
-        return new SPBPUSCalculator(this.cuboidStats, this.initCuboidAggCostMap);
+        return new SPBPUSCalculator(this.cuboidStats, this.cuboidCosts, this.initCuboidAggCosts);
     }
 }
@@ -80,7 +80,7 @@ public class BitsChromosome extends Chromosome {
     @Override
     public synchronized double fitness() {
         CuboidBenefitModel.BenefitModel benefitModel = benefitPolicy.calculateBenefitTotal(cuboids,
-                helper.getMandatoryCuboids());
+                helper.getIndexedMandatoryCuboids());
         double totalBenefit = benefitModel.benefit;
         if (spaceCost > helper.spaceLimit) {
             totalBenefit = totalBenefit * helper.spaceLimit / spaceCost;
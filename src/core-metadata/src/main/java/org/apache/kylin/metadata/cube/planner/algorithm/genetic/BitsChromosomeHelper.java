@@ -24,6 +24,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
+import org.apache.kylin.metadata.cube.planner.algorithm.CuboidIndexSet;
 import org.apache.kylin.metadata.cube.planner.algorithm.CuboidStats;
 
 import com.google.common.collect.ImmutableList;
@@ -35,17 +36,28 @@ public class BitsChromosomeHelper {
     public final double spaceLimit;
     private final CuboidStats cuboidStats;
     private final CuboidEncoder cuboidEncoder;
+    private final CuboidIndexSet indexedMandatoryCuboids;
 
     public BitsChromosomeHelper(final double spaceLimit, final CuboidStats cuboidStats) {
         this.spaceLimit = spaceLimit;
         this.cuboidStats = cuboidStats;
         this.cuboidEncoder = new CuboidEncoder(cuboidStats.getAllCuboidsForSelection());
+        this.indexedMandatoryCuboids = new CuboidIndexSet(cuboidStats);
+        indexedMandatoryCuboids.addAll(cuboidStats.getAllCuboidsForMandatory());
     }
 
     public ImmutableSet<BigInteger> getMandatoryCuboids() {
         return cuboidStats.getAllCuboidsForMandatory();
     }
 
+    /**
+     * The mandatory cuboids with their indexes in the cuboid stats, so the fitness of every chromosome
+     * does not index them again. Read only.
+     */
+    public Set<BigInteger> getIndexedMandatoryCuboids() {
+        return indexedMandatoryCuboids;
+    }
+
     public List<BigInteger> toCuboidList(BitSet bits) {
         return cuboidEncoder.toCuboidList(bits);
     }
@@ -22,94 +22,100 @@ import java.math.BigInteger;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.stream.IntStream;
 
 import org.apache.kylin.metadata.cube.planner.algorithm.AbstractRecommendAlgorithm;
 import org.apache.kylin.metadata.cube.planner.algorithm.BenefitPolicy;
 import org.apache.kylin.metadata.cube.planner.algorithm.CuboidBenefitModel;
+import org.apache.kylin.metadata.cube.planner.algorithm.CuboidIndexSet;
 import org.apache.kylin.metadata.cube.planner.algorithm.CuboidStats;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
-import com.google.common.collect.Sets;
-import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 /**
  * A simple implementation of the Greedy Algorithm , it chooses the cuboids which give
  * the greatest benefit based on expansion rate and time limitation.
+ * If several cuboids give the same greatest benefit, the first one of the remaining list is chosen.
  */
 public class GreedyAlgorithm extends AbstractRecommendAlgorithm {
     private static final Logger logger = LoggerFactory.getLogger(GreedyAlgorithm.class);
 
     private static final int THREAD_NUM = 8;
-    private ExecutorService executor;
+    private ForkJoinPool pool;
 
-    private Set<BigInteger> selected = Sets.newLinkedHashSet();
-    private List<BigInteger> remaining = Lists.newLinkedList();
+    private final Set<BigInteger> selected;
+    private final List<BigInteger> remaining = Lists.newArrayList();
 
     public GreedyAlgorithm(final long timeout, BenefitPolicy benefitPolicy, CuboidStats cuboidStats) {
         super(timeout, benefitPolicy, cuboidStats);
+        this.selected = new CuboidIndexSet(cuboidStats);
     }
 
     @Override
     public List<BigInteger> start(double spaceLimit) {
         logger.info("Greedy Algorithm started.");
-        executor = Executors.newFixedThreadPool(THREAD_NUM,
-                new ThreadFactoryBuilder().setNameFormat("greedy-algorithm-benefit-calculator-pool-%d").build());
+        pool = new ForkJoinPool(THREAD_NUM, p -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            thread.setName("greedy-algorithm-benefit-calculator-pool-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
 
-        //Initial mandatory cuboids
-        selected.clear();
         double remainingSpace = spaceLimit;
-        for (BigInteger mandatoryOne : cuboidStats.getAllCuboidsForMandatory()) {
-            selected.add(mandatoryOne);
-            if (cuboidStats.getCuboidSize(mandatoryOne) != null) {
-                remainingSpace -= cuboidStats.getCuboidSize(mandatoryOne);
-            }
-        }
-        //Initial remaining cuboid set
-        remaining.clear();
-        remaining.addAll(cuboidStats.getAllCuboidsForSelection());
-
-        long round = 0;
-        while (!shouldCancel()) {
-            // Choose one cuboid having the maximum benefit per unit space in all available list
-            CuboidBenefitModel best = recommendBestOne();
-            // If return null, then we should finish the process and return
-            if (best == null) {
-                logger.info("Greedy algorithm ends due to cannot find next best one");
-                break;
-            }
-            // If we finally find the cuboid selected does not meet a minimum threshold of benefit (for
-            // example, a cuboid with 0.99M roll up from a parent cuboid with 1M
-            // rows), then we should finish the process and return
-            if (!benefitPolicy.ifEfficient(best)) {
-                logger.info("Greedy algorithm ends due to the benefit of the best one is not efficient {}",
-                        best.getBenefit());
-                break;
+        try {
+            //Initial mandatory cuboids
+            selected.clear();
+            for (BigInteger mandatoryOne : cuboidStats.getAllCuboidsForMandatory()) {
+                selected.add(mandatoryOne);
+                if (cuboidStats.getCuboidSize(mandatoryOne) != null) {
+                    remainingSpace -= cuboidStats.getCuboidSize(mandatoryOne);
+                }
             }
+            //Initial remaining cuboid set
+            remaining.clear();
+            remaining.addAll(cuboidStats.getAllCuboidsForSelection());
+
+            long round = 0;
+            while (!shouldCancel()) {
+                // Choose one cuboid having the maximum benefit per unit space in all available list
+                CuboidBenefitModel best = recommendBestOne();
+                // If return null, then we should finish the process and return
+                if (best == null) {
+                    logger.info("Greedy algorithm ends due to cannot find next best one");
+                    break;
+                }
+                // If we finally find the cuboid selected does not meet a minimum threshold of benefit (for
+                // example, a cuboid with 0.99M roll up from a parent cuboid with 1M
+                // rows), then we should finish the process and return
+                if (!benefitPolicy.ifEfficient(best)) {
+                    logger.info("Greedy algorithm ends due to the benefit of the best one is not efficient {}",
+                            best.getBenefit());
+                    break;
+                }
 
-            remainingSpace -= cuboidStats.getCuboidSize(best.getCuboidId());
-            // If we finally find there is no remaining space,  then we should finish the process and return
-            if (remainingSpace <= 0) {
-                logger.info("Greedy algorithm ends due to there's no remaining space");
-                break;
-            }
-            selected.add(best.getCuboidId());
-            remaining.remove(best.getCuboidId());
-            benefitPolicy.propagateAggregationCost(best.getCuboidId(), selected);
-            round++;
-            if (logger.isTraceEnabled()) {
-                logger.trace(String.format(Locale.ROOT, "Recommend in round %d : %s", round, best.toString()));
+                remainingSpace -= cuboidStats.getCuboidSize(best.getCuboidId());
+                // If we finally find there is no remaining space,  then we should finish the process and return
+                if (remainingSpace <= 0) {
+                    logger.info("Greedy algorithm ends due to there's no remaining space");
+                    break;
+                }
+                selected.add(best.getCuboidId());
+                remaining.remove(best.getCuboidId());
+                benefitPolicy.propagateAggregationCost(best.getCuboidId(), selected);
+                round++;
+                if (logger.isTraceEnabled()) {
+                    logger.trace(String.format(Locale.ROOT, "Recommend in round %d : %s", round, best.toString()));
+                }
             }
+        } finally {
+            pool.shutdown();
         }
 
-        executor.shutdown();
-
         List<BigInteger> excluded = Lists.newArrayList(remaining);
         remaining.retainAll(selected);
         Preconditions.checkArgument(remaining.isEmpty(),
@@ -131,32 +137,26 @@ public class GreedyAlgorithm extends AbstractRecommendAlgorithm {
 
     private CuboidBenefitModel recommendBestOne() {
         final int selectedSize = selected.size();
-        final AtomicReference<CuboidBenefitModel> best = new AtomicReference<>();
-
-        final CountDownLatch counter = new CountDownLatch(remaining.size());
-        for (final BigInteger cuboid : remaining) {
-            executor.submit(() -> {
-                CuboidBenefitModel currentBest = best.get();
+        final CuboidBenefitModel.BenefitModel[] benefitModels = new CuboidBenefitModel.BenefitModel[remaining.size()];
+        try {
+            pool.submit(() -> IntStream.range(0, benefitModels.length).parallel().forEach(i -> {
                 assert (selected.size() == selectedSize);
-                CuboidBenefitModel.BenefitModel benefitModel = benefitPolicy.calculateBenefit(cuboid, selected);
-                if (benefitModel != null && (currentBest == null || currentBest.getBenefit() == null
-                        || benefitModel.benefit > currentBest.getBenefit())) {
-                    while (!best.compareAndSet(currentBest,
-                            new CuboidBenefitModel(cuboidStats.getCuboidModel(cuboid), benefitModel))) {
-                        currentBest = best.get();
-                        if (benefitModel.benefit <= currentBest.getBenefit()) {
-                            break;
-                        }
-                    }
-                }
-                counter.countDown();
-            });
+                benefitModels[i] = benefitPolicy.calculateBenefit(remaining.get(i), selected);
+            })).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to calculate the benefit of the remaining cuboids", e.getCause());
         }
 
-        try {
-            counter.await();
-        } catch (InterruptedException e) {
+        int best = -1;
+        for (int i = 0; i < benefitModels.length; i++) {
+            if (benefitModels[i] != null && (best < 0 || benefitModels[i].benefit > benefitModels[best].benefit)) {
+                best = i;
+            }
         }
-        return best.get();
+        return best < 0 ? null
+                : new CuboidBenefitModel(cuboidStats.getCuboidModel(remaining.get(best)), benefitModels[best]);
     }
 }
@@ -22,6 +22,7 @@ import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Random;
 import java.util.Set;
@@ -248,6 +249,43 @@ public class HLLCounterTest {
         checkSerialize(counter);
     }
 
+    @Test
+    public void testSparseSameAsDense() throws Exception {
+        int p = 14;
+        double oldFactor = HLLCounter.OVERFLOW_FACTOR;
+        HLLCounter.OVERFLOW_FACTOR = 1.1; //keep sparse
+        try {
+            for (int n : new int[] { 2, 10, 100, 1000 }) {
+                HLLCounter sparse = new HLLCounter(p, RegisterType.SPARSE);
+                HLLCounter dense = new HLLCounter(p, RegisterType.DENSE);
+                for (int k = 0; k < 4; k++) {
+                    HLLCounter another = new HLLCounter(p);
+                    for (int i = 0; i < n; i++) {
+                        another.add(rand2.nextInt(n * 4));
+                    }
+                    sparse.merge(another);
+                    dense.merge(another);
+                }
+                assertEquals(RegisterType.SPARSE, sparse.getRegisterType());
+                assertEquals(dense.getCountEstimate(), sparse.getCountEstimate());
+                // both are written in the map scheme ordered by position
+                Assert.assertArrayEquals(toBytes(dense), toBytes(sparse));
+
+                HLLCounter merged = new HLLCounter(p, RegisterType.DENSE);
+                merged.merge(sparse);
+                assertEquals(dense, merged);
+            }
+        } finally {
+            HLLCounter.OVERFLOW_FACTOR = oldFactor;
+        }
+    }
+
+    private byte[] toBytes(HLLCounter counter) throws IOException {
+        buf.clear();
+        counter.writeRegisters(buf);
+        return Arrays.copyOf(buf.array(), buf.position());
+    }
+
     private Set<String> generateTestData(int n) {
         Set<String> testData = new HashSet<String>();
         for (int i = 0; i < n; i++) {
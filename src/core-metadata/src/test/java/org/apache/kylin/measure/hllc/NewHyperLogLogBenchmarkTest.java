@@ -20,7 +20,9 @@ package org.apache.kylin.measure.hllc;
 import static org.junit.Assert.assertEquals;
 
 import java.nio.ByteBuffer;
+import java.util.Map;
 import java.util.Random;
+import java.util.TreeMap;
 
 import org.junit.Ignore;
 import org.junit.Test;
@@ -265,6 +267,87 @@ public class NewHyperLogLogBenchmarkTest {
         HLLCounter.OVERFLOW_FACTOR = oldFactor;
     }
 
+    @Test
+    public void smallSparseRegisterBenchmark() throws Exception {
+        final int p = 14;
+        final int m = 1 << p;
+        final int counters = 10000;
+        final int indexLen = 2;
+        System.out.println("smallSparseRegisterBenchmark(), m : " + m + ", counters : " + counters);
+        for (final int cardinality : new int[] { 2, 10, 50, m / 100 }) {
+            final int[][] positions = new int[counters][cardinality];
+            final byte[][] values = new byte[counters][cardinality];
+            for (int i = 0; i < counters; i++) {
+                for (int j = 0; j < cardinality; j++) {
+                    positions[i][j] = rand.nextInt(m);
+                    values[i][j] = (byte) (rand.nextInt(20) + 1);
+                }
+            }
+            final ByteBuffer buf = ByteBuffer.allocate(1024 * 1024);
+            long treeMapTime = runTestCase(new TestCase() {
+                @Override
+                public void run() {
+                    TreeMapRegister merged = new TreeMapRegister();
+                    for (int i = 0; i < counters; i++) {
+                        TreeMapRegister register = new TreeMapRegister();
+                        for (int j = 0; j < cardinality; j++) {
+                            register.setIfBigger(positions[i][j], values[i][j]);
+                        }
+                        buf.clear();
+                        register.writeTo(indexLen, buf);
+                        merged.merge(register);
+                    }
+                }
+            });
+            long primitiveTime = runTestCase(new TestCase() {
+                @Override
+                public void run() {
+                    SparseRegister merged = new SparseRegister();
+                    for (int i = 0; i < counters; i++) {
+                        SparseRegister register = new SparseRegister();
+                        for (int j = 0; j < cardinality; j++) {
+                            if (values[i][j] > register.get(positions[i][j]))
+                                register.set(positions[i][j], values[i][j]);
+                        }
+                        buf.clear();
+                        register.writeTo(indexLen, buf);
+                        merged.merge(register);
+                    }
+                }
+            });
+            System.out.println("----------------------------");
+            System.out.println("cardinality : " + cardinality);
+            System.out.println("tree map time : " + treeMapTime);
+            System.out.println("primitive time : " + primitiveTime);
+        }
+    }
+
+    /**
+     * The boxed sparse register SparseRegister was backed by before.
+     */
+    static class TreeMapRegister {
+        private final Map<Integer, Byte> registers = new TreeMap<>();
+
+        void setIfBigger(int pos, byte value) {
+            Byte b = registers.get(pos);
+            if (b == null || value > b)
+                registers.put(pos, value);
+        }
+
+        void merge(TreeMapRegister another) {
+            for (Map.Entry<Integer, Byte> entry : another.registers.entrySet()) {
+                setIfBigger(entry.getKey(), entry.getValue());
+            }
+        }
+
+        void writeTo(int indexLen, ByteBuffer out) {
+            for (Map.Entry<Integer, Byte> entry : registers.entrySet()) {
+                HLLCounter.writeUnsigned(entry.getKey(), indexLen, out);
+                out.put(entry.getValue());
+            }
+        }
+    }
+
     interface TestCase {
         void run() throws Exception;
     }
@@ -22,9 +22,14 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
 
 import org.apache.kylin.guava30.shaded.common.collect.Lists;
+import org.apache.kylin.guava30.shaded.common.collect.Maps;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -145,4 +150,84 @@ public class TopNCounterBasicTest {
         topK.forEach(counter -> topResult.add(counter.getItem()));
         Assert.assertArrayEquals(new String[] { "Z", "X", "A", "Y" }, topResult.toArray());
     }
+
+    @Test
+    public void testOfferCountEvictsMin() {
+        TopNCounter<String> vs = new TopNCounter<String>(3);
+        vs.offerCount("A", 5);
+        vs.offerCount("B", 3);
+        vs.offerCount("C", 1);
+        // C is dropped, D takes over its count
+        vs.offerCount("D", 1);
+        vs.offerCount("B", 0.5);
+
+        List<Counter<String>> topK = vs.topK(3);
+        assertEquals(3, topK.size());
+        assertEquals("A", topK.get(0).getItem());
+        assertEquals("B", topK.get(1).getItem());
+        assertEquals(3.5, topK.get(1).getCount(), 0.0);
+        assertEquals("D", topK.get(2).getItem());
+        assertEquals(2.0, topK.get(2).getCount(), 0.0);
+        Assert.assertArrayEquals(new double[] { 2.0, 3.5, 5.0 }, vs.getCounters(), 0.0);
+    }
+
+    @Test
+    public void testOfferToHeadKeepsOrder() {
+        TopNCounter<String> vs = new TopNCounter<String>(10);
+        vs.offerToHead("C", 1);
+        vs.offerToHead("B", 1);
+        vs.offerToHead("A", 2);
+        vs.sortAndRetain();
+        assertEquals("[A:2.0B:1.0C:1.0]", vs.toString());
+
+        List<String> ascending = Lists.newArrayList();
+        vs.forEach(counter -> ascending.add(counter.getItem()));
+        Assert.assertArrayEquals(new String[] { "C", "B", "A" }, ascending.toArray());
+    }
+
+    @Test
+    public void testEqualCountsInInsertionOrder() {
+        Random random = new Random(4);
+        TopNCounter<Integer> vs = new TopNCounter<>(100);
+        Map<Integer, Double> expected = Maps.newLinkedHashMap();
+        for (int i = 0; i < 1000; i++) {
+            int item = random.nextInt(60);
+            vs.offer(item);
+            expected.merge(item, 1.0, Double::sum);
+        }
+        // a stable sort keeps the insertion order among equal counts
+        List<String> expectedTopK = expected.entrySet().stream()
+                .sorted(Map.Entry.<Integer, Double> comparingByValue(Comparator.reverseOrder())).limit(10)
+                .map(e -> e.getKey() + ":" + e.getValue()).collect(Collectors.toList());
+        List<String> topK = vs.topK(10).stream().map(Counter::toString).collect(Collectors.toList());
+        assertEquals(expectedTopK, topK);
+
+        // the item taking over the slot of the dropped minimum goes after the equal counts
+        TopNCounter<String> full = new TopNCounter<>(3);
+        for (String item : new String[] { "A", "B", "C", "C", "A", "D" }) {
+            full.offer(item);
+        }
+        full.sortAndRetain();
+        assertEquals("[A:2.0C:2.0D:2.0]", full.toString());
+    }
+
+    @Test
+    public void testRetainUnsorted() {
+        TopNCounter<String> vs = new TopNCounter<>(10);
+        String[] stream = { "X", "X", "Y", "Z", "A", "B", "C", "X", "X", "A", "C", "A", "A" };
+        for (String i : stream) {
+            vs.offer(i);
+        }
+        vs.retain(2);
+        assertEquals(2, vs.size());
+        assertEquals("[X:4.0A:4.0]", vs.toString());
+        assertEquals("X", vs.getCounterList().get(0).getItem());
+        assertEquals("A", vs.getCounterList().get(1).getItem());
+
+        // the dropped counters are not in the index anymore
+        vs.offer("Q", 5.0);
+        assertEquals(2, vs.size());
+        assertEquals("Q", vs.topK(1).get(0).getItem());
+        assertEquals(9.0, vs.topK(1).get(0).getCount(), 0.0);
+    }
 }
@@ -0,0 +1,228 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.kylin.measure.topn;
+
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.commons.math3.distribution.ZipfDistribution;
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Compare offer and merge of TopNCounter with the previous HashMap + LinkedList implementation.
+ */
+@Ignore("Save UT time")
+public class TopNCounterBenchmarkTest {
+
+    private static final int CAPACITY = 10 * TopNCounter.EXTRA_SPACE_RATE;
+    private static final int KEY_SPACE = 100000;
+    private static final int STREAM_SIZE = 500000;
+    private static final int MERGE_TIMES = 200;
+
+    private final int warmUpTimes = 3;
+    private final int testTimes = 5;
+
+    @Test
+    public void offerBenchmark() {
+        int[] keys = zipfKeys(STREAM_SIZE, 1);
+        double[] values = randomValues(STREAM_SIZE, 2);
+
+        for (int i = 0; i < warmUpTimes; i++) {
+            offerAll(new TopNCounter<>(CAPACITY), keys, values);
+            offerAll(new LegacyTopNCounter<>(CAPACITY), keys, values);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < testTimes; i++) {
+            Assert.assertEquals(CAPACITY, offerAll(new TopNCounter<>(CAPACITY), keys, values).size());
+        }
+        long currentTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < testTimes; i++) {
+            Assert.assertEquals(CAPACITY, offerAll(new LegacyTopNCounter<>(CAPACITY), keys, values).size());
+        }
+        long legacyTime = System.nanoTime() - start;
+
+        System.out.println("----------------------------");
+        System.out.println("offer " + STREAM_SIZE + " items, current avg ms : " + currentTime / testTimes / 1000000);
+        System.out.println("offer " + STREAM_SIZE + " items, legacy avg ms : " + legacyTime / testTimes / 1000000);
+    }
+
+    @Test
+    public void mergeBenchmark() {
+        TopNCounter<Integer>[] counters = new TopNCounter[MERGE_TIMES];
+        LegacyTopNCounter<Integer>[] legacyCounters = new LegacyTopNCounter[MERGE_TIMES];
+        for (int i = 0; i < MERGE_TIMES; i++) {
+            int[] keys = zipfKeys(CAPACITY * 2, i);
+            double[] values = randomValues(CAPACITY * 2, i);
+            counters[i] = offerAll(new TopNCounter<>(CAPACITY), keys, values);
+            counters[i].sortAndRetain();
+            legacyCounters[i] = offerAll(new LegacyTopNCounter<>(CAPACITY), keys, values);
+            legacyCounters[i].sortAndRetain();
+        }
+
+        for (int i = 0; i < warmUpTimes; i++) {
+            mergeAll(counters);
+            mergeAll(legacyCounters);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < testTimes; i++) {
+            mergeAll(counters);
+        }
+        long currentTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < testTimes; i++) {
+            mergeAll(legacyCounters);
+        }
+        long legacyTime = System.nanoTime() - start;
+
+        System.out.println("----------------------------");
+        System.out.println("merge " + MERGE_TIMES + " counters, current avg ms : " + currentTime / testTimes / 1000000);
+        System.out.println("merge " + MERGE_TIMES + " counters, legacy avg ms : " + legacyTime / testTimes / 1000000);
+    }
+
+    private static TopNCounter<Integer> offerAll(TopNCounter<Integer> counter, int[] keys, double[] values) {
+        for (int i = 0; i < keys.length; i++) {
+            counter.offerCount(keys[i], values[i]);
+        }
+        return counter;
+    }
+
+    private static LegacyTopNCounter<Integer> offerAll(LegacyTopNCounter<Integer> counter, int[] keys,
+            double[] values) {
+        for (int i = 0; i < keys.length; i++) {
+            counter.offer(keys[i], values[i]);
+        }
+        return counter;
+    }
+
+    private static void mergeAll(TopNCounter<Integer>[] counters) {
+        TopNCounter<Integer> result = new TopNCounter<>(CAPACITY);
+        for (TopNCounter<Integer> counter : counters) {
+            result.merge(counter);
+        }
+        Assert.assertEquals(CAPACITY, result.size());
+    }
+
+    private static void mergeAll(LegacyTopNCounter<Integer>[] counters) {
+        LegacyTopNCounter<Integer> result = new LegacyTopNCounter<>(CAPACITY);
+        for (LegacyTopNCounter<Integer> counter : counters) {
+            result.merge(counter);
+        }
+        Assert.assertEquals(CAPACITY, result.size());
+    }
+
+    private static int[] zipfKeys(int n, int seed) {
+        ZipfDistribution zipf = new ZipfDistribution(KEY_SPACE, 0.8);
+        zipf.reseedRandomGenerator(seed);
+        int[] keys = new int[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = zipf.sample();
+        }
+        return keys;
+    }
+
+    private static double[] randomValues(int n, int seed) {
+        Random random = new Random(seed);
+        double[] values = new double[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = random.nextInt(100);
+        }
+        return values;
+    }
+
+    /**
+     * The offer, merge and retain of the previous TopNCounter, as the baseline.
+     */
+    private static class LegacyTopNCounter<T> {
+        private final int capacity;
+        private final Map<T, Counter<T>> counterMap = new HashMap<>();
+        private final LinkedList<Counter<T>> counterList = new LinkedList<>();
+        private boolean ordered = true;
+
+        private LegacyTopNCounter(int capacity) {
+            this.capacity = capacity;
+        }
+
+        private int size() {
+            return counterMap.size();
+        }
+
+        private void offer(T item, Double incrementCount) {
+            Counter<T> counterNode = counterMap.get(item);
+            if (counterNode == null) {
+                if (size() < capacity) {
+                    counterNode = new Counter<>(item, null);
+                    counterList.addLast(counterNode);
+                } else {
+                    if (!ordered) {
+                        sort();
+                    }
+                    counterNode = counterList.getLast();
+                    counterMap.remove(counterNode.getItem());
+                    counterNode.setItem(item);
+                }
+                counterMap.put(item, counterNode);
+            }
+            if (incrementCount != null) {
+                counterNode.setCount(
+                        counterNode.getCount() == null ? incrementCount : counterNode.getCount() + incrementCount);
+            }
+            ordered = false;
+        }
+
+        private void merge(LegacyTopNCounter<T> another) {
+            double m1 = size() >= capacity ? counterList.getLast().getCount() : 0.0;
+            boolean anotherFull = another.size() >= another.capacity;
+            double m2 = anotherFull ? another.counterList.getLast().getCount() : 0.0;
+            if (anotherFull) {
+                for (Counter<T> entry : counterMap.values()) {
+                    entry.setCount(entry.getCount() + m2);
+                }
+            }
+            for (Map.Entry<T, Counter<T>> entry : another.counterMap.entrySet()) {
+                if (counterMap.containsKey(entry.getKey())) {
+                    offer(entry.getKey(), entry.getValue().getCount() - m2);
+                } else {
+                    offer(entry.getKey(), entry.getValue().getCount() + m1);
+                }
+            }
+            sortAndRetain();
+        }
+
+        private void sortAndRetain() {
+            sort();
+            while (size() > capacity) {
+                counterMap.remove(counterList.pollLast().getItem());
+            }
+        }
+
+        private void sort() {
+            counterList.sort(TopNCounter.DESC_COMPARATOR);
+            ordered = true;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kylin.metadata.acl;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.kylin.common.util.NLocalFileMetadataTestCase;
+import org.apache.kylin.guava30.shaded.common.collect.Sets;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AclTCRManagerTest extends NLocalFileMetadataTestCase {
+
+    private static final String PROJECT = "default";
+    private static final String TABLE = "DEFAULT.TEST_KYLIN_FACT";
+
+    @Before
+    public void setup() {
+        createTestMetadata();
+    }
+
+    @After
+    public void tearDown() {
+        cleanupTestMetadata();
+    }
+
+    @Test
+    public void testDigestCache() {
+        AclTCRManager manager = AclTCRManager.getInstance(getTestConfig(), PROJECT);
+        manager.updateAclTCR(createAclTCR("11", SensitiveDataMask.MaskType.DEFAULT), "u1", true);
+        manager.updateAclTCR(createAclTCR("22", null), "g1", false);
+        Set<String> groups = Sets.newHashSet("g1");
+
+        Map<String, String> conditions = manager.getTableColumnConcatWhereCondition("u1", groups);
+        Assert.assertTrue(conditions.get(TABLE).contains("11"));
+        Assert.assertTrue(conditions.get(TABLE).contains("22"));
+        SensitiveDataMaskInfo maskInfo = manager.getSensitiveDataMaskInfo("u1", groups);
+        Assert.assertTrue(maskInfo.hasMask());
+        Assert.assertEquals(1, manager.digestSize());
+
+        // an equal group set hits the compiled digest
+        Assert.assertEquals(conditions, manager.getTableColumnConcatWhereCondition("u1", Sets.newHashSet("g1")));
+        Assert.assertSame(maskInfo, manager.getSensitiveDataMaskInfo("u1", groups));
+        Assert.assertEquals(1, manager.digestSize());
+
+        manager.getTableColumnConcatWhereCondition("u1", Collections.emptySet());
+        Assert.assertEquals(2, manager.digestSize());
+
+        manager.updateAclTCR(createAclTCR("33", null), "g1", false);
+        Assert.assertEquals(0, manager.digestSize());
+        conditions = manager.getTableColumnConcatWhereCondition("u1", groups);
+        Assert.assertFalse(conditions.get(TABLE).contains("22"));
+        Assert.assertTrue(conditions.get(TABLE).contains("33"));
+
+        manager.revokeAclTCR("u1", true);
+        Assert.assertFalse(manager.getSensitiveDataMaskInfo("u1", groups).hasMask());
+    }
+
+    @Test
+    public void testDigestReloadedAcl() {
+        AclTCRManager manager = AclTCRManager.getInstance(getTestConfig(), PROJECT);
+        manager.updateAclTCR(createAclTCR("11", null), "u1", true);
+        Assert.assertTrue(manager.getTableColumnConcatWhereCondition("u1", null).get(TABLE).contains("11"));
+
+        // acl changed by another manager, e.g. in a transaction or broadcast from another node
+        AclTCRManager.newInstance(getTestConfig(), PROJECT).updateAclTCR(createAclTCR("22", null), "u1", true);
+        Assert.assertEquals(1, manager.digestSize());
+        Assert.assertTrue(manager.getTableColumnConcatWhereCondition("u1", null).get(TABLE).contains("22"));
+    }
+
+    @Test
+    public void testDigestCacheDisabled() {
+        overwriteSystemProp("kylin.query.security.acl-digest-cache-enabled", "false");
+        AclTCRManager manager = AclTCRManager.getInstance(getTestConfig(), PROJECT);
+        manager.updateAclTCR(createAclTCR("11", SensitiveDataMask.MaskType.AS_NULL), "u1", true);
+
+        Assert.assertTrue(manager.getTableColumnConcatWhereCondition("u1", null).get(TABLE).contains("11"));
+        Assert.assertNotSame(manager.getSensitiveDataMaskInfo("u1", null),
+                manager.getSensitiveDataMaskInfo("u1", null));
+        Assert.assertEquals(0, manager.digestSize());
+    }
+
+    private AclTCR createAclTCR(String itemCount, SensitiveDataMask.MaskType maskType) {
+        AclTCR.ColumnRow columnRow = new AclTCR.ColumnRow();
+        AclTCR.Column column = new AclTCR.Column();
+        column.addAll(Arrays.asList("PRICE", "ITEM_COUNT"));
+        columnRow.setColumn(column);
+        AclTCR.Row row = new AclTCR.Row();
+        AclTCR.RealRow realRow = new AclTCR.RealRow();
+        realRow.add(itemCount);
+        row.put("ITEM_COUNT", realRow);
+        columnRow.setRow(row);
+        if (maskType != null) {
+            columnRow.setColumnSensitiveDataMask(
+                    Collections.singletonList(new SensitiveDataMask("PRICE", maskType)));
+        }
+        AclTCR.Table table = new AclTCR.Table();
+        table.put(TABLE, columnRow);
+        AclTCR acl = new AclTCR();
+        acl.setTable(table);
+        return acl;
+    }
+}
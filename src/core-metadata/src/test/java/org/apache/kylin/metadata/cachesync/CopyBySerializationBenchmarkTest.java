@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kylin.metadata.cachesync;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.apache.kylin.common.persistence.JsonSerializer;
+import org.apache.kylin.common.persistence.ResourceStore;
+import org.apache.kylin.common.persistence.RootPersistentEntity;
+import org.apache.kylin.common.util.NLocalFileMetadataTestCase;
+import org.apache.kylin.metadata.cube.model.IndexPlan;
+import org.apache.kylin.metadata.cube.model.NDataSegDetails;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Compare the copy of JsonSerializer with the json round trip on large cached entities.
+ */
+@Ignore("Save UT time")
+public class CopyBySerializationBenchmarkTest extends NLocalFileMetadataTestCase {
+
+    private static final int COPY_TIMES = 200;
+
+    private final int warmUpTimes = 3;
+    private final int testTimes = 5;
+
+    @Before
+    public void setUp() throws Exception {
+        this.createTestMetadata();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        this.cleanupTestMetadata();
+    }
+
+    @Test
+    public void copyIndexPlanBenchmark() throws IOException {
+        IndexPlan indexPlan = ResourceStore.getKylinMetaStore(getTestConfig()).getResource(
+                "INDEX_PLAN/89af4ee2-2cdb-4b07-b39e-4c29856309aa", new JsonSerializer<>(IndexPlan.class));
+        benchmark("index plan", CopyBySerializationTest.largeIndexPlan(indexPlan, 2000), IndexPlan.class);
+    }
+
+    @Test
+    public void copySegDetailsBenchmark() throws IOException {
+        NDataSegDetails details = ResourceStore.getKylinMetaStore(getTestConfig()).getResource(
+                "LAYOUT/d2edf0c5-5eb2-4968-9ad5-09efbf659324", new JsonSerializer<>(NDataSegDetails.class));
+        benchmark("segment details", CopyBySerializationTest.largeSegDetails(details, 5000),
+                NDataSegDetails.class);
+    }
+
+    private <T extends RootPersistentEntity> void benchmark(String name, T entity, Class<T> clz)
+            throws IOException {
+        JsonSerializer<T> serializer = new JsonSerializer<>(clz);
+        for (int i = 0; i < warmUpTimes; i++) {
+            for (int j = 0; j < COPY_TIMES; j++) {
+                serializer.copy(entity);
+                roundTrip(entity, serializer);
+            }
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < testTimes; i++) {
+            for (int j = 0; j < COPY_TIMES; j++) {
+                serializer.copy(entity);
+            }
+        }
+        long copyTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < testTimes; i++) {
+            for (int j = 0; j < COPY_TIMES; j++) {
+                roundTrip(entity, serializer);
+            }
+        }
+        long roundTripTime = System.nanoTime() - start;
+
+        System.out.println("----------------------------");
+        System.out.println("copy " + name + ", token buffer avg us : " + copyTime / testTimes / COPY_TIMES / 1000);
+        System.out.println("copy " + name + ", json round trip avg us : "
+                + roundTripTime / testTimes / COPY_TIMES / 1000);
+    }
+
+    private static <T extends RootPersistentEntity> T roundTrip(T entity, JsonSerializer<T> serializer)
+            throws IOException {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        serializer.serialize(entity, new DataOutputStream(buf));
+        return serializer.deserialize(new DataInputStream(new ByteArrayInputStream(buf.toByteArray())));
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kylin.metadata.cachesync;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import org.apache.kylin.common.persistence.JsonSerializer;
+import org.apache.kylin.common.persistence.MetadataType;
+import org.apache.kylin.common.persistence.RawResourceFilter;
+import org.apache.kylin.common.persistence.ResourceStore;
+import org.apache.kylin.common.persistence.RootPersistentEntity;
+import org.apache.kylin.common.util.JsonUtil;
+import org.apache.kylin.common.util.NLocalFileMetadataTestCase;
+import org.apache.kylin.metadata.cube.model.IndexEntity;
+import org.apache.kylin.metadata.cube.model.IndexPlan;
+import org.apache.kylin.metadata.cube.model.NDataLayoutDetails;
+import org.apache.kylin.metadata.cube.model.NDataSegDetails;
+import org.apache.kylin.metadata.cube.model.NDataSegment;
+import org.apache.kylin.metadata.cube.model.NDataflow;
+import org.apache.kylin.metadata.model.NDataModel;
+import org.apache.kylin.metadata.model.TableDesc;
+import org.apache.kylin.metadata.model.TableExtDesc;
+import org.apache.kylin.metadata.project.ProjectInstance;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * The copy of JsonSerializer must be the same as the json round trip.
+ */
+public class CopyBySerializationTest extends NLocalFileMetadataTestCase {
+
+    @Before
+    public void setUp() throws Exception {
+        this.createTestMetadata();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        this.cleanupTestMetadata();
+    }
+
+    @Test
+    public void testCopyTestMetadata() throws IOException {
+        assertCopyAll(MetadataType.PROJECT, ProjectInstance.class);
+        assertCopyAll(MetadataType.MODEL, NDataModel.class);
+        assertCopyAll(MetadataType.INDEX_PLAN, IndexPlan.class);
+        assertCopyAll(MetadataType.DATAFLOW, NDataflow.class);
+        assertCopyAll(MetadataType.SEGMENT, NDataSegment.class);
+        assertCopyAll(MetadataType.LAYOUT, NDataSegDetails.class);
+        assertCopyAll(MetadataType.LAYOUT_DETAILS, NDataLayoutDetails.class);
+        assertCopyAll(MetadataType.TABLE_INFO, TableDesc.class);
+        assertCopyAll(MetadataType.TABLE_EXD, TableExtDesc.class);
+    }
+
+    @Test
+    public void testCopyLargeEntities() throws IOException {
+        ResourceStore store = ResourceStore.getKylinMetaStore(getTestConfig());
+        IndexPlan indexPlan = store.getResource("INDEX_PLAN/89af4ee2-2cdb-4b07-b39e-4c29856309aa",
+                new JsonSerializer<>(IndexPlan.class));
+        NDataSegDetails details = store.getResource("LAYOUT/d2edf0c5-5eb2-4968-9ad5-09efbf659324",
+                new JsonSerializer<>(NDataSegDetails.class));
+
+        IndexPlan largeIndexPlan = largeIndexPlan(indexPlan, 2000);
+        Assert.assertEquals(2000 + indexPlan.getIndexes().size(), largeIndexPlan.getIndexes().size());
+        assertCopy(largeIndexPlan, IndexPlan.class);
+
+        NDataSegDetails largeDetails = largeSegDetails(details, 5000);
+        Assert.assertEquals(5000 + details.getLayouts().size(), largeDetails.getLayouts().size());
+        assertCopy(largeDetails, NDataSegDetails.class);
+    }
+
+    private <T extends RootPersistentEntity> void assertCopyAll(MetadataType type, Class<T> clz) throws IOException {
+        ResourceStore store = ResourceStore.getKylinMetaStore(getTestConfig());
+        JsonSerializer<T> serializer = new JsonSerializer<>(clz);
+        for (String path : store.collectResourceRecursively(type, new RawResourceFilter())) {
+            assertCopy(store.getResource(path, serializer), clz);
+        }
+    }
+
+    private static <T extends RootPersistentEntity> void assertCopy(T entity, Class<T> clz) throws IOException {
+        JsonSerializer<T> serializer = new JsonSerializer<>(clz);
+        T copy = serializer.copy(entity);
+        Assert.assertNotSame(entity, copy);
+        Assert.assertEquals(entity.resourceName(), JsonUtil.writeValueAsIndentString(roundTrip(entity, serializer)),
+                JsonUtil.writeValueAsIndentString(copy));
+    }
+
+    private static <T extends RootPersistentEntity> T roundTrip(T entity, JsonSerializer<T> serializer)
+            throws IOException {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        serializer.serialize(entity, new DataOutputStream(buf));
+        return serializer.deserialize(new DataInputStream(new ByteArrayInputStream(buf.toByteArray())));
+    }
+
+    /**
+     * Append indexes like the first one of indexPlan.
+     */
+    static IndexPlan largeIndexPlan(IndexPlan indexPlan, int indexNum) throws IOException {
+        ObjectNode node = (ObjectNode) JsonUtil.readValueAsTree(JsonUtil.writeValueAsString(indexPlan));
+        ArrayNode indexes = (ArrayNode) node.get("indexes");
+        ObjectNode template = (ObjectNode) indexes.get(0);
+        long nextId = node.get("next_aggregation_index_id").asLong();
+        for (int i = 0; i < indexNum; i++, nextId += IndexEntity.INDEX_ID_STEP) {
+            ObjectNode index = template.deepCopy();
+            index.put("id", nextId);
+            ArrayNode layouts = (ArrayNode) index.get("layouts");
+            for (int j = 0; j < layouts.size(); j++) {
+                ((ObjectNode) layouts.get(j)).put("id", nextId + j + 1);
+            }
+            indexes.add(index);
+        }
+        node.put("next_aggregation_index_id", nextId);
+        return JsonUtil.readValue(node.toString(), IndexPlan.class);
+    }
+
+    /**
+     * Append layouts like the first one of details.
+     */
+    static NDataSegDetails largeSegDetails(NDataSegDetails details, int layoutNum) throws IOException {
+        ObjectNode node = (ObjectNode) JsonUtil.readValueAsTree(JsonUtil.writeValueAsString(details));
+        ArrayNode layouts = (ArrayNode) node.get("layout_instances");
+        ObjectNode template = (ObjectNode) layouts.get(0);
+        for (int i = 0; i < layoutNum; i++) {
+            ObjectNode layout = template.deepCopy();
+            layout.put("layout_id", 100_000_000L + i * IndexEntity.INDEX_ID_STEP + 1);
+            layout.put("rows", i);
+            layouts.add(layout);
+        }
+        return JsonUtil.readValue(node.toString(), NDataSegDetails.class);
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kylin.metadata.cube.planner.algorithm;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.apache.kylin.guava30.shaded.common.collect.Lists;
+import org.apache.kylin.guava30.shaded.common.collect.Sets;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CuboidStatsTest extends AlgorithmTestBase {
+
+    @Test
+    public void testAllDescendants() {
+        Set<BigInteger> allCuboids = cuboidStats.getStatistics().keySet();
+        for (BigInteger cuboid : cuboidStats.getAllCuboidsForSelection()) {
+            Set<BigInteger> descendants = cuboidStats.getAllDescendants(cuboid);
+            Set<BigInteger> expected = Sets.newHashSet();
+            for (BigInteger other : allCuboids) {
+                if (other.and(cuboid).equals(other)) {
+                    expected.add(other);
+                }
+            }
+            Assert.assertEquals(expected, descendants);
+
+            List<BigInteger> indexed = Lists.newArrayList();
+            for (int descendant : cuboidStats.getAllDescendants(cuboidStats.getCuboidIndex(cuboid))) {
+                indexed.add(cuboidStats.getCuboid(descendant));
+            }
+            Assert.assertEquals(Lists.newArrayList(descendants), indexed);
+        }
+        for (BigInteger cuboid : cuboidStats.getAllCuboidsForMandatory()) {
+            Assert.assertTrue(cuboidStats.getAllDescendants(cuboid).isEmpty());
+            Assert.assertEquals(0, cuboidStats.getAllDescendants(cuboidStats.getCuboidIndex(cuboid)).length);
+        }
+    }
+
+    @Test
+    public void testDirectChildrenOfWideCuboids() {
+        Random random = new Random(0);
+        for (int nBits : new int[] { 12, 63, 64, 65, 130 }) {
+            Set<BigInteger> cuboids = Sets.newHashSet();
+            for (int i = 0; i < 200; i++) {
+                BigInteger cuboid = BigInteger.ZERO;
+                for (int bit = 0; bit < nBits; bit++) {
+                    if (random.nextInt(nBits) < 6) {
+                        cuboid = cuboid.setBit(bit);
+                    }
+                }
+                cuboids.add(cuboid);
+            }
+            Map<BigInteger, List<BigInteger>> directChildrenCache = CuboidStatsUtil.createDirectChildrenCache(cuboids);
+            for (BigInteger cuboid : cuboids) {
+                Set<BigInteger> expected = Sets.newHashSet();
+                for (BigInteger child : cuboids) {
+                    if (isDirectChild(child, cuboid, cuboids)) {
+                        expected.add(child);
+                    }
+                }
+                Assert.assertEquals(expected, Sets.newHashSet(directChildrenCache.get(cuboid)));
+                Assert.assertEquals(expected.size(), directChildrenCache.get(cuboid).size());
+            }
+        }
+    }
+
+    private static boolean isDirectChild(BigInteger child, BigInteger parent, Set<BigInteger> cuboids) {
+        if (child.equals(parent) || !child.and(parent).equals(child)) {
+            return false;
+        }
+        for (BigInteger between : cuboids) {
+            if (!between.equals(child) && !between.equals(parent) && between.and(parent).equals(between)
+                    && child.and(between).equals(child)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
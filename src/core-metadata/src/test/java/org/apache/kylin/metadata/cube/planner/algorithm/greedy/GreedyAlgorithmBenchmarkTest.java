@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kylin.metadata.cube.planner.algorithm.greedy;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.kylin.guava30.shaded.common.collect.Maps;
+import org.apache.kylin.metadata.cube.planner.algorithm.CuboidStats;
+import org.apache.kylin.metadata.cube.planner.algorithm.PBPUSCalculator;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Recommend on synthetic models with wide cuboids, from ones fitting into a long to ones which do not.
+ */
+@Ignore("Save UT time")
+public class GreedyAlgorithmBenchmarkTest {
+
+    private static final int CUBOID_NUM = 3000;
+
+    @Test
+    public void recommendBenchmark() {
+        for (int nDims : new int[] { 40, 60, 100 }) {
+            CuboidStats cuboidStats = simulateCuboidStats(nDims, new Random(nDims));
+            long start = System.nanoTime();
+            GreedyAlgorithm algorithm = new GreedyAlgorithm(-1, new PBPUSCalculator(cuboidStats), cuboidStats);
+            List<BigInteger> recommendList = algorithm.recommend(10);
+            long time = System.nanoTime() - start;
+
+            System.out.println("----------------------------");
+            System.out.println("dimensions : " + nDims + ", cuboids : " + cuboidStats.getCuboidNum());
+            System.out.println("recommended : " + recommendList.size() + ", time ms : " + time / 1000000);
+        }
+    }
+
+    private CuboidStats simulateCuboidStats(int nDims, Random random) {
+        long[] cardinalities = new long[nDims];
+        for (int i = 0; i < nDims; i++) {
+            cardinalities[i] = 2 + random.nextInt(1000);
+        }
+        BigInteger baseCuboid = BigInteger.ONE.shiftLeft(nDims).subtract(BigInteger.ONE);
+        long baseCount = 100000000L;
+        Map<BigInteger, Long> statistics = Maps.newHashMap();
+        statistics.put(baseCuboid, baseCount);
+        while (statistics.size() < CUBOID_NUM) {
+            BigInteger cuboid = BigInteger.ZERO;
+            long count = 1;
+            int nBits = 1 + random.nextInt(8);
+            for (int i = 0; i < nBits; i++) {
+                int dim = random.nextInt(nDims);
+                if (!cuboid.testBit(dim)) {
+                    cuboid = cuboid.setBit(dim);
+                    count = Math.min(baseCount, count * cardinalities[dim]);
+                }
+            }
+            statistics.put(cuboid, count);
+        }
+        Map<BigInteger, Double> size = Maps.newHashMap();
+        for (Map.Entry<BigInteger, Long> entry : statistics.entrySet()) {
+            size.put(entry.getKey(), entry.getValue() * 1.0);
+        }
+        return new CuboidStats.Builder("benchmark", baseCuboid, baseCuboid, statistics, size).build();
+    }
+}
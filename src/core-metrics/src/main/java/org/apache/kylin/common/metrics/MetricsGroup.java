@@ -31,6 +31,7 @@ import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import org.apache.commons.collections.CollectionUtils;
@@ -68,9 +69,45 @@ public class MetricsGroup {
 
     public static final ConcurrentHashMap<String, Histogram> histograms = new ConcurrentHashMap<>();
 
+    /**
+     * Bumped whenever metrics are removed, so that resolved handles register their metrics again.
+     */
+    private static final AtomicLong removeGeneration = new AtomicLong();
+
     private MetricsGroup() {
     }
 
+    public static CounterHandle hostTagCounterHandle(MetricsName name, MetricsCategory category, String entity) {
+        return counterHandle(name, category, entity, getHostTagMap(entity));
+    }
+
+    public static CounterHandle counterHandle(MetricsName name, MetricsCategory category, String entity) {
+        return counterHandle(name, category, entity, Collections.emptyMap());
+    }
+
+    public static CounterHandle counterHandle(MetricsName name, MetricsCategory category, String entity,
+            Map<String, String> tags) {
+        return new CounterHandle(name, category, entity, tags);
+    }
+
+    public static HistogramHandle hostTagHistogramHandle(MetricsName name, MetricsCategory category, String entity) {
+        return histogramHandle(name, category, entity, getHostTagMap(entity));
+    }
+
+    public static HistogramHandle histogramHandle(MetricsName name, MetricsCategory category, String entity) {
+        return histogramHandle(name, category, entity, Collections.emptyMap());
+    }
+
+    public static HistogramHandle histogramHandle(MetricsName name, MetricsCategory category, String entity,
+            Map<String, String> tags) {
+        return new HistogramHandle(name, category, entity, tags);
+    }
+
+    public static MeterHandle meterHandle(MetricsName name, MetricsCategory category, String entity,
+            Map<String, String> tags) {
+        return new MeterHandle(name, category, entity, tags);
+    }
+
     public static boolean hostTagCounterInc(MetricsName name, MetricsCategory category, String entity) {
         return counterInc(name, category, entity, getHostTagMap(entity));
     }
@@ -208,6 +245,7 @@ public class MetricsGroup {
             final Iterator<String> it = histograms.keySet().iterator();
             doRemove(metricNameSuffix, it, registry);
         }
+        removeGeneration.incrementAndGet();
     }
 
     public static Counter getCounter(MetricsName name, MetricsCategory category, String entity,
@@ -295,6 +333,7 @@ public class MetricsGroup {
         newCounter(MetricsName.JOB_ERROR, MetricsCategory.PROJECT, projectName, tags);
         newHistogram(MetricsName.JOB_DURATION_HISTOGRAM, MetricsCategory.PROJECT, projectName, tags);
         newCounter(MetricsName.JOB_WAIT_DURATION, MetricsCategory.PROJECT, projectName, tags);
+        newHistogram(MetricsName.JOB_SCHEDULE_LATENCY, MetricsCategory.PROJECT, projectName, tags);
         // metadata management
         newCounter(MetricsName.METADATA_CLEAN, MetricsCategory.PROJECT, projectName, tags);
         newCounter(MetricsName.METADATA_BACKUP, MetricsCategory.PROJECT, projectName, tags);
@@ -685,4 +724,160 @@ public class MetricsGroup {
         tags.put(MetricsTag.HOST.getVal(), sb.toString());
         return tags;
     }
+
+    /**
+     * A metric resolved once from (name, category, entity, tags), callers keep the handle and update it
+     * without building the metric name again. The metric is resolved lazily and resolved again after any
+     * metrics are removed, e.g. on project drop.
+     */
+    private abstract static class MetricHandle<M extends Metric> {
+        private final String name;
+        private final String category;
+        private final String entity;
+        private final Map<String, String> tags;
+
+        private volatile Resolved<M> resolved;
+
+        private MetricHandle(MetricsName name, MetricsCategory category, String entity, Map<String, String> tags) {
+            this.name = name.getVal();
+            this.category = category.getVal();
+            this.entity = entity;
+            this.tags = tags.isEmpty() ? Collections.emptyMap() : Maps.newHashMap(tags);
+        }
+
+        protected abstract boolean requireMonitorEnabled();
+
+        protected abstract M register(String name, String category, String entity, Map<String, String> tags);
+
+        /**
+         * @return the metric, or null if the monitor is disabled
+         */
+        protected M metric() {
+            Resolved<M> current = resolved;
+            if (current != null && current.generation == removeGeneration.get()) {
+                return current.metric;
+            }
+            long generation = removeGeneration.get();
+            if (requireMonitorEnabled() && !KapConfig.getInstanceFromEnv().isMonitorEnabled()) {
+                // not resolved, so that the metric is registered once the monitor is enabled
+                return null;
+            }
+            M metric = register(name, category, entity, tags);
+            resolved = new Resolved<>(metric, generation);
+            return metric;
+        }
+
+        @Override
+        public String toString() {
+            return metricName(name, category, entity, tags);
+        }
+    }
+
+    private static class Resolved<M> {
+        private final M metric;
+        private final long generation;
+
+        private Resolved(M metric, long generation) {
+            this.metric = metric;
+            this.generation = generation;
+        }
+    }
+
+    public static final class CounterHandle extends MetricHandle<Counter> {
+
+        private CounterHandle(MetricsName name, MetricsCategory category, String entity, Map<String, String> tags) {
+            super(name, category, entity, tags);
+        }
+
+        @Override
+        protected boolean requireMonitorEnabled() {
+            return true;
+        }
+
+        @Override
+        protected Counter register(String name, String category, String entity, Map<String, String> tags) {
+            return registerCounterIfAbsent(name, category, entity, tags);
+        }
+
+        public boolean inc() {
+            return inc(1);
+        }
+
+        public boolean inc(long increments) {
+            if (increments < 0) {
+                return false;
+            }
+            try {
+                Counter counter = metric();
+                if (counter != null) {
+                    counter.inc(increments);
+                }
+                return true;
+            } catch (Exception e) {
+                logger.warn("kylin.metrics counterInc {}", e.getMessage());
+            }
+            return false;
+        }
+    }
+
+    public static final class HistogramHandle extends MetricHandle<Histogram> {
+
+        private HistogramHandle(MetricsName name, MetricsCategory category, String entity, Map<String, String> tags) {
+            super(name, category, entity, tags);
+        }
+
+        @Override
+        protected boolean requireMonitorEnabled() {
+            return true;
+        }
+
+        @Override
+        protected Histogram register(String name, String category, String entity, Map<String, String> tags) {
+            return registerHistogramIfAbsent(name, category, entity, tags);
+        }
+
+        public boolean update(long updateTo) {
+            if (updateTo < 0) {
+                return false;
+            }
+            try {
+                Histogram histogram = metric();
+                if (histogram != null) {
+                    histogram.update(updateTo);
+                }
+                return true;
+            } catch (Exception e) {
+                logger.warn("kylin.metrics histogramUpdate {}", e.getMessage());
+            }
+            return false;
+        }
+    }
+
+    public static final class MeterHandle extends MetricHandle<Meter> {
+
+        private MeterHandle(MetricsName name, MetricsCategory category, String entity, Map<String, String> tags) {
+            super(name, category, entity, tags);
+        }
+
+        @Override
+        protected boolean requireMonitorEnabled() {
+            // same as meterMark, meters are marked regardless of the monitor switch
+            return false;
+        }
+
+        @Override
+        protected Meter register(String name, String category, String entity, Map<String, String> tags) {
+            return registerMeterIfAbsent(name, category, entity, tags);
+        }
+
+        public boolean mark() {
+            try {
+                metric().mark();
+                return true;
+            } catch (Exception e) {
+                logger.warn("kylin.metrics meterMark {}", e.getMessage());
+            }
+            return false;
+        }
+    }
 }
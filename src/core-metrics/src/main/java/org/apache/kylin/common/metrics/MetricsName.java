@@ -81,6 +81,14 @@ public enum MetricsName {
     QUERY_3S_5S_RATIO("bw_3s_5s_ratio", ClusterConstant.ALL, ClusterConstant.QUERY), //
     QUERY_5S_10S_RATIO("bw_5s_10s_ratio", ClusterConstant.ALL, ClusterConstant.QUERY), //
     QUERY_SLOW_RATIO("gt10s_query_ratio", ClusterConstant.ALL, ClusterConstant.QUERY), //
+    QUERY_PLAN_CACHE_HIT("plan_cache_hit_total_times", ClusterConstant.ALL, ClusterConstant.QUERY), //
+    QUERY_PLAN_CACHE_MISS("plan_cache_miss_total_times", ClusterConstant.ALL, ClusterConstant.QUERY), //
+    QUERY_PLAN_CACHE_EVICTION("plan_cache_eviction_total_times", ClusterConstant.ALL, ClusterConstant.QUERY), //
+    QUERY_BINDABLE_CACHE_HIT("bindable_cache_hit_total_times", ClusterConstant.ALL, ClusterConstant.QUERY), //
+    QUERY_BINDABLE_CACHE_MISS("bindable_cache_miss_total_times", ClusterConstant.ALL, ClusterConstant.QUERY), //
+    QUERY_HISTORY_QUEUE_SIZE("query_history_queue_size_gauge", ClusterConstant.ALL, ClusterConstant.QUERY), //
+    QUERY_HISTORY_SPILL_SIZE("query_history_spill_bytes_gauge", ClusterConstant.ALL, ClusterConstant.QUERY), //
+    QUERY_HISTORY_SPILL_LAG("query_history_spill_lag_ms_gauge", ClusterConstant.ALL, ClusterConstant.QUERY), //
 
     //job
     JOB("job_created_total_times", ClusterConstant.ALL, ClusterConstant.JOB), //
@@ -96,6 +104,7 @@ public enum MetricsName {
     JOB_RUNNING_GAUGE("running_job_num_gauge", true), //
     JOB_PENDING_GAUGE("pending_job_num_gauge", true), //
     JOB_WAIT_DURATION("job_wait_duration", ClusterConstant.ALL, ClusterConstant.JOB), //
+    JOB_SCHEDULE_LATENCY("job_schedule_latency", ClusterConstant.ALL, ClusterConstant.JOB), //
 
     // host
     QUERY_HOST("query_num_per_host"), //
@@ -129,6 +138,10 @@ public enum MetricsName {
     TRANSACTION_RETRY_COUNTER("transaction_retry_total_times"), //
     TRANSACTION_LATENCY("transaction_latency"), //
 
+    //metadata replay
+    METADATA_REPLAY_LAG_IDS("metadata_replay_lag_ids"), //
+    METADATA_REPLAY_LAG_MS("metadata_replay_lag_ms"), //
+
     //user management
     USER_GAUGE("user_num_gauge", true), //
 
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.kylin.common.metric;
+
+import java.util.Map;
+
+import org.apache.kylin.common.metrics.MetricsCategory;
+import org.apache.kylin.common.metrics.MetricsGroup;
+import org.apache.kylin.common.metrics.MetricsName;
+import org.apache.kylin.common.util.NLocalFileMetadataTestCase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Compare updating metrics by name with updating pre-resolved handles.
+ */
+@Ignore("Save UT time")
+public class MetricsHandleBenchmarkTest extends NLocalFileMetadataTestCase {
+
+    private static final String PROJECT = "benchmark_project";
+
+    private final int warmUpTimes = 100_000;
+    private final int testTimes = 2_000_000;
+
+    @Before
+    public void setUp() {
+        createTestMetadata();
+        getTestConfig().setProperty("kylin.monitor.enabled", "true");
+    }
+
+    @After
+    public void tearDown() {
+        MetricsGroup.removeProjectMetrics(PROJECT);
+        cleanupTestMetadata();
+    }
+
+    @Test
+    public void nameVsHandleBenchmark() {
+        Map<String, String> tags = MetricsGroup.getHostTagMap("localhost:7070", PROJECT);
+        MetricsGroup.CounterHandle counter = MetricsGroup.counterHandle(MetricsName.QUERY, MetricsCategory.PROJECT,
+                PROJECT, tags);
+        MetricsGroup.HistogramHandle histogram = MetricsGroup.histogramHandle(MetricsName.QUERY_LATENCY,
+                MetricsCategory.PROJECT, PROJECT, tags);
+
+        for (int i = 0; i < warmUpTimes; i++) {
+            MetricsGroup.counterInc(MetricsName.QUERY, MetricsCategory.PROJECT, PROJECT, tags);
+            MetricsGroup.histogramUpdate(MetricsName.QUERY_LATENCY, MetricsCategory.PROJECT, PROJECT, tags, i);
+            counter.inc();
+            histogram.update(i);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < testTimes; i++) {
+            MetricsGroup.counterInc(MetricsName.QUERY, MetricsCategory.PROJECT, PROJECT, tags);
+            MetricsGroup.histogramUpdate(MetricsName.QUERY_LATENCY, MetricsCategory.PROJECT, PROJECT, tags, i);
+        }
+        long nameTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < testTimes; i++) {
+            counter.inc();
+            histogram.update(i);
+        }
+        long handleTime = System.nanoTime() - start;
+
+        System.out.println("----------------------------");
+        System.out.println("by name avg ns : " + nameTime / testTimes);
+        System.out.println("by handle avg ns : " + handleTime / testTimes);
+    }
+}
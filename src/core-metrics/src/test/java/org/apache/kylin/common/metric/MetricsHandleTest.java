@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.kylin.common.metric;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.apache.kylin.common.metrics.MetricsCategory;
+import org.apache.kylin.common.metrics.MetricsGroup;
+import org.apache.kylin.common.metrics.MetricsName;
+import org.apache.kylin.common.metrics.MetricsTag;
+import org.apache.kylin.common.util.NLocalFileMetadataTestCase;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.codahale.metrics.Histogram;
+
+public class MetricsHandleTest extends NLocalFileMetadataTestCase {
+
+    private static final String PROJECT = "handle_project";
+
+    @Before
+    public void setUp() {
+        createTestMetadata();
+        getTestConfig().setProperty("kylin.monitor.enabled", "true");
+    }
+
+    @After
+    public void tearDown() {
+        MetricsGroup.removeProjectMetrics(PROJECT);
+        cleanupTestMetadata();
+    }
+
+    @Test
+    public void testCounterHandle() {
+        Map<String, String> tags = Collections.singletonMap(MetricsTag.HOST.getVal(), "localhost-" + PROJECT);
+        MetricsGroup.CounterHandle handle = MetricsGroup.counterHandle(MetricsName.QUERY, MetricsCategory.PROJECT,
+                PROJECT, tags);
+        Assert.assertTrue(handle.inc());
+        Assert.assertTrue(handle.inc(2));
+        Assert.assertFalse(handle.inc(-1));
+        Assert.assertEquals(3, MetricsGroup.getCounter(MetricsName.QUERY, MetricsCategory.PROJECT, PROJECT, tags)
+                .getCount());
+
+        // shares the same counter with the name based api
+        MetricsGroup.counterInc(MetricsName.QUERY, MetricsCategory.PROJECT, PROJECT, tags);
+        Assert.assertEquals(4, MetricsGroup.getCounter(MetricsName.QUERY, MetricsCategory.PROJECT, PROJECT, tags)
+                .getCount());
+
+        // resolved again after the project metrics are removed
+        MetricsGroup.removeProjectMetrics(PROJECT);
+        Assert.assertNull(MetricsGroup.getCounter(MetricsName.QUERY, MetricsCategory.PROJECT, PROJECT, tags));
+        Assert.assertTrue(handle.inc());
+        Assert.assertEquals(1, MetricsGroup.getCounter(MetricsName.QUERY, MetricsCategory.PROJECT, PROJECT, tags)
+                .getCount());
+    }
+
+    @Test
+    public void testHistogramHandle() {
+        MetricsGroup.HistogramHandle handle = MetricsGroup.histogramHandle(MetricsName.QUERY_LATENCY,
+                MetricsCategory.PROJECT, PROJECT);
+        Assert.assertTrue(handle.update(10));
+        Assert.assertTrue(handle.update(20));
+        Assert.assertFalse(handle.update(-1));
+        Histogram histogram = MetricsGroup.histograms.get(MetricsGroup.metricName(MetricsName.QUERY_LATENCY.getVal(),
+                MetricsCategory.PROJECT.getVal(), PROJECT, Collections.emptyMap()));
+        Assert.assertEquals(2, histogram.getCount());
+    }
+
+    @Test
+    public void testMonitorDisabled() {
+        getTestConfig().setProperty("kylin.monitor.enabled", "false");
+        MetricsGroup.CounterHandle handle = MetricsGroup.counterHandle(MetricsName.QUERY_HOST, MetricsCategory.PROJECT,
+                PROJECT);
+        Assert.assertTrue(handle.inc());
+        Assert.assertNull(MetricsGroup.getCounter(MetricsName.QUERY_HOST, MetricsCategory.PROJECT, PROJECT,
+                Collections.emptyMap()));
+
+        // the handle registers the metric once the monitor is enabled
+        getTestConfig().setProperty("kylin.monitor.enabled", "true");
+        Assert.assertTrue(handle.inc());
+        Assert.assertEquals(1, MetricsGroup.getCounter(MetricsName.QUERY_HOST, MetricsCategory.PROJECT, PROJECT,
+                Collections.emptyMap()).getCount());
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.kylin.jdbc;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.kylin.jdbc.json.SQLResponseStub;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Read the binary query result written by QueryResultBinaryWriter of the query server.
+ * Values are returned as Long, Double or String according to the encoding of each column batch.
+ */
+public class BinaryResultReader {
+
+    public static final String CONTENT_TYPE = "application/vnd.apache.kylin-v4-public+binary";
+
+    static final int MAGIC = 0x4B594C42;
+    static final byte VERSION = 1;
+
+    static final byte ENCODING_STRING = 0;
+    static final byte ENCODING_LONG = 1;
+    static final byte ENCODING_DOUBLE = 2;
+
+    private final SQLResponseStub header;
+    private final List<Object[]> rows;
+
+    private BinaryResultReader(SQLResponseStub header, List<Object[]> rows) {
+        this.header = header;
+        this.rows = rows;
+    }
+
+    public SQLResponseStub getHeader() {
+        return header;
+    }
+
+    public List<Object[]> getRows() {
+        return rows;
+    }
+
+    public static BinaryResultReader read(InputStream in, ObjectMapper jsonMapper) throws IOException {
+        DataInputStream dataIn = new DataInputStream(new BufferedInputStream(in, 64 * 1024));
+        if (dataIn.readInt() != MAGIC) {
+            throw new IOException("Response abnormal, not a binary query result");
+        }
+        byte version = dataIn.readByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported binary query result version " + version);
+        }
+        byte[] headerBytes = new byte[dataIn.readInt()];
+        dataIn.readFully(headerBytes);
+        SQLResponseStub header = jsonMapper.readValue(headerBytes, SQLResponseStub.class);
+
+        int columnCount = dataIn.readInt();
+        List<Object[]> rows = new ArrayList<>();
+        int rowCount;
+        while ((rowCount = dataIn.readInt()) > 0) {
+            Object[][] batch = new Object[rowCount][columnCount];
+            for (int col = 0; col < columnCount; col++) {
+                byte encoding = dataIn.readByte();
+                byte[] nulls = new byte[(rowCount + 7) / 8];
+                dataIn.readFully(nulls);
+                for (int row = 0; row < rowCount; row++) {
+                    if ((nulls[row >>> 3] & (1 << (row & 7))) != 0) {
+                        continue;
+                    }
+                    batch[row][col] = readValue(dataIn, encoding);
+                }
+            }
+            for (Object[] row : batch) {
+                rows.add(row);
+            }
+        }
+        return new BinaryResultReader(header, rows);
+    }
+
+    private static Object readValue(DataInputStream in, byte encoding) throws IOException {
+        switch (encoding) {
+        case ENCODING_LONG:
+            return in.readLong();
+        case ENCODING_DOUBLE:
+            return in.readDouble();
+        case ENCODING_STRING:
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        default:
+            throw new IOException("Unknown column encoding " + encoding);
+        }
+    }
+}
@@ -67,6 +67,9 @@ import org.slf4j.LoggerFactory;
  * <li>user: username</li>
  * <li>password: password</li>
  * <li>ssl: true/false</li>
+ * <li>fetch-size: rows fetched per request, 0 (default) fetches the whole result at once. The following pages are
+ * fetched from the result cursor kept by the server, released when the result set or statement is closed</li>
+ * <li>binary-result: true/false (default), fetch results in the typed columnar binary format instead of json</li>
  * </ul>
  * </p>
  *
@@ -35,14 +35,22 @@ public interface IRemoteClient extends Closeable {
         public final String queryId;
         public final long duration;
         public final long resultRowCount;
+        // the server side cursor to fetch the rest rows, null if the iterable holds all rows
+        public final String cursorId;
 
         public QueryResult(List<ColumnMetaData> columnMeta, Iterable<Object> iterable,
                            String queryId, long duration, long resultRowCount) {
+            this(columnMeta, iterable, queryId, duration, resultRowCount, null);
+        }
+
+        public QueryResult(List<ColumnMetaData> columnMeta, Iterable<Object> iterable,
+                           String queryId, long duration, long resultRowCount, String cursorId) {
             this.columnMeta = columnMeta;
             this.iterable = iterable;
             this.queryId = queryId;
             this.duration = duration;
             this.resultRowCount = resultRowCount;
+            this.cursorId = cursorId;
         }
     }
 
@@ -62,4 +70,15 @@ public interface IRemoteClient extends Closeable {
     public QueryResult executeQuery(String sql, List<AvaticaParameter> params, List<Object> paramValues,
                                     Map<String, String> queryToggles, String queryId) throws IOException;
 
+    /**
+     * Fetch the next page of a query result from its server side cursor, offset is the count of rows fetched so far.
+     * The cursor is released by the server after its last page.
+     */
+    public QueryResult fetchResult(String cursorId, long offset, List<ColumnMetaData> columnMeta) throws IOException;
+
+    /**
+     * Release the server side cursor of a query result not fetched to the end.
+     */
+    public void closeResult(String cursorId) throws IOException;
+
 }
@@ -49,6 +49,7 @@ import org.apache.calcite.avatica.ColumnMetaData.ScalarType;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpDelete;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpRequestBase;
@@ -102,6 +103,7 @@ public class KylinClient implements IRemoteClient {
     private static final String APPLICATION = "application/json";
     private static final String TIME_ZONE = "UTC";
     private static final String AUTH_METHOD = "Basic ";
+    private static final String ATTR_STATEMENT_MAX_ROWS = "ATTR_STATEMENT_MAX_ROWS";
 
     public KylinClient(KylinConnection conn) {
         entry(logger);
@@ -487,8 +489,82 @@ public class KylinClient implements IRemoteClient {
     public QueryResult executeQuery(String sql, List<AvaticaParameter> params, List<Object> paramValues,
             Map<String, String> queryToggles, String queryId) throws IOException {
         entry(logger);
-        GenericResponse<SQLResponseStub> queryResp = executeKylinQuery(sql, convertParameters(params, paramValues),
-                queryToggles, queryId);
+        List<StatementParameter> statementParams = convertParameters(params, paramValues);
+        SQLResponseStub resp;
+        List<ColumnMetaData> metas;
+        List<Object> data;
+        if (isBinaryResult()) {
+            BinaryResultReader reader = executeKylinQueryBinary(sql, statementParams, queryToggles, queryId);
+            resp = checkResponse(reader.getHeader());
+            metas = convertColumnMeta(resp);
+            data = convertBinaryResultData(reader.getRows(), metas);
+        } else {
+            resp = checkResponse(executeKylinQuery(sql, statementParams, queryToggles, queryId));
+            metas = convertColumnMeta(resp);
+            data = convertResultData(resp, metas);
+        }
+        QueryResult result = new QueryResult(metas, data, resp.getQueryId(), resp.getDuration(),
+                resp.getResultRowCount(), resp.getCursorId());
+        exit(logger);
+        return result;
+    }
+
+    @Override
+    public QueryResult fetchResult(String cursorId, long offset, List<ColumnMetaData> columnMeta)
+            throws IOException {
+        long start = System.currentTimeMillis();
+        String url = baseUrl() + "/kylin/api/query/cursor/" + cursorId + "?offset=" + offset + "&limit="
+                + getFetchSize();
+        HttpGet get = new HttpGet(url);
+        addHttpHeadersV2(get);
+        if (isBinaryResult()) {
+            get.setHeader("Accept", BinaryResultReader.CONTENT_TYPE);
+        }
+
+        try (CloseableHttpResponse response = httpClient.execute(get)) {
+            if (response.getStatusLine().getStatusCode() != RESPONSE_CODE_200
+                    && response.getStatusLine().getStatusCode() != RESPONSE_CODE_201) {
+                throw asIOException(get, response);
+            }
+
+            SQLResponseStub resp;
+            List<Object> data;
+            if (isBinaryResult()) {
+                BinaryResultReader reader = BinaryResultReader.read(response.getEntity().getContent(), jsonMapper);
+                resp = checkResponse(reader.getHeader());
+                data = convertBinaryResultData(reader.getRows(), columnMeta);
+            } else {
+                resp = checkResponse(jsonMapper.readValue(response.getEntity().getContent(),
+                        new TypeReference<GenericResponse<SQLResponseStub>>() {
+                        }));
+                data = convertResultData(resp, columnMeta);
+            }
+            logger.debug("Fetched {} rows of query {} from row {} in {} millis", data.size(), resp.getQueryId(),
+                    offset, System.currentTimeMillis() - start);
+            return new QueryResult(columnMeta, data, resp.getQueryId(), resp.getDuration(), resp.getResultRowCount(),
+                    resp.getCursorId());
+        }
+    }
+
+    @Override
+    public void closeResult(String cursorId) throws IOException {
+        HttpDelete delete = new HttpDelete(baseUrl() + "/kylin/api/query/cursor/" + cursorId);
+        addHttpHeadersV2(delete);
+        try (CloseableHttpResponse response = httpClient.execute(delete)) {
+            if (response.getStatusLine().getStatusCode() != RESPONSE_CODE_200) {
+                throw asIOException(delete, response);
+            }
+        }
+    }
+
+    private SQLResponseStub checkResponse(SQLResponseStub resp) throws IOException {
+        if (resp.getIsException()) {
+            throw new IOException(resp.getExceptionMessage());
+        }
+        return resp;
+    }
+
+    private SQLResponseStub checkResponse(GenericResponse<SQLResponseStub> queryResp) throws IOException {
         if (logger.isDebugEnabled()) {
             logger.debug("Response:\n {} ", jsonMapper.writeValueAsString(queryResp));
         }
@@ -499,13 +575,27 @@ public class KylinClient implements IRemoteClient {
         if (resp.getIsException()) {
             throw new IOException(resp.getExceptionMessage());
         }
+        return resp;
+    }
 
-        List<ColumnMetaData> metas = convertColumnMeta(resp);
-        List<Object> data = convertResultData(resp, metas);
-        QueryResult result = new QueryResult(metas, data, resp.getQueryId(), resp.getDuration(),
-                resp.getResultRowCount());
-        exit(logger);
-        return result;
+    /**
+     * Rows fetched per request, 0 means the whole result is fetched in one response. The rest rows of a result
+     * are fetched from its cursor kept by the server, the query is not run again.
+     */
+    private int getFetchSize() {
+        int fetchSize = Integer.parseInt(connProps.getProperty("fetch-size", "0"));
+        if (fetchSize < 0) {
+            logger.debug("invalid 'fetch-size', reset to default");
+            fetchSize = 0;
+        }
+        return fetchSize;
+    }
+
+    /**
+     * Whether to ask the server for the typed columnar binary result instead of json.
+     */
+    private boolean isBinaryResult() {
+        return Boolean.parseBoolean(connProps.getProperty("binary-result", "false"));
     }
 
     private List<StatementParameter> convertParameters(List<AvaticaParameter> params, List<Object> paramValues) {
@@ -532,7 +622,62 @@ public class KylinClient implements IRemoteClient {
     public GenericResponse<SQLResponseStub> executeKylinQuery(String sql, List<StatementParameter> params,
             Map<String, String> queryToggles, String queryId) throws IOException {
         long start = System.currentTimeMillis();
+        int maxRowsNum = Integer.parseInt(queryToggles.get(ATTR_STATEMENT_MAX_ROWS));
+        HttpPost post = buildQueryPost(sql, params, queryToggles, queryId);
+
+        try (CloseableHttpResponse response = httpClient.execute(post)) {
+
+            if (response.getStatusLine().getStatusCode() != RESPONSE_CODE_200
+                    && response.getStatusLine().getStatusCode() != RESPONSE_CODE_201) {
+                throw asIOException(post, response);
+            }
+
+            GenericResponse<SQLResponseStub> r = jsonMapper.readValue(response.getEntity().getContent(),
+                    new TypeReference<GenericResponse<SQLResponseStub>>() {
+                    });
 
+            long dur = System.currentTimeMillis() - start;
+            SQLResponseStub rr = r.getData();
+            if (maxRowsNum > 0 && rr.getResults().size() > maxRowsNum) {
+                rr.setResults(rr.getResults().subList(0, maxRowsNum));
+            }
+            logger.info("Query " + rr.getQueryId() + " returned "
+                    + (rr.getIsException() ? r.getCode() + "+ex" : r.getCode()) + " in " + dur + " millis at client, "
+                    + rr.getDuration() + " millis at server");
+            return r;
+        }
+    }
+
+    public BinaryResultReader executeKylinQueryBinary(String sql, List<StatementParameter> params,
+            Map<String, String> queryToggles, String queryId) throws IOException {
+        long start = System.currentTimeMillis();
+        int maxRowsNum = Integer.parseInt(queryToggles.get(ATTR_STATEMENT_MAX_ROWS));
+        HttpPost post = buildQueryPost(sql, params, queryToggles, queryId);
+        post.setHeader("Accept", BinaryResultReader.CONTENT_TYPE);
+
+        try (CloseableHttpResponse response = httpClient.execute(post)) {
+
+            if (response.getStatusLine().getStatusCode() != RESPONSE_CODE_200
+                    && response.getStatusLine().getStatusCode() != RESPONSE_CODE_201) {
+                throw asIOException(post, response);
+            }
+
+            BinaryResultReader r = BinaryResultReader.read(response.getEntity().getContent(), jsonMapper);
+
+            long dur = System.currentTimeMillis() - start;
+            List<Object[]> rows = r.getRows();
+            if (maxRowsNum > 0 && rows.size() > maxRowsNum) {
+                rows.subList(maxRowsNum, rows.size()).clear();
+            }
+            SQLResponseStub rr = r.getHeader();
+            logger.info("Query " + rr.getQueryId() + " returned " + (rr.getIsException() ? "binary+ex" : "binary")
+                    + " in " + dur + " millis at client, " + rr.getDuration() + " millis at server");
+            return r;
+        }
+    }
+
+    private HttpPost buildQueryPost(String sql, List<StatementParameter> params, Map<String, String> queryToggles,
+            String queryId) throws IOException {
         String url = baseUrl() + "/kylin/api/query";
         String project = conn.getProject();
 
@@ -544,10 +689,14 @@ public class KylinClient implements IRemoteClient {
         request.setSql(sql);
         request.setProject(project);
         request.setBackdoorToggles(queryToggles);
-        int maxRowsNum = Integer.parseInt(queryToggles.get("ATTR_STATEMENT_MAX_ROWS"));
+        int maxRowsNum = Integer.parseInt(queryToggles.get(ATTR_STATEMENT_MAX_ROWS));
         if (maxRowsNum > 0) {
             request.setLimit(maxRowsNum);
         }
+        int fetchSize = getFetchSize();
+        if (fetchSize > 0) {
+            request.setFetchSize(fetchSize);
+        }
 
         String executeAs = connProps.getProperty("EXECUTE_AS_USER_ID");
         if (executeAs != null) {
@@ -565,28 +714,7 @@ public class KylinClient implements IRemoteClient {
         logger.info("Post body:\n {} ", postBody);
         StringEntity requestEntity = new StringEntity(postBody, ContentType.create(APPLICATION, "UTF-8"));
         post.setEntity(requestEntity);
-
-        try (CloseableHttpResponse response = httpClient.execute(post)) {
-
-            if (response.getStatusLine().getStatusCode() != RESPONSE_CODE_200
-                    && response.getStatusLine().getStatusCode() != RESPONSE_CODE_201) {
-                throw asIOException(post, response);
-            }
-
-            GenericResponse<SQLResponseStub> r = jsonMapper.readValue(response.getEntity().getContent(),
-                    new TypeReference<GenericResponse<SQLResponseStub>>() {
-                    });
-
-            long dur = System.currentTimeMillis() - start;
-            SQLResponseStub rr = r.getData();
-            if (maxRowsNum > 0 && rr.getResults().size() > maxRowsNum) {
-                rr.setResults(rr.getResults().subList(0, maxRowsNum));
-            }
-            logger.info("Query " + rr.getQueryId() + " returned "
-                    + (rr.getIsException() ? r.getCode() + "+ex" : r.getCode()) + " in " + dur + " millis at client, "
-                    + rr.getDuration() + " millis at server");
-            return r;
-        }
+        return post;
     }
 
     private List<ColumnMetaData> convertColumnMeta(SQLResponseStub queryResp) {
@@ -631,6 +759,41 @@ public class KylinClient implements IRemoteClient {
         return data;
     }
 
+    private List<Object> convertBinaryResultData(List<Object[]> rows, List<ColumnMetaData> metas) {
+        List<Object> data = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] = wrapBinaryObject(row[i], metas.get(i).type.id);
+            }
+            data.add(row);
+        }
+        return data;
+    }
+
+    /**
+     * Convert a decoded value, Long or Double for numeric columns and String otherwise, to the column type.
+     */
+    private Object wrapBinaryObject(Object value, int sqlType) {
+        if (value instanceof Long) {
+            long l = (Long) value;
+            switch (sqlType) {
+            case Types.TINYINT:
+                return (byte) l;
+            case Types.SMALLINT:
+                return (short) l;
+            case Types.INTEGER:
+                return (int) l;
+            default:
+                return l;
+            }
+        }
+        if (value instanceof Double) {
+            double d = (Double) value;
+            return sqlType == Types.FLOAT ? (Object) (float) d : (Object) d;
+        }
+        return wrapObject((String) value, sqlType);
+    }
+
     private IOException asIOException(HttpRequestBase request, HttpResponse response) throws IOException {
         int statusCode = response.getStatusLine().getStatusCode();
         String responseStr = EntityUtils.toString(response.getEntity());
@@ -172,6 +172,10 @@ public class KylinConnection extends AvaticaConnection {
         return (KylinJdbcFactory) factory;
     }
 
+    KylinMeta getMeta() {
+        return (KylinMeta) meta;
+    }
+
     public IRemoteClient getRemoteClient() {
         return remoteClient;
     }
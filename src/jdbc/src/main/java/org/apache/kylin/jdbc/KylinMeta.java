@@ -22,20 +22,25 @@ import static org.apache.kylin.jdbc.LoggerUtils.entry;
 import static org.apache.kylin.jdbc.LoggerUtils.exit;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.lang.reflect.Field;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Pattern;
 
 import org.apache.calcite.avatica.AvaticaUtils;
 import org.apache.calcite.avatica.ColumnMetaData;
 import org.apache.calcite.avatica.MetaImpl;
+import org.apache.calcite.avatica.MissingResultsException;
 import org.apache.calcite.avatica.NoSuchStatementException;
 import org.apache.calcite.avatica.QueryState;
 import org.apache.calcite.avatica.remote.TypedValue;
+import org.apache.kylin.jdbc.IRemoteClient.QueryResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -47,6 +52,9 @@ public class KylinMeta extends MetaImpl {
     private static final Logger logger = LoggerFactory.getLogger(KylinMeta.class);
     private KMetaProject metaProject;
 
+    // statement id -> the server side cursor of the result the statement is fetching
+    private final Map<Integer, ResultCursor> resultCursors = new ConcurrentHashMap<>();
+
     public KylinMeta(KylinConnection connection) {
         super(connection);
         entry(logger);
@@ -154,10 +162,49 @@ public class KylinMeta extends MetaImpl {
     @Override
     public void closeStatement(StatementHandle h) {
         entry(logger);
-        // nothing to do
+        closeResultCursor(h);
         exit(logger);
     }
 
+    @Override
+    public void closeConnection(ConnectionHandle ch) {
+        entry(logger);
+        resultCursors.keySet().forEach(this::releaseResultCursor);
+        super.closeConnection(ch);
+        exit(logger);
+    }
+
+    /**
+     * Keep the cursor of a result with more rows than its first frame, the rest rows are fetched by
+     * {@link #fetch(StatementHandle, long, int)}. The cursor of the last result of the statement is released.
+     */
+    void openResultCursor(StatementHandle h, QueryResult result) {
+        closeResultCursor(h);
+        if (result.cursorId != null) {
+            resultCursors.put(h.id, new ResultCursor(result.cursorId, result.columnMeta));
+        }
+    }
+
+    /**
+     * Release the cursor of the result of a statement if it's not fetched to the end.
+     */
+    void closeResultCursor(StatementHandle h) {
+        releaseResultCursor(h.id);
+    }
+
+    private void releaseResultCursor(int statementId) {
+        ResultCursor cursor = resultCursors.remove(statementId);
+        if (cursor == null) {
+            return;
+        }
+        try {
+            connection().getRemoteClient().closeResult(cursor.cursorId);
+        } catch (IOException e) {
+            // released by the server after idle anyway
+            logger.warn("Failed to close the result cursor {}", cursor.cursorId, e);
+        }
+    }
+
     private KMetaProject getMetaProject() {
         entry(logger);
         try {
@@ -519,10 +566,38 @@ public class KylinMeta extends MetaImpl {
         }
     }
 
+    /**
+     * Fetch the next page of the result of a statement from the cursor on the server, a page holds as many rows as
+     * the fetch-size of the connection, fetchMaxRowCount is ignored.
+     */
     @Override
-    public Frame fetch(StatementHandle h, long offset, int fetchMaxRowCount) {
-        // TODO Auto-generated method stub
-        return null;
+    public Frame fetch(StatementHandle h, long offset, int fetchMaxRowCount) throws MissingResultsException {
+        ResultCursor cursor = resultCursors.get(h.id);
+        if (cursor == null) {
+            throw new MissingResultsException(h);
+        }
+        QueryResult page;
+        try {
+            page = connection().getRemoteClient().fetchResult(cursor.cursorId, offset, cursor.columnMeta);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        boolean done = page.cursorId == null;
+        if (done) {
+            // released by the server after the last page
+            resultCursors.remove(h.id, cursor);
+        }
+        return new Frame(offset, done, page.iterable);
+    }
+
+    private static class ResultCursor {
+        private final String cursorId;
+        private final List<ColumnMetaData> columnMeta;
+
+        ResultCursor(String cursorId, List<ColumnMetaData> columnMeta) {
+            this.cursorId = cursorId;
+            this.columnMeta = columnMeta;
+        }
     }
 
     @Override
@@ -81,6 +81,13 @@ public class KylinResultSet extends AvaticaResultSet {
         this.duration = duration;
     }
 
+    @Override
+    public void close() {
+        super.close();
+        // release the rows not fetched yet on the server
+        ((KylinConnection) statement.connection).getMeta().closeResultCursor(statement.handle);
+    }
+
     @Override
     protected AvaticaResultSet execute() throws SQLException {
 
@@ -125,7 +132,12 @@ public class KylinResultSet extends AvaticaResultSet {
         columnMetaDataList.clear();
         columnMetaDataList.addAll(result.columnMeta);
 
-        cursor = MetaImpl.createCursor(signature.cursorFactory, result.iterable);
+        // the rest rows of a result returned by pages are fetched by KylinMeta.fetch
+        KylinMeta meta = ((KylinConnection) statement.connection).getMeta();
+        meta.openResultCursor(statement.handle, result);
+        Frame firstFrame = new Frame(0, result.cursorId == null, result.iterable);
+        Iterable<Object> iterable = meta.createIterable(statement.handle, null, signature, null, firstFrame);
+        cursor = MetaImpl.createCursor(signature.cursorFactory, iterable);
         if (cursor instanceof AbstractCursor) {
             cursor = new KylinDelegateCursor((AbstractCursor) cursor);
         }
@@ -33,6 +33,7 @@ public class QueryRequest implements Serializable {
     private String project;
     private String executeAs;
     private Integer limit;
+    private Integer fetchSize;
     private boolean acceptPartial = false;
 
     private Map<String, String> backdoorToggles;
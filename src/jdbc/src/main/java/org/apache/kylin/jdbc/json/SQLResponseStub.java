@@ -22,6 +22,7 @@ import java.io.Serializable;
 import java.util.List;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class SQLResponseStub implements Serializable {
@@ -57,6 +58,10 @@ public class SQLResponseStub implements Serializable {
 
     private boolean storageCacheUsed = false;
 
+    // the cursor to fetch the rest rows, null if all rows are returned
+    @JsonProperty("cursor_id")
+    private String cursorId;
+
     public SQLResponseStub() {
     }
 
@@ -168,6 +173,14 @@ public class SQLResponseStub implements Serializable {
         this.storageCacheUsed = storageCacheUsed;
     }
 
+    public String getCursorId() {
+        return cursorId;
+    }
+
+    public void setCursorId(String cursorId) {
+        this.cursorId = cursorId;
+    }
+
     @JsonIgnoreProperties(ignoreUnknown = true)
     public static class ColumnMetaStub implements Serializable{
 
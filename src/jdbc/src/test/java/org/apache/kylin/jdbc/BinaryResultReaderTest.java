@@ -0,0 +1,101 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.kylin.jdbc;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class BinaryResultReaderTest {
+
+    @Test
+    public void testRead() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(BinaryResultReader.MAGIC);
+        out.writeByte(BinaryResultReader.VERSION);
+        byte[] header = "{\"queryId\":\"q1\",\"duration\":12,\"isException\":false,\"unknownField\":1}"
+                .getBytes(StandardCharsets.UTF_8);
+        out.writeInt(header.length);
+        out.write(header);
+        out.writeInt(3);
+
+        // batch of 2 rows, the second row has nulls in all columns
+        out.writeInt(2);
+        out.writeByte(BinaryResultReader.ENCODING_LONG);
+        out.writeByte(0b10);
+        out.writeLong(42L);
+        out.writeByte(BinaryResultReader.ENCODING_DOUBLE);
+        out.writeByte(0b10);
+        out.writeDouble(1.5);
+        out.writeByte(BinaryResultReader.ENCODING_STRING);
+        out.writeByte(0b10);
+        writeString(out, "Auction");
+
+        // batch of 1 row
+        out.writeInt(1);
+        out.writeByte(BinaryResultReader.ENCODING_STRING);
+        out.writeByte(0);
+        writeString(out, "not-a-number");
+        out.writeByte(BinaryResultReader.ENCODING_DOUBLE);
+        out.writeByte(0);
+        out.writeDouble(-2.25);
+        out.writeByte(BinaryResultReader.ENCODING_STRING);
+        out.writeByte(0);
+        writeString(out, "");
+
+        out.writeInt(0);
+        out.flush();
+
+        BinaryResultReader reader = BinaryResultReader.read(new ByteArrayInputStream(bytes.toByteArray()),
+                new ObjectMapper());
+        assertEquals("q1", reader.getHeader().getQueryId());
+        assertEquals(12, reader.getHeader().getDuration());
+        assertFalse(reader.getHeader().getIsException());
+
+        List<Object[]> rows = reader.getRows();
+        assertEquals(3, rows.size());
+        assertArrayEquals(new Object[] { 42L, 1.5, "Auction" }, rows.get(0));
+        assertArrayEquals(new Object[] { null, null, null }, rows.get(1));
+        assertArrayEquals(new Object[] { "not-a-number", -2.25, "" }, rows.get(2));
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadNotBinaryResult() throws IOException {
+        byte[] json = "{\"code\":\"000\",\"data\":{}}".getBytes(StandardCharsets.UTF_8);
+        BinaryResultReader.read(new ByteArrayInputStream(json), new ObjectMapper());
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
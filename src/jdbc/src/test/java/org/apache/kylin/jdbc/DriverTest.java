@@ -162,6 +162,63 @@ public class DriverTest {
         TimeZone.setDefault(timeZone);
     }
 
+    @Test
+    public void testStatementWithFetchSize() throws SQLException {
+        Driver driver = new DummyDriver();
+        Properties info = new Properties();
+        info.put("fetch-size", "2");
+        Connection conn = driver.connect("jdbc:kylin://test_url/test_db", info);
+
+        DummyClient.fetchRequests = 0;
+        DummyClient.openCursors.clear();
+        Statement state = conn.createStatement();
+        ResultSet resultSet = state.executeQuery("select * from test_table");
+        // only the first page is returned by the query, the rest rows are kept by the server
+        assertEquals(0, DummyClient.fetchRequests);
+        assertEquals(1, DummyClient.openCursors.size());
+        assertEquals(DummyClient.PAGED_ROW_COUNT, resultSet.unwrap(KylinResultSet.class).getResultRowCount());
+        int rows = 0;
+        while (resultSet.next()) {
+            assertEquals("foo", resultSet.getString(1));
+            assertEquals(String.valueOf(rows), resultSet.getString(2));
+            rows++;
+        }
+        assertEquals(DummyClient.PAGED_ROW_COUNT, rows);
+        // the query is not run again, the following pages are fetched from the cursor till its end
+        assertEquals(2, DummyClient.fetchRequests);
+        assertTrue(DummyClient.openCursors.isEmpty());
+        resultSet.close();
+
+        // a result set closed before its end releases its cursor
+        resultSet = state.executeQuery("select * from test_table");
+        assertTrue(resultSet.next());
+        assertEquals(1, DummyClient.openCursors.size());
+        resultSet.close();
+        assertTrue(DummyClient.openCursors.isEmpty());
+
+        // so does a statement executed again, or closed
+        state.executeQuery("select * from test_table");
+        state.executeQuery("select * from test_table");
+        assertEquals(1, DummyClient.openCursors.size());
+        state.close();
+        assertTrue(DummyClient.openCursors.isEmpty());
+
+        DummyClient.fetchRequests = 0;
+        state = conn.createStatement();
+        state.setMaxRows(3);
+        resultSet = state.executeQuery("select * from test_table");
+        rows = 0;
+        while (resultSet.next()) {
+            rows++;
+        }
+        assertEquals(3, rows);
+        assertEquals(1, DummyClient.fetchRequests);
+
+        resultSet.close();
+        state.close();
+        conn.close();
+    }
+
     @Ignore("require dev sandbox")
     @Test
     public void testWithCubeData() throws Exception {
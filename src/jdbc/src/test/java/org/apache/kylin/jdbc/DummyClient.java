@@ -21,9 +21,12 @@ package org.apache.kylin.jdbc;
 import java.io.IOException;
 import java.sql.Types;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
+import org.apache.calcite.avatica.ColumnMetaData;
 import org.apache.kylin.jdbc.KylinMeta.KMetaCatalog;
 import org.apache.kylin.jdbc.KylinMeta.KMetaColumn;
 import org.apache.kylin.jdbc.KylinMeta.KMetaProject;
@@ -37,8 +40,18 @@ import org.apache.kylin.jdbc.json.StatementParameter;
  */
 public class DummyClient extends KylinClient {
 
+    static final int PAGED_ROW_COUNT = 5;
+
+    static int fetchRequests = 0;
+
+    // cursor id -> the row count of the result, like the result cursors kept by the server
+    static final Map<String, Integer> openCursors = new HashMap<>();
+
+    private final int fetchSize;
+
     public DummyClient(KylinConnection conn) {
         super(conn);
+        fetchSize = Integer.parseInt(conn.getConnectionProperties().getProperty("fetch-size", "0"));
     }
 
     @Override
@@ -110,8 +123,23 @@ public class DummyClient extends KylinClient {
 
         List<String[]> data = new ArrayList<String[]>();
 
-        String[] row = new String[] { "foo", "bar", "tool", "2019-04-27", "17:30:03", "2019-04-27 17:30:03.123" };
-        data.add(row);
+        if (fetchSize > 0) {
+            // fetch by pages, return the first page of PAGED_ROW_COUNT rows and keep a cursor of the rest
+            int maxRows = Integer.parseInt(queryToggles.get("ATTR_STATEMENT_MAX_ROWS"));
+            int rowCount = maxRows > 0 ? Math.min(maxRows, PAGED_ROW_COUNT) : PAGED_ROW_COUNT;
+            for (int i = 0; i < Math.min(fetchSize, rowCount); i++) {
+                data.add(pagedRow(i));
+            }
+            if (rowCount > fetchSize) {
+                String cursorId = UUID.randomUUID().toString();
+                openCursors.put(cursorId, rowCount);
+                sqlResponseStub.setCursorId(cursorId);
+            }
+            sqlResponseStub.setResultRowCount(rowCount);
+        } else {
+            String[] row = new String[] { "foo", "bar", "tool", "2019-04-27", "17:30:03", "2019-04-27 17:30:03.123" };
+            data.add(row);
+        }
 
         sqlResponseStub.setResults(data);
 
@@ -122,6 +150,40 @@ public class DummyClient extends KylinClient {
         return rslt;
     }
 
+    @Override
+    public QueryResult fetchResult(String cursorId, long offset, List<ColumnMetaData> columnMeta)
+            throws IOException {
+        fetchRequests++;
+        Integer rowCount = openCursors.get(cursorId);
+        if (rowCount == null) {
+            throw new IOException("The result cursor '" + cursorId + "' does not exist or has expired");
+        }
+        List<Object> data = new ArrayList<>();
+        long end = Math.min(offset + fetchSize, rowCount);
+        for (int i = (int) offset; i < end; i++) {
+            String[] row = pagedRow(i);
+            Object[] values = new Object[row.length];
+            for (int j = 0; j < row.length; j++) {
+                values[j] = wrapObject(row[j], columnMeta.get(j).type.id);
+            }
+            data.add(values);
+        }
+        if (end == rowCount) {
+            openCursors.remove(cursorId);
+            cursorId = null;
+        }
+        return new QueryResult(columnMeta, data, null, 0, rowCount, cursorId);
+    }
+
+    @Override
+    public void closeResult(String cursorId) throws IOException {
+        openCursors.remove(cursorId);
+    }
+
+    private static String[] pagedRow(int i) {
+        return new String[] { "foo", String.valueOf(i), "tool", "2019-04-27", "17:30:03", "2019-04-27 17:30:03.123" };
+    }
+
     @Override
     public void close() throws IOException {
     }
@@ -211,23 +211,16 @@ public class BloomFilterTest extends NLocalWithSparkSessionTest implements Adapt
         String queryId1 = "query-id1";
         BloomFilterSkipCollector.addQueryMetrics(queryId1, 3, 2, 20, 100, 1);
         BloomFilterSkipCollector.addQueryMetrics(queryId1, 1, 1, 10, 100, 1);
-        Assert.assertEquals(4L,
-                Objects.requireNonNull(BloomFilterSkipCollector.queryTotalBloomBlocks.getIfPresent(queryId1)).get());
-        Assert.assertEquals(3L,
-                Objects.requireNonNull(BloomFilterSkipCollector.querySkipBloomBlocks.getIfPresent(queryId1)).get());
-        Assert.assertEquals(30L,
-                Objects.requireNonNull(BloomFilterSkipCollector.querySkipBloomRows.getIfPresent(queryId1)).get());
-        Assert.assertEquals(200L,
-                Objects.requireNonNull(BloomFilterSkipCollector.queryFooterReadTime.getIfPresent(queryId1)).get());
-        Assert.assertEquals(2L,
-                Objects.requireNonNull(BloomFilterSkipCollector.queryFooterReadNumber.getIfPresent(queryId1)).get());
+        BloomFilterSkipCollector.QueryBloomStats stats = Objects
+                .requireNonNull(BloomFilterSkipCollector.getQueryStats(queryId1));
+        Assert.assertEquals(4L, stats.getTotalBloomBlocks());
+        Assert.assertEquals(3L, stats.getSkipBloomBlocks());
+        Assert.assertEquals(30L, stats.getSkipBloomRows());
+        Assert.assertEquals(200L, stats.getFooterReadTime());
+        Assert.assertEquals(2L, stats.getFooterReadNumber());
         BloomFilterSkipCollector.logAndCleanStatus(queryId1);
         BloomFilterSkipCollector.logAndCleanStatus("query-id2");
-        Assert.assertNull(BloomFilterSkipCollector.queryTotalBloomBlocks.getIfPresent(queryId1));
-        Assert.assertNull(BloomFilterSkipCollector.querySkipBloomBlocks.getIfPresent(queryId1));
-        Assert.assertNull(BloomFilterSkipCollector.querySkipBloomRows.getIfPresent(queryId1));
-        Assert.assertNull(BloomFilterSkipCollector.queryFooterReadTime.getIfPresent(queryId1));
-        Assert.assertNull(BloomFilterSkipCollector.queryFooterReadNumber.getIfPresent(queryId1));
+        Assert.assertNull(BloomFilterSkipCollector.getQueryStats(queryId1));
         for (int i = 0; i < 200; i++) {
             BloomFilterSkipCollector.logAndCleanStatus("query-id2");
         }
@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.kylin.newten;
+
+import java.util.List;
+
+import org.apache.kylin.common.QueryContext;
+import org.apache.kylin.engine.spark.NLocalWithSparkSessionTest;
+import org.apache.kylin.job.util.JobContextUtil;
+import org.apache.kylin.query.engine.QueryExec;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FileZoneMapPruningTest extends NLocalWithSparkSessionTest {
+
+    private static final String DATAFLOW = "89af4ee2-2cdb-4b07-b39e-4c29856309aa";
+    // TRANS_ID is not the partition column, but its values of different segments don't overlap
+    private static final String RANGE_SQL = "select TRANS_ID, count(*) from TEST_KYLIN_FACT where TRANS_ID < 100 "
+            + "group by TRANS_ID order by TRANS_ID";
+    private static final String IS_NULL_SQL = "select TRANS_ID, count(*) from TEST_KYLIN_FACT where TRANS_ID is null "
+            + "group by TRANS_ID";
+
+    @After
+    public void after() throws Exception {
+        JobContextUtil.cleanUp();
+    }
+
+    @Test
+    public void testPruneFilesByZoneMap() throws Exception {
+        overwriteSystemProp("kylin.storage.columnar.file-zone-map-enabled", "true");
+        // leave the pruning to the zone maps of files instead of the dimension ranges of segments
+        overwriteSystemProp("kylin.query.dimension-range-filter-enabled", "false");
+        buildMultiSegs(DATAFLOW);
+
+        List<List<String>> rangeRows = query(RANGE_SQL);
+        int rangeFiles = fileCount();
+        List<List<String>> nullRows = query(IS_NULL_SQL);
+        int nullFiles = fileCount();
+
+        overwriteSystemProp("kylin.storage.columnar.file-zone-map-enabled", "false");
+        Assert.assertEquals(query(RANGE_SQL), rangeRows);
+        int allFiles = fileCount();
+        Assert.assertEquals(query(IS_NULL_SQL), nullRows);
+
+        Assert.assertEquals(100, rangeRows.size());
+        Assert.assertTrue(allFiles > 1);
+        Assert.assertTrue(rangeFiles > 0);
+        Assert.assertTrue(rangeFiles < allFiles);
+        // no file holds a null TRANS_ID
+        Assert.assertTrue(nullRows.isEmpty());
+        Assert.assertEquals(0, nullFiles);
+    }
+
+    private List<List<String>> query(String sql) throws Exception {
+        QueryContext.current().close();
+        return new QueryExec(getProject(), getTestConfig(), true).executeQuery(sql).getRows();
+    }
+
+    private int fileCount() {
+        return QueryContext.current().getMetrics().getFileCount();
+    }
+}
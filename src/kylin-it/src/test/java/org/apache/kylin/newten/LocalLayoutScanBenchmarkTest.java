@@ -0,0 +1,87 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.kylin.newten;
+
+import java.util.Arrays;
+
+import org.apache.kylin.common.QueryContext;
+import org.apache.kylin.engine.spark.NLocalWithSparkSessionTest;
+import org.apache.kylin.job.util.JobContextUtil;
+import org.apache.kylin.query.engine.QueryExec;
+import org.junit.After;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Latency of the point lookup queries on small aggregate layouts, scanned by spark and on the query node.
+ */
+@Ignore("Save UT time")
+public class LocalLayoutScanBenchmarkTest extends NLocalWithSparkSessionTest {
+
+    private final int warmUpTimes = 20;
+    private final int testTimes = 200;
+
+    @After
+    public void after() throws Exception {
+        JobContextUtil.cleanUp();
+    }
+
+    @Test
+    public void localLayoutScanBenchmark() throws Exception {
+        fullBuild(LocalLayoutScanTest.DATAFLOW);
+
+        overwriteSystemProp("kylin.query.local-layout-scan-enabled", "false");
+        long[] sparkTimes = queryAll();
+        overwriteSystemProp("kylin.query.local-layout-scan-enabled", "true");
+        long[] localTimes = queryAll();
+
+        System.out.println("----------------------------");
+        System.out.println("sqls : " + LocalLayoutScanTest.SQLS.length);
+        System.out.println("spark p50 / p99 us : " + percentile(sparkTimes, 50) + " / " + percentile(sparkTimes, 99));
+        System.out.println("local p50 / p99 us : " + percentile(localTimes, 50) + " / " + percentile(localTimes, 99));
+    }
+
+    private long[] queryAll() throws Exception {
+        for (int i = 0; i < warmUpTimes; i++) {
+            for (String sql : LocalLayoutScanTest.SQLS) {
+                query(sql);
+            }
+        }
+        long[] times = new long[testTimes * LocalLayoutScanTest.SQLS.length];
+        int n = 0;
+        for (int i = 0; i < testTimes; i++) {
+            for (String sql : LocalLayoutScanTest.SQLS) {
+                long start = System.nanoTime();
+                query(sql);
+                times[n++] = (System.nanoTime() - start) / 1000;
+            }
+        }
+        Arrays.sort(times);
+        return times;
+    }
+
+    private void query(String sql) throws Exception {
+        QueryContext.current().close();
+        new QueryExec(getProject(), getTestConfig(), true).executeQuery(sql);
+    }
+
+    private static long percentile(long[] sortedTimes, int percent) {
+        return sortedTimes[Math.min(sortedTimes.length - 1, sortedTimes.length * percent / 100)];
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.kylin.newten;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.apache.kylin.common.QueryContext;
+import org.apache.kylin.engine.spark.NLocalWithSparkSessionTest;
+import org.apache.kylin.guava30.shaded.common.collect.Lists;
+import org.apache.kylin.job.util.JobContextUtil;
+import org.apache.kylin.metadata.acl.SensitiveDataMask;
+import org.apache.kylin.metadata.acl.SensitiveDataMaskInfo;
+import org.apache.kylin.query.engine.QueryExec;
+import org.apache.kylin.query.mask.CompositeQueryResultMasks;
+import org.apache.kylin.query.mask.QueryResultMasks;
+import org.apache.kylin.query.mask.QuerySensitiveDataMask;
+import org.apache.kylin.query.relnode.ContextUtil;
+import org.apache.kylin.query.relnode.OlapContext;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LocalLayoutScanTest extends NLocalWithSparkSessionTest {
+
+    static final String DATAFLOW = "89af4ee2-2cdb-4b07-b39e-4c29856309aa";
+    static final String[] SQLS = {
+            "select LSTG_FORMAT_NAME, count(*), max(PRICE) from TEST_KYLIN_FACT "
+                    + "group by LSTG_FORMAT_NAME order by LSTG_FORMAT_NAME",
+            "select CAL_DT, count(*) from TEST_KYLIN_FACT where LSTG_FORMAT_NAME = 'ABIN' "
+                    + "group by CAL_DT order by CAL_DT limit 10",
+            "select max(PRICE) from TEST_KYLIN_FACT where CAL_DT between date'2012-01-01' and date'2012-06-30'" };
+
+    @After
+    public void after() throws Exception {
+        QueryResultMasks.remove();
+        JobContextUtil.cleanUp();
+    }
+
+    @Test
+    public void testScanSmallLayoutLocally() throws Exception {
+        fullBuild(DATAFLOW);
+        for (String sql : SQLS) {
+            overwriteSystemProp("kylin.query.local-layout-scan-enabled", "false");
+            List<List<String>> expected = query(sql);
+            Assert.assertFalse(isScannedLocally());
+
+            overwriteSystemProp("kylin.query.local-layout-scan-enabled", "true");
+            Assert.assertEquals(expected, query(sql));
+            Assert.assertTrue(isScannedLocally());
+        }
+    }
+
+    @Test
+    public void testFallBackToSparkAboveMaxBytes() throws Exception {
+        fullBuild(DATAFLOW);
+        overwriteSystemProp("kylin.query.local-layout-scan-enabled", "true");
+        overwriteSystemProp("kylin.query.local-layout-scan-max-bytes", "1b");
+        Assert.assertFalse(query(SQLS[0]).isEmpty());
+        Assert.assertFalse(isScannedLocally());
+    }
+
+    @Test
+    public void testFallBackToSparkWithMaskedColumn() throws Exception {
+        fullBuild(DATAFLOW);
+        overwriteSystemProp("kylin.query.local-layout-scan-enabled", "true");
+        List<List<String>> unmasked = query(SQLS[0]);
+        Assert.assertTrue(isScannedLocally());
+
+        SensitiveDataMaskInfo maskInfo = new SensitiveDataMaskInfo();
+        maskInfo.addMasks("DEFAULT", "TEST_KYLIN_FACT",
+                Lists.newArrayList(new SensitiveDataMask("PRICE", SensitiveDataMask.MaskType.AS_NULL)));
+        QueryResultMasks.THREAD_LOCAL
+                .set(new CompositeQueryResultMasks(new QuerySensitiveDataMask("DEFAULT", maskInfo)));
+        List<List<String>> masked = query(SQLS[0]);
+        Assert.assertFalse(isScannedLocally());
+        Assert.assertEquals(unmasked.size(), masked.size());
+        for (int i = 0; i < masked.size(); i++) {
+            // the group by column and count are kept, max(PRICE) is masked
+            Assert.assertEquals(unmasked.get(i).subList(0, 2), masked.get(i).subList(0, 2));
+            Assert.assertNotNull(unmasked.get(i).get(2));
+            Assert.assertNull(masked.get(i).get(2));
+        }
+    }
+
+    private List<List<String>> query(String sql) throws Exception {
+        QueryContext.current().close();
+        return new QueryExec(getProject(), getTestConfig(), true).executeQuery(sql).getRows();
+    }
+
+    private boolean isScannedLocally() {
+        Collection<OlapContext> contexts = ContextUtil.getThreadLocalContexts();
+        Assert.assertFalse(contexts.isEmpty());
+        return contexts.stream().allMatch(OlapContext::isLocalLayoutScan);
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.kylin.newten;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.kylin.common.QueryContext;
+import org.apache.kylin.common.util.HadoopUtil;
+import org.apache.kylin.engine.spark.NLocalWithSparkSessionTest;
+import org.apache.kylin.guava30.shaded.common.collect.Sets;
+import org.apache.kylin.job.util.JobContextUtil;
+import org.apache.kylin.metadata.cube.model.NDataSegment;
+import org.apache.kylin.metadata.cube.model.NDataflow;
+import org.apache.kylin.metadata.cube.model.NDataflowManager;
+import org.apache.kylin.metadata.model.SegmentRange;
+import org.apache.kylin.query.engine.QueryExec;
+import org.apache.parquet.hadoop.ParquetFileReader;
+import org.apache.parquet.hadoop.util.HadoopInputFile;
+import org.apache.spark.sql.datasource.storage.StorageStoreV1;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MergeByRowGroupConcatTest extends NLocalWithSparkSessionTest {
+
+    private static final String DATAFLOW = "89af4ee2-2cdb-4b07-b39e-4c29856309aa";
+    // agg layout with the partition column CAL_DT
+    private static final long AGG_LAYOUT = 10001L;
+    // agg layout without the partition column, still merged by aggregation
+    private static final long AGG_LAYOUT_WITHOUT_PARTITION = 1L;
+    private static final long TABLE_LAYOUT = 20000010001L;
+    private static final String[] SQLS = {
+            "select CAL_DT, count(*), sum(PRICE) from TEST_KYLIN_FACT group by CAL_DT order by CAL_DT",
+            "select TRANS_ID, count(*) from TEST_KYLIN_FACT group by TRANS_ID order by TRANS_ID limit 100",
+            "select TRANS_ID, CAL_DT, PRICE from TEST_KYLIN_FACT where CAL_DT >= date'2012-01-01' "
+                    + "order by TRANS_ID limit 100" };
+
+    @After
+    public void after() throws Exception {
+        JobContextUtil.cleanUp();
+    }
+
+    @Test
+    public void testQueryResultsSameAfterMerge() throws Exception {
+        overwriteSystemProp("kylin.engine.merge-row-group-concat-enabled", "true");
+        buildMultiSegs(DATAFLOW);
+        List<List<List<String>>> expected = queryAll();
+        NDataflow df = NDataflowManager.getInstance(getTestConfig(), getProject()).getDataflow(DATAFLOW);
+        List<NDataSegment> toMerge = new ArrayList<>(df.getSegments().subList(1, 3));
+        long aggRowGroups = countRowGroups(toMerge, AGG_LAYOUT);
+        long tableRowGroups = countRowGroups(toMerge, TABLE_LAYOUT);
+        long aggRows = toMerge.stream().mapToLong(segment -> segment.getLayout(AGG_LAYOUT).getRows()).sum();
+
+        mergeSegments(DATAFLOW, Sets.newLinkedHashSet(df.getIndexPlan().getAllLayouts()));
+
+        Assert.assertEquals(expected, queryAll());
+        NDataSegment merged = NDataflowManager.getInstance(getTestConfig(), getProject()).getDataflow(DATAFLOW)
+                .getSegments().getLatestReadySegment();
+        Assert.assertEquals(SegmentRange.dateToLong("2011-01-01"), merged.getSegRange().getStart());
+        Assert.assertEquals(SegmentRange.dateToLong("2015-01-01"), merged.getSegRange().getEnd());
+        // the row groups of the source segments are copied as they are
+        Assert.assertEquals(aggRowGroups, countRowGroups(merged, AGG_LAYOUT));
+        Assert.assertEquals(tableRowGroups, countRowGroups(merged, TABLE_LAYOUT));
+        Assert.assertEquals(aggRows, merged.getLayout(AGG_LAYOUT).getRows());
+        Assert.assertNotNull(merged.getLayout(AGG_LAYOUT_WITHOUT_PARTITION));
+    }
+
+    private List<List<List<String>>> queryAll() throws Exception {
+        List<List<List<String>>> results = new ArrayList<>();
+        for (String sql : SQLS) {
+            QueryContext.current().close();
+            results.add(new QueryExec(getProject(), getTestConfig(), true).executeQuery(sql).getRows());
+        }
+        return results;
+    }
+
+    private long countRowGroups(List<NDataSegment> segments, long layoutId) throws IOException {
+        long count = 0;
+        for (NDataSegment segment : segments) {
+            count += countRowGroups(segment, layoutId);
+        }
+        return count;
+    }
+
+    private long countRowGroups(NDataSegment segment, long layoutId) throws IOException {
+        Configuration conf = HadoopUtil.getCurrentConfiguration();
+        Path dir = new Path(new StorageStoreV1().getStoragePath(segment, layoutId));
+        FileSystem fs = dir.getFileSystem(conf);
+        long count = 0;
+        for (FileStatus file : fs.listStatus(dir, path -> path.getName().endsWith(".parquet"))) {
+            try (ParquetFileReader reader = ParquetFileReader.open(HadoopInputFile.fromStatus(file, conf))) {
+                count += reader.getRowGroups().size();
+            }
+        }
+        return count;
+    }
+}
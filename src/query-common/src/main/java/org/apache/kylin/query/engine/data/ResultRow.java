@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.kylin.query.engine.data;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * A result row in the string form of the json response, which also keeps the values the query engine
+ * computed the strings from, so that a typed result format can be written without parsing the strings back.
+ * The values are not serialized, a cached row is a plain string row. The rows are only built for
+ * a query requesting the binary result format, see QueryContext#isBinaryResult.
+ */
+public class ResultRow extends AbstractList<String> implements RandomAccess, Serializable {
+
+    private final String[] strings;
+
+    private final transient Object[] values;
+
+    /**
+     * @param strings the string form of each column
+     * @param values the value of each column the string is converted from
+     */
+    public ResultRow(String[] strings, Object[] values) {
+        this.strings = strings;
+        this.values = values;
+    }
+
+    @Override
+    public String get(int index) {
+        return strings[index];
+    }
+
+    @Override
+    public int size() {
+        return strings.length;
+    }
+
+    /**
+     * @return the value the string of the column is converted from, null if unknown
+     */
+    public Object getValue(int index) {
+        return values == null ? null : values[index];
+    }
+}
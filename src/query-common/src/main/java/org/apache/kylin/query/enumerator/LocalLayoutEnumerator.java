@@ -0,0 +1,363 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.kylin.query.enumerator;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.calcite.linq4j.Enumerator;
+import org.apache.calcite.rel.type.RelDataTypeField;
+import org.apache.calcite.sql.type.SqlTypeName;
+import org.apache.commons.collections.CollectionUtils;
+import org.apache.commons.collections.MapUtils;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.kylin.common.KapConfig;
+import org.apache.kylin.common.KylinConfig;
+import org.apache.kylin.common.util.HadoopUtil;
+import org.apache.kylin.metadata.cube.cuboid.NLayoutCandidate;
+import org.apache.kylin.metadata.cube.model.LayoutEntity;
+import org.apache.kylin.metadata.cube.model.NDataLayout;
+import org.apache.kylin.metadata.cube.model.NDataSegment;
+import org.apache.kylin.metadata.cube.model.NDataflow;
+import org.apache.kylin.metadata.datatype.DataType;
+import org.apache.kylin.metadata.model.FunctionDesc;
+import org.apache.kylin.metadata.model.TblColRef;
+import org.apache.kylin.metadata.tuple.TupleInfo;
+import org.apache.kylin.query.relnode.OlapContext;
+import org.apache.kylin.query.util.QueryInterruptChecker;
+import org.apache.kylin.storage.StorageContext;
+import org.apache.spark.sql.execution.datasources.parquet.VectorizedParquetRecordReader;
+import org.apache.spark.sql.types.BooleanType;
+import org.apache.spark.sql.types.ByteType;
+import org.apache.spark.sql.types.DateType;
+import org.apache.spark.sql.types.DecimalType;
+import org.apache.spark.sql.types.DoubleType;
+import org.apache.spark.sql.types.FloatType;
+import org.apache.spark.sql.types.IntegerType;
+import org.apache.spark.sql.types.LongType;
+import org.apache.spark.sql.types.ShortType;
+import org.apache.spark.sql.types.StringType;
+import org.apache.spark.sql.vectorized.ColumnVector;
+import org.apache.spark.sql.vectorized.ColumnarBatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Scan the parquet files of a small aggregate layout on the query node, without submitting a spark job.
+ *
+ * The rows are laid out like the tuples of {@link OlapEnumerator}, only the dimensions and the rewrite
+ * fields of the measures are filled in. Filters, projections, aggregations, sorts and limits above the
+ * scan are implemented by calcite. Use {@link #isLocalScannable} to check the olap context first.
+ */
+public class LocalLayoutEnumerator implements Enumerator<Object[]> {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalLayoutEnumerator.class);
+
+    private final List<String> files;
+    private final List<String> columnNames = new ArrayList<>();
+    private final List<Integer> tupleIdx = new ArrayList<>();
+    private final List<SqlTypeName> tupleTypes = new ArrayList<>();
+    private final int tupleSize;
+    private final int batchSize;
+
+    private int fileIdx = 0;
+    private VectorizedParquetRecordReader reader;
+    private ColumnarBatch batch;
+    private int rowIdx = 0;
+    private Object[] current;
+    private int scanCount = 0;
+
+    public LocalLayoutEnumerator(OlapContext olapContext) {
+        StorageContext storageContext = olapContext.getStorageContext();
+        NLayoutCandidate candidate = storageContext.getBatchCandidate();
+        LayoutEntity layout = candidate.getLayoutEntity();
+        TupleInfo tupleInfo = olapContext.getReturnTupleInfo();
+        List<RelDataTypeField> fields = olapContext.getReturnRowType().getFieldList();
+
+        // column names of the layout files are the ids of dimensions and measures
+        for (TblColRef dim : storageContext.getDimensions()) {
+            if (tupleInfo.hasColumn(dim)) {
+                addColumn(layout.getDimensionPos(dim), tupleInfo.getColumnIndex(dim), fields);
+            }
+        }
+        Map<FunctionDesc, Integer> measureIds = getMeasureIds(layout);
+        for (FunctionDesc metric : storageContext.getMetrics()) {
+            String rewriteFieldName = metric.getRewriteFieldName();
+            if (tupleInfo.hasField(rewriteFieldName)) {
+                addColumn(measureIds.get(metric), tupleInfo.getFieldIndex(rewriteFieldName), fields);
+            }
+        }
+        this.tupleSize = tupleInfo.size();
+        this.batchSize = olapContext.getOlapSchema().getConfig().getQueryLocalLayoutScanBatchSize();
+        this.files = listLayoutFiles((NDataflow) olapContext.getRealization(), candidate);
+        logger.info("Scan layout {} locally, files: {}, columns: {}", layout.getId(), files.size(), columnNames);
+    }
+
+    private void addColumn(int id, int index, List<RelDataTypeField> fields) {
+        columnNames.add(String.valueOf(id));
+        tupleIdx.add(index);
+        tupleTypes.add(fields.get(index).getType().getSqlTypeName());
+    }
+
+    @Override
+    public boolean moveNext() {
+        if (scanCount++ % 1000 == 1) {
+            QueryInterruptChecker.checkThreadInterrupted("Interrupted at the stage of scanning layout files",
+                    "LocalLayoutEnumerator");
+        }
+
+        while (batch == null || rowIdx >= batch.numRows()) {
+            if (!nextBatch()) {
+                return false;
+            }
+        }
+        current = new Object[tupleSize];
+        for (int i = 0; i < tupleIdx.size(); i++) {
+            current[tupleIdx.get(i)] = toCalciteValue(getValue(batch.column(i), rowIdx), tupleTypes.get(i));
+        }
+        rowIdx++;
+        return true;
+    }
+
+    private boolean nextBatch() {
+        try {
+            while (reader == null || !reader.nextBatch()) {
+                closeReader();
+                if (fileIdx >= files.size()) {
+                    return false;
+                }
+                reader = new VectorizedParquetRecordReader(false, batchSize);
+                reader.initialize(files.get(fileIdx++), columnNames);
+                batch = reader.resultBatch();
+            }
+            rowIdx = 0;
+            return true;
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read layout file " + files.get(fileIdx - 1), e);
+        }
+    }
+
+    @Override
+    public Object[] current() {
+        // a new array is created for each row
+        return current;
+    }
+
+    @Override
+    public void reset() {
+        closeReader();
+        fileIdx = 0;
+        rowIdx = 0;
+    }
+
+    @Override
+    public void close() {
+        closeReader();
+    }
+
+    private void closeReader() {
+        if (reader == null) {
+            return;
+        }
+        try {
+            reader.close();
+        } catch (IOException e) {
+            logger.warn("Error when closing layout file reader, ignore it", e);
+        }
+        reader = null;
+        batch = null;
+    }
+
+    private static Object getValue(ColumnVector vector, int row) {
+        if (vector.isNullAt(row)) {
+            return null;
+        }
+        org.apache.spark.sql.types.DataType type = vector.dataType();
+        if (type instanceof StringType) {
+            return vector.getUTF8String(row).toString();
+        } else if (type instanceof IntegerType || type instanceof DateType) {
+            return vector.getInt(row);
+        } else if (type instanceof LongType) {
+            return vector.getLong(row);
+        } else if (type instanceof DoubleType) {
+            return vector.getDouble(row);
+        } else if (type instanceof FloatType) {
+            return vector.getFloat(row);
+        } else if (type instanceof ShortType) {
+            return vector.getShort(row);
+        } else if (type instanceof ByteType) {
+            return vector.getByte(row);
+        } else if (type instanceof BooleanType) {
+            return vector.getBoolean(row);
+        } else if (type instanceof DecimalType) {
+            DecimalType decimalType = (DecimalType) type;
+            return vector.getDecimal(row, decimalType.precision(), decimalType.scale()).toJavaBigDecimal();
+        }
+        throw new UnsupportedOperationException("Unsupported type " + type + " of local layout scan");
+    }
+
+    /**
+     * Values are stored with the types of the model columns or the return types of the measures,
+     * while calcite expects the java representation of the field type, e.g. days in int for date.
+     */
+    private static Object toCalciteValue(Object value, SqlTypeName type) {
+        if (value == null) {
+            return null;
+        }
+        switch (type) {
+        case CHAR:
+        case VARCHAR:
+            return value.toString();
+        case DATE:
+            if (value instanceof Integer) {
+                return value;
+            }
+            break;
+        case BOOLEAN:
+            if (value instanceof Boolean) {
+                return value;
+            }
+            break;
+        case TINYINT:
+            return ((Number) value).byteValue();
+        case SMALLINT:
+            return ((Number) value).shortValue();
+        case INTEGER:
+            return Math.toIntExact(((Number) value).longValue());
+        case BIGINT:
+            return ((Number) value).longValue();
+        case REAL:
+            return ((Number) value).floatValue();
+        case FLOAT:
+        case DOUBLE:
+            return ((Number) value).doubleValue();
+        case DECIMAL:
+            return value instanceof BigDecimal ? value : new BigDecimal(value.toString());
+        default:
+            break;
+        }
+        throw new UnsupportedOperationException("Unsupported type " + type + " of local layout scan");
+    }
+
+    private static Map<FunctionDesc, Integer> getMeasureIds(LayoutEntity layout) {
+        Map<FunctionDesc, Integer> measureIds = new HashMap<>();
+        layout.getOrderedMeasures().forEach((id, measure) -> measureIds.putIfAbsent(measure.getFunction(), id));
+        return measureIds;
+    }
+
+    private static List<String> listLayoutFiles(NDataflow dataflow, NLayoutCandidate candidate) {
+        String basePath = KapConfig.wrap(dataflow.getConfig()).getReadParquetStoragePath(dataflow.getProject());
+        List<String> files = new ArrayList<>();
+        try {
+            for (NDataSegment segment : candidate.getPrunedSegments()) {
+                Path layoutPath = new Path(
+                        basePath + dataflow.getUuid() + "/" + segment.getId() + "/" + candidate.getLayoutId());
+                FileSystem fs = HadoopUtil.getFileSystem(layoutPath);
+                for (FileStatus status : fs.listStatus(layoutPath, path -> path.getName().endsWith(".parquet"))) {
+                    files.add(status.getPath().toString());
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to list files of layout " + candidate.getLayoutId(), e);
+        }
+        return files;
+    }
+
+    /**
+     * Whether the context reads nothing but a small aggregate layout of the basic measures,
+     * all the layout files add up to no more than the configured bytes.
+     */
+    public static boolean isLocalScannable(OlapContext olapContext, KylinConfig config) {
+        if (!(olapContext.getRealization() instanceof NDataflow)) {
+            return false;
+        }
+        NDataflow dataflow = (NDataflow) olapContext.getRealization();
+        StorageContext storageContext = olapContext.getStorageContext();
+        NLayoutCandidate candidate = storageContext.getBatchCandidate();
+        if (dataflow.isStreaming() || !dataflow.getModel().getStorageType().isV1Storage()
+                || config.isMppOnTheFlyLayoutsEnabled() || !candidate.isAggIndex()
+                || !storageContext.isStreamCandidateEmpty() || MapUtils.isNotEmpty(storageContext.getPrunedPartitions())
+                || MapUtils.isNotEmpty(candidate.getDerivedToHostMap())
+                || CollectionUtils.isEmpty(candidate.getPrunedSegments())) {
+            return false;
+        }
+        if (CollectionUtils.isEmpty(storageContext.getDimensions())
+                && CollectionUtils.isEmpty(storageContext.getMetrics())) {
+            return false;
+        }
+
+        LayoutEntity layout = candidate.getLayoutEntity();
+        for (TblColRef dim : storageContext.getDimensions()) {
+            if (layout.getDimensionPos(dim) == null || !isScannableType(dim.getType())) {
+                return false;
+            }
+        }
+        Map<FunctionDesc, Integer> measureIds = getMeasureIds(layout);
+        for (FunctionDesc metric : storageContext.getMetrics()) {
+            boolean isBasic = metric.isSum() || metric.isMin() || metric.isMax() || metric.isCount();
+            if (!isBasic || !metric.needRewrite() || !measureIds.containsKey(metric)
+                    || !isScannableType(metric.getReturnDataType())) {
+                return false;
+            }
+        }
+
+        long bytes = getLayoutBytes(olapContext);
+        if (bytes < 0 || bytes > config.getQueryLocalLayoutScanMaxBytes()) {
+            logger.debug("The layout {} of {} bytes is not scanned locally", layout.getId(), bytes);
+            return false;
+        }
+        return true;
+    }
+
+    private static boolean isScannableType(DataType type) {
+        return type != null && !(type.isDateTimeFamily() && !type.isDate());
+    }
+
+    /**
+     * @return total bytes of the layout in the pruned segments, or -1 if not built in any of them
+     */
+    public static long getLayoutBytes(OlapContext olapContext) {
+        NLayoutCandidate candidate = olapContext.getStorageContext().getBatchCandidate();
+        long bytes = 0;
+        for (NDataSegment segment : candidate.getPrunedSegments()) {
+            NDataLayout dataLayout = segment.getLayout(candidate.getLayoutId());
+            if (dataLayout == null) {
+                return -1;
+            }
+            bytes += dataLayout.getByteSize();
+        }
+        return bytes;
+    }
+
+    public static long getLayoutRows(OlapContext olapContext) {
+        NLayoutCandidate candidate = olapContext.getStorageContext().getBatchCandidate();
+        long rows = 0;
+        for (NDataSegment segment : candidate.getPrunedSegments()) {
+            NDataLayout dataLayout = segment.getLayout(candidate.getLayoutId());
+            rows += dataLayout == null ? 0 : dataLayout.getRows();
+        }
+        return rows;
+    }
+}
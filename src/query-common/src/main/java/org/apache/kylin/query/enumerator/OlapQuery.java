@@ -60,6 +60,8 @@ public class OlapQuery extends AbstractEnumerable<Object[]> implements Enumerabl
             return new HiveEnumerator(olapContext);
         case METADATA:
             return new MetadataEnumerator(olapContext);
+        case LOCAL_LAYOUT:
+            return new LocalLayoutEnumerator(olapContext);
         default:
             throw new IllegalArgumentException("Wrong type " + type + "!");
         }
@@ -69,7 +71,8 @@ public class OlapQuery extends AbstractEnumerable<Object[]> implements Enumerabl
         SIMPLE_AGGREGATION, //probing query like select min(2) from table
         OLAP, //finish query with Cube or II, or a combination of both
         HIVE, //using hive
-        METADATA // using metadata for min/max
+        METADATA, // using metadata for min/max
+        LOCAL_LAYOUT // reading small layout files on the query node
     }
 
     public static class EmptyEnumerator implements Enumerator<Object[]> {
@@ -95,6 +95,7 @@ public class OlapContext {
     private Set<OlapTableScan> allTableScans = new LinkedHashSet<>();
     private final Set<OlapJoinRel> allOlapJoins = new HashSet<>();
     private TupleInfo returnTupleInfo = null;
+    private RelDataType returnRowType = null;
     @Setter
     private boolean afterAggregate = false;
     @Setter
@@ -128,6 +129,9 @@ public class OlapContext {
     private boolean hasBitmapMeasure = false;
     @Setter
     private boolean isExactlyFastBitmap = false;
+    /** Read the layout files on the query node, see {@link org.apache.kylin.query.enumerator.LocalLayoutEnumerator} */
+    @Setter
+    private boolean localLayoutScan = false;
     private boolean fixedModel;
     private final List<SQLDigest.OrderEnum> sortOrders;
     private SQLDigest sqlDigest;
@@ -265,6 +269,7 @@ public class OlapContext {
             info.setField(field.getName(), col, i);
         }
         this.returnTupleInfo = info;
+        this.returnRowType = rowType;
     }
 
     public void addSort(TblColRef col, SQLDigest.OrderEnum order) {
@@ -524,6 +529,10 @@ public class OlapContext {
             return "executeMetadataQuery";
         }
 
+        if (localLayoutScan) {
+            return "executeLocalLayoutQuery";
+        }
+
         return "executeOlapQuery";
     }
 
@@ -44,6 +44,7 @@ import lombok.Getter;
  */
 public class OlapModelViewRel extends SingleRel implements OlapRel, EnumerableRel {
 
+    @Getter
     private final String modelAlias;
     @Getter
     private OlapContext context;
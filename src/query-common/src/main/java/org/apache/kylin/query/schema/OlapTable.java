@@ -352,4 +352,8 @@ public class OlapTable extends AbstractQueryableTable implements TranslatableTab
     public Enumerable<Object[]> executeMetadataQuery(DataContext optiqContext, int ctxSeq) {
         return new OlapQuery(optiqContext, OlapQuery.EnumeratorTypeEnum.METADATA, ctxSeq);
     }
+
+    public Enumerable<Object[]> executeLocalLayoutQuery(DataContext optiqContext, int ctxSeq) {
+        return new OlapQuery(optiqContext, OlapQuery.EnumeratorTypeEnum.LOCAL_LAYOUT, ctxSeq);
+    }
 }
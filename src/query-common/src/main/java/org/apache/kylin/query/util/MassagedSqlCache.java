@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kylin.query.util;
+
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.apache.kylin.common.KylinConfig;
+import org.apache.kylin.common.QueryContext;
+import org.apache.kylin.guava30.shaded.common.annotations.VisibleForTesting;
+import org.apache.kylin.guava30.shaded.common.base.Joiner;
+import org.apache.kylin.guava30.shaded.common.cache.Cache;
+import org.apache.kylin.guava30.shaded.common.cache.CacheBuilder;
+import org.apache.kylin.guava30.shaded.common.collect.ImmutableSet;
+import org.apache.kylin.metadata.acl.AclTCR;
+import org.apache.kylin.metadata.acl.AclTCRManager;
+import org.apache.kylin.metadata.cube.model.NDataflowManager;
+import org.apache.kylin.metadata.project.NProjectManager;
+import org.apache.kylin.metadata.project.ProjectInstance;
+import org.apache.kylin.query.IQueryTransformer;
+import org.apache.kylin.query.security.RowFilter;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+/**
+ * Cache of massaged sqls, so that a repeated sql skips the query transformers, several of which parse it.
+ *
+ * The key is (project, sql, default schema, transformers, acl principal), the value carries a signature built from
+ * the last modified time of the project, the online models with computed columns and the acl of the principal,
+ * which is all the metadata the built-in transformers read. Only a pipeline of built-in transformers is cached,
+ * a custom transformer may depend on anything.
+ */
+public class MassagedSqlCache {
+
+    private static final String NOT_CACHEABLE = "";
+
+    private static final ImmutableSet<Class<?>> CACHEABLE_TRANSFORMERS = ImmutableSet.of(PowerBIConverter.class,
+            DefaultQueryTransformer.class, EscapeTransformer.class, ConvertToComputedColumn.class,
+            KeywordDefaultDirtyHack.class, RowFilter.class);
+
+    private static volatile MassagedSqlCache instance;
+
+    private final Cache<SqlKey, MassagedSql> massagedSqls;
+
+    @VisibleForTesting
+    MassagedSqlCache(KylinConfig config) {
+        massagedSqls = CacheBuilder.newBuilder().maximumSize(config.getQueryMassagedSqlCacheMaxSize())
+                .expireAfterAccess(config.getQueryMassagedSqlCacheExpireMinutes(), TimeUnit.MINUTES).build();
+    }
+
+    public static MassagedSqlCache getInstance() {
+        if (instance == null) {
+            synchronized (MassagedSqlCache.class) {
+                if (instance == null) {
+                    instance = new MassagedSqlCache(KylinConfig.getInstanceFromEnv());
+                }
+            }
+        }
+        return instance;
+    }
+
+    public static boolean isCacheable(List<IQueryTransformer> transformers) {
+        return transformers.stream().allMatch(transformer -> CACHEABLE_TRANSFORMERS.contains(transformer.getClass()));
+    }
+
+    /**
+     * @return the massaged sql, or null if absent or out of date
+     */
+    public String get(String project, String sql, String defaultSchema, List<IQueryTransformer> transformers) {
+        SqlKey key = createKey(project, sql, defaultSchema, transformers);
+        MassagedSql cached = massagedSqls.getIfPresent(key);
+        if (cached == null) {
+            return null;
+        }
+        if (!cached.getSignature().equals(createSignature(project))) {
+            massagedSqls.invalidate(key);
+            return null;
+        }
+        return cached.getSql();
+    }
+
+    public void put(String project, String sql, String defaultSchema, List<IQueryTransformer> transformers,
+            String massaged) {
+        String signature = createSignature(project);
+        if (NOT_CACHEABLE.equals(signature)) {
+            return;
+        }
+        massagedSqls.put(createKey(project, sql, defaultSchema, transformers), new MassagedSql(massaged, signature));
+    }
+
+    public void invalidateAll() {
+        massagedSqls.invalidateAll();
+    }
+
+    @VisibleForTesting
+    long size() {
+        return massagedSqls.size();
+    }
+
+    private static SqlKey createKey(String project, String sql, String defaultSchema,
+            List<IQueryTransformer> transformers) {
+        String transformerNames = transformers.stream().map(transformer -> transformer.getClass().getName())
+                .collect(Collectors.joining(","));
+        QueryContext.AclInfo aclInfo = QueryContext.current().getAclInfo();
+        if (aclInfo == null) {
+            return new SqlKey(project, sql, defaultSchema, transformerNames, null, null, false);
+        }
+        Set<String> groups = aclInfo.getGroups() == null ? null : new TreeSet<>(aclInfo.getGroups());
+        return new SqlKey(project, sql, defaultSchema, transformerNames, aclInfo.getUsername(), groups,
+                aclInfo.isHasAdminPermission());
+    }
+
+    /**
+     * i.e. project;acl1_acl2;model1_model2, or empty if the project is missing
+     */
+    private static String createSignature(String project) {
+        KylinConfig config = KylinConfig.getInstanceFromEnv();
+        ProjectInstance projectInstance = NProjectManager.getInstance(config).getProject(project);
+        if (projectInstance == null) {
+            return NOT_CACHEABLE;
+        }
+        String modelTimes = NDataflowManager.getInstance(config, project).listOnlineDataModels().stream()
+                .filter(model -> !model.getComputedColumnDescs().isEmpty())
+                .map(model -> model.getUuid() + "@" + model.getLastModified()).sorted()
+                .collect(Collectors.joining("_"));
+        return Joiner.on(";").join(projectInstance.getLastModified(), createAclSignature(config, project),
+                modelTimes);
+    }
+
+    private static String createAclSignature(KylinConfig config, String project) {
+        QueryContext.AclInfo aclInfo = QueryContext.current().getAclInfo();
+        if (aclInfo == null || aclInfo.getUsername() == null) {
+            return "";
+        }
+        List<AclTCR> aclTCRs = AclTCRManager.getInstance(config, project).getAclTCRs(aclInfo.getUsername(),
+                aclInfo.getGroups());
+        return aclTCRs.stream().map(acl -> acl.resourceName() + "@" + acl.getLastModified())
+                .collect(Collectors.joining("_"));
+    }
+
+    @Getter
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    private static class SqlKey {
+        private final String project;
+        private final String sql;
+        private final String defaultSchema;
+        private final String transformers;
+        private final String username;
+        private final Set<String> groups;
+        private final boolean hasAdminPermission;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class MassagedSql {
+        private final String sql;
+        private final String signature;
+    }
+}
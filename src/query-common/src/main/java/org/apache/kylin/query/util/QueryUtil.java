@@ -213,12 +213,26 @@ public class QueryUtil {
                     .map(clz -> clz.getClass().getCanonicalName()).collect(Collectors.joining(",")));
         }
 
+        MassagedSqlCache cache = queryParams.getKylinConfig().isQueryMassagedSqlCacheEnabled()
+                && MassagedSqlCache.isCacheable(transformers) ? MassagedSqlCache.getInstance() : null;
+        String originSql = sql;
+        if (cache != null) {
+            String cached = cache.get(queryParams.getProject(), originSql, queryParams.getDefaultSchema(),
+                    transformers);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
         for (IQueryTransformer t : transformers) {
             QueryInterruptChecker.checkThreadInterrupted(
                     "Interrupted sql transformation at the stage of " + t.getClass(),
                     "Current step: SQL transformation.");
             sql = t.transform(sql, queryParams.getProject(), queryParams.getDefaultSchema());
         }
+        if (cache != null) {
+            cache.put(queryParams.getProject(), originSql, queryParams.getDefaultSchema(), transformers, sql);
+        }
         return sql;
     }
 
@@ -22,6 +22,7 @@ import static org.apache.kylin.common.constant.HttpConstant.HTTP_VND_APACHE_KYLI
 import static org.apache.kylin.common.constant.HttpConstant.HTTP_VND_APACHE_KYLIN_V4_PUBLIC_JSON;
 import static org.apache.kylin.common.exception.ServerErrorCode.FAILED_DOWNLOAD_FILE;
 import static org.apache.kylin.common.exception.ServerErrorCode.INVALID_NAME;
+import static org.apache.kylin.common.exception.ServerErrorCode.INVALID_PARAMETER;
 import static org.apache.kylin.common.exception.ServerErrorCode.INVALID_TABLE_REFRESH_PARAMETER;
 import static org.apache.kylin.common.exception.ServerErrorCode.PERMISSION_DENIED;
 import static org.apache.kylin.common.exception.ServerErrorCode.REDIS_CLEAR_ERROR;
@@ -97,9 +98,11 @@ import org.apache.kylin.rest.response.TableRefreshAll;
 import org.apache.kylin.rest.service.ModelService;
 import org.apache.kylin.rest.service.QueryCacheManager;
 import org.apache.kylin.rest.service.QueryHistoryService;
+import org.apache.kylin.rest.service.QueryResultCursorManager;
 import org.apache.kylin.rest.service.QueryService;
 import org.apache.kylin.rest.service.TableService;
 import org.apache.kylin.rest.util.AclEvaluate;
+import org.apache.kylin.rest.util.QueryResultBinaryWriter;
 import org.apache.kylin.util.DataRangeUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -151,6 +154,9 @@ public class NQueryController extends NBasicController {
     @Autowired
     private QueryCacheManager queryCacheManager;
 
+    @Autowired
+    private QueryResultCursorManager queryResultCursorManager;
+
     @Autowired
     private AclEvaluate aclEvaluate;
 
@@ -200,10 +206,34 @@ public class NQueryController extends NBasicController {
     @ResponseBody
     public EnvelopeResponse<SQLResponse> query(@Valid @RequestBody PrepareSqlRequest sqlRequest,
             @RequestHeader(value = "User-Agent") String userAgent) {
+        return new EnvelopeResponse<>(KylinException.CODE_SUCCESS, doQuery(sqlRequest, userAgent), "");
+    }
+
+    @ApiOperation(value = "queryBinary", tags = {
+            "QE" }, notes = "Same as query, the response is written in the binary format of QueryResultBinaryWriter")
+    @PostMapping(value = "", produces = QueryResultBinaryWriter.CONTENT_TYPE)
+    @ResponseBody
+    public void queryBinary(@Valid @RequestBody PrepareSqlRequest sqlRequest,
+            @RequestHeader(value = "User-Agent") String userAgent, HttpServletResponse response) {
+        QueryContext.current().setBinaryResult(true);
+        SQLResponse sqlResponse = doQuery(sqlRequest, userAgent);
+        response.setContentType(QueryResultBinaryWriter.CONTENT_TYPE);
+        try {
+            QueryResultBinaryWriter.write(sqlResponse, response.getOutputStream());
+        } catch (IOException e) {
+            logger.error("Write binary query result failed...", e);
+            throw new InternalErrorException(e);
+        }
+    }
+
+    private SQLResponse doQuery(PrepareSqlRequest sqlRequest, String userAgent) {
         checkForcedToParams(sqlRequest);
         checkProjectName(sqlRequest.getProject());
         sqlRequest.setUserAgent(userAgent != null ? userAgent : "");
         QueryContext.current().record("end_http_proc");
+        int fetchSize = sqlRequest.getFetchSize() == null ? 0 : sqlRequest.getFetchSize();
+        // a cursor holds the rest of the result, which must not be collected into the memory at once
+        QueryContext.current().setIterableResult(fetchSize > 0);
 
         // take chance of push-down to detect and apply file segment changes
         boolean detectFileSegments = sqlRequest.isForcedToPushDown();
@@ -224,7 +254,7 @@ public class NQueryController extends NBasicController {
                 });
             }
 
-            return new EnvelopeResponse<>(KylinException.CODE_SUCCESS, sqlResponse, "");
+            return queryResultCursorManager.openCursor(sqlResponse, fetchSize);
 
         } finally {
             if (detectFileSegments)
@@ -232,6 +262,47 @@ public class NQueryController extends NBasicController {
         }
     }
 
+    @ApiOperation(value = "fetchQueryResult", tags = {
+            "QE" }, notes = "Fetch the next rows of a query result returned by pages with fetch_size")
+    @GetMapping(value = "/cursor/{cursor_id:.+}")
+    @ResponseBody
+    public EnvelopeResponse<SQLResponse> fetchResult(@PathVariable("cursor_id") String cursorId,
+            @RequestParam(value = "offset") long offset, @RequestParam(value = "limit") int limit) {
+        return new EnvelopeResponse<>(KylinException.CODE_SUCCESS, doFetchResult(cursorId, offset, limit), "");
+    }
+
+    @ApiOperation(value = "fetchQueryResultBinary", tags = {
+            "QE" }, notes = "Same as fetchQueryResult, the response is written in the binary format")
+    @GetMapping(value = "/cursor/{cursor_id:.+}", produces = QueryResultBinaryWriter.CONTENT_TYPE)
+    @ResponseBody
+    public void fetchResultBinary(@PathVariable("cursor_id") String cursorId,
+            @RequestParam(value = "offset") long offset, @RequestParam(value = "limit") int limit,
+            HttpServletResponse response) {
+        SQLResponse sqlResponse = doFetchResult(cursorId, offset, limit);
+        response.setContentType(QueryResultBinaryWriter.CONTENT_TYPE);
+        try {
+            QueryResultBinaryWriter.write(sqlResponse, response.getOutputStream());
+        } catch (IOException e) {
+            logger.error("Write binary query result failed...", e);
+            throw new InternalErrorException(e);
+        }
+    }
+
+    private SQLResponse doFetchResult(String cursorId, long offset, int limit) {
+        if (offset < 0 || limit <= 0) {
+            throw new KylinException(INVALID_PARAMETER, "'offset' must not be negative and 'limit' must be positive");
+        }
+        return queryResultCursorManager.fetch(cursorId, offset, limit);
+    }
+
+    @ApiOperation(value = "closeQueryResult", tags = { "QE" })
+    @DeleteMapping(value = "/cursor/{cursor_id:.+}")
+    @ResponseBody
+    public EnvelopeResponse<String> closeResult(@PathVariable("cursor_id") String cursorId) {
+        queryResultCursorManager.close(cursorId);
+        return new EnvelopeResponse<>(KylinException.CODE_SUCCESS, "", "");
+    }
+
     @PostMapping(value = "/sync_file_segments")
     @ResponseBody
     public EnvelopeResponse<SyncFileSegmentsResponse> syncFileSegments(@RequestBody SyncFileSegmentsRequest req) {
@@ -22,17 +22,22 @@ import static org.apache.kylin.common.constant.HttpConstant.HTTP_VND_APACHE_KYLI
 import static org.apache.kylin.common.constant.HttpConstant.HTTP_VND_APACHE_KYLIN_V4_PUBLIC_JSON;
 import static org.hamcrest.CoreMatchers.containsString;
 
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
 import java.nio.charset.StandardCharsets;
+import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.servlet.http.HttpServletResponse;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.kylin.common.NativeQueryRealization;
+import org.apache.kylin.common.QueryContext;
 import org.apache.kylin.common.exception.KylinException;
 import org.apache.kylin.common.util.JsonUtil;
 import org.apache.kylin.common.util.NLocalFileMetadataTestCase;
@@ -42,6 +47,7 @@ import org.apache.kylin.metadata.query.QueryHistory;
 import org.apache.kylin.metadata.query.QueryHistoryInfo;
 import org.apache.kylin.metadata.query.QueryHistoryRequest;
 import org.apache.kylin.metadata.query.QueryRecord;
+import org.apache.kylin.metadata.querymeta.SelectedColumnMeta;
 import org.apache.kylin.rest.cluster.ClusterManager;
 import org.apache.kylin.rest.constant.Constant;
 import org.apache.kylin.rest.model.Query;
@@ -54,8 +60,10 @@ import org.apache.kylin.rest.response.ServerInfoResponse;
 import org.apache.kylin.rest.response.TableRefresh;
 import org.apache.kylin.rest.service.QueryCacheManager;
 import org.apache.kylin.rest.service.QueryHistoryService;
+import org.apache.kylin.rest.service.QueryResultCursorManager;
 import org.apache.kylin.rest.service.QueryService;
 import org.apache.kylin.rest.service.TableService;
+import org.apache.kylin.rest.util.QueryResultBinaryWriter;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
@@ -92,6 +100,8 @@ public class NQueryControllerTest extends NLocalFileMetadataTestCase {
     @Mock
     private QueryCacheManager queryCacheManager;
     @Mock
+    private QueryResultCursorManager queryResultCursorManager;
+    @Mock
     private TableService tableService;
     @InjectMocks
     private NQueryController nQueryController = Mockito.spy(new NQueryController());
@@ -113,6 +123,7 @@ public class NQueryControllerTest extends NLocalFileMetadataTestCase {
 
     @After
     public void teardown() {
+        QueryContext.reset();
         cleanupTestMetadata();
     }
 
@@ -140,6 +151,90 @@ public class NQueryControllerTest extends NLocalFileMetadataTestCase {
         Mockito.verify(nQueryController).query(Mockito.any(), Mockito.anyString());
     }
 
+    @Test
+    public void testQueryWithFetchSize() throws Exception {
+        PrepareSqlRequest sqlRequest = mockPrepareSqlRequest();
+        sqlRequest.setFetchSize(100);
+        SQLResponse sqlResponse = new SQLResponse();
+        AtomicBoolean iterableResult = new AtomicBoolean();
+        Mockito.doAnswer(invocation -> {
+            iterableResult.set(QueryContext.current().isIterableResult());
+            return sqlResponse;
+        }).when(kapQueryService).queryWithCache(Mockito.any());
+        mockMvc.perform(MockMvcRequestBuilders.post("/api/query").contentType(MediaType.APPLICATION_JSON)
+                .content(JsonUtil.writeValueAsString(sqlRequest)).header("User-Agent", "Chrome/89.0.4389.82")
+                .accept(MediaType.parseMediaType(HTTP_VND_APACHE_KYLIN_JSON)))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+
+        Mockito.verify(queryResultCursorManager).openCursor(sqlResponse, 100);
+        // the cursor holds the spark iterator instead of the collected rows
+        Assert.assertTrue(iterableResult.get());
+    }
+
+    @Test
+    public void testQueryBinary() throws Exception {
+        List<SelectedColumnMeta> columnMetas = Lists.newArrayList(new SelectedColumnMeta(false, false, false, false,
+                1, true, 10, "ID", "ID", null, null, null, 10, 0, Types.BIGINT, "BIGINT", true, false, false));
+        List<List<String>> results = Lists.newArrayList(Collections.singletonList("1"),
+                Collections.singletonList("2"));
+        SQLResponse sqlResponse = new SQLResponse(columnMetas, results, 0, false, null);
+        sqlResponse.setQueryId("query-id");
+        AtomicBoolean binaryResult = new AtomicBoolean();
+        Mockito.doAnswer(invocation -> {
+            binaryResult.set(QueryContext.current().isBinaryResult());
+            return sqlResponse;
+        }).when(kapQueryService).queryWithCache(Mockito.any());
+        Mockito.doReturn(sqlResponse).when(queryResultCursorManager).openCursor(sqlResponse, 0);
+
+        MvcResult result = mockMvc
+                .perform(MockMvcRequestBuilders.post("/api/query").contentType(MediaType.APPLICATION_JSON)
+                        .content(JsonUtil.writeValueAsString(mockPrepareSqlRequest()))
+                        .header("User-Agent", "Chrome/89.0.4389.82 Safari/537.36")
+                        .accept(MediaType.parseMediaType(QueryResultBinaryWriter.CONTENT_TYPE)))
+                .andExpect(MockMvcResultMatchers.status().isOk()).andExpect(MockMvcResultMatchers.content()
+                        .contentTypeCompatibleWith(QueryResultBinaryWriter.CONTENT_TYPE))
+                .andReturn();
+        Mockito.verify(nQueryController).queryBinary(Mockito.any(), Mockito.anyString(), Mockito.any());
+        Mockito.verify(nQueryController, Mockito.never()).query(Mockito.any(), Mockito.anyString());
+        Assert.assertTrue(binaryResult.get());
+
+        DataInputStream in = new DataInputStream(
+                new ByteArrayInputStream(result.getResponse().getContentAsByteArray()));
+        Assert.assertEquals(QueryResultBinaryWriter.MAGIC, in.readInt());
+        Assert.assertEquals(QueryResultBinaryWriter.VERSION, in.readByte());
+        byte[] header = new byte[in.readInt()];
+        in.readFully(header);
+        Assert.assertEquals("query-id", JsonUtil.readValueAsTree(new String(header, StandardCharsets.UTF_8))
+                .get("queryId").asText());
+        Assert.assertEquals(1, in.readInt());
+        Assert.assertEquals(2, in.readInt());
+        Assert.assertEquals(QueryResultBinaryWriter.ENCODING_LONG, in.readByte());
+        Assert.assertEquals(0, in.readByte());
+        Assert.assertEquals(1L, in.readLong());
+        Assert.assertEquals(2L, in.readLong());
+        Assert.assertEquals(0, in.readInt());
+    }
+
+    @Test
+    public void testFetchResult() throws Exception {
+        String cursorId = "9d8f6fb1-0dc6-4b55-8cbb-2e95b9a6ed1f";
+        Mockito.doReturn(new SQLResponse()).when(queryResultCursorManager).fetch(cursorId, 100, 50);
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/query/cursor/" + cursorId).param("offset", "100")
+                .param("limit", "50").accept(MediaType.parseMediaType(HTTP_VND_APACHE_KYLIN_JSON)))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        Mockito.verify(queryResultCursorManager).fetch(cursorId, 100, 50);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/api/query/cursor/" + cursorId).param("offset", "100")
+                .param("limit", "0").accept(MediaType.parseMediaType(HTTP_VND_APACHE_KYLIN_JSON)))
+                .andExpect(MockMvcResultMatchers.status().is5xxServerError());
+
+        mockMvc.perform(MockMvcRequestBuilders.delete("/api/query/cursor/" + cursorId)
+                .accept(MediaType.parseMediaType(HTTP_VND_APACHE_KYLIN_JSON)))
+                .andExpect(MockMvcResultMatchers.status().isOk());
+        Mockito.verify(queryResultCursorManager).close(cursorId);
+        Mockito.verify(nQueryController, Mockito.never()).stopQuery(Mockito.any());
+    }
+
     @Test
     public void testStopQuery() throws Exception {
         mockMvc.perform(MockMvcRequestBuilders.delete("/api/query/1").contentType(MediaType.APPLICATION_JSON)
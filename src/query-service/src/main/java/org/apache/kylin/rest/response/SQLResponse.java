@@ -32,6 +32,7 @@ import org.apache.kylin.guava30.shaded.common.collect.ImmutableList;
 import org.apache.kylin.metadata.querymeta.SelectedColumnMeta;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -160,6 +161,10 @@ public class SQLResponse implements Serializable {
 
     private boolean isBigQuery = false;
 
+    // the cursor to fetch the rest rows of a result returned by pages, null if all rows are returned
+    @JsonProperty("cursor_id")
+    private String cursorId;
+
     public SQLResponse() {
         this(new LinkedList<>(), new LinkedList<>(), 0, false, null);
     }
@@ -206,6 +211,25 @@ public class SQLResponse implements Serializable {
         }
     }
 
+    /**
+     * A copy sharing the result rows, for a response handed out more than once.
+     * The realizations are copied too, as they are updated per response.
+     */
+    public SQLResponse copy() {
+        SQLResponse copy = new SQLResponse();
+        BeanUtils.copyProperties(this, copy);
+        if (nativeRealizations != null) {
+            List<NativeQueryRealization> realizations = new ArrayList<>(nativeRealizations.size());
+            for (NativeQueryRealization realization : nativeRealizations) {
+                NativeQueryRealization realizationCopy = new NativeQueryRealization();
+                BeanUtils.copyProperties(realization, realizationCopy);
+                realizations.add(realizationCopy);
+            }
+            copy.setNativeRealizations(realizations);
+        }
+        return copy;
+    }
+
     @JsonIgnore
     public Throwable getThrowable() {
         return throwable;
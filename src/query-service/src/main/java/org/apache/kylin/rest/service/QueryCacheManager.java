@@ -22,6 +22,15 @@ import static org.apache.kylin.common.util.CheckUtil.checkCondition;
 import static org.apache.kylin.rest.cache.RedisCache.checkRedisClient;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 
 import javax.annotation.PostConstruct;
 
@@ -38,6 +47,7 @@ import org.apache.kylin.rest.cache.KylinEhCache;
 import org.apache.kylin.rest.cache.memcached.CompositeMemcachedCache;
 import org.apache.kylin.rest.cache.RedisCache;
 import org.apache.kylin.rest.cache.RedisCacheV2;
+import org.apache.kylin.rest.cache.TwoTierCache;
 import org.apache.kylin.rest.request.SQLRequest;
 import org.apache.kylin.rest.response.SQLResponse;
 import org.apache.kylin.rest.response.TableMetaCacheResult;
@@ -69,8 +79,14 @@ public class QueryCacheManager implements CommonQueryCacheSupporter {
 
     private static final Logger logger = LoggerFactory.getLogger("query");
 
+    // weight of a value other than a query response in the local tier
+    private static final int DEFAULT_LOCAL_WEIGHT = 1;
+
     private KylinCache kylinCache;
 
+    // cache key -> the query running for it, see coalesceQuery
+    private final ConcurrentMap<Object, RunningQuery> runningQueries = new ConcurrentHashMap<>();
+
     @PostConstruct
     public void init() {
         KylinConfig kylinConfig = KylinConfig.getInstanceFromEnv();
@@ -89,6 +105,107 @@ public class QueryCacheManager implements CommonQueryCacheSupporter {
         if (kylinCache instanceof RedisCache && checkRedisClient()) {
             logger.info("Redis cache connect successfully!");
         }
+        kylinCache = withLocalTier(kylinCache);
+    }
+
+    /**
+     * Put a local tier in front of a remote cache, ehcache is local already.
+     */
+    private KylinCache withLocalTier(KylinCache cache) {
+        KylinConfig kylinConfig = KylinConfig.getInstanceFromEnv();
+        if (cache == null || cache instanceof KylinEhCache || !kylinConfig.isQueryCacheLocalTierEnabled()) {
+            return cache;
+        }
+        logger.info("Query cache local tier is enabled in front of {}", cache.getClass().getSimpleName());
+        return new TwoTierCache(cache, kylinConfig.getQueryCacheLocalTierMaxWeight(),
+                kylinConfig.getQueryCacheLocalTierExpireSeconds(), QueryCacheManager::weigh);
+    }
+
+    private static int weigh(Object value) {
+        if (!(value instanceof SQLResponse)) {
+            return DEFAULT_LOCAL_WEIGHT;
+        }
+        SQLResponse response = (SQLResponse) value;
+        long cells = response.getColumnMetas() == null ? 0
+                : (long) Math.max(response.getResultRowCount(), 0) * response.getColumnMetas().size();
+        return (int) Math.min(DEFAULT_LOCAL_WEIGHT + cells, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Run the query of a request, while identical requests arriving meanwhile wait for it instead of running it
+     * again. A waiting request gets its own copy of the response of the leading query, whether it's cached or not,
+     * marked as served from the cache and handed to sharedResponseHandler like a cache hit.
+     * It searches the cache and runs the query itself only if the leading query fails, or if the wait times out.
+     */
+    public SQLResponse coalesceQuery(SQLRequest sqlRequest, long timeoutSeconds, Supplier<SQLResponse> cacheSearcher,
+            Supplier<SQLResponse> query, UnaryOperator<SQLResponse> sharedResponseHandler) {
+        Object cacheKey = sqlRequest.getCacheKey();
+        RunningQuery running = new RunningQuery();
+        RunningQuery leading = runningQueries.compute(cacheKey, (key, current) -> {
+            if (current == null) {
+                return running;
+            }
+            current.waiters.incrementAndGet();
+            return current;
+        });
+        if (leading == running) {
+            SQLResponse response = null;
+            try {
+                response = query.get();
+                return response;
+            } finally {
+                runningQueries.remove(cacheKey, running);
+                // no one joins after the removal, the waiters are counted atomically with the lookup
+                running.result.complete(running.waiters.get() > 0 ? shareableCopy(response) : null);
+            }
+        }
+
+        logger.info("[query cache log] Wait for the running query of the same cache key");
+        try {
+            SQLResponse response = leading.result.get(timeoutSeconds, TimeUnit.SECONDS);
+            if (response != null) {
+                SQLResponse shared = response.copy();
+                if (!shared.isException()) {
+                    // the query ran once for all the coalesced requests, the others are served like cache hits
+                    shared.setStorageCacheUsed(true);
+                    QueryContext.current().getQueryTagInfo().setStorageCacheUsed(true);
+                }
+                return sharedResponseHandler.apply(shared);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            logger.info("[query cache log] Stop waiting for the running query of the same cache key", e);
+        }
+        SQLResponse cached = cacheSearcher.get();
+        if (cached != null) {
+            return cached;
+        }
+        return query.get();
+    }
+
+    /**
+     * A copy of the response taken before the leading request updates it, with all rows read
+     * as the results may be iterable only once.
+     */
+    private static SQLResponse shareableCopy(SQLResponse response) {
+        if (response == null) {
+            return null;
+        }
+        try {
+            if (response.getResults() != null) {
+                response.readAllRows();
+            }
+            return response.copy();
+        } catch (Exception e) {
+            logger.warn("[query cache log] Failed to share the response of the running query", e);
+            return null;
+        }
+    }
+
+    private static class RunningQuery {
+        private final CompletableFuture<SQLResponse> result = new CompletableFuture<>();
+        private final AtomicInteger waiters = new AtomicInteger();
     }
 
     /**
@@ -185,6 +302,8 @@ public class QueryCacheManager implements CommonQueryCacheSupporter {
             logger.info("[query cache log] No success cache searched");
             return null;
         }
+        // a local cache hands out the same instance to concurrent requests, which update it
+        cached = cached.copy();
 
         // check signature for success query resp in case the datasource is changed
         if (QueryCacheSignatureUtil.checkCacheExpired(cached, sqlRequest.getProject())) {
@@ -230,6 +349,7 @@ public class QueryCacheManager implements CommonQueryCacheSupporter {
             logger.info("[query cache log] No failed cache searched");
             return null;
         }
+        cached = cached.copy();
         cached.setHitExceptionCache(true);
         QueryContext.current().getQueryTagInfo().setHitExceptionCache(true);
         return cached;
@@ -363,8 +483,9 @@ public class QueryCacheManager implements CommonQueryCacheSupporter {
             kylinCache = RedisCache.recoverInstance();
         } else {
             // sentinel
-            if (kylinCache instanceof RedisCacheV2) {
-                kylinCache = ((RedisCacheV2) kylinCache).recoverInstance();
+            KylinCache remote = getCache();
+            if (remote instanceof RedisCacheV2) {
+                kylinCache = ((RedisCacheV2) remote).recoverInstance();
             } else {
                 kylinCache = RedisCacheV2.getInstance();
             }
@@ -377,13 +498,14 @@ public class QueryCacheManager implements CommonQueryCacheSupporter {
             return false;
         } else {
             logger.info("Redis client recover successfully.");
+            kylinCache = withLocalTier(kylinCache);
             return true;
         }
     }
 
     //for test
     public KylinCache getCache() {
-        return kylinCache;
+        return kylinCache instanceof TwoTierCache ? ((TwoTierCache) kylinCache).getRemote() : kylinCache;
     }
 
     public Object getCache(String type, String project, Object key) {
@@ -20,6 +20,8 @@ package org.apache.kylin.rest.service;
 
 import static org.apache.kylin.metadata.query.QueryMetrics.QUERY_RESPONSE_TIME;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
@@ -31,6 +33,7 @@ import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import org.apache.commons.collections4.CollectionUtils;
@@ -38,6 +41,9 @@ import org.apache.kylin.common.KapConfig;
 import org.apache.kylin.common.KylinConfig;
 import org.apache.kylin.common.QueryTrace;
 import org.apache.kylin.common.Singletons;
+import org.apache.kylin.common.metrics.MetricsCategory;
+import org.apache.kylin.common.metrics.MetricsGroup;
+import org.apache.kylin.common.metrics.MetricsName;
 import org.apache.kylin.common.util.ExecutorServiceUtil;
 import org.apache.kylin.common.util.NamedThreadFactory;
 import org.apache.kylin.common.util.Pair;
@@ -54,7 +60,11 @@ import org.slf4j.LoggerFactory;
 public class QueryHistoryScheduler {
 
     private static final Logger logger = LoggerFactory.getLogger("query");
+    private static final String GLOBAL = "global";
     protected BlockingQueue<QueryMetrics> queryMetricsQueue;
+    protected QueryHistorySpillLog spillLog;
+    // metrics overflowing the queue, spilled by the scheduler thread rather than the query thread
+    protected BlockingQueue<QueryMetrics> spillQueue;
     private ScheduledExecutorService writeQueryHistoryScheduler;
 
     private long sparkJobTraceTimeoutMs;
@@ -63,6 +73,16 @@ public class QueryHistoryScheduler {
     public QueryHistoryScheduler() {
         KylinConfig kylinConfig = KylinConfig.getInstanceFromEnv();
         queryMetricsQueue = new LinkedBlockingQueue<>(kylinConfig.getQueryHistoryBufferSize());
+        spillQueue = new LinkedBlockingQueue<>(kylinConfig.getQueryHistoryBufferSize());
+        if (kylinConfig.isQueryHistorySpillEnabled()) {
+            try {
+                spillLog = new QueryHistorySpillLog(new File(kylinConfig.getQueryHistorySpillDir()),
+                        kylinConfig.getQueryHistorySpillBatchSize(), kylinConfig.getQueryHistorySpillMaxBytes());
+            } catch (IOException e) {
+                logger.error("Failed to open query history spill log, query history is dropped when queue is full",
+                        e);
+            }
+        }
         logger.debug("New NQueryHistoryScheduler created");
     }
 
@@ -79,15 +99,39 @@ public class QueryHistoryScheduler {
         KylinConfig kyinConfig = KylinConfig.getInstanceFromEnv();
         writeQueryHistoryScheduler.scheduleWithFixedDelay(new WriteQueryHistoryRunner(), 1,
                 kyinConfig.getQueryHistorySchedulerInterval(), TimeUnit.SECONDS);
+        registerMetrics();
+    }
+
+    private void registerMetrics() {
+        MetricsGroup.newGauge(MetricsName.QUERY_HISTORY_QUEUE_SIZE, MetricsCategory.GLOBAL, GLOBAL,
+                () -> queryMetricsQueue.size());
+        if (spillLog != null) {
+            MetricsGroup.newGauge(MetricsName.QUERY_HISTORY_SPILL_SIZE, MetricsCategory.GLOBAL, GLOBAL,
+                    () -> spillLog.getSizeInBytes());
+            MetricsGroup.newGauge(MetricsName.QUERY_HISTORY_SPILL_LAG, MetricsCategory.GLOBAL, GLOBAL,
+                    () -> spillLog.getLagMs());
+        }
     }
 
     public void offerQueryHistoryQueue(QueryMetrics queryMetrics) {
         boolean offer = queryMetricsQueue.offer(queryMetrics);
         if (!offer) {
+            if (spillLog != null && spillQueue.offer(queryMetrics)) {
+                logger.debug("queryMetricsQueue is full, spill query metrics {}", queryMetrics.getQueryId());
+                return;
+            }
             logger.info("queryMetricsQueue is full");
         }
     }
 
+    void spillQueued() {
+        List<QueryMetrics> metrics = Lists.newArrayList();
+        spillQueue.drainTo(metrics);
+        if (!metrics.isEmpty()) {
+            spillLog.append(metrics);
+        }
+    }
+
     synchronized void shutdown() {
         logger.info("Shutting down NQueryHistoryScheduler ....");
         if (writeQueryHistoryScheduler != null) {
@@ -106,6 +150,9 @@ public class QueryHistoryScheduler {
         @Override
         public void run() {
             try {
+                if (spillLog != null) {
+                    spillQueued();
+                }
                 List<QueryMetrics> metrics = Lists.newArrayList();
                 queryMetricsQueue.drainTo(metrics);
                 List<QueryMetrics> insertMetrics;
@@ -118,19 +165,71 @@ public class QueryHistoryScheduler {
                 } else {
                     insertMetrics = metrics.stream().filter(qm -> !qm.isUpdateMetrics()).collect(Collectors.toList());
                 }
-                if (CollectionUtils.isNotEmpty(insertMetrics)) {
-                    queryHistoryDAO.insert(insertMetrics);
-                }
                 List<QueryMetrics> updateMetrics = metrics.stream().filter(QueryMetrics::isUpdateMetrics)
                         .collect(Collectors.toList());
-                if (CollectionUtils.isNotEmpty(updateMetrics)) {
-                    updateQueryMetricsTrace(updateMetrics);
+                boolean written = write(insertMetrics, this::insert);
+                written &= write(updateMetrics, this::updateQueryMetricsTrace);
+                if (written) {
+                    replaySpilled();
                 }
             } catch (Exception th) {
                 logger.error("Error when write query history", th);
             }
         }
 
+        /**
+         * Write the metrics, or spill them if the write fails and the spill log is enabled.
+         * The inserts and the trace updates are written separately, so only the failed part is spilled.
+         *
+         * @return false if the metrics are spilled
+         */
+        private boolean write(List<QueryMetrics> metrics, Consumer<List<QueryMetrics>> writer) {
+            if (CollectionUtils.isEmpty(metrics)) {
+                return true;
+            }
+            try {
+                writer.accept(metrics);
+                return true;
+            } catch (Exception e) {
+                if (spillLog == null) {
+                    throw e;
+                }
+                logger.error("Error when write query history, spill {} query metrics", metrics.size(), e);
+                spillLog.append(metrics);
+                return false;
+            }
+        }
+
+        private void insert(List<QueryMetrics> insertMetrics) {
+            queryHistoryDAO.insert(insertMetrics);
+        }
+
+        /**
+         * Replay the spilled segments, the oldest first, stop at the first failure and retry in the next round.
+         * Spilled metrics are written as they are, the spark job trace is not collected for them again.
+         * A segment is deleted as soon as its inserts commit, its trace updates are spilled again if they fail,
+         * so an inserted query history is never inserted again.
+         */
+        private void replaySpilled() throws IOException {
+            if (spillLog == null || spillLog.getSizeInBytes() == 0) {
+                return;
+            }
+            for (File segment : spillLog.rollSegments()) {
+                List<QueryMetrics> metrics = spillLog.read(segment);
+                List<QueryMetrics> insertMetrics = metrics.stream().filter(qm -> !qm.isUpdateMetrics())
+                        .collect(Collectors.toList());
+                if (!insertMetrics.isEmpty()) {
+                    insert(insertMetrics);
+                }
+                spillLog.delete(segment);
+                logger.info("Replayed {} spilled query metrics from {}", metrics.size(), segment.getName());
+                if (!write(metrics.stream().filter(QueryMetrics::isUpdateMetrics).collect(Collectors.toList()),
+                        this::updateQueryMetricsTrace)) {
+                    return;
+                }
+            }
+        }
+
         private void updateQueryMetricsTrace(List<QueryMetrics> updateMetrics) {
             List<String> queryIds = updateMetrics.stream().map(QueryMetrics::getQueryId).collect(Collectors.toList());
             Map<String, List<QueryMetrics>> metricsMap = updateMetrics.stream()
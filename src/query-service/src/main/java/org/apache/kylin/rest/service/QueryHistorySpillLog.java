@@ -0,0 +1,209 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.kylin.rest.service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.apache.kylin.metadata.query.QueryMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Local append-only log of the query metrics which could not be written into the query history table,
+ * either because the queue is full or because the database is unavailable.
+ *
+ * Metrics are appended as json lines into segment files of at most batchSize metrics. A segment is named
+ * createTime_sequence.spill, it is replayed with one batch insert and deleted as soon as the insert
+ * commits, the trace updates it holds are appended again if they fail. Segments left by a previous process
+ * are replayed as well. Once the log reaches maxBytes, new metrics are dropped.
+ */
+public class QueryHistorySpillLog {
+
+    private static final Logger logger = LoggerFactory.getLogger("query");
+
+    private static final String SEGMENT_SUFFIX = ".spill";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE)
+            .setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY)
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+            .addMixIn(QueryMetrics.class, QueryMetricsMixIn.class);
+
+    private final File dir;
+    private final int batchSize;
+    private final long maxBytes;
+    private final AtomicLong sizeInBytes = new AtomicLong();
+
+    private long sequence;
+    private File currentSegment;
+    private Writer currentWriter;
+    private int currentRecords;
+
+    public QueryHistorySpillLog(File dir, int batchSize, long maxBytes) throws IOException {
+        this.dir = dir;
+        this.batchSize = batchSize;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(dir.toPath());
+        for (File segment : listSegments(true)) {
+            sequence = Math.max(sequence, sequenceOf(segment));
+            sizeInBytes.addAndGet(segment.length());
+        }
+    }
+
+    /**
+     * @return false if the log is full or not writable, the metrics are dropped then
+     */
+    public synchronized boolean append(Collection<QueryMetrics> metrics) {
+        if (sizeInBytes.get() >= maxBytes) {
+            logger.warn("Query history spill log {} exceeds {} bytes, drop {} query metrics", dir, maxBytes,
+                    metrics.size());
+            return false;
+        }
+        try {
+            for (QueryMetrics queryMetrics : metrics) {
+                if (currentWriter == null) {
+                    currentSegment = new File(dir, String.format(Locale.ROOT, "%d_%d%s", System.currentTimeMillis(),
+                            ++sequence, SEGMENT_SUFFIX));
+                    currentWriter = new BufferedWriter(new OutputStreamWriter(
+                            Files.newOutputStream(currentSegment.toPath()), StandardCharsets.UTF_8));
+                }
+                String line = MAPPER.writeValueAsString(queryMetrics) + "\n";
+                currentWriter.write(line);
+                sizeInBytes.addAndGet(line.getBytes(StandardCharsets.UTF_8).length);
+                if (++currentRecords >= batchSize) {
+                    closeCurrentSegment();
+                }
+            }
+            if (currentWriter != null) {
+                currentWriter.flush();
+            }
+            return true;
+        } catch (IOException e) {
+            logger.error("Failed to spill {} query metrics into {}", metrics.size(), dir, e);
+            return false;
+        }
+    }
+
+    /**
+     * Close the segment being written, and list all segments to replay, the oldest first.
+     */
+    public synchronized List<File> rollSegments() {
+        try {
+            closeCurrentSegment();
+        } catch (IOException e) {
+            logger.error("Failed to close query history spill segment {}", currentSegment, e);
+        }
+        return listSegments(false);
+    }
+
+    public List<QueryMetrics> read(File segment) throws IOException {
+        List<QueryMetrics> metrics = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(segment.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                try {
+                    metrics.add(MAPPER.readValue(line, QueryMetrics.class));
+                } catch (IOException e) {
+                    // i.e. the last line of a segment not flushed completely when the process was killed
+                    logger.warn("Skip a broken query metrics line in {}", segment, e);
+                }
+            }
+        }
+        return metrics;
+    }
+
+    public void delete(File segment) throws IOException {
+        long length = segment.length();
+        Files.deleteIfExists(segment.toPath());
+        sizeInBytes.addAndGet(-length);
+    }
+
+    public long getSizeInBytes() {
+        return sizeInBytes.get();
+    }
+
+    /**
+     * @return milliseconds since the oldest segment was created, 0 if nothing is spilled
+     */
+    public long getLagMs() {
+        List<File> segments = listSegments(true);
+        return segments.isEmpty() ? 0 : System.currentTimeMillis() - createTimeOf(segments.get(0));
+    }
+
+    private void closeCurrentSegment() throws IOException {
+        if (currentWriter != null) {
+            currentWriter.close();
+            currentWriter = null;
+            currentRecords = 0;
+        }
+    }
+
+    private List<File> listSegments(boolean includeCurrent) {
+        File[] files = dir.listFiles((d, name) -> name.endsWith(SEGMENT_SUFFIX));
+        if (files == null) {
+            return new ArrayList<>();
+        }
+        File writing = currentWriter == null ? null : currentSegment;
+        return Arrays.stream(files).filter(file -> includeCurrent || !file.equals(writing))
+                .sorted(Comparator.comparingLong(QueryHistorySpillLog::sequenceOf)).collect(Collectors.toList());
+    }
+
+    private static long createTimeOf(File segment) {
+        String name = segment.getName();
+        return Long.parseLong(name.substring(0, name.indexOf('_')));
+    }
+
+    private static long sequenceOf(File segment) {
+        String name = segment.getName();
+        return Long.parseLong(name.substring(name.indexOf('_') + 1, name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    @JsonIgnoreProperties({ "callback" })
+    abstract static class QueryMetricsMixIn {
+        @JsonCreator
+        QueryMetricsMixIn(@JsonProperty("queryId") String queryId) {
+        }
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.kylin.rest.service;
+
+import static org.apache.kylin.common.exception.ServerErrorCode.ACCESS_DENIED;
+import static org.apache.kylin.common.exception.ServerErrorCode.INVALID_PARAMETER;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.kylin.common.KylinConfig;
+import org.apache.kylin.common.exception.KylinException;
+import org.apache.kylin.common.util.NamedThreadFactory;
+import org.apache.kylin.guava30.shaded.common.cache.Cache;
+import org.apache.kylin.guava30.shaded.common.cache.CacheBuilder;
+import org.apache.kylin.guava30.shaded.common.cache.RemovalNotification;
+import org.apache.kylin.metadata.querymeta.SelectedColumnMeta;
+import org.apache.kylin.rest.response.SQLResponse;
+import org.apache.kylin.rest.util.AclPermissionUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Holds the rest of a query result under a cursor id, so that a client fetching by pages, e.g. the jdbc driver
+ * with fetch-size, gets the following pages from the same result instead of running the query again.
+ * A cursor is released once its last row is fetched, when it's closed, or when it's idle for
+ * kylin.query.result-cursor-idle-timeout.
+ * A request with fetch-size collects the sparder result as an iterator, so a cursor holds the spark iterator
+ * rather than the rows. A result read in full anyway, e.g. to be cached or shared by coalesced queries,
+ * is held in the memory until the cursor is released.
+ */
+@Component("queryResultCursorManager")
+public class QueryResultCursorManager {
+
+    private static final Logger logger = LoggerFactory.getLogger("query");
+
+    private Cache<String, ResultCursor> cursors;
+
+    private ScheduledExecutorService cleanupScheduler;
+
+    private int maxCount;
+
+    @PostConstruct
+    public void init() {
+        KylinConfig kylinConfig = KylinConfig.getInstanceFromEnv();
+        long idleTimeout = kylinConfig.getQueryResultCursorIdleTimeoutSeconds();
+        maxCount = kylinConfig.getQueryResultCursorMaxCount();
+        cursors = CacheBuilder.newBuilder().expireAfterAccess(idleTimeout, TimeUnit.SECONDS)
+                .removalListener(QueryResultCursorManager::onRemoval).build();
+        // expired cursors are otherwise only evicted when another cursor is accessed
+        cleanupScheduler = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("QueryResultCursor"));
+        cleanupScheduler.scheduleWithFixedDelay(cursors::cleanUp, idleTimeout, idleTimeout, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        cleanupScheduler.shutdownNow();
+        cursors.invalidateAll();
+    }
+
+    private static void onRemoval(RemovalNotification<String, ResultCursor> notification) {
+        ResultCursor cursor = notification.getValue();
+        if (notification.wasEvicted()) {
+            logger.info("Result cursor {} of query {} is released after idle at row {}", notification.getKey(),
+                    cursor.queryId, cursor.position);
+        }
+        cursor.close();
+    }
+
+    /**
+     * @return a copy of the response with the first fetchSize rows and the cursor of the rest rows if any,
+     * or the response itself if too many cursors are open
+     */
+    public SQLResponse openCursor(SQLResponse response, int fetchSize) {
+        if (fetchSize <= 0 || response.isException() || response.getResults() == null) {
+            return response;
+        }
+        if (cursors.size() >= maxCount) {
+            logger.warn("{} result cursors are open, return the whole result of query {}", cursors.size(),
+                    response.getQueryId());
+            return response;
+        }
+        Iterator<List<String>> rows = response.getResults().iterator();
+        List<List<String>> firstPage = next(rows, fetchSize);
+        if (!rows.hasNext()) {
+            // the results may be iterable only once
+            return withResults(response, firstPage);
+        }
+        String cursorId = UUID.randomUUID().toString();
+        cursors.put(cursorId, new ResultCursor(AclPermissionUtil.getCurrentUsername(), response.getQueryId(),
+                response.getColumnMetas(), response.getResultRowCount(), rows, firstPage.size()));
+        logger.info("Open result cursor {} of query {}", cursorId, response.getQueryId());
+        SQLResponse page = withResults(response, firstPage);
+        page.setCursorId(cursorId);
+        return page;
+    }
+
+    /**
+     * Fetch the next limit rows of a cursor, offset must be the count of rows fetched so far.
+     * The cursor id of the returned page is null if the cursor has no more rows, and it's released.
+     */
+    public SQLResponse fetch(String cursorId, long offset, int limit) {
+        ResultCursor cursor = getCursor(cursorId);
+        synchronized (cursor) {
+            if (offset != cursor.position) {
+                throw new KylinException(INVALID_PARAMETER, String.format(Locale.ROOT,
+                        "The result cursor '%s' is at row %d, can't fetch from row %d", cursorId, cursor.position,
+                        offset));
+            }
+            List<List<String>> rows = next(cursor.rows, limit);
+            cursor.position += rows.size();
+            SQLResponse page = new SQLResponse(cursor.columnMetas, rows, 0, false, null);
+            page.setQueryId(cursor.queryId);
+            page.setResultRowCount(cursor.resultRowCount);
+            if (cursor.rows.hasNext()) {
+                page.setCursorId(cursorId);
+            } else {
+                cursors.invalidate(cursorId);
+            }
+            return page;
+        }
+    }
+
+    public void close(String cursorId) {
+        getCursor(cursorId);
+        cursors.invalidate(cursorId);
+    }
+
+    private ResultCursor getCursor(String cursorId) {
+        ResultCursor cursor = cursors.getIfPresent(cursorId);
+        if (cursor == null) {
+            throw new KylinException(INVALID_PARAMETER,
+                    String.format(Locale.ROOT, "The result cursor '%s' does not exist or has expired", cursorId));
+        }
+        if (!Objects.equals(cursor.owner, AclPermissionUtil.getCurrentUsername())) {
+            throw new KylinException(ACCESS_DENIED, "Access is denied.");
+        }
+        return cursor;
+    }
+
+    private static List<List<String>> next(Iterator<List<String>> rows, int limit) {
+        List<List<String>> page = new ArrayList<>();
+        while (page.size() < limit && rows.hasNext()) {
+            page.add(rows.next());
+        }
+        return page;
+    }
+
+    private static SQLResponse withResults(SQLResponse response, List<List<String>> results) {
+        SQLResponse page = response.copy();
+        page.setResults(results);
+        return page;
+    }
+
+    private static class ResultCursor {
+        private final String owner;
+        private final String queryId;
+        private final List<SelectedColumnMeta> columnMetas;
+        private final long resultRowCount;
+        private final Iterator<List<String>> rows;
+        private long position;
+
+        ResultCursor(String owner, String queryId, List<SelectedColumnMeta> columnMetas, long resultRowCount,
+                Iterator<List<String>> rows, long position) {
+            this.owner = owner;
+            this.queryId = queryId;
+            this.columnMetas = columnMetas;
+            this.resultRowCount = resultRowCount;
+            this.rows = rows;
+            this.position = position;
+        }
+
+        void close() {
+            if (rows instanceof AutoCloseable) {
+                try {
+                    ((AutoCloseable) rows).close();
+                } catch (Exception e) {
+                    logger.warn("Failed to close the result of query {}", queryId, e);
+                }
+            }
+        }
+    }
+}
@@ -594,15 +594,22 @@ public class QueryService extends BasicService implements CacheSignatureQuerySup
             applyQuerySqlBlacklist(project, rawSql.getStatementString());
 
             // search cache
-            if (kylinConfig.isQueryCacheEnabled() && !sqlRequest.isForcedToPushDown()
-                    && !queryContext.getQueryTagInfo().isAsyncQuery()) {
+            boolean cacheSearchable = kylinConfig.isQueryCacheEnabled() && !sqlRequest.isForcedToPushDown()
+                    && !queryContext.getQueryTagInfo().isAsyncQuery();
+            if (cacheSearchable) {
                 sqlResponse = searchCache(sqlRequest, kylinConfig);
             }
 
             // REAL EXECUTION, if required
             if (sqlResponse == null) {
-                try (QueryRequestLimits ignored = new QueryRequestLimits(project)) {
-                    sqlResponse = queryAndUpdateCache(sqlRequest, kylinConfig);
+                if (cacheSearchable && kylinConfig.isQueryCacheCoalescingEnabled() && !sqlRequest.isIfBigQuery()
+                        && isQueryCacheEnabled(kylinConfig)) {
+                    // identical queries arriving meanwhile wait for this one and take a copy of its result
+                    sqlResponse = queryCacheManager.coalesceQuery(sqlRequest, kylinConfig.getQueryTimeoutSeconds(),
+                            () -> searchCache(sqlRequest, kylinConfig),
+                            () -> queryWithRequestLimits(sqlRequest, kylinConfig), this::collectCachedResponse);
+                } else {
+                    sqlResponse = queryWithRequestLimits(sqlRequest, kylinConfig);
                 }
             }
             if (sqlRequest.isIfBigQuery()) {
@@ -670,21 +677,35 @@ public class QueryService extends BasicService implements CacheSignatureQuerySup
                 && !QueryContext.current().getQueryTagInfo().isStorageCacheUsed();
     }
 
+    private SQLResponse queryWithRequestLimits(SQLRequest sqlRequest, KylinConfig kylinConfig) {
+        try (QueryRequestLimits ignored = new QueryRequestLimits(sqlRequest.getProject())) {
+            return queryAndUpdateCache(sqlRequest, kylinConfig);
+        }
+    }
+
     protected SQLResponse searchCache(SQLRequest sqlRequest, KylinConfig kylinConfig) {
         SQLResponse response = searchFailedCache(sqlRequest, kylinConfig);
         if (response == null) {
             response = searchSuccessCache(sqlRequest);
         }
         if (response != null) {
-            response.setDuration(0);
-            collectToQueryContext(response);
-            QueryContext.currentTrace().clear();
-            QueryContext.currentTrace().startSpan(QueryTrace.HIT_CACHE);
-            QueryContext.currentTrace().endLastSpan();
+            collectCachedResponse(response);
         }
         return response;
     }
 
+    /**
+     * Fill the query context from a response not computed by this request, a cache hit or a coalesced query.
+     */
+    private SQLResponse collectCachedResponse(SQLResponse response) {
+        response.setDuration(0);
+        collectToQueryContext(response);
+        QueryContext.currentTrace().clear();
+        QueryContext.currentTrace().startSpan(QueryTrace.HIT_CACHE);
+        QueryContext.currentTrace().endLastSpan();
+        return response;
+    }
+
     private SQLResponse searchFailedCache(SQLRequest sqlRequest, KylinConfig kylinConfig) {
         SQLResponse response = queryCacheManager.getFromExceptionCache(sqlRequest);
         if (response != null && isFailTimesExceedThreshold(response, kylinConfig)) {
@@ -888,7 +909,7 @@ public class QueryService extends BasicService implements CacheSignatureQuerySup
         if (null == queryCacheManager.getFromExceptionCache(sqlRequest)) {
             return;
         }
-        if (!queryCacheManager.getCache().remove(CommonQueryCacheSupporter.Type.EXCEPTION_QUERY_CACHE.rootCacheName,
+        if (!queryCacheManager.removeCache(CommonQueryCacheSupporter.Type.EXCEPTION_QUERY_CACHE.rootCacheName,
                 sqlRequest.getProject(), sqlRequest.getCacheKey())) {
             logger.info("Remove cache failed");
         }
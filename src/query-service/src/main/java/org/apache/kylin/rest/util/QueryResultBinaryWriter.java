@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.kylin.rest.util;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.kylin.common.util.JsonUtil;
+import org.apache.kylin.metadata.querymeta.SelectedColumnMeta;
+import org.apache.kylin.query.engine.data.ResultRow;
+import org.apache.kylin.rest.response.SQLResponse;
+
+/**
+ * Write a query response in a compact, typed, columnar binary format, an opt-in alternative to json
+ * for clients sending the Accept header {@link #CONTENT_TYPE}. The layout, all numbers in big endian:
+ *
+ * <pre>
+ * int     MAGIC
+ * byte    VERSION
+ * int     header length, followed by the utf-8 json of the SQLResponse without results
+ * int     column count
+ * batches of rows, each batch:
+ *   int   row count, 0 means end of the result
+ *   for each column:
+ *     byte   encoding, ENCODING_STRING / ENCODING_LONG / ENCODING_DOUBLE
+ *     bytes  null bitmap, (row count + 7) / 8 bytes, bit set means null
+ *     values of non-null rows, 8-byte long / 8-byte double / int length + utf-8 bytes for string
+ * </pre>
+ *
+ * Integer and floating point columns are encoded as primitives, other columns keep the same string
+ * representation as in json. The primitives are taken from the typed values of a {@link ResultRow}, the rows
+ * of other engines, e.g. push down, are parsed from their strings. A batch falls back to string encoding if any
+ * value of a numeric column cannot be parsed, so the decoded values are always the same as with json.
+ */
+public class QueryResultBinaryWriter {
+
+    public static final String CONTENT_TYPE = "application/vnd.apache.kylin-v4-public+binary";
+
+    public static final int MAGIC = 0x4B594C42;
+    public static final byte VERSION = 1;
+
+    public static final byte ENCODING_STRING = 0;
+    public static final byte ENCODING_LONG = 1;
+    public static final byte ENCODING_DOUBLE = 2;
+
+    private static final int BATCH_SIZE = 4096;
+
+    private QueryResultBinaryWriter() {
+    }
+
+    public static void write(SQLResponse response, OutputStream out) throws IOException {
+        DataOutputStream dataOut = new DataOutputStream(new BufferedOutputStream(out, 64 * 1024));
+        dataOut.writeInt(MAGIC);
+        dataOut.writeByte(VERSION);
+        SQLResponse headerResponse = response.copy();
+        headerResponse.setResults(null);
+        byte[] header = JsonUtil.writeValueAsBytes(headerResponse);
+        dataOut.writeInt(header.length);
+        dataOut.write(header);
+
+        List<SelectedColumnMeta> columnMetas = response.getColumnMetas() == null ? Collections.emptyList()
+                : response.getColumnMetas();
+        byte[] encodings = new byte[columnMetas.size()];
+        for (int i = 0; i < encodings.length; i++) {
+            encodings[i] = encodingOf(columnMetas.get(i).getColumnType());
+        }
+        dataOut.writeInt(encodings.length);
+
+        if (!response.isException() && response.getResults() != null && encodings.length > 0) {
+            List<List<String>> batch = new ArrayList<>(BATCH_SIZE);
+            for (List<String> row : response.getResults()) {
+                batch.add(row);
+                if (batch.size() == BATCH_SIZE) {
+                    writeBatch(dataOut, batch, encodings);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                writeBatch(dataOut, batch, encodings);
+            }
+        }
+        dataOut.writeInt(0);
+        dataOut.flush();
+    }
+
+    static byte encodingOf(int sqlType) {
+        switch (sqlType) {
+        case Types.TINYINT:
+        case Types.SMALLINT:
+        case Types.INTEGER:
+        case Types.BIGINT:
+            return ENCODING_LONG;
+        case Types.FLOAT:
+        case Types.REAL:
+        case Types.DOUBLE:
+            return ENCODING_DOUBLE;
+        default:
+            return ENCODING_STRING;
+        }
+    }
+
+    private static void writeBatch(DataOutputStream out, List<List<String>> batch, byte[] encodings)
+            throws IOException {
+        int rowCount = batch.size();
+        out.writeInt(rowCount);
+        long[] longs = new long[rowCount];
+        double[] doubles = new double[rowCount];
+        for (int col = 0; col < encodings.length; col++) {
+            byte[] nulls = new byte[(rowCount + 7) / 8];
+            for (int row = 0; row < rowCount; row++) {
+                if (batch.get(row).get(col) == null) {
+                    nulls[row >>> 3] |= (byte) (1 << (row & 7));
+                }
+            }
+
+            byte encoding = encodings[col];
+            try {
+                for (int row = 0; row < rowCount; row++) {
+                    String value = batch.get(row).get(col);
+                    if (value == null) {
+                        continue;
+                    }
+                    if (encoding == ENCODING_LONG) {
+                        longs[row] = longValue(batch.get(row), col, value);
+                    } else if (encoding == ENCODING_DOUBLE) {
+                        doubles[row] = doubleValue(batch.get(row), col, value);
+                    }
+                }
+            } catch (NumberFormatException e) {
+                encoding = ENCODING_STRING;
+            }
+
+            out.writeByte(encoding);
+            out.write(nulls);
+            for (int row = 0; row < rowCount; row++) {
+                String value = batch.get(row).get(col);
+                if (value == null) {
+                    continue;
+                }
+                if (encoding == ENCODING_LONG) {
+                    out.writeLong(longs[row]);
+                } else if (encoding == ENCODING_DOUBLE) {
+                    out.writeDouble(doubles[row]);
+                } else {
+                    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(bytes.length);
+                    out.write(bytes);
+                }
+            }
+        }
+    }
+
+    // the json string of an integer column is the toString of the integral value, except for casts
+    private static long longValue(List<String> row, int col, String value) {
+        Object typed = row instanceof ResultRow ? ((ResultRow) row).getValue(col) : null;
+        if (typed instanceof Long || typed instanceof Integer || typed instanceof Short || typed instanceof Byte) {
+            return ((Number) typed).longValue();
+        }
+        return Long.parseLong(value);
+    }
+
+    // a float is parsed from its string, its double value differs from the json string
+    private static double doubleValue(List<String> row, int col, String value) {
+        Object typed = row instanceof ResultRow ? ((ResultRow) row).getValue(col) : null;
+        if (typed instanceof Double) {
+            return (Double) typed;
+        }
+        return Double.parseDouble(value);
+    }
+}
@@ -19,15 +19,33 @@
 package org.apache.kylin.rest.service;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.UnaryOperator;
+
+import org.apache.kylin.common.NativeQueryRealization;
 import org.apache.kylin.common.SystemPropertiesCache;
+import org.apache.kylin.guava30.shaded.common.collect.Lists;
 import org.apache.kylin.junit.annotation.MetadataInfo;
 import org.apache.kylin.rest.cache.KylinCache;
 import org.apache.kylin.rest.cache.RedisCache;
 import org.apache.kylin.rest.cache.RedisCacheV2;
+import org.apache.kylin.rest.cache.TwoTierCache;
+import org.apache.kylin.rest.request.SQLRequest;
+import org.apache.kylin.rest.response.SQLResponse;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -188,4 +206,104 @@ class QueryCacheManagerTest {
         assertDoesNotThrow(() -> queryCacheManager.onClearProjectCache("project"));
     }
 
+    @Test
+    void testCoalesceQuery() throws Exception {
+        SQLRequest sqlRequest = new SQLRequest();
+        sqlRequest.setProject("default");
+        sqlRequest.setSql("select count(*) from test_kylin_fact");
+        List<List<String>> rows = Collections.singletonList(Collections.singletonList("1"));
+        // a lazy result, the response of a query too lightweight to be cached
+        SQLResponse response = new SQLResponse(Collections.emptyList(), rows::iterator, 1, 0, false, null, false,
+                false);
+        AtomicInteger queryTimes = new AtomicInteger();
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch leaderContinue = new CountDownLatch(1);
+
+        CompletableFuture<SQLResponse> leader = CompletableFuture
+                .supplyAsync(() -> queryCacheManager.coalesceQuery(sqlRequest, 60, () -> null, () -> {
+                    queryTimes.incrementAndGet();
+                    leaderStarted.countDown();
+                    try {
+                        leaderContinue.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return response;
+                }, UnaryOperator.identity()));
+        leaderStarted.await();
+        CompletableFuture<SQLResponse> follower = CompletableFuture
+                .supplyAsync(() -> queryCacheManager.coalesceQuery(sqlRequest, 60, () -> null, () -> {
+                    queryTimes.incrementAndGet();
+                    return new SQLResponse();
+                }, UnaryOperator.identity()));
+        TimeUnit.MILLISECONDS.sleep(200);
+        leaderContinue.countDown();
+
+        assertSame(response, leader.get());
+        SQLResponse followerResponse = follower.get();
+        assertNotSame(response, followerResponse);
+        assertEquals(rows, Lists.newArrayList(response.getResults()));
+        assertEquals(rows, Lists.newArrayList(followerResponse.getResults()));
+        assertEquals(1, queryTimes.get());
+        // the follower is served like a cache hit
+        assertFalse(leader.get().isStorageCacheUsed());
+        assertTrue(followerResponse.isStorageCacheUsed());
+
+        // the follower searches the cache and runs the query itself if the leader fails
+        CountDownLatch failingStarted = new CountDownLatch(1);
+        CountDownLatch failingContinue = new CountDownLatch(1);
+        CompletableFuture<SQLResponse> failing = CompletableFuture
+                .supplyAsync(() -> queryCacheManager.coalesceQuery(sqlRequest, 60, () -> null, () -> {
+                    failingStarted.countDown();
+                    try {
+                        failingContinue.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    throw new IllegalStateException("failed");
+                }, UnaryOperator.identity()));
+        failingStarted.await();
+        follower = CompletableFuture
+                .supplyAsync(() -> queryCacheManager.coalesceQuery(sqlRequest, 60, () -> null, () -> response,
+                        UnaryOperator.identity()));
+        TimeUnit.MILLISECONDS.sleep(200);
+        failingContinue.countDown();
+        assertThrows(ExecutionException.class, failing::get);
+        assertSame(response, follower.get());
+    }
+
+    @Test
+    void testSearchCacheReturnsCopy() {
+        ReflectionTestUtils.setField(queryCacheManager, "kylinCache",
+                ReflectionTestUtils.invokeMethod(queryCacheManager, "withLocalTier", Mockito.mock(RedisCache.class)));
+        SQLRequest sqlRequest = new SQLRequest();
+        sqlRequest.setProject("default");
+        SQLResponse response = new SQLResponse();
+        response.setNativeRealizations(Lists.newArrayList(new NativeQueryRealization("model", 1L, "Table Index")));
+        queryCacheManager.putCache(QueryCacheManager.Type.EXCEPTION_QUERY_CACHE.rootCacheName, "default",
+                sqlRequest.getCacheKey(), response);
+
+        SQLResponse cached = queryCacheManager.searchFailedCache(sqlRequest);
+        assertNotSame(response, cached);
+        assertTrue(cached.isHitExceptionCache());
+        assertFalse(response.isHitExceptionCache());
+        cached.getNativeRealizations().get(0).setModelId("another");
+        assertEquals("model", response.getNativeRealizations().get(0).getModelId());
+    }
+
+    @Test
+    void testLocalTier() {
+        kylinCache = Mockito.mock(RedisCache.class);
+        KylinCache twoTierCache = ReflectionTestUtils.invokeMethod(queryCacheManager, "withLocalTier", kylinCache);
+        assertTrue(twoTierCache instanceof TwoTierCache);
+        ReflectionTestUtils.setField(queryCacheManager, "kylinCache", twoTierCache);
+        assertEquals(kylinCache, queryCacheManager.getCache());
+
+        SQLRequest sqlRequest = new SQLRequest();
+        sqlRequest.setProject("default");
+        SQLResponse response = new SQLResponse();
+        queryCacheManager.putCache("StorageCache", "default", sqlRequest.getCacheKey(), response);
+        assertEquals(response, queryCacheManager.getCache("StorageCache", "default", sqlRequest.getCacheKey()));
+        Mockito.verify(kylinCache, Mockito.never()).get("StorageCache", "default", sqlRequest.getCacheKey());
+    }
 }
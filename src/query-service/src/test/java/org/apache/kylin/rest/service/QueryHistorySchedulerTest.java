@@ -21,6 +21,7 @@ import static org.apache.kylin.metadata.query.QueryMetrics.QUERY_RESPONSE_TIME;
 import static org.apache.kylin.metadata.query.RDBMSQueryHistoryDaoTest.createQueryMetrics;
 import static org.awaitility.Awaitility.await;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
@@ -29,11 +30,15 @@ import org.apache.kylin.common.QueryTrace;
 import org.apache.kylin.common.util.NLocalFileMetadataTestCase;
 import org.apache.kylin.metadata.query.QueryHistoryInfo;
 import org.apache.kylin.metadata.query.QueryMetrics;
+import org.apache.kylin.metadata.query.RDBMSQueryHistoryDAO;
 import org.apache.kylin.query.util.SparkJobTraceMetric;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
 
 public class QueryHistorySchedulerTest extends NLocalFileMetadataTestCase {
 
@@ -47,10 +52,15 @@ public class QueryHistorySchedulerTest extends NLocalFileMetadataTestCase {
         queryHistoryScheduler.queryMetricsQueue.clear();
     }
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     @After
     public void destroy() throws Exception {
         cleanupTestMetadata();
         queryHistoryScheduler.queryMetricsQueue.clear();
+        queryHistoryScheduler.spillQueue.clear();
+        queryHistoryScheduler.spillLog = null;
         queryHistoryScheduler.shutdown();
     }
 
@@ -86,6 +96,69 @@ public class QueryHistorySchedulerTest extends NLocalFileMetadataTestCase {
         Assert.assertEquals(500, queryHistoryScheduler.queryMetricsQueue.size());
     }
 
+    @Test
+    public void testSpillIfBufferFull() throws Exception {
+        QueryMetrics queryMetrics = createQueryMetrics(1584888338274L, 5578L, true, "default", true);
+
+        QueryHistoryScheduler queryHistoryScheduler = QueryHistoryScheduler.getInstance();
+        QueryHistorySpillLog spillLog = new QueryHistorySpillLog(temporaryFolder.newFolder("spill"), 100,
+                1024 * 1024 * 1024);
+        queryHistoryScheduler.spillLog = spillLog;
+        for (long i = 0; i < 1500; i++) {
+            queryHistoryScheduler.offerQueryHistoryQueue(queryMetrics);
+        }
+        Assert.assertEquals(500, queryHistoryScheduler.queryMetricsQueue.size());
+        // the query thread only queues the overflow, the scheduler thread spills it
+        Assert.assertEquals(500, queryHistoryScheduler.spillQueue.size());
+        Assert.assertEquals(0, spillLog.getSizeInBytes());
+
+        queryHistoryScheduler.spillQueued();
+        Assert.assertEquals(0, queryHistoryScheduler.spillQueue.size());
+        Assert.assertTrue(spillLog.getSizeInBytes() > 0);
+        Assert.assertTrue(spillLog.getLagMs() >= 0);
+
+        // consume and replay the spilled
+        queryHistoryScheduler.init();
+        await().atMost(10000, TimeUnit.MILLISECONDS).untilAsserted(() -> {
+            Assert.assertEquals(0, queryHistoryScheduler.queryMetricsQueue.size());
+            Assert.assertEquals(0, spillLog.getSizeInBytes());
+        });
+    }
+
+    @Test
+    public void testSpillOnlyFailedTraceUpdate() throws Exception {
+        QueryMetrics insertMetrics = createQueryMetrics(1584888338274L, 5578L, true, "default", true);
+        QueryMetrics updateMetrics = createQueryMetrics(1584888338274L, 5578L, true, "default", true);
+        updateMetrics.setUpdateMetrics(true);
+
+        QueryHistoryScheduler queryHistoryScheduler = QueryHistoryScheduler.getInstance();
+        QueryHistorySpillLog spillLog = new QueryHistorySpillLog(temporaryFolder.newFolder("spill"), 100,
+                1024 * 1024 * 1024);
+        queryHistoryScheduler.spillLog = spillLog;
+        QueryHistoryScheduler.WriteQueryHistoryRunner runner = queryHistoryScheduler.new WriteQueryHistoryRunner();
+        RDBMSQueryHistoryDAO queryHistoryDAO = Mockito.mock(RDBMSQueryHistoryDAO.class);
+        Mockito.when(queryHistoryDAO.getByQueryIds(Mockito.anyList())).thenThrow(new RuntimeException("down"));
+        runner.queryHistoryDAO = queryHistoryDAO;
+
+        queryHistoryScheduler.offerQueryHistoryQueue(insertMetrics);
+        queryHistoryScheduler.offerQueryHistoryQueue(updateMetrics);
+        runner.run();
+        // the insert committed, only the trace update is spilled
+        Mockito.verify(queryHistoryDAO, Mockito.times(1)).insert(Mockito.anyList());
+        List<QueryMetrics> spilled = new ArrayList<>();
+        for (File segment : spillLog.rollSegments()) {
+            spilled.addAll(spillLog.read(segment));
+        }
+        Assert.assertEquals(1, spilled.size());
+        Assert.assertTrue(spilled.get(0).isUpdateMetrics());
+
+        // the replay retries the trace update and never inserts again
+        runner.run();
+        Mockito.verify(queryHistoryDAO, Mockito.times(1)).insert(Mockito.anyList());
+        Mockito.verify(queryHistoryDAO, Mockito.times(2)).getByQueryIds(Mockito.anyList());
+        Assert.assertTrue(spillLog.getSizeInBytes() > 0);
+    }
+
     @Test
     public void testCollectedFinished() {
         QueryHistoryScheduler queryHistoryScheduler = QueryHistoryScheduler.getInstance();
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kylin.rest.service;
+
+import static org.apache.kylin.metadata.query.RDBMSQueryHistoryDaoTest.createQueryMetrics;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.kylin.common.util.NLocalFileMetadataTestCase;
+import org.apache.kylin.guava30.shaded.common.collect.Lists;
+import org.apache.kylin.metadata.query.QueryMetrics;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class QueryHistorySpillLogTest extends NLocalFileMetadataTestCase {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Before
+    public void setup() {
+        createTestMetadata();
+    }
+
+    @After
+    public void destroy() {
+        cleanupTestMetadata();
+    }
+
+    @Test
+    public void testAppendAndReplay() throws Exception {
+        File dir = temporaryFolder.newFolder("spill");
+        QueryHistorySpillLog spillLog = new QueryHistorySpillLog(dir, 2, 1024 * 1024);
+        QueryMetrics queryMetrics = createQueryMetrics(1584888338274L, 5578L, true, "default", true);
+        QueryMetrics updateMetrics = new QueryMetrics(queryMetrics.getQueryId());
+        updateMetrics.setUpdateMetrics(true);
+        Assert.assertEquals(0, spillLog.getLagMs());
+
+        Assert.assertTrue(spillLog.append(Lists.newArrayList(queryMetrics, queryMetrics, updateMetrics)));
+        Assert.assertTrue(spillLog.getSizeInBytes() > 0);
+
+        // segments survive a restart
+        spillLog = new QueryHistorySpillLog(dir, 2, 1024 * 1024);
+        List<File> segments = spillLog.rollSegments();
+        Assert.assertEquals(2, segments.size());
+
+        List<QueryMetrics> first = spillLog.read(segments.get(0));
+        Assert.assertEquals(2, first.size());
+        QueryMetrics read = first.get(0);
+        Assert.assertEquals(queryMetrics.getQueryId(), read.getQueryId());
+        Assert.assertEquals(queryMetrics.getSql(), read.getSql());
+        Assert.assertEquals(queryMetrics.getQueryTime(), read.getQueryTime());
+        Assert.assertTrue(read.isIndexHit());
+        Assert.assertFalse(read.isUpdateMetrics());
+        Assert.assertEquals(2, read.getRealizationMetrics().size());
+        Assert.assertEquals("20000000001", read.getRealizationMetrics().get(0).getLayoutId());
+        Assert.assertTrue(spillLog.read(segments.get(1)).get(0).isUpdateMetrics());
+
+        spillLog.delete(segments.get(0));
+        spillLog.delete(segments.get(1));
+        Assert.assertEquals(0, spillLog.getSizeInBytes());
+        Assert.assertTrue(spillLog.rollSegments().isEmpty());
+    }
+
+    @Test
+    public void testDropWhenFull() throws Exception {
+        QueryHistorySpillLog spillLog = new QueryHistorySpillLog(temporaryFolder.newFolder("spill"), 100, 1);
+        QueryMetrics queryMetrics = createQueryMetrics(1584888338274L, 5578L, true, "default", true);
+        Assert.assertTrue(spillLog.append(Collections.singletonList(queryMetrics)));
+        Assert.assertFalse(spillLog.append(Collections.singletonList(queryMetrics)));
+        Assert.assertEquals(1, spillLog.read(spillLog.rollSegments().get(0)).size());
+    }
+}
@@ -29,6 +29,7 @@ import org.apache.kylin.common.metrics.MetricsCategory;
 import org.apache.kylin.common.metrics.MetricsGroup;
 import org.apache.kylin.common.metrics.MetricsName;
 import org.apache.kylin.common.metrics.prometheus.PrometheusMetrics;
+import org.apache.kylin.common.scheduler.ProjectMetricsRemovedNotifier;
 import org.apache.kylin.common.util.NLocalFileMetadataTestCase;
 import org.apache.kylin.guava30.shaded.common.collect.Lists;
 import org.apache.kylin.metadata.model.NDataModelManager;
@@ -173,6 +174,22 @@ public class QueryMetricsListenerTest extends NLocalFileMetadataTestCase {
                 getCounterCount(MetricsName.QUERY_SLOW, MetricsCategory.PROJECT, "default", new HashMap<>()));
     }
 
+    @Test
+    public void testProjectMetricsRemoved() {
+        queryMetricsListener.updateQueryTimeMetrics(123, "default", new HashMap<>());
+        Assert.assertTrue(queryMetricsListener.hasProjectMetrics("default"));
+
+        MetricsGroup.removeProjectMetrics("default");
+        queryMetricsListener.onProjectMetricsRemoved(new ProjectMetricsRemovedNotifier("default"));
+        Assert.assertFalse(queryMetricsListener.hasProjectMetrics("default"));
+
+        long count = getCounterCount(MetricsName.QUERY_LT_1S, MetricsCategory.PROJECT, "default", new HashMap<>());
+        queryMetricsListener.updateQueryTimeMetrics(123, "default", new HashMap<>());
+        Assert.assertTrue(queryMetricsListener.hasProjectMetrics("default"));
+        Assert.assertEquals(count + 1,
+                getCounterCount(MetricsName.QUERY_LT_1S, MetricsCategory.PROJECT, "default", new HashMap<>()));
+    }
+
     @Test
     public void testRecordQueryPrometheusMetric() {
         QueryMetrics queryMetrics = Mockito.mock(QueryMetrics.class);
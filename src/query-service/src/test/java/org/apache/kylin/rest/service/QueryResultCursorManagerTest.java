@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.kylin.rest.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.apache.kylin.common.exception.KylinException;
+import org.apache.kylin.junit.annotation.MetadataInfo;
+import org.apache.kylin.junit.annotation.OverwriteProp;
+import org.apache.kylin.rest.constant.Constant;
+import org.apache.kylin.rest.response.SQLResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+@MetadataInfo
+class QueryResultCursorManagerTest {
+
+    private QueryResultCursorManager cursorManager;
+
+    @BeforeEach
+    void setUp() {
+        login("ADMIN");
+        cursorManager = new QueryResultCursorManager();
+        cursorManager.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cursorManager.destroy();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testFetchByPages() {
+        AtomicInteger iterated = new AtomicInteger();
+        SQLResponse response = newResponse(10, iterated);
+
+        SQLResponse firstPage = cursorManager.openCursor(response, 4);
+        assertEquals(rows(0, 4), firstPage.getResults());
+        assertEquals(10, firstPage.getResultRowCount());
+        assertEquals("query-id", firstPage.getQueryId());
+        String cursorId = firstPage.getCursorId();
+        assertNotNull(cursorId);
+        // the cached response is not touched, and the rest rows are not read yet
+        assertNull(response.getCursorId());
+        assertTrue(iterated.get() <= 5);
+
+        // a page can only be fetched from where the last page ends
+        assertThrows(KylinException.class, () -> cursorManager.fetch(cursorId, 0, 4));
+
+        SQLResponse secondPage = cursorManager.fetch(cursorId, 4, 4);
+        assertEquals(rows(4, 8), secondPage.getResults());
+        assertEquals(10, secondPage.getResultRowCount());
+        assertEquals(cursorId, secondPage.getCursorId());
+
+        SQLResponse lastPage = cursorManager.fetch(cursorId, 8, 4);
+        assertEquals(rows(8, 10), lastPage.getResults());
+        assertNull(lastPage.getCursorId());
+        // released after the last row
+        assertThrows(KylinException.class, () -> cursorManager.fetch(cursorId, 10, 4));
+    }
+
+    @Test
+    void testNoCursor() {
+        SQLResponse response = newResponse(4, new AtomicInteger());
+        SQLResponse page = cursorManager.openCursor(response, 4);
+        assertEquals(rows(0, 4), page.getResults());
+        assertNull(page.getCursorId());
+
+        assertSame(response, cursorManager.openCursor(response, 0));
+
+        SQLResponse exception = new SQLResponse(null, null, 0, true, "error");
+        assertSame(exception, cursorManager.openCursor(exception, 4));
+    }
+
+    @Test
+    void testCloseCursor() {
+        String cursorId = cursorManager.openCursor(newResponse(10, new AtomicInteger()), 4).getCursorId();
+
+        login("ANOTHER");
+        assertThrows(KylinException.class, () -> cursorManager.fetch(cursorId, 4, 4));
+        assertThrows(KylinException.class, () -> cursorManager.close(cursorId));
+
+        login("ADMIN");
+        cursorManager.close(cursorId);
+        assertThrows(KylinException.class, () -> cursorManager.fetch(cursorId, 4, 4));
+    }
+
+    @Test
+    @OverwriteProp(key = "kylin.query.result-cursor-idle-timeout", value = "1s")
+    void testReleaseIdleCursor() throws InterruptedException {
+        cursorManager.destroy();
+        cursorManager = new QueryResultCursorManager();
+        cursorManager.init();
+        String cursorId = cursorManager.openCursor(newResponse(10, new AtomicInteger()), 4).getCursorId();
+        Thread.sleep(1500);
+        assertThrows(KylinException.class, () -> cursorManager.fetch(cursorId, 4, 4));
+    }
+
+    @Test
+    @OverwriteProp(key = "kylin.query.result-cursor-max-count", value = "1")
+    void testTooManyCursors() {
+        cursorManager.destroy();
+        cursorManager = new QueryResultCursorManager();
+        cursorManager.init();
+        assertNotNull(cursorManager.openCursor(newResponse(10, new AtomicInteger()), 4).getCursorId());
+
+        SQLResponse response = newResponse(10, new AtomicInteger());
+        assertSame(response, cursorManager.openCursor(response, 4));
+    }
+
+    private static void login(String username) {
+        SecurityContextHolder.getContext()
+                .setAuthentication(new TestingAuthenticationToken(username, username, Constant.ROLE_ADMIN));
+    }
+
+    private static SQLResponse newResponse(int rowCount, AtomicInteger iterated) {
+        List<List<String>> rows = rows(0, rowCount);
+        // a lazy result, like the one of a query not cached
+        Iterable<List<String>> results = () -> new Iterator<List<String>>() {
+            private final Iterator<List<String>> delegate = rows.iterator();
+
+            @Override
+            public boolean hasNext() {
+                return delegate.hasNext();
+            }
+
+            @Override
+            public List<String> next() {
+                iterated.incrementAndGet();
+                return delegate.next();
+            }
+        };
+        SQLResponse response = new SQLResponse(Collections.emptyList(), results, rowCount, 0, false, null, false,
+                false);
+        response.setQueryId("query-id");
+        return response;
+    }
+
+    private static List<List<String>> rows(int from, int to) {
+        return IntStream.range(from, to).mapToObj(i -> Collections.singletonList(String.valueOf(i)))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.kylin.rest.util;
+
+import java.io.IOException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.commons.io.output.NullOutputStream;
+import org.apache.kylin.common.util.JsonUtil;
+import org.apache.kylin.guava30.shaded.common.collect.Lists;
+import org.apache.kylin.metadata.querymeta.SelectedColumnMeta;
+import org.apache.kylin.query.engine.data.ResultRow;
+import org.apache.kylin.rest.response.SQLResponse;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Compare the size and the time of writing a query result as json and in the binary format.
+ */
+@Ignore("Save UT time")
+public class QueryResultBinaryWriterBenchmarkTest {
+
+    private static final int ROW_COUNT = 1000000;
+
+    private final int warmUpTimes = 3;
+    private final int testTimes = 5;
+
+    @Test
+    public void writeBenchmark() throws IOException {
+        SQLResponse response = newResponse(ROW_COUNT);
+
+        for (int i = 0; i < warmUpTimes; i++) {
+            writeJson(response);
+            writeBinary(response);
+        }
+
+        long jsonBytes = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < testTimes; i++) {
+            jsonBytes = writeJson(response);
+        }
+        long jsonTime = System.nanoTime() - start;
+
+        long binaryBytes = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < testTimes; i++) {
+            binaryBytes = writeBinary(response);
+        }
+        long binaryTime = System.nanoTime() - start;
+
+        System.out.println("----------------------------");
+        System.out.println("write " + ROW_COUNT + " rows as json, avg ms : " + jsonTime / testTimes / 1000000
+                + ", bytes : " + jsonBytes);
+        System.out.println("write " + ROW_COUNT + " rows as binary, avg ms : " + binaryTime / testTimes / 1000000
+                + ", bytes : " + binaryBytes);
+    }
+
+    private static long writeJson(SQLResponse response) throws IOException {
+        CountingOutputStream out = new CountingOutputStream(NullOutputStream.NULL_OUTPUT_STREAM);
+        JsonUtil.writeValue(out, response);
+        return out.getByteCount();
+    }
+
+    private static long writeBinary(SQLResponse response) throws IOException {
+        CountingOutputStream out = new CountingOutputStream(NullOutputStream.NULL_OUTPUT_STREAM);
+        QueryResultBinaryWriter.write(response, out);
+        return out.getByteCount();
+    }
+
+    private static SQLResponse newResponse(int rowCount) {
+        List<SelectedColumnMeta> columnMetas = Lists.newArrayList(columnMeta("ID", Types.BIGINT, "BIGINT"),
+                columnMeta("PRICE", Types.DOUBLE, "DOUBLE"), columnMeta("CNT", Types.INTEGER, "INTEGER"),
+                columnMeta("NAME", Types.VARCHAR, "VARCHAR"));
+        Random random = new Random(1);
+        List<List<String>> results = new ArrayList<>(rowCount);
+        for (int i = 0; i < rowCount; i++) {
+            long id = random.nextLong();
+            double price = random.nextDouble() * 1000;
+            int count = random.nextInt(100000);
+            String name = "name" + random.nextInt(1000);
+            results.add(new ResultRow(
+                    new String[] { String.valueOf(id), String.valueOf(price), String.valueOf(count), name },
+                    new Object[] { id, price, count, name }));
+        }
+        return new SQLResponse(columnMetas, results, rowCount, 0, false, null, false, false);
+    }
+
+    private static SelectedColumnMeta columnMeta(String name, int type, String typeName) {
+        return new SelectedColumnMeta(false, false, false, false, 1, true, 10, name, name, null, null, null, 10, 0,
+                type, typeName, true, false, false);
+    }
+}
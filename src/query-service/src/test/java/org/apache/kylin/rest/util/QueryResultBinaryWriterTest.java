@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.kylin.rest.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.kylin.guava30.shaded.common.collect.Lists;
+import org.apache.kylin.metadata.querymeta.SelectedColumnMeta;
+import org.apache.kylin.query.engine.data.ResultRow;
+import org.apache.kylin.rest.response.SQLResponse;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class QueryResultBinaryWriterTest {
+
+    private static SelectedColumnMeta columnMeta(String name, int type, String typeName) {
+        return new SelectedColumnMeta(false, false, false, false, 1, true, 10, name, name, null, null, null, 10, 0,
+                type, typeName, true, false, false);
+    }
+
+    @Test
+    public void testWrite() throws IOException {
+        List<SelectedColumnMeta> columnMetas = Lists.newArrayList(columnMeta("ID", Types.BIGINT, "BIGINT"),
+                columnMeta("PRICE", Types.DOUBLE, "DOUBLE"), columnMeta("NAME", Types.VARCHAR, "VARCHAR"),
+                columnMeta("CNT", Types.INTEGER, "INTEGER"));
+        List<List<String>> results = Lists.newArrayList(Arrays.asList("1", "1.5", "Auction", "x"),
+                Arrays.asList(null, null, null, "3"));
+        SQLResponse response = new SQLResponse(columnMetas, results, 0, false, null);
+        response.setQueryId("q1");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        QueryResultBinaryWriter.write(response, bytes);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+
+        Assert.assertEquals(QueryResultBinaryWriter.MAGIC, in.readInt());
+        Assert.assertEquals(QueryResultBinaryWriter.VERSION, in.readByte());
+        byte[] header = new byte[in.readInt()];
+        in.readFully(header);
+        JsonNode headerJson = new ObjectMapper().readTree(header);
+        Assert.assertEquals("q1", headerJson.get("queryId").asText());
+        Assert.assertTrue(headerJson.get("results").isNull());
+        Assert.assertEquals(4, headerJson.get("columnMetas").size());
+        Assert.assertEquals(4, in.readInt());
+
+        Assert.assertEquals(2, in.readInt());
+        Assert.assertEquals(QueryResultBinaryWriter.ENCODING_LONG, in.readByte());
+        Assert.assertEquals(0b10, in.readByte());
+        Assert.assertEquals(1L, in.readLong());
+        Assert.assertEquals(QueryResultBinaryWriter.ENCODING_DOUBLE, in.readByte());
+        Assert.assertEquals(0b10, in.readByte());
+        Assert.assertEquals(1.5, in.readDouble(), 0);
+        Assert.assertEquals(QueryResultBinaryWriter.ENCODING_STRING, in.readByte());
+        Assert.assertEquals(0b10, in.readByte());
+        Assert.assertEquals("Auction", readString(in));
+        // not parsable as integer, the batch falls back to string
+        Assert.assertEquals(QueryResultBinaryWriter.ENCODING_STRING, in.readByte());
+        Assert.assertEquals(0, in.readByte());
+        Assert.assertEquals("x", readString(in));
+        Assert.assertEquals("3", readString(in));
+
+        Assert.assertEquals(0, in.readInt());
+        Assert.assertEquals(-1, in.read());
+    }
+
+    @Test
+    public void testWriteTypedRows() throws IOException {
+        List<SelectedColumnMeta> columnMetas = Lists.newArrayList(columnMeta("ID", Types.BIGINT, "BIGINT"),
+                columnMeta("PRICE", Types.DOUBLE, "DOUBLE"), columnMeta("CNT", Types.INTEGER, "INTEGER"));
+        // the typed values are written, not parsed from the strings
+        List<List<String>> results = Lists.newArrayList(
+                new ResultRow(new String[] { "1", "1.5", "2" }, new Object[] { 7L, 7.5, 2 }),
+                new ResultRow(new String[] { null, null, "3" }, new Object[] { null, null, 3 }));
+        SQLResponse response = new SQLResponse(columnMetas, results, 0, false, null);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        QueryResultBinaryWriter.write(response, bytes);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        in.skipBytes(5);
+        in.skipBytes(in.readInt());
+        Assert.assertEquals(3, in.readInt());
+
+        Assert.assertEquals(2, in.readInt());
+        Assert.assertEquals(QueryResultBinaryWriter.ENCODING_LONG, in.readByte());
+        Assert.assertEquals(0b10, in.readByte());
+        Assert.assertEquals(7L, in.readLong());
+        Assert.assertEquals(QueryResultBinaryWriter.ENCODING_DOUBLE, in.readByte());
+        Assert.assertEquals(0b10, in.readByte());
+        Assert.assertEquals(7.5, in.readDouble(), 0);
+        Assert.assertEquals(QueryResultBinaryWriter.ENCODING_LONG, in.readByte());
+        Assert.assertEquals(0, in.readByte());
+        Assert.assertEquals(2L, in.readLong());
+        Assert.assertEquals(3L, in.readLong());
+        Assert.assertEquals(0, in.readInt());
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -111,6 +111,8 @@ public class QueryExec {
     private final boolean allowAlternativeQueryPlan;
     private final CalciteSchema rootSchema;
     private final String project;
+    // the rules added to or removed from the planner, a part of the plan cache key
+    private final List<String> plannerRuleChanges = Lists.newArrayList();
 
     public QueryExec(String project, KylinConfig kylinConfig, boolean allowAlternativeQueryPlan) {
         this.project = project;
@@ -169,12 +171,14 @@ public class QueryExec {
     public void plannerRemoveRules(List<RelOptRule> rules) {
         for (RelOptRule rule : rules) {
             planner.removeRule(rule);
+            plannerRuleChanges.add("-" + rule);
         }
     }
 
     public void plannerAddRules(List<RelOptRule> rules) {
         for (RelOptRule rule : rules) {
             planner.addRule(rule);
+            plannerRuleChanges.add("+" + rule);
         }
     }
 
@@ -198,12 +202,31 @@ public class QueryExec {
             processAcceptCacheTime(queryContext.getFirstHintStr());
 
             QueryContext.currentTrace().startSpan(QueryTrace.SQL_PARSE_AND_OPTIMIZE);
-            RelRoot relRoot = sqlConverter.convertSqlToRelNode(sql);
-            queryContext.record("end_convert_to_relnode");
-            RelNode node = queryOptimizer.optimize(relRoot).rel;
-            queryContext.record("end_calcite_optimize");
+            RelNode node;
+            List<StructField> resultFields;
+            // keyed on the sql as it is, see QueryPlanCache
+            QueryPlanCache.CachedPlan cachedPlan = kylinConfig.isQueryPlanCacheEnabled()
+                    ? QueryPlanCache.getInstance().get(project, sql, String.join(",", plannerRuleChanges),
+                            allowAlternativeQueryPlan, planner)
+                    : null;
+            if (cachedPlan != null) {
+                // the cached plan is a fresh copy, skip parsing and optimizing
+                node = cachedPlan.getPlan();
+                resultFields = cachedPlan.getResultFields();
+                queryContext.record("end_convert_to_relnode");
+                queryContext.record("end_calcite_optimize");
+            } else {
+                RelRoot relRoot = sqlConverter.convertSqlToRelNode(sql);
+                queryContext.record("end_convert_to_relnode");
+                node = queryOptimizer.optimize(relRoot).rel;
+                queryContext.record("end_calcite_optimize");
+                resultFields = RelColumnMetaDataExtractor.getColumnMetadata(relRoot.validatedRowType);
+                if (kylinConfig.isQueryPlanCacheEnabled() && !resultFields.isEmpty()) {
+                    QueryPlanCache.getInstance().put(project, sql, String.join(",", plannerRuleChanges),
+                            allowAlternativeQueryPlan, node, resultFields);
+                }
+            }
 
-            List<StructField> resultFields = RelColumnMetaDataExtractor.getColumnMetadata(relRoot.validatedRowType);
             if (resultFields.isEmpty()) {
                 // result fields size may be 0 because of ACL controls and should return immediately
                 QueryContext.fillEmptyResultSetMetrics();
@@ -0,0 +1,371 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.kylin.query.engine;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.apache.calcite.plan.ConventionTraitDef;
+import org.apache.calcite.plan.RelOptCluster;
+import org.apache.calcite.plan.RelOptPlanner;
+import org.apache.calcite.plan.RelTraitSet;
+import org.apache.calcite.plan.volcano.VolcanoPlanner;
+import org.apache.calcite.rel.InvalidRelException;
+import org.apache.calcite.rel.RelCollationTraitDef;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.core.Filter;
+import org.apache.calcite.rel.core.Join;
+import org.apache.calcite.rel.core.Project;
+import org.apache.calcite.rex.RexBuilder;
+import org.apache.calcite.rex.RexNode;
+import org.apache.calcite.rex.RexUtil;
+import org.apache.kylin.common.KylinConfig;
+import org.apache.kylin.common.QueryContext;
+import org.apache.kylin.common.metrics.MetricsCategory;
+import org.apache.kylin.common.metrics.MetricsGroup;
+import org.apache.kylin.common.metrics.MetricsName;
+import org.apache.kylin.guava30.shaded.common.annotations.VisibleForTesting;
+import org.apache.kylin.guava30.shaded.common.base.Joiner;
+import org.apache.kylin.guava30.shaded.common.cache.Cache;
+import org.apache.kylin.guava30.shaded.common.cache.CacheBuilder;
+import org.apache.kylin.guava30.shaded.common.collect.ImmutableSet;
+import org.apache.kylin.guava30.shaded.common.collect.Lists;
+import org.apache.kylin.metadata.acl.AclTCR;
+import org.apache.kylin.metadata.acl.AclTCRManager;
+import org.apache.kylin.metadata.cube.model.NDataflowManager;
+import org.apache.kylin.metadata.model.NDataModel;
+import org.apache.kylin.metadata.model.NTableMetadataManager;
+import org.apache.kylin.metadata.model.TableDesc;
+import org.apache.kylin.metadata.project.NProjectManager;
+import org.apache.kylin.metadata.project.ProjectInstance;
+import org.apache.kylin.metadata.query.StructField;
+import org.apache.kylin.query.relnode.OlapAggregateRel;
+import org.apache.kylin.query.relnode.OlapFilterRel;
+import org.apache.kylin.query.relnode.OlapJoinRel;
+import org.apache.kylin.query.relnode.OlapLimitRel;
+import org.apache.kylin.query.relnode.OlapMinusRel;
+import org.apache.kylin.query.relnode.OlapModelViewRel;
+import org.apache.kylin.query.relnode.OlapNonEquiJoinRel;
+import org.apache.kylin.query.relnode.OlapProjectRel;
+import org.apache.kylin.query.relnode.OlapSortRel;
+import org.apache.kylin.query.relnode.OlapTableScan;
+import org.apache.kylin.query.relnode.OlapToEnumerableConverter;
+import org.apache.kylin.query.relnode.OlapUnionRel;
+import org.apache.kylin.query.relnode.OlapValuesRel;
+import org.apache.kylin.query.relnode.OlapWindowRel;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Cache of optimized calcite plans, so that a repeated sql can skip parsing and optimizing.
+ *
+ * The key is (project, sql, acl principal, planner settings), the value carries a signature built from the last
+ * modified time of the project, the referenced tables, the models using these tables and the acl of the principal.
+ * A cached plan is dropped once its signature is out of date, the same way as the query result cache does,
+ * which covers a dropped project as well, so the cache needs no invalidation by metadata events.
+ * The sql is taken as it is, folding its whitespace or case without a tokenizer could merge different
+ * statements, e.g. differing in a quoted literal or by the line break ending a line comment.
+ *
+ * The cached plan is never executed directly. It's copied into a cluster of its own when cached, so it doesn't
+ * hold the planner of the query that produced it, and every hit deep copies it into a fresh cluster of the caller's
+ * planner, because olap contexts are attached to the rel nodes and the metadata query of a cluster is not
+ * thread safe. A plan having a rel node not known here is not cached.
+ */
+@Slf4j
+public class QueryPlanCache {
+
+    private static final String NOT_CACHEABLE = "";
+
+    private static final Set<Class<? extends RelNode>> COPYABLE_RELS = ImmutableSet.of(OlapTableScan.class,
+            OlapValuesRel.class, OlapToEnumerableConverter.class, OlapFilterRel.class, OlapProjectRel.class,
+            OlapAggregateRel.class, OlapJoinRel.class, OlapNonEquiJoinRel.class, OlapLimitRel.class,
+            OlapSortRel.class, OlapUnionRel.class, OlapMinusRel.class, OlapWindowRel.class, OlapModelViewRel.class);
+
+    private static volatile QueryPlanCache instance;
+
+    private final Cache<PlanKey, CachedPlan> plans;
+
+    private final Map<String, ProjectMetrics> metrics = new ConcurrentHashMap<>();
+
+    @VisibleForTesting
+    QueryPlanCache(KylinConfig config) {
+        plans = CacheBuilder.newBuilder().maximumSize(config.getQueryPlanCacheMaxSize())
+                .expireAfterAccess(config.getQueryPlanCacheExpireMinutes(), TimeUnit.MINUTES)
+                .removalListener(notification -> {
+                    if (notification.wasEvicted() && notification.getKey() != null) {
+                        metricsOf(((PlanKey) notification.getKey()).getProject()).eviction.inc();
+                    }
+                }).build();
+    }
+
+    public static QueryPlanCache getInstance() {
+        if (instance == null) {
+            synchronized (QueryPlanCache.class) {
+                if (instance == null) {
+                    instance = new QueryPlanCache(KylinConfig.getInstanceFromEnv());
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * @param plannerRules the rules added to or removed from the planner, see QueryExec#plannerAddRules
+     * @param planner the planner of the caller, the returned plan is copied into a new cluster of it
+     * @return a copy of the cached plan, or null if absent or out of date
+     */
+    public CachedPlan get(String project, String sql, String plannerRules, boolean allowAlternativeQueryPlan,
+            RelOptPlanner planner) {
+        PlanKey key = createKey(project, sql, plannerRules, allowAlternativeQueryPlan);
+        CachedPlan cached = plans.getIfPresent(key);
+        if (cached != null && !cached.getSignature().equals(createSignature(project, cached.getTables()))) {
+            log.debug("Plan cache signature changed for project {}, drop the cached plan", project);
+            plans.invalidate(key);
+            cached = null;
+        }
+        if (cached == null) {
+            metricsOf(project).miss.inc();
+            return null;
+        }
+        metricsOf(project).hit.inc();
+        RelOptCluster cluster = RelOptCluster.create(planner, new RexBuilder(TypeSystem.javaTypeFactory()));
+        return new CachedPlan(copyOf(cached.getPlan(), cluster), cached.getResultFields(), cached.getTables(),
+                cached.getSignature());
+    }
+
+    /**
+     * Put a copy of the optimized plan, must be called before the plan is executed.
+     */
+    public void put(String project, String sql, String plannerRules, boolean allowAlternativeQueryPlan, RelNode plan,
+            List<StructField> resultFields) {
+        if (!isCopyable(plan)) {
+            log.debug("Plan of project {} has a rel node can't be copied, not cached", project);
+            return;
+        }
+        Set<String> tables = collectTables(plan);
+        String signature = createSignature(project, tables);
+        if (NOT_CACHEABLE.equals(signature)) {
+            return;
+        }
+        plans.put(createKey(project, sql, plannerRules, allowAlternativeQueryPlan),
+                new CachedPlan(copyOf(plan, detachedCluster()), resultFields, tables, signature));
+    }
+
+    @VisibleForTesting
+    long size() {
+        return plans.size();
+    }
+
+    private ProjectMetrics metricsOf(String project) {
+        return metrics.computeIfAbsent(project, ProjectMetrics::new);
+    }
+
+    private static PlanKey createKey(String project, String sql, String plannerRules,
+            boolean allowAlternativeQueryPlan) {
+        QueryContext.AclInfo aclInfo = QueryContext.current().getAclInfo();
+        if (aclInfo == null) {
+            return new PlanKey(project, sql, null, null, false, plannerRules, allowAlternativeQueryPlan);
+        }
+        Set<String> groups = aclInfo.getGroups() == null ? null : new TreeSet<>(aclInfo.getGroups());
+        return new PlanKey(project, sql, aclInfo.getUsername(), groups, aclInfo.isHasAdminPermission(), plannerRules,
+                allowAlternativeQueryPlan);
+    }
+
+    /**
+     * i.e. project;acl1_acl2;table1_table2;model1_model2, or empty if any referenced metadata is missing
+     */
+    private static String createSignature(String project, Set<String> tables) {
+        KylinConfig config = KylinConfig.getInstanceFromEnv();
+        ProjectInstance projectInstance = NProjectManager.getInstance(config).getProject(project);
+        if (projectInstance == null) {
+            return NOT_CACHEABLE;
+        }
+        List<Long> tableTimes = Lists.newArrayList();
+        Set<String> modelTimes = new TreeSet<>();
+        NTableMetadataManager tableManager = NTableMetadataManager.getInstance(config, project);
+        NDataflowManager dataflowManager = NDataflowManager.getInstance(config, project);
+        for (String table : tables) {
+            TableDesc tableDesc = tableManager.getTableDesc(table);
+            if (tableDesc == null) {
+                return NOT_CACHEABLE;
+            }
+            tableTimes.add(tableDesc.getLastModified());
+            for (NDataModel model : dataflowManager.getModelsUsingTable(tableDesc)) {
+                modelTimes.add(model.getUuid() + "@" + model.getLastModified());
+            }
+        }
+        return Joiner.on(";").join(projectInstance.getLastModified(), createAclSignature(config, project),
+                Joiner.on("_").join(tableTimes), Joiner.on("_").join(modelTimes));
+    }
+
+    private static String createAclSignature(KylinConfig config, String project) {
+        QueryContext.AclInfo aclInfo = QueryContext.current().getAclInfo();
+        if (aclInfo == null || aclInfo.getUsername() == null) {
+            return "";
+        }
+        List<AclTCR> aclTCRs = AclTCRManager.getInstance(config, project).getAclTCRs(aclInfo.getUsername(),
+                aclInfo.getGroups());
+        return aclTCRs.stream().map(acl -> acl.resourceName() + "@" + acl.getLastModified())
+                .collect(Collectors.joining("_"));
+    }
+
+    private static Set<String> collectTables(RelNode rel) {
+        Set<String> tables = new TreeSet<>();
+        collectTables(rel, tables);
+        return tables;
+    }
+
+    private static void collectTables(RelNode rel, Set<String> tables) {
+        if (rel instanceof OlapTableScan) {
+            tables.add(((OlapTableScan) rel).getOlapTable().getSourceTable().getIdentity());
+        }
+        for (RelNode input : rel.getInputs()) {
+            collectTables(input, tables);
+        }
+    }
+
+    /**
+     * A cluster of an empty planner to hold a cached plan, the traits are registered as the query planner does.
+     */
+    private static RelOptCluster detachedCluster() {
+        VolcanoPlanner planner = new VolcanoPlanner();
+        planner.addRelTraitDef(ConventionTraitDef.INSTANCE);
+        planner.addRelTraitDef(RelCollationTraitDef.INSTANCE);
+        return RelOptCluster.create(planner, new RexBuilder(TypeSystem.javaTypeFactory()));
+    }
+
+    private static boolean isCopyable(RelNode rel) {
+        if (!COPYABLE_RELS.contains(rel.getClass())) {
+            return false;
+        }
+        List<RexNode> expressions = Lists.newArrayList();
+        if (rel instanceof Filter) {
+            expressions.add(((Filter) rel).getCondition());
+        } else if (rel instanceof Project) {
+            expressions.addAll(((Project) rel).getProjects());
+        } else if (rel instanceof Join) {
+            expressions.add(((Join) rel).getCondition());
+        }
+        // a sub query holds a rel tree of the original cluster
+        return RexUtil.SubQueryFinder.find(expressions) == null
+                && rel.getInputs().stream().allMatch(QueryPlanCache::isCopyable);
+    }
+
+    /**
+     * Deep copy the rel tree into the cluster, the copied olap rel nodes are not bound to any olap context.
+     */
+    @VisibleForTesting
+    static RelNode copyOf(RelNode rel, RelOptCluster cluster) {
+        List<RelNode> inputs = rel.getInputs().stream().map(input -> copyOf(input, cluster))
+                .collect(Collectors.toList());
+        RelTraitSet traits = rel.getTraitSet();
+        try {
+            if (rel instanceof OlapTableScan) {
+                OlapTableScan scan = (OlapTableScan) rel;
+                return new OlapTableScan(cluster, scan.getTable(), scan.getOlapTable(), scan.getFields());
+            } else if (rel instanceof OlapValuesRel) {
+                OlapValuesRel values = (OlapValuesRel) rel;
+                return new OlapValuesRel(cluster, values.getRowType(), values.getTuples(), traits);
+            } else if (rel instanceof OlapToEnumerableConverter) {
+                return new OlapToEnumerableConverter(cluster, traits, inputs.get(0));
+            } else if (rel instanceof OlapFilterRel) {
+                return new OlapFilterRel(cluster, traits, inputs.get(0), ((OlapFilterRel) rel).getCondition());
+            } else if (rel instanceof OlapProjectRel) {
+                OlapProjectRel project = (OlapProjectRel) rel;
+                return new OlapProjectRel(cluster, traits, inputs.get(0), project.getProjects(),
+                        project.getRowType());
+            } else if (rel instanceof OlapAggregateRel) {
+                OlapAggregateRel aggregate = (OlapAggregateRel) rel;
+                return new OlapAggregateRel(cluster, traits, inputs.get(0), aggregate.getGroupSet(),
+                        aggregate.getGroupSets(), aggregate.getAggCallList());
+            } else if (rel instanceof OlapJoinRel) {
+                OlapJoinRel join = (OlapJoinRel) rel;
+                return new OlapJoinRel(cluster, traits, inputs.get(0), inputs.get(1), join.getCondition(),
+                        join.getVariablesSet(), join.getJoinType());
+            } else if (rel instanceof OlapNonEquiJoinRel) {
+                OlapNonEquiJoinRel join = (OlapNonEquiJoinRel) rel;
+                return new OlapNonEquiJoinRel(cluster, traits, inputs.get(0), inputs.get(1), join.getCondition(),
+                        join.getVariablesSet(), join.getJoinType(), join.isScd2Rel());
+            } else if (rel instanceof OlapLimitRel) {
+                OlapLimitRel limit = (OlapLimitRel) rel;
+                return new OlapLimitRel(cluster, traits, inputs.get(0), limit.getLocalOffset(), limit.getLocalFetch());
+            } else if (rel instanceof OlapSortRel) {
+                OlapSortRel sort = (OlapSortRel) rel;
+                return new OlapSortRel(cluster, traits, inputs.get(0), sort.getCollation(), sort.offset, sort.fetch);
+            } else if (rel instanceof OlapUnionRel) {
+                return new OlapUnionRel(cluster, traits, inputs, ((OlapUnionRel) rel).all);
+            } else if (rel instanceof OlapMinusRel) {
+                return new OlapMinusRel(cluster, traits, inputs, ((OlapMinusRel) rel).all);
+            } else if (rel instanceof OlapWindowRel) {
+                OlapWindowRel window = (OlapWindowRel) rel;
+                return new OlapWindowRel(cluster, traits, inputs.get(0), window.getConstants(), window.getRowType(),
+                        window.groups);
+            } else if (rel instanceof OlapModelViewRel) {
+                return new OlapModelViewRel(cluster, traits, inputs.get(0), ((OlapModelViewRel) rel).getModelAlias());
+            }
+        } catch (InvalidRelException e) {
+            throw new IllegalStateException("Failed to copy the cached plan", e);
+        }
+        throw new IllegalStateException("Can't copy the rel node " + rel.getRelTypeName());
+    }
+
+    private static class ProjectMetrics {
+        private final MetricsGroup.CounterHandle hit;
+        private final MetricsGroup.CounterHandle miss;
+        private final MetricsGroup.CounterHandle eviction;
+
+        private ProjectMetrics(String project) {
+            hit = MetricsGroup.hostTagCounterHandle(MetricsName.QUERY_PLAN_CACHE_HIT, MetricsCategory.PROJECT, project);
+            miss = MetricsGroup.hostTagCounterHandle(MetricsName.QUERY_PLAN_CACHE_MISS, MetricsCategory.PROJECT,
+                    project);
+            eviction = MetricsGroup.hostTagCounterHandle(MetricsName.QUERY_PLAN_CACHE_EVICTION,
+                    MetricsCategory.PROJECT, project);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    private static class PlanKey {
+        private final String project;
+        private final String sql;
+        private final String username;
+        private final Set<String> groups;
+        private final boolean hasAdminPermission;
+        private final String plannerRules;
+        private final boolean allowAlternativeQueryPlan;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class CachedPlan {
+        private final RelNode plan;
+        private final List<StructField> resultFields;
+        private final Set<String> tables;
+        private final String signature;
+    }
+}
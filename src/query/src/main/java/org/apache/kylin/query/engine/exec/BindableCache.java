@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.kylin.query.engine.exec;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.calcite.adapter.enumerable.EnumerableInterpretable;
+import org.apache.calcite.adapter.enumerable.EnumerableRel;
+import org.apache.calcite.jdbc.CalcitePrepare;
+import org.apache.calcite.plan.RelOptUtil;
+import org.apache.calcite.runtime.Bindable;
+import org.apache.calcite.sql.SqlExplainLevel;
+import org.apache.kylin.common.KylinConfig;
+import org.apache.kylin.common.metrics.MetricsCategory;
+import org.apache.kylin.common.metrics.MetricsGroup;
+import org.apache.kylin.common.metrics.MetricsName;
+import org.apache.kylin.guava30.shaded.common.annotations.VisibleForTesting;
+import org.apache.kylin.guava30.shaded.common.cache.Cache;
+import org.apache.kylin.guava30.shaded.common.cache.CacheBuilder;
+import org.apache.kylin.query.util.QueryHelper;
+
+/**
+ * Cache of the classes generated and compiled by calcite for the plans executed by {@link CalcitePlanExec}.
+ *
+ * The key is the digest of the physical plan together with its row type. Dynamic parameters stay as
+ * parameters in the digest and in the generated code, they are resolved from the data context on bind,
+ * so the same prepared statement with different parameters shares one compiled class.
+ *
+ * Plans that stash objects into the internal parameters during code generation are not cached,
+ * since the generated class is only valid together with these objects. Neither are plans scanning
+ * tables, implementing an olap table scan binds the olap context of the current query, e.g. it picks
+ * the exec function and sets the return tuple info.
+ */
+public class BindableCache {
+
+    private static final String GLOBAL = "global";
+
+    private static volatile BindableCache instance;
+
+    private final Cache<String, Bindable> bindables;
+
+    private final MetricsGroup.CounterHandle hit;
+    private final MetricsGroup.CounterHandle miss;
+
+    @VisibleForTesting
+    BindableCache(KylinConfig config) {
+        bindables = CacheBuilder.newBuilder().maximumSize(config.getCalciteCompiledBindableCacheMaxSize()).build();
+        hit = MetricsGroup.hostTagCounterHandle(MetricsName.QUERY_BINDABLE_CACHE_HIT, MetricsCategory.GLOBAL,
+                GLOBAL);
+        miss = MetricsGroup.hostTagCounterHandle(MetricsName.QUERY_BINDABLE_CACHE_MISS, MetricsCategory.GLOBAL,
+                GLOBAL);
+    }
+
+    public static BindableCache getInstance() {
+        if (instance == null) {
+            synchronized (BindableCache.class) {
+                if (instance == null) {
+                    instance = new BindableCache(KylinConfig.getInstanceFromEnv());
+                }
+            }
+        }
+        return instance;
+    }
+
+    public Bindable getOrCompile(EnumerableRel rel, CalcitePrepare.SparkHandler spark,
+            EnumerableRel.Prefer prefer) {
+        if (!QueryHelper.isConstantQuery(rel)) {
+            return EnumerableInterpretable.toBindable(new HashMap<>(), spark, rel, prefer);
+        }
+        String key = digestOf(rel, prefer);
+        Bindable bindable = bindables.getIfPresent(key);
+        if (bindable != null) {
+            hit.inc();
+            return bindable;
+        }
+        miss.inc();
+        Map<String, Object> parameters = new HashMap<>();
+        bindable = EnumerableInterpretable.toBindable(parameters, spark, rel, prefer);
+        if (parameters.isEmpty()) {
+            bindables.put(key, bindable);
+        }
+        return bindable;
+    }
+
+    public void invalidateAll() {
+        bindables.invalidateAll();
+    }
+
+    @VisibleForTesting
+    long size() {
+        return bindables.size();
+    }
+
+    private static String digestOf(EnumerableRel rel, EnumerableRel.Prefer prefer) {
+        return prefer + "\n" + rel.getRowType().getFullTypeString() + "\n"
+                + RelOptUtil.toString(rel, SqlExplainLevel.DIGEST_ATTRIBUTES);
+    }
+}
@@ -19,8 +19,8 @@
 package org.apache.kylin.query.engine.exec;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.TimeZone;
 
@@ -33,8 +33,10 @@ import org.apache.calcite.linq4j.tree.ClassDeclaration;
 import org.apache.calcite.plan.RelOptPlanner;
 import org.apache.calcite.rel.RelNode;
 import org.apache.calcite.rel.type.RelDataType;
+import org.apache.calcite.rel.type.RelDataTypeField;
 import org.apache.calcite.runtime.ArrayBindable;
 import org.apache.calcite.runtime.Bindable;
+import org.apache.kylin.common.KylinConfig;
 import org.apache.kylin.common.QueryContext;
 import org.apache.kylin.common.QueryTrace;
 import org.apache.kylin.common.util.DateFormat;
@@ -42,7 +44,8 @@ import org.apache.kylin.query.engine.meta.MutableDataContext;
 
 /**
  * implement and execute a physical plan with Calcite
- * this exec is only used for constants queries
+ * this exec is used for constants queries, queries answered by metadata,
+ * and small aggregate layouts scanned on the query node, see SparderPlanExec#executeLocalLayoutScan
  */
 public class CalcitePlanExec implements QueryPlanExec {
 
@@ -60,22 +63,22 @@ public class CalcitePlanExec implements QueryPlanExec {
     }
 
     public List<List<String>> doExecute(RelNode rel, DataContext dataContext) {
-        Bindable bindable = EnumerableInterpretable.toBindable(new HashMap<>(), new TrivialSparkHandler(),
-                (EnumerableRel) rel, EnumerableRel.Prefer.ARRAY);
+        Bindable bindable = toBindable((EnumerableRel) rel);
 
         Enumerable<Object> rawResult = bindable.bind(dataContext);
-        List<List<String>> result = new LinkedList<>();
+        List<RelDataTypeField> fields = rel.getRowType().getFieldList();
+        List<List<String>> result = new ArrayList<>();
 
         QueryContext.currentTrace().startSpan(QueryTrace.FETCH_RESULT);
-        for (Object rawRow : rawResult.toList()) {
-            List<String> row = new LinkedList<>();
-            if (rel.getRowType().getFieldCount() > 1) {
+        for (Object rawRow : rawResult) {
+            List<String> row = new ArrayList<>(fields.size());
+            if (fields.size() > 1) {
                 Object[] rowData = (Object[]) rawRow;
                 for (int i = 0; i < rowData.length; i++) {
-                    row.add(rawQueryResultToString(rowData[i], rel.getRowType().getFieldList().get(i).getType()));
+                    row.add(rawQueryResultToString(rowData[i], fields.get(i).getType()));
                 }
             } else {
-                row.add(rawQueryResultToString(rawRow, rel.getRowType().getFieldList().get(0).getType()));
+                row.add(rawQueryResultToString(rawRow, fields.get(0).getType()));
             }
             result.add(row);
         }
@@ -83,6 +86,15 @@ public class CalcitePlanExec implements QueryPlanExec {
         return result;
     }
 
+    private Bindable toBindable(EnumerableRel rel) {
+        if (KylinConfig.getInstanceFromEnv().isCalciteCompiledBindableCacheEnabled()) {
+            return BindableCache.getInstance().getOrCompile(rel, new TrivialSparkHandler(),
+                    EnumerableRel.Prefer.ARRAY);
+        }
+        return EnumerableInterpretable.toBindable(new HashMap<>(), new TrivialSparkHandler(), rel,
+                EnumerableRel.Prefer.ARRAY);
+    }
+
     private void initContextVars(MutableDataContext dataContext) {
         TimeZone timezone = DataContext.Variable.TIME_ZONE.get(dataContext);
         final long time = System.currentTimeMillis();
@@ -19,6 +19,8 @@
 package org.apache.kylin.query.engine.exec;
 
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.apache.calcite.DataContext;
 import org.apache.calcite.plan.RelOptUtil;
@@ -31,10 +33,13 @@ import org.apache.kylin.guava30.shaded.common.collect.ImmutableList;
 import org.apache.kylin.guava30.shaded.common.collect.Lists;
 import org.apache.kylin.metadata.cube.cuboid.NLayoutCandidate;
 import org.apache.kylin.metadata.cube.model.IndexEntity;
+import org.apache.kylin.metadata.model.TableRef;
 import org.apache.kylin.metadata.project.NProjectManager;
 import org.apache.kylin.query.engine.exec.sparder.QueryEngine;
 import org.apache.kylin.query.engine.meta.MutableDataContext;
 import org.apache.kylin.query.engine.meta.SimpleDataContext;
+import org.apache.kylin.query.enumerator.LocalLayoutEnumerator;
+import org.apache.kylin.query.mask.QueryResultMasks;
 import org.apache.kylin.query.relnode.ContextUtil;
 import org.apache.kylin.query.relnode.OlapContext;
 import org.apache.kylin.query.relnode.OlapRel;
@@ -119,6 +124,14 @@ public class SparderPlanExec implements QueryPlanExec {
             return new CalcitePlanExec().executeToIterable(rel, dataContext);
         }
 
+        // all OlapContext scan small aggregate layouts, read them on the query node instead of spark
+        if (checkNotAsyncQueryAndCalciteEngineCapable(rel) && isAllOlapContextCanBeScannedLocally(contexts)) {
+            ExecuteResult result = executeLocalLayoutScan(rel, dataContext, contexts);
+            if (result != null) {
+                return result;
+            }
+        }
+
         // submit rel and dataContext to query engine
         return internalCompute(new SparkEngine(), dataContext, rel.getInput(0));
     }
@@ -127,6 +140,46 @@ public class SparderPlanExec implements QueryPlanExec {
         return !QueryContext.current().getQueryTagInfo().isAsyncQuery() && QueryHelper.isCalciteEngineCapable(rel);
     }
 
+    private boolean isAllOlapContextCanBeScannedLocally(List<OlapContext> olapContexts) {
+        return kylinConfig.isQueryLocalLayoutScanEnabled() && olapContexts.stream()
+                .allMatch(olapContext -> LocalLayoutEnumerator.isLocalScannable(olapContext, kylinConfig)
+                        && !hasResultMask(olapContext));
+    }
+
+    /**
+     * Sensitive data and dependent column masks are applied to the spark plan only, check all tables of the model
+     * as a computed column may refer to the columns of another table.
+     */
+    private boolean hasResultMask(OlapContext olapContext) {
+        Set<String> tables = olapContext.getRealization().getModel().getAllTables().stream()
+                .map(TableRef::getTableIdentity).collect(Collectors.toSet());
+        return QueryResultMasks.hasMask(tables);
+    }
+
+    /**
+     * @return null if the layouts can not be scanned locally, e.g. some column type is not supported,
+     * the plan is restored to fall back to spark
+     */
+    private ExecuteResult executeLocalLayoutScan(RelNode rel, MutableDataContext dataContext,
+            List<OlapContext> contexts) {
+        // implementing the plan by calcite replaces the input of the root
+        RelNode olapRel = rel.getInput(0);
+        contexts.forEach(context -> context.setLocalLayoutScan(true));
+        try {
+            ExecuteResult result = new CalcitePlanExec().executeToIterable(rel, dataContext);
+            QueryContext.current().getMetrics().setScanRows(
+                    contexts.stream().map(LocalLayoutEnumerator::getLayoutRows).collect(Collectors.toList()));
+            QueryContext.current().getMetrics().setScanBytes(
+                    contexts.stream().map(LocalLayoutEnumerator::getLayoutBytes).collect(Collectors.toList()));
+            return result;
+        } catch (IllegalStateException | UnsupportedOperationException | ArithmeticException e) {
+            log.warn("Failed to scan layouts locally, fall back to spark", e);
+            contexts.forEach(context -> context.setLocalLayoutScan(false));
+            rel.replaceInput(0, olapRel);
+            return null;
+        }
+    }
+
     private boolean isAllOlapContextCanBeAnsweredLocally(List<OlapContext> olapContexts) {
         boolean runConstantQueryLocally = KapConfig.wrap(kylinConfig).runConstantQueryLocally();
         boolean runQueryLocallyWhenRouteToMetadata = kylinConfig.runQueryLocallyWhenRouteToMetadata();
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.kylin.query.engine;
+
+import org.apache.calcite.plan.ConventionTraitDef;
+import org.apache.calcite.plan.volcano.VolcanoPlanner;
+import org.apache.calcite.rel.RelCollationTraitDef;
+import org.apache.calcite.rel.RelNode;
+import org.apache.kylin.common.KylinConfig;
+import org.apache.kylin.common.util.NLocalFileMetadataTestCase;
+import org.apache.kylin.query.QueryExtension;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Compare cold planning (new QueryExec + parse + optimize) with a plan cache hit.
+ */
+@Ignore("Save UT time")
+public class QueryPlanCacheBenchmarkTest extends NLocalFileMetadataTestCase {
+
+    private static final String PROJECT = "default";
+    private static final String SQL = "select lstg_format_name, cal_dt, sum(price), count(distinct seller_id) "
+            + "from test_kylin_fact inner join test_category_groupings "
+            + "on test_kylin_fact.leaf_categ_id = test_category_groupings.leaf_categ_id "
+            + "and test_kylin_fact.lstg_site_id = test_category_groupings.site_id "
+            + "where lstg_format_name in ('ABIN', 'Auction') group by lstg_format_name, cal_dt "
+            + "order by cal_dt limit 100";
+
+    private final int warmUpTimes = 200;
+    private final int testTimes = 2000;
+
+    @Before
+    public void setUp() throws Exception {
+        this.createTestMetadata();
+        QueryExtension.setFactory(new QueryExtension.Factory());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        this.cleanupTestMetadata();
+        QueryExtension.setFactory(null);
+    }
+
+    @Test
+    public void coldVsCachedPlanningBenchmark() {
+        QueryPlanCache planCache = new QueryPlanCache(KylinConfig.getInstanceFromEnv());
+        RelNode rel = coldPlan();
+        planCache.put(PROJECT, SQL, "", false, rel, RelColumnMetaDataExtractor.getColumnMetadata(rel.getRowType()));
+
+        for (int i = 0; i < warmUpTimes; i++) {
+            coldPlan();
+            Assert.assertNotNull(planCache.get(PROJECT, SQL, "", false, newPlanner()));
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < testTimes; i++) {
+            coldPlan();
+        }
+        long coldTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < testTimes; i++) {
+            planCache.get(PROJECT, SQL, "", false, newPlanner());
+        }
+        long cachedTime = System.nanoTime() - start;
+
+        System.out.println("----------------------------");
+        System.out.println("cold planning avg us : " + coldTime / testTimes / 1000);
+        System.out.println("cached planning avg us : " + cachedTime / testTimes / 1000);
+    }
+
+    private static VolcanoPlanner newPlanner() {
+        VolcanoPlanner planner = new VolcanoPlanner();
+        planner.addRelTraitDef(ConventionTraitDef.INSTANCE);
+        planner.addRelTraitDef(RelCollationTraitDef.INSTANCE);
+        return planner;
+    }
+
+    private RelNode coldPlan() {
+        QueryExec queryExec = new QueryExec(PROJECT, KylinConfig.getInstanceFromEnv());
+        return queryExec.wrapSqlTest(exec -> {
+            try {
+                return exec.parseAndOptimize(SQL);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.kylin.query.engine;
+
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.calcite.plan.ConventionTraitDef;
+import org.apache.calcite.plan.RelOptUtil;
+import org.apache.calcite.plan.volcano.VolcanoPlanner;
+import org.apache.calcite.rel.RelCollationTraitDef;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.sql.parser.SqlParseException;
+import org.apache.kylin.common.KylinConfig;
+import org.apache.kylin.common.QueryContext;
+import org.apache.kylin.common.util.NLocalFileMetadataTestCase;
+import org.apache.kylin.guava30.shaded.common.collect.Sets;
+import org.apache.kylin.metadata.model.NTableMetadataManager;
+import org.apache.kylin.metadata.query.StructField;
+import org.apache.kylin.query.QueryExtension;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class QueryPlanCacheTest extends NLocalFileMetadataTestCase {
+
+    private static final String PROJECT = "default";
+    private static final String SQL = "select cal_dt, sum(price) from test_kylin_fact group by cal_dt";
+
+    private QueryPlanCache planCache;
+
+    @Before
+    public void setUp() throws Exception {
+        this.createTestMetadata();
+        QueryExtension.setFactory(new QueryExtension.Factory());
+        planCache = new QueryPlanCache(KylinConfig.getInstanceFromEnv());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        this.cleanupTestMetadata();
+        QueryExtension.setFactory(null);
+        QueryContext.current().close();
+    }
+
+    private RelNode parseAndOptimize(String sql) {
+        QueryExec queryExec = new QueryExec(PROJECT, KylinConfig.getInstanceFromEnv());
+        return queryExec.wrapSqlTest(exec -> {
+            try {
+                return exec.parseAndOptimize(sql);
+            } catch (SqlParseException e) {
+                Assert.fail(e.toString());
+                return null;
+            }
+        });
+    }
+
+    private List<StructField> fieldsOf(RelNode rel) {
+        return RelColumnMetaDataExtractor.getColumnMetadata(rel.getRowType());
+    }
+
+    private static VolcanoPlanner newPlanner() {
+        VolcanoPlanner planner = new VolcanoPlanner();
+        planner.addRelTraitDef(ConventionTraitDef.INSTANCE);
+        planner.addRelTraitDef(RelCollationTraitDef.INSTANCE);
+        return planner;
+    }
+
+    private QueryPlanCache.CachedPlan get(String sql) {
+        return planCache.get(PROJECT, sql, "", false, newPlanner());
+    }
+
+    private void put(String sql, RelNode rel) {
+        planCache.put(PROJECT, sql, "", false, rel, fieldsOf(rel));
+    }
+
+    @Test
+    public void testHitReturnsCopy() {
+        RelNode rel = parseAndOptimize(SQL);
+        Assert.assertNull(get(SQL));
+
+        put(SQL, rel);
+        QueryPlanCache.CachedPlan first = get(SQL);
+        QueryPlanCache.CachedPlan second = get(SQL);
+        Assert.assertNotNull(first);
+        Assert.assertNotNull(second);
+        Assert.assertNotSame(rel, first.getPlan());
+        Assert.assertNotSame(first.getPlan(), second.getPlan());
+        Assert.assertEquals(RelOptUtil.toString(rel), RelOptUtil.toString(first.getPlan()));
+        Assert.assertEquals(Sets.newHashSet("DEFAULT.TEST_KYLIN_FACT"), first.getTables());
+        Assert.assertEquals(2, first.getResultFields().size());
+    }
+
+    @Test
+    public void testHitCopiedIntoClusterOfCaller() {
+        RelNode rel = parseAndOptimize(SQL);
+        put(SQL, rel);
+        VolcanoPlanner planner = newPlanner();
+        RelNode first = planCache.get(PROJECT, SQL, "", false, planner).getPlan();
+        RelNode second = get(SQL).getPlan();
+        Assert.assertSame(planner, first.getCluster().getPlanner());
+        // every hit has a cluster of its own, not sharing the metadata query
+        Assert.assertNotSame(rel.getCluster(), first.getCluster());
+        Assert.assertNotSame(first.getCluster(), second.getCluster());
+        Assert.assertNotSame(first.getInput(0).getCluster(), rel.getInput(0).getCluster());
+        Assert.assertEquals(RelOptUtil.toString(rel), RelOptUtil.toString(second));
+    }
+
+    @Test
+    public void testKeyedByPlannerSettings() {
+        RelNode rel = parseAndOptimize(SQL);
+        put(SQL, rel);
+        Assert.assertNotNull(get(SQL));
+        Assert.assertNull(planCache.get(PROJECT, SQL, "", true, newPlanner()));
+        Assert.assertNull(planCache.get(PROJECT, SQL, "+OlapJoinRule", false, newPlanner()));
+    }
+
+    @Test
+    public void testKeyedByAclPrincipal() {
+        RelNode rel = parseAndOptimize(SQL);
+        QueryContext.current().setAclInfo(new QueryContext.AclInfo("u1", Sets.newHashSet("g1"), false));
+        put(SQL, rel);
+        Assert.assertNotNull(get(SQL));
+
+        QueryContext.current().setAclInfo(new QueryContext.AclInfo("u2", Sets.newHashSet("g1"), false));
+        Assert.assertNull(get(SQL));
+
+        QueryContext.current().setAclInfo(new QueryContext.AclInfo("u1", Sets.newHashSet("g1", "g2"), false));
+        Assert.assertNull(get(SQL));
+    }
+
+    @Test
+    public void testInvalidatedByMetadataChange() {
+        RelNode rel = parseAndOptimize(SQL);
+        put(SQL, rel);
+        Assert.assertNotNull(get(SQL));
+
+        NTableMetadataManager.getInstance(KylinConfig.getInstanceFromEnv(), PROJECT)
+                .updateTableDesc("DEFAULT.TEST_KYLIN_FACT", copy -> copy.setTableComment("changed"));
+        Assert.assertNull(get(SQL));
+        Assert.assertEquals(0, planCache.size());
+    }
+
+    @Test
+    public void testSqlNotNormalized() {
+        RelNode rel = parseAndOptimize(SQL);
+        put(SQL, rel);
+        Assert.assertNull(get(SQL + " "));
+        Assert.assertNull(get(SQL.toUpperCase(Locale.ROOT)));
+        Assert.assertNotNull(get(SQL));
+    }
+}
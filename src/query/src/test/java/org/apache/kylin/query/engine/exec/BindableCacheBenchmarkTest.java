@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.kylin.query.engine.exec;
+
+import java.sql.SQLException;
+
+import org.apache.kylin.common.KylinConfig;
+import org.apache.kylin.common.util.NLocalFileMetadataTestCase;
+import org.apache.kylin.query.QueryExtension;
+import org.apache.kylin.query.engine.QueryExec;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Run the probe queries sent by BI tools on the calcite engine, with and without the compiled bindable cache.
+ */
+@Ignore("Save UT time")
+public class BindableCacheBenchmarkTest extends NLocalFileMetadataTestCase {
+
+    private static final String PROJECT = "default";
+    private static final String[] SQLS = { "select 1", //
+            "select current_date, current_timestamp", //
+            "select 'Tableau' as \"probe\", 1 + 2 as \"sum\"", //
+            "select cast(null as varchar) as \"c\" from (values (1)) as t(x) where 1 = 0", //
+            "select upper('kylin'), substring('kylin', 2, 3), {fn CONCAT('a', 'b')}" };
+
+    private final int warmUpTimes = 100;
+    private final int testTimes = 1000;
+
+    @Before
+    public void setUp() throws Exception {
+        this.createTestMetadata();
+        QueryExtension.setFactory(new QueryExtension.Factory());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        this.cleanupTestMetadata();
+        QueryExtension.setFactory(null);
+    }
+
+    @Test
+    public void probeQueryBenchmark() throws SQLException {
+        overwriteSystemProp("kylin.query.calcite.compiled-bindable-cache-enabled", "false");
+        long uncachedTime = executeAll();
+        overwriteSystemProp("kylin.query.calcite.compiled-bindable-cache-enabled", "true");
+        BindableCache.getInstance().invalidateAll();
+        long cachedTime = executeAll();
+        BindableCache.getInstance().invalidateAll();
+
+        System.out.println("----------------------------");
+        System.out.println("sqls : " + SQLS.length);
+        System.out.println("uncached avg us per sql : " + uncachedTime / testTimes / SQLS.length / 1000);
+        System.out.println("cached avg us per sql : " + cachedTime / testTimes / SQLS.length / 1000);
+    }
+
+    private long executeAll() throws SQLException {
+        for (int i = 0; i < warmUpTimes; i++) {
+            executeOnce();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < testTimes; i++) {
+            executeOnce();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private void executeOnce() throws SQLException {
+        for (String sql : SQLS) {
+            new QueryExec(PROJECT, KylinConfig.getInstanceFromEnv()).executeQuery(sql);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.kylin.query.engine.exec;
+
+import java.sql.SQLException;
+import java.util.List;
+
+import org.apache.kylin.common.KylinConfig;
+import org.apache.kylin.common.QueryContext;
+import org.apache.kylin.common.util.NLocalFileMetadataTestCase;
+import org.apache.kylin.guava30.shaded.common.collect.Lists;
+import org.apache.kylin.query.QueryExtension;
+import org.apache.kylin.query.engine.QueryExec;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class BindableCacheTest extends NLocalFileMetadataTestCase {
+
+    private static final String PROJECT = "default";
+
+    @Before
+    public void setUp() throws Exception {
+        this.createTestMetadata();
+        QueryExtension.setFactory(new QueryExtension.Factory());
+        BindableCache.getInstance().invalidateAll();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        BindableCache.getInstance().invalidateAll();
+        this.cleanupTestMetadata();
+        QueryExtension.setFactory(null);
+        QueryContext.current().close();
+    }
+
+    private List<List<String>> execute(String sql, Object... params) throws SQLException {
+        QueryExec queryExec = new QueryExec(PROJECT, KylinConfig.getInstanceFromEnv());
+        for (int i = 0; i < params.length; i++) {
+            queryExec.setPrepareParam(i, params[i]);
+        }
+        return Lists.newArrayList(queryExec.executeQuery(sql).getRowsIterable());
+    }
+
+    @Test
+    public void testConstantQueryReusesBindable() throws SQLException {
+        Assert.assertEquals(Lists.newArrayList(Lists.newArrayList("2", "a")), execute("select 1 + 1, 'a'"));
+        Assert.assertEquals(1, BindableCache.getInstance().size());
+
+        Assert.assertEquals(Lists.newArrayList(Lists.newArrayList("2", "a")), execute("select 1 + 1, 'a'"));
+        Assert.assertEquals(1, BindableCache.getInstance().size());
+
+        Assert.assertEquals(Lists.newArrayList(Lists.newArrayList("3")), execute("select 1 + 2"));
+        Assert.assertEquals(2, BindableCache.getInstance().size());
+    }
+
+    @Test
+    public void testDynamicParamsShareBindable() throws SQLException {
+        String sql = "select cast(? as integer) + 1";
+        Assert.assertEquals(Lists.newArrayList(Lists.newArrayList("2")), execute(sql, 1));
+        Assert.assertEquals(Lists.newArrayList(Lists.newArrayList("11")), execute(sql, 10));
+        Assert.assertEquals(1, BindableCache.getInstance().size());
+    }
+
+    @Test
+    public void testCacheDisabled() throws SQLException {
+        overwriteSystemProp("kylin.query.calcite.compiled-bindable-cache-enabled", "false");
+        Assert.assertEquals(Lists.newArrayList(Lists.newArrayList("2")), execute("select 1 + 1"));
+        Assert.assertEquals(0, BindableCache.getInstance().size());
+    }
+}
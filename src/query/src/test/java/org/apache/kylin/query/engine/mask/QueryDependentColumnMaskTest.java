@@ -19,6 +19,7 @@
 package org.apache.kylin.query.engine.mask;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import org.apache.calcite.rel.RelNode;
@@ -304,4 +305,12 @@ public class QueryDependentColumnMaskTest extends NLocalFileMetadataTestCase {
         return masked;
     }
 
+    @Test
+    public void testHasMaskOnTables() {
+        Assert.assertTrue(mask.hasMask(Collections.singleton("DEFAULT.TEST_KYLIN_FACT")));
+        // the table of a dependent column is not masked itself
+        Assert.assertFalse(mask.hasMask(Collections.singleton("DEFAULT.TEST_ACCOUNT")));
+        // not a prefix of another table
+        Assert.assertFalse(mask.hasMask(Collections.singleton("DEFAULT.TEST_KYLIN")));
+    }
 }
@@ -18,6 +18,8 @@
 
 package org.apache.kylin.query.engine.mask;
 
+import java.util.Collections;
+
 import org.apache.calcite.rel.RelNode;
 import org.apache.calcite.rel.type.RelDataType;
 import org.apache.calcite.sql.parser.SqlParseException;
@@ -26,6 +28,7 @@ import org.apache.calcite.sql.type.SqlTypeName;
 import org.apache.kylin.common.KylinConfig;
 import org.apache.kylin.common.util.NLocalFileMetadataTestCase;
 import org.apache.kylin.guava30.shaded.common.collect.Lists;
+import org.apache.kylin.guava30.shaded.common.collect.Sets;
 import org.apache.kylin.metadata.acl.SensitiveDataMask;
 import org.apache.kylin.metadata.acl.SensitiveDataMaskInfo;
 import org.apache.kylin.query.QueryExtension;
@@ -202,6 +205,12 @@ public class QuerySensitiveDataMaskTest extends NLocalFileMetadataTestCase {
         Assert.assertFalse(sensitiveDataMaskInfo.hasMask());
     }
 
+    @Test
+    public void testHasMaskOnTables() {
+        Assert.assertTrue(mask.hasMask(Sets.newHashSet("DEFAULT.TEST_ORDER", "DEFAULT.TEST_KYLIN_FACT")));
+        Assert.assertFalse(mask.hasMask(Collections.singleton("DEFAULT.TEST_ORDER")));
+    }
+
     private RelDataType makeDatatype(SqlTypeName typeName) {
         return new BasicSqlType(new KylinRelDataTypeSystem(), typeName);
     }
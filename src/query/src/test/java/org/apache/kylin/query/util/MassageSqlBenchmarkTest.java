@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kylin.query.util;
+
+import org.apache.kylin.common.KylinConfig;
+import org.apache.kylin.common.util.NLocalFileMetadataTestCase;
+import org.apache.kylin.metadata.project.NProjectManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Massage sqls shaped like the ones generated by Tableau and Power BI, with and without the massaged sql cache.
+ */
+@Ignore("Save UT time")
+public class MassageSqlBenchmarkTest extends NLocalFileMetadataTestCase {
+
+    private static final String PROJECT = "default";
+    private static final String[] SQLS = {
+            // Tableau
+            "SELECT \"TEST_KYLIN_FACT\".\"LSTG_FORMAT_NAME\" AS \"LSTG_FORMAT_NAME\",\n"
+                    + "  SUM(\"TEST_KYLIN_FACT\".\"PRICE\") AS \"sum:PRICE:ok\",\n"
+                    + "  COUNT(DISTINCT \"TEST_KYLIN_FACT\".\"SELLER_ID\") AS \"ctd:SELLER_ID:ok\"\n"
+                    + "FROM \"DEFAULT\".\"TEST_KYLIN_FACT\" \"TEST_KYLIN_FACT\"\n"
+                    + "  INNER JOIN \"DEFAULT\".\"TEST_CATEGORY_GROUPINGS\" \"TEST_CATEGORY_GROUPINGS\" ON "
+                    + "((\"TEST_KYLIN_FACT\".\"LEAF_CATEG_ID\" = \"TEST_CATEGORY_GROUPINGS\".\"LEAF_CATEG_ID\") AND "
+                    + "(\"TEST_KYLIN_FACT\".\"LSTG_SITE_ID\" = \"TEST_CATEGORY_GROUPINGS\".\"SITE_ID\"))\n"
+                    + "WHERE ((CAST(\"TEST_KYLIN_FACT\".\"CAL_DT\" AS DATE) >= {d '2012-01-01'}) AND "
+                    + "(\"TEST_KYLIN_FACT\".\"LSTG_FORMAT_NAME\" IN ('ABIN', 'Auction', 'FP-GTC')))\n"
+                    + "GROUP BY \"TEST_KYLIN_FACT\".\"LSTG_FORMAT_NAME\"",
+            "SELECT (CASE WHEN (\"TEST_KYLIN_FACT\".\"PRICE\" > 100) THEN 'high' ELSE 'low' END) "
+                    + "AS \"Calculation_1\",\n"
+                    + "  {fn YEAR(\"TEST_KYLIN_FACT\".\"CAL_DT\")} AS \"yr:CAL_DT:ok\",\n"
+                    + "  SUM(CAST(\"TEST_KYLIN_FACT\".\"ITEM_COUNT\" AS DOUBLE)) AS \"sum:ITEM_COUNT:ok\"\n"
+                    + "FROM \"DEFAULT\".\"TEST_KYLIN_FACT\" \"TEST_KYLIN_FACT\"\n"
+                    + "GROUP BY (CASE WHEN (\"TEST_KYLIN_FACT\".\"PRICE\" > 100) THEN 'high' ELSE 'low' END),\n"
+                    + "  {fn YEAR(\"TEST_KYLIN_FACT\".\"CAL_DT\")}",
+            // Power BI
+            "select [$Table].[LSTG_FORMAT_NAME] as [LSTG_FORMAT_NAME], sum([$Table].[PRICE]) as [a0]\n"
+                    + "from (select \"LSTG_FORMAT_NAME\", \"PRICE\", \"CAL_DT\" from \"DEFAULT\".\"TEST_KYLIN_FACT\") "
+                    + "as [$Table]\n"
+                    + "where [$Table].[CAL_DT] >= convert(date, '2012-01-01') group by [$Table].[LSTG_FORMAT_NAME]",
+            "select top 1000001 [semijoin1].[c1] as [c1], [semijoin1].[c2] as [c2]\n"
+                    + "from (select [$Table].[LSTG_FORMAT_NAME] as [c1], sum([$Table].[PRICE]) as [c2]\n"
+                    + "  from \"DEFAULT\".\"TEST_KYLIN_FACT\" as [$Table] group by [$Table].[LSTG_FORMAT_NAME]) "
+                    + "as [semijoin1]\n"
+                    + "where [semijoin1].[c2] is not null" };
+
+    private final int warmUpTimes = 100;
+    private final int testTimes = 1000;
+
+    @Before
+    public void setUp() throws Exception {
+        this.createTestMetadata();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        this.cleanupTestMetadata();
+    }
+
+    @Test
+    public void massageSqlBenchmark() {
+        long uncachedTime = massageAll();
+        overwriteSystemProp("kylin.query.massaged-sql-cache-enabled", "true");
+        MassagedSqlCache.getInstance().invalidateAll();
+        long cachedTime = massageAll();
+        MassagedSqlCache.getInstance().invalidateAll();
+
+        System.out.println("----------------------------");
+        System.out.println("sqls : " + SQLS.length);
+        System.out.println("uncached avg us per sql : " + uncachedTime / testTimes / SQLS.length / 1000);
+        System.out.println("cached avg us per sql : " + cachedTime / testTimes / SQLS.length / 1000);
+    }
+
+    private long massageAll() {
+        KylinConfig config = NProjectManager.getProjectConfig(PROJECT);
+        for (int i = 0; i < warmUpTimes; i++) {
+            massageOnce(config);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < testTimes; i++) {
+            massageOnce(config);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private void massageOnce(KylinConfig config) {
+        for (String sql : SQLS) {
+            QueryUtil.massageSql(new QueryParams(config, sql, PROJECT, 0, 0, "DEFAULT", true));
+        }
+    }
+}
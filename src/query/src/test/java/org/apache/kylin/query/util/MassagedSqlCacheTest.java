@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kylin.query.util;
+
+import java.util.List;
+
+import org.apache.kylin.common.KylinConfig;
+import org.apache.kylin.common.QueryContext;
+import org.apache.kylin.common.util.NLocalFileMetadataTestCase;
+import org.apache.kylin.guava30.shaded.common.collect.Lists;
+import org.apache.kylin.guava30.shaded.common.collect.Sets;
+import org.apache.kylin.metadata.project.NProjectManager;
+import org.apache.kylin.query.IQueryTransformer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MassagedSqlCacheTest extends NLocalFileMetadataTestCase {
+
+    private static final String PROJECT = "default";
+    private static final String SQL = "select cal_dt, sum(price) from test_kylin_fact group by cal_dt";
+    private static final String MASSAGED = "select CAL_DT, sum(PRICE) from TEST_KYLIN_FACT group by CAL_DT";
+
+    private MassagedSqlCache cache;
+    private List<IQueryTransformer> transformers;
+
+    @Before
+    public void setUp() throws Exception {
+        this.createTestMetadata();
+        cache = new MassagedSqlCache(KylinConfig.getInstanceFromEnv());
+        transformers = QueryUtil.fetchTransformers(true, KylinConfig.getInstanceFromEnv().getQueryTransformers());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        this.cleanupTestMetadata();
+        QueryContext.current().close();
+    }
+
+    @Test
+    public void testHit() {
+        Assert.assertTrue(MassagedSqlCache.isCacheable(transformers));
+        Assert.assertNull(cache.get(PROJECT, SQL, "DEFAULT", transformers));
+
+        cache.put(PROJECT, SQL, "DEFAULT", transformers, MASSAGED);
+        Assert.assertEquals(MASSAGED, cache.get(PROJECT, SQL, "DEFAULT", transformers));
+        Assert.assertNull(cache.get(PROJECT, SQL, "SSB", transformers));
+        Assert.assertNull(cache.get(PROJECT, SQL, "DEFAULT", transformers.subList(1, transformers.size())));
+
+        cache.put("not_exist_project", SQL, "DEFAULT", transformers, MASSAGED);
+        Assert.assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testKeyedByAclPrincipal() {
+        QueryContext.current().setAclInfo(new QueryContext.AclInfo("u1", Sets.newHashSet("g1"), false));
+        cache.put(PROJECT, SQL, "DEFAULT", transformers, MASSAGED);
+        Assert.assertEquals(MASSAGED, cache.get(PROJECT, SQL, "DEFAULT", transformers));
+
+        QueryContext.current().setAclInfo(new QueryContext.AclInfo("u2", Sets.newHashSet("g1"), false));
+        Assert.assertNull(cache.get(PROJECT, SQL, "DEFAULT", transformers));
+
+        QueryContext.current().setAclInfo(new QueryContext.AclInfo("u1", Sets.newHashSet("g1", "g2"), false));
+        Assert.assertNull(cache.get(PROJECT, SQL, "DEFAULT", transformers));
+    }
+
+    @Test
+    public void testInvalidatedByMetadataChange() {
+        cache.put(PROJECT, SQL, "DEFAULT", transformers, MASSAGED);
+        Assert.assertEquals(MASSAGED, cache.get(PROJECT, SQL, "DEFAULT", transformers));
+
+        NProjectManager.getInstance(KylinConfig.getInstanceFromEnv()).updateProject(PROJECT,
+                copy -> copy.setDescription("changed"));
+        Assert.assertNull(cache.get(PROJECT, SQL, "DEFAULT", transformers));
+        Assert.assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testCustomTransformerNotCacheable() {
+        List<IQueryTransformer> custom = Lists.newArrayList(transformers);
+        custom.add((sql, project, defaultSchema) -> sql);
+        Assert.assertFalse(MassagedSqlCache.isCacheable(custom));
+    }
+
+    @Test
+    public void testMassageSqlWithCache() {
+        overwriteSystemProp("kylin.query.massaged-sql-cache-enabled", "true");
+        MassagedSqlCache.getInstance().invalidateAll();
+        KylinConfig config = NProjectManager.getProjectConfig(PROJECT);
+        String first = QueryUtil.massageSql(new QueryParams(config, SQL, PROJECT, 0, 0, "DEFAULT", true));
+        String second = QueryUtil.massageSql(new QueryParams(config, SQL, PROJECT, 0, 0, "DEFAULT", true));
+        Assert.assertEquals(first, second);
+        Assert.assertEquals(1, MassagedSqlCache.getInstance().size());
+        MassagedSqlCache.getInstance().invalidateAll();
+    }
+}
@@ -285,6 +285,7 @@ trait SegmentExec extends Logging {
           dataLayout.setPartitionValues(taskStats.partitionValues)
           dataLayout.setFileCount(taskStats.numFiles)
           dataLayout.setByteSize(taskStats.numBytes)
+          dataLayout.setFileZoneMaps(taskStats.fileZoneMaps)
           dataLayout.setAbnormalType(lr.abnormalType)
           dataLayout
         }
@@ -21,16 +21,19 @@ package org.apache.kylin.engine.spark.job.step.merge
 import org.apache.hadoop.fs.Path
 import org.apache.kylin.common.persistence.transaction.UnitOfWork
 import org.apache.kylin.common.persistence.transaction.UnitOfWork.Callback
+import org.apache.kylin.common.KapConfig
 import org.apache.kylin.common.util.HadoopUtil
 import org.apache.kylin.engine.spark.application.SparkApplication
-import org.apache.kylin.engine.spark.job.SegmentExec.SourceStats
+import org.apache.kylin.engine.spark.job.SegmentExec.{LayoutResult, SourceStats}
 import org.apache.kylin.engine.spark.job.step.StageExec
 import org.apache.kylin.engine.spark.job.{SegmentExec, SegmentJob}
 import org.apache.kylin.engine.spark.model.SegmentFlatTableDesc
+import org.apache.kylin.engine.spark.utils.StorageUtils
 import org.apache.kylin.metadata.cube.model._
-import org.apache.kylin.metadata.model.TblColRef
+import org.apache.kylin.metadata.model.NDataModel.DataStorageType
+import org.apache.kylin.metadata.model.{PartitionDesc, TblColRef}
 import org.apache.kylin.metadata.sourceusage.SourceUsageManager
-import org.apache.spark.sql.datasource.storage.{StorageStoreUtils, WriteTaskStats}
+import org.apache.spark.sql.datasource.storage.{FileZoneMapCollector, LayoutFormatWriter, StorageStoreFactory, StorageStoreUtils, WriteTaskStats}
 import org.apache.spark.sql.{Dataset, Row, SaveMode}
 
 import java.io.IOException
@@ -75,6 +78,9 @@ abstract class MergeStage(private val jobContext: SegmentJob,
     val head = task.grouped.head
     val layout = head.getLayout
     val layoutId = layout.getId
+    if (canConcatRowGroups(layout) && concatDataLayout(layout)) {
+      return
+    }
     val unitedDS: Dataset[Row] = newUnitedDS(layoutId)
     if (Objects.isNull(unitedDS)) {
       return
@@ -102,6 +108,54 @@ abstract class MergeStage(private val jobContext: SegmentJob,
     unitedDS
   }
 
+  /**
+   * Rows from different segments never share the same dimension values, if the layout is a table index,
+   * or if the partition column is one of its dimensions. The parquet files of such layouts could be merged
+   * by concatenating their row groups, instead of aggregating and rewriting them.
+   */
+  private def canConcatRowGroups(layout: LayoutEntity): Boolean = {
+    if (!config.isMergeRowGroupConcatEnabled || storageType != DataStorageType.V1) {
+      return false
+    }
+    // Shard files, fast bitmap files and bloom filters are laid out by the writer, keep them as they were.
+    if (!LayoutFormatWriter.unNeedRepartitionByShardCols(layout) || config.isBloomBuildEnabled
+      || (layout.getIndex.getIndexPlan.isFastBitmapEnabled && !layout.listBitmapMeasure().isEmpty)) {
+      return false
+    }
+    if (IndexEntity.isTableIndex(layout.getId)) {
+      return true
+    }
+    !PartitionDesc.isEmptyPartitionDesc(dataModel.getPartitionDesc) &&
+      layout.getOrderedDimensions.containsKey(dataModel.getPartitionColumnId)
+  }
+
+  private def concatDataLayout(layout: LayoutEntity): Boolean = {
+    val store = StorageStoreFactory.create(storageType)
+    val inputDirs = unmerged.filter(segment => Objects.nonNull(segment.getLayout(layout.getId))) //
+      .map(segment => new Path(store.getStoragePath(segment, layout.getId)))
+    if (inputDirs.isEmpty) {
+      return false
+    }
+    val outputDir = new Path(store.getStoragePath(dataSegment, layout.getId))
+    val readableDesc = s"Merge layout ${layout.getId} by concatenating row groups"
+    logInfo(readableDesc)
+    val targetBytes = KapConfig.wrap(config).getParquetStorageShardSizeMB * StorageUtils.MB
+    RowGroupConcatenator.concat(sparkSession, inputDirs, outputDir, targetBytes) match {
+      case Some(stats) =>
+        val hadoopConf = sparkSession.sparkContext.hadoopConfiguration
+        val fileZoneMaps = if (config.isFileZoneMapEnabled) {
+          FileZoneMapCollector.collect(outputDir, layout, hadoopConf)
+        } else {
+          new java.util.ArrayList[FileZoneMap]()
+        }
+        val taskStats = WriteTaskStats(0, stats.numFiles, stats.numBytes, stats.numRows, 0,
+          stats.numFiles.toInt, new java.util.ArrayList[String](), fileZoneMaps)
+        pipe.offer(LayoutResult(layout.getId, taskStats, newSourceStats(layout, taskStats), null))
+        true
+      case None => false
+    }
+  }
+
   private def mergeDataLayout(layout: LayoutEntity, unitedDS: Dataset[Row]): Unit = {
     val readableDesc = s"Merge layout ${layout.getId}"
     val layoutDS = wrapLayoutDS(layout, unitedDS)
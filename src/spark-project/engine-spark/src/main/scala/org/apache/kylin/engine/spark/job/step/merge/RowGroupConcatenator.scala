@@ -0,0 +1,175 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.kylin.engine.spark.job.step.merge
+
+import java.util.UUID
+
+import org.apache.hadoop.conf.Configuration
+import org.apache.hadoop.fs.{FileStatus, FileSystem, Path}
+import org.apache.kylin.engine.spark.utils.StorageUtils
+import org.apache.parquet.hadoop.metadata.{FileMetaData, ParquetMetadata}
+import org.apache.parquet.hadoop.util.{HadoopInputFile, HadoopOutputFile}
+import org.apache.parquet.hadoop.{ParquetFileReader, ParquetFileWriter, ParquetWriter}
+import org.apache.parquet.schema.MessageTypeParser
+import org.apache.spark.internal.Logging
+import org.apache.spark.sql.SparkSession
+import org.apache.spark.util.SerializableConfiguration
+
+import scala.collection.JavaConverters._
+import scala.collection.mutable.ArrayBuffer
+
+/**
+ * Concatenates the parquet files of a layout in several segments at the row group level.
+ *
+ * The column chunks are copied as they are, without decoding, only the footers are written anew.
+ * It's up to the caller to make sure the rows of different segments never need to be aggregated together.
+ */
+object RowGroupConcatenator extends Logging {
+
+  private val TEMP_FLAG = "_temp_"
+
+  case class ConcatStats(numFiles: Long, numBytes: Long, numRows: Long)
+
+  /**
+   * The row groups of each output file are copied by a spark task, only the final rename is done on the driver.
+   *
+   * @param inputDirs   the layout directories of the segments to concatenate
+   * @param outputDir   the layout directory of the merged segment, overwritten if exists
+   * @param targetBytes an output file is closed once it reaches this size
+   * @return None if the files can not be concatenated, e.g. they are bucketed or have different schemas
+   */
+  def concat(spark: SparkSession, inputDirs: Seq[Path], outputDir: Path, targetBytes: Long): Option[ConcatStats] = {
+    val conf = spark.sparkContext.hadoopConfiguration
+    val fs = outputDir.getFileSystem(conf)
+    val inputs = inputDirs.map(dir => listDataFiles(fs, dir))
+    if (inputs.exists(_.isEmpty)) {
+      return None
+    }
+    val files = inputs.flatMap(_.get)
+    if (files.isEmpty) {
+      return None
+    }
+    // the footers of the other files are checked against the head one by the tasks
+    val head = readFooter(files.head.getPath, conf).getFileMetaData
+    val schema = head.getSchema.toString
+    val keyValueMetaData = head.getKeyValueMetaData.asScala.toMap
+
+    val tempDir = new Path(outputDir.toString + TEMP_FLAG + System.currentTimeMillis())
+    val suffix = fileSuffix(files.head.getPath.getName)
+    val jobId = UUID.randomUUID().toString
+    val tempPath = tempDir.toString
+    val groups = groupBySize(files, targetBytes).map(_.map(_.getPath.toString))
+    val broadcastConf = spark.sparkContext.broadcast(new SerializableConfiguration(conf))
+    val stats = try {
+      val results = spark.sparkContext.parallelize(groups.zipWithIndex, groups.size).map { case (group, index) =>
+        val output = new Path(tempPath, f"part-$index%05d-$jobId-c000$suffix")
+        concatGroup(group.map(new Path(_)), output, schema, keyValueMetaData, broadcastConf.value.value)
+      }.collect()
+      if (results.exists(_.isEmpty)) {
+        logInfo(s"Skip concatenating row groups of $outputDir, the schemas of the source files differ.")
+        return None
+      }
+      StorageUtils.overwriteWithMessage(fs, tempDir, outputDir)
+      results.flatten
+    } finally {
+      broadcastConf.destroy()
+      // the temp dir is moved to the output dir on success, it's left by a skipped or failed concatenation
+      if (fs.exists(tempDir)) {
+        fs.delete(tempDir, true)
+      }
+    }
+    val numFiles = stats.map(_.numFiles).sum
+    val numBytes = stats.map(_.numBytes).sum
+    val numRows = stats.map(_.numRows).sum
+    logInfo(s"Concatenated ${files.size} files into $numFiles files of $outputDir, rows $numRows bytes $numBytes")
+    Some(ConcatStats(numFiles, numBytes, numRows))
+  }
+
+  // Runs in a task, None if any file differs from the expected schema.
+  private def concatGroup(group: Seq[Path], output: Path, schema: String, keyValueMetaData: Map[String, String],
+                          conf: Configuration): Option[ConcatStats] = {
+    val footers = group.map(file => readFooter(file, conf))
+    if (!footers.forall(footer => sameFormat(schema, keyValueMetaData, footer.getFileMetaData))) {
+      return None
+    }
+    val writer = new ParquetFileWriter(HadoopOutputFile.fromPath(output, conf),
+      MessageTypeParser.parseMessageType(schema), ParquetFileWriter.Mode.CREATE, ParquetWriter.DEFAULT_BLOCK_SIZE, 0)
+    writer.start()
+    group.foreach(file => writer.appendFile(HadoopInputFile.fromPath(file, conf)))
+    writer.end(keyValueMetaData.asJava)
+    val numBytes = output.getFileSystem(conf).getFileStatus(output).getLen
+    val numRows = footers.flatMap(_.getBlocks.asScala).map(_.getRowCount).sum
+    Some(ConcatStats(1, numBytes, numRows))
+  }
+
+  // None if the directory holds anything but parquet files, e.g. bucket directories.
+  private def listDataFiles(fs: FileSystem, dir: Path): Option[Seq[FileStatus]] = {
+    if (!fs.exists(dir)) {
+      return Some(Seq.empty)
+    }
+    val statuses = fs.listStatus(dir).filterNot { status =>
+      val name = status.getPath.getName
+      name.startsWith("_") || name.startsWith(".")
+    }
+    if (statuses.exists(status => status.isDirectory || !status.getPath.getName.endsWith(".parquet"))) {
+      logInfo(s"Skip concatenating row groups of $dir, it's not a flat directory of parquet files.")
+      return None
+    }
+    Some(statuses.sortBy(_.getPath.getName).toSeq)
+  }
+
+  private def readFooter(path: Path, conf: Configuration): ParquetMetadata = {
+    val reader = ParquetFileReader.open(HadoopInputFile.fromPath(path, conf))
+    try {
+      reader.getFooter
+    } finally {
+      reader.close()
+    }
+  }
+
+  // The key value metadata holds the spark schema, which must be the same as well.
+  private def sameFormat(schema: String, keyValueMetaData: Map[String, String], other: FileMetaData): Boolean = {
+    other.getSchema.toString.equals(schema) && other.getKeyValueMetaData.asScala.toMap.equals(keyValueMetaData)
+  }
+
+  private def groupBySize(files: Seq[FileStatus], targetBytes: Long): Seq[Seq[FileStatus]] = {
+    val groups = ArrayBuffer[Seq[FileStatus]]()
+    var current = ArrayBuffer[FileStatus]()
+    var currentBytes = 0L
+    files.foreach { file =>
+      current += file
+      currentBytes += file.getLen
+      if (currentBytes >= targetBytes) {
+        groups += current
+        current = ArrayBuffer[FileStatus]()
+        currentBytes = 0L
+      }
+    }
+    if (current.nonEmpty) {
+      groups += current
+    }
+    groups
+  }
+
+  // like ".snappy.parquet" of "part-00000-91f13932-3d5e-4f85-9a56-d1e2b47d0ccb-c000.snappy.parquet"
+  private def fileSuffix(name: String): String = {
+    val dot = name.indexOf('.')
+    if (dot < 0) ".parquet" else name.substring(dot)
+  }
+}
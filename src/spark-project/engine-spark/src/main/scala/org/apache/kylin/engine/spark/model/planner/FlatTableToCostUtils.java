@@ -49,7 +49,6 @@ import org.apache.kylin.metadata.model.TblColRef;
 import org.apache.spark.Partitioner;
 import org.apache.spark.api.java.JavaPairRDD;
 import org.apache.spark.api.java.JavaRDD;
-import org.apache.spark.api.java.function.Function;
 import org.apache.spark.api.java.function.Function2;
 import org.apache.spark.api.java.function.PairFlatMapFunction;
 import org.apache.spark.sql.Row;
@@ -75,23 +74,7 @@ public class FlatTableToCostUtils {
 
     public static Map<BigInteger, HLLCounter> generateCost(JavaRDD<Row> input, KylinConfig kylinConfig,
             RuleBasedIndex ruleBasedIndex, SegmentFlatTableDesc flatTableDesc) throws IOException {
-        // step1: convert each cell to string data type, and get RDD[String[]]
-        JavaRDD<String[]> flatTableRDD = input.map(new Function<Row, String[]>() {
-            @Override
-            public String[] call(Row row) throws Exception {
-                String[] result = new String[row.length()];
-                for (int i = 0; i < row.length(); i++) {
-                    final Object o = row.get(i);
-                    if (o != null) {
-                        result[i] = o.toString();
-                    } else {
-                        result[i] = null;
-                    }
-                }
-                return result;
-            }
-        });
-        // step2: calculate the cost for each partition, and get the new RDD.
+        // step1: calculate the cost for each partition, and get the new RDD.
         // The key is cuboid, and the value is the data encoded from the hll for each partition.
         int rowKeyCount = ruleBasedIndex.countOfIncludeDimension();
         // layouts from the rule index(agg group)
@@ -106,10 +89,10 @@ public class FlatTableToCostUtils {
         int hllPrecision = kylinConfig.getStatsHLLPrecision();
         log.info("The row key count is {}, and the index/column map is {}", rowKeyCount,
                 Lists.newArrayList(rowkeyColumnIndexes));
-        JavaPairRDD<BigInteger, byte[]> costRddByPartition = flatTableRDD.mapPartitionsToPair(
+        JavaPairRDD<BigInteger, byte[]> costRddByPartition = input.mapPartitionsToPair(
                 new FlatOutputFunction(hllPrecision, rowKeyCount, inputCuboids, rowkeyColumnIndexes));
 
-        // step3: reduce by cuboid, and merge hll data
+        // step2: reduce by cuboid, and merge hll data
         // The key is the cuboid, the value is data encoded from the hll
         int partitionNum = getCuboidHLLCounterReducerNum(inputCuboids.length, kylinConfig);
         log.info("Get the partition count for the HLL reducer: {}", partitionNum);
@@ -151,7 +134,7 @@ public class FlatTableToCostUtils {
                 return value;
             }
         });
-        // step4: collect the final result, and convert value(text) to hll
+        // step3: collect the final result, and convert value(text) to hll
         // The key is the cuboid, and the value is the estimated statistics
         Map<BigInteger, HLLCounter> resultCost = Maps.newHashMap();
         for (Tuple2<BigInteger, byte[]> pair : costRDD.collect()) {
@@ -215,9 +198,36 @@ public class FlatTableToCostUtils {
         return rowkeyColumnIndexes;
     }
 
-    private static class FlatOutputFunction implements PairFlatMapFunction<Iterator<String[]>, BigInteger, byte[]> {
+    /**
+     * @return the positions of the row keys in each cuboid, the first row key is the highest bit of the cuboid id
+     */
+    static int[][] getCuboidBitSet(BigInteger[] cuboidIds, int nRowKey) {
+        int[][] allCuboidsBitSet = new int[cuboidIds.length][];
+        for (int j = 0; j < cuboidIds.length; j++) {
+            BigInteger cuboidId = cuboidIds[j];
+            allCuboidsBitSet[j] = new int[cuboidId.bitCount()];
+            int position = 0;
+            if (nRowKey < Long.SIZE) {
+                long longCuboidId = cuboidId.longValue();
+                for (int i = 0; i < nRowKey; i++) {
+                    if ((longCuboidId & (1L << (nRowKey - 1 - i))) != 0) {
+                        allCuboidsBitSet[j][position++] = i;
+                    }
+                }
+            } else {
+                for (int i = 0; i < nRowKey; i++) {
+                    if (cuboidId.testBit(nRowKey - 1 - i)) {
+                        allCuboidsBitSet[j][position++] = i;
+                    }
+                }
+            }
+        }
+        return allCuboidsBitSet;
+    }
+
+    private static class FlatOutputFunction implements PairFlatMapFunction<Iterator<Row>, BigInteger, byte[]> {
         private transient volatile boolean initialized = false;
-        private transient CuboidStatCalculator cuboidStatCalculator;
+        private transient ColumnarCuboidStatCalculator cuboidStatCalculator;
         private final int samplingPercent = 100;
         private final int hllPrecision;
         private final int rowKeyCount;
@@ -232,25 +242,6 @@ public class FlatTableToCostUtils {
             this.rowkeyColumnIndexes = rowkeyColumnIndexes;
         }
 
-        private Integer[][] getCuboidBitSet(BigInteger[] cuboidIds, int nRowKey) {
-            Integer[][] allCuboidsBitSet = new Integer[cuboidIds.length][];
-            for (int j = 0; j < cuboidIds.length; j++) {
-                BigInteger cuboidId = cuboidIds[j];
-
-                allCuboidsBitSet[j] = new Integer[cuboidId.bitCount()];
-                int position = 0;
-                for (int i = 0; i < nRowKey; i++) {
-                    BigInteger bigMask = BigInteger.ZERO.setBit(nRowKey - 1 - i);
-                    if ((bigMask.and(cuboidId).compareTo(BigInteger.ZERO)) > 0) {
-                        // bigMask & cuboid > 0
-                        allCuboidsBitSet[j][position] = i;
-                        position++;
-                    }
-                }
-            }
-            return allCuboidsBitSet;
-        }
-
         private HLLCounter[] getInitCuboidsHLL(int cuboidSize, int hllPrecision) {
             HLLCounter[] cuboidsHLL = new HLLCounter[cuboidSize];
             for (int i = 0; i < cuboidSize; i++) {
@@ -260,15 +251,15 @@ public class FlatTableToCostUtils {
         }
 
         private void init() {
-            Integer[][] cuboidsBitSet = getCuboidBitSet(cuboidIds, rowKeyCount);
+            int[][] cuboidsBitSet = getCuboidBitSet(cuboidIds, rowKeyCount);
             HLLCounter[] cuboidsHLL = getInitCuboidsHLL(cuboidIds.length, hllPrecision);
-            cuboidStatCalculator = new CuboidStatCalculator(rowkeyColumnIndexes, cuboidIds, cuboidsBitSet, true,
-                    cuboidsHLL);
+            cuboidStatCalculator = new ColumnarCuboidStatCalculator(rowkeyColumnIndexes, cuboidIds, cuboidsBitSet,
+                    cuboidsHLL, ColumnarCuboidStatCalculator.DEFAULT_BATCH_SIZE);
             initialized = true;
         }
 
         @Override
-        public Iterator<Tuple2<BigInteger, byte[]>> call(Iterator<String[]> iterator) throws Exception {
+        public Iterator<Tuple2<BigInteger, byte[]>> call(Iterator<Row> iterator) throws Exception {
             if (initialized == false) {
                 // just sync this object
                 synchronized (this) {
@@ -281,12 +272,13 @@ public class FlatTableToCostUtils {
             // One tuple is a cost pair, the left is the cuboid and the right is the cost
             int rowCount = 0;
             while (iterator.hasNext()) {
-                String[] row = iterator.next();
+                Row row = iterator.next();
                 if (rowCount % 100 < samplingPercent) {
                     cuboidStatCalculator.putRow(row);
                 }
                 rowCount++;
             }
+            cuboidStatCalculator.flush();
 
             List<Tuple2<BigInteger, byte[]>> result = Lists.newArrayList();
             ByteBuffer hllBuf = ByteBuffer.allocate(BufferedMeasureCodec.DEFAULT_BUFFER_SIZE);
@@ -312,7 +304,7 @@ public class FlatTableToCostUtils {
         private final int nRowKey;
         private final int[] rowkeyColIndex;
         private final BigInteger[] cuboidIds;
-        private final Integer[][] cuboidsBitSet;
+        private final int[][] cuboidsBitSet;
         private HLLCounter[] cuboidsHLL;
 
         //about details of the new algorithm, please see KYLIN-2518
@@ -320,7 +312,7 @@ public class FlatTableToCostUtils {
         private final HashFunction hf;
         private long[] rowHashCodesLong;
 
-        public CuboidStatCalculator(int[] rowkeyColIndex, BigInteger[] cuboidIds, Integer[][] cuboidsBitSet,
+        public CuboidStatCalculator(int[] rowkeyColIndex, BigInteger[] cuboidIds, int[][] cuboidsBitSet,
                 boolean isUsePutRowKeyToHllNewAlgorithm, HLLCounter[] cuboidsHLL) {
             this.nRowKey = rowkeyColIndex.length;
             this.rowkeyColIndex = rowkeyColIndex;
@@ -401,6 +393,88 @@ public class FlatTableToCostUtils {
         }
     }
 
+    /**
+     * Columnar version of the new algorithm of {@link CuboidStatCalculator}, which produces the same hll counters.
+     *
+     * The row key columns of a batch of rows are hashed once into long arrays, column by column, then
+     * the hash of each cuboid is summed up from the column hashes and added to its hll, cuboid by cuboid.
+     * Rows are read from spark directly, without converting the whole row to strings.
+     */
+    static class ColumnarCuboidStatCalculator {
+        static final int DEFAULT_BATCH_SIZE = 1024;
+
+        private final int nRowKey;
+        private final int[] rowkeyColIndex;
+        private final BigInteger[] cuboidIds;
+        private final int[][] cuboidsBitSet;
+        private final HLLCounter[] cuboidsHLL;
+        private final HashFunction hf = Hashing.murmur3_128();
+
+        // the hash of the i-th row key column of the r-th buffered row is columnHashes[i][r]
+        private final long[][] columnHashes;
+        private final long[] cuboidHashes;
+        private int bufferedRows = 0;
+
+        public ColumnarCuboidStatCalculator(int[] rowkeyColIndex, BigInteger[] cuboidIds, int[][] cuboidsBitSet,
+                HLLCounter[] cuboidsHLL, int batchSize) {
+            this.nRowKey = rowkeyColIndex.length;
+            this.rowkeyColIndex = rowkeyColIndex;
+            this.cuboidIds = cuboidIds;
+            this.cuboidsBitSet = cuboidsBitSet;
+            this.cuboidsHLL = cuboidsHLL;
+            this.columnHashes = new long[nRowKey][batchSize];
+            this.cuboidHashes = new long[batchSize];
+        }
+
+        public void putRow(Row row) {
+            for (int i = 0; i < nRowKey; i++) {
+                Object colValue = row.get(rowkeyColIndex[i]);
+                columnHashes[i][bufferedRows] = hashOf(colValue == null ? "0" : colValue.toString()) + i;
+            }
+            if (++bufferedRows == cuboidHashes.length) {
+                flush();
+            }
+        }
+
+        /**
+         * Add the buffered rows to the hll counters, must be called after the last row.
+         */
+        public void flush() {
+            for (int i = 0, n = cuboidsBitSet.length; i < n; i++) {
+                int[] bitSet = cuboidsBitSet[i];
+                if (bitSet.length == 0) {
+                    Arrays.fill(cuboidHashes, 0, bufferedRows, 0L);
+                } else {
+                    System.arraycopy(columnHashes[bitSet[0]], 0, cuboidHashes, 0, bufferedRows);
+                }
+                for (int position = 1; position < bitSet.length; position++) {
+                    long[] hashes = columnHashes[bitSet[position]];
+                    for (int r = 0; r < bufferedRows; r++) {
+                        cuboidHashes[r] += hashes[r];
+                    }
+                }
+                HLLCounter hll = cuboidsHLL[i];
+                for (int r = 0; r < bufferedRows; r++) {
+                    hll.addHashDirectly(cuboidHashes[r]);
+                }
+            }
+            bufferedRows = 0;
+        }
+
+        // the same as Bytes.toLong(hash.asBytes()), without copying the bytes
+        private long hashOf(String colValue) {
+            return Long.reverseBytes(hf.newHasher().putString(colValue).hash().asLong());
+        }
+
+        public HLLCounter[] getHLLCounters() {
+            return cuboidsHLL;
+        }
+
+        public BigInteger[] getCuboidIds() {
+            return cuboidIds;
+        }
+    }
+
     private static void logMapperAndCuboidStatistics(Map<BigInteger, HLLCounter> cuboidHLLMap, int samplingPercentage) {
         log.debug("Total cuboid number: \t" + cuboidHLLMap.size());
         log.debug("Sampling percentage: \t" + samplingPercentage);
@@ -33,6 +33,7 @@ import org.apache.kylin.guava30.shaded.common.collect.Lists;
 import org.apache.spark.HashPartitioner;
 import org.apache.spark.api.java.function.Function2;
 import org.apache.spark.api.java.function.PairFunction;
+import org.apache.spark.dict.IllegalDictEncodeValueException;
 import org.apache.spark.dict.NBucketDictionary;
 import org.apache.spark.dict.NGlobalDictHDFSStore;
 import org.apache.spark.dict.NGlobalDictMetaInfo;
@@ -46,6 +47,7 @@ import org.apache.spark.sql.common.DebugFilesystem;
 import org.apache.spark.sql.types.DataTypes;
 import org.apache.spark.sql.types.StructField;
 import org.apache.spark.sql.types.StructType;
+import org.apache.spark.unsafe.types.UTF8String;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -80,6 +82,38 @@ public class NGlobalDictionaryV2Test extends NLocalWithSparkSessionTestBase {
         testAll(true);
     }
 
+    @Test
+    public void testOffHeapBucketDictEncode() throws IOException {
+        overwriteSystemProp("kylin.dictionary.globalV2-off-heap-encode-enabled", "true");
+        KylinConfig config = KylinConfig.getInstanceFromEnv();
+        long version = System.currentTimeMillis();
+        List<String> stringList = generateRandomData(500);
+        runWithLocalBuildGlobalDict(
+                new NGlobalDictionaryV2("t3", "a", "offheap", config.getHdfsWorkingDirectory(), version), stringList,
+                false);
+        // the second version has both PREV and CURR bucket files
+        stringList.addAll(generateRandomData(500));
+        runWithLocalBuildGlobalDict(
+                new NGlobalDictionaryV2("t3", "a", "offheap", config.getHdfsWorkingDirectory(), version + 1),
+                stringList, false);
+
+        NGlobalDictionaryV2 dict = new NGlobalDictionaryV2("t3", "a", "offheap", config.getHdfsWorkingDirectory(),
+                version + 1);
+
+        NGlobalDictMetaInfo metadata = dict.getMetaInfo();
+        Assert.assertEquals(1000, metadata.getDictCount());
+        for (int i = 0; i < metadata.getBucketSize(); i++) {
+            Object2LongMap<String> expected = dict.loadBucketDictionary(i).getAbsoluteDictMap();
+            NBucketDictionary encodeDict = dict.loadBucketDictionary(i, true);
+            Assert.assertTrue(encodeDict.getAbsoluteDictMap().isEmpty());
+            for (Object2LongMap.Entry<String> entry : expected.object2LongEntrySet()) {
+                Assert.assertEquals(entry.getLongValue(), encodeDict.encode(entry.getKey()));
+                Assert.assertEquals(entry.getLongValue(), encodeDict.encode(UTF8String.fromString(entry.getKey())));
+            }
+            Assert.assertThrows(IllegalDictEncodeValueException.class, () -> encodeDict.encode("absent_value"));
+        }
+    }
+
     private void testAll(boolean isS3Store) throws IOException {
         roundTest(5, isS3Store);
         roundTest(50, isS3Store);
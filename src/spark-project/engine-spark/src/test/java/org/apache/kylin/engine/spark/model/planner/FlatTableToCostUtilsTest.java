@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kylin.engine.spark.model.planner;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import org.apache.kylin.engine.spark.model.planner.FlatTableToCostUtils.ColumnarCuboidStatCalculator;
+import org.apache.kylin.engine.spark.model.planner.FlatTableToCostUtils.CuboidStatCalculator;
+import org.apache.kylin.measure.hllc.HLLCounter;
+import org.apache.kylin.measure.hllc.RegisterType;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.RowFactory;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FlatTableToCostUtilsTest {
+
+    private static final int HLL_PRECISION = 14;
+
+    @Test
+    public void testGetCuboidBitSet() {
+        BigInteger[] cuboidIds = { BigInteger.valueOf(0b101), BigInteger.ZERO, BigInteger.valueOf(0b111) };
+        int[][] bitSet = FlatTableToCostUtils.getCuboidBitSet(cuboidIds, 3);
+        Assert.assertArrayEquals(new int[] { 0, 2 }, bitSet[0]);
+        Assert.assertArrayEquals(new int[] {}, bitSet[1]);
+        Assert.assertArrayEquals(new int[] { 0, 1, 2 }, bitSet[2]);
+
+        // cuboid ids which do not fit in a long
+        BigInteger wide = BigInteger.ZERO.setBit(69).setBit(64).setBit(0);
+        bitSet = FlatTableToCostUtils.getCuboidBitSet(new BigInteger[] { wide, BigInteger.valueOf(0b10) }, 70);
+        Assert.assertArrayEquals(new int[] { 0, 5, 69 }, bitSet[0]);
+        Assert.assertArrayEquals(new int[] { 68 }, bitSet[1]);
+    }
+
+    @Test
+    public void testColumnarSameAsRowBased() {
+        Random rand = new Random(1);
+        int nColumn = 6;
+        int[] rowkeyColIndex = { 5, 0, 3, 1 };
+        BigInteger[] cuboidIds = new BigInteger[16];
+        for (int i = 0; i < cuboidIds.length; i++) {
+            cuboidIds[i] = BigInteger.valueOf(i);
+        }
+        int[][] bitSet = FlatTableToCostUtils.getCuboidBitSet(cuboidIds, rowkeyColIndex.length);
+
+        for (int batchSize : new int[] { 1, 7, ColumnarCuboidStatCalculator.DEFAULT_BATCH_SIZE }) {
+            CuboidStatCalculator rowBased = new CuboidStatCalculator(rowkeyColIndex, cuboidIds, bitSet, true,
+                    newCounters(cuboidIds.length));
+            ColumnarCuboidStatCalculator columnar = new ColumnarCuboidStatCalculator(rowkeyColIndex, cuboidIds,
+                    bitSet, newCounters(cuboidIds.length), batchSize);
+            for (int n = 0; n < 5000; n++) {
+                Object[] values = new Object[nColumn];
+                String[] strings = new String[nColumn];
+                for (int i = 0; i < nColumn; i++) {
+                    values[i] = randomValue(rand, i);
+                    strings[i] = values[i] == null ? null : values[i].toString();
+                }
+                rowBased.putRow(strings);
+                columnar.putRow(RowFactory.create(values));
+            }
+            columnar.flush();
+
+            HLLCounter[] expected = rowBased.getHLLCounters();
+            HLLCounter[] actual = columnar.getHLLCounters();
+            for (int i = 0; i < cuboidIds.length; i++) {
+                Assert.assertEquals(expected[i].getCountEstimate(), actual[i].getCountEstimate());
+                Assert.assertEquals(expected[i], actual[i]);
+            }
+            Assert.assertEquals(1, actual[0].getCountEstimate());
+            Assert.assertTrue(actual[cuboidIds.length - 1].getCountEstimate() > 1000);
+        }
+    }
+
+    @Test
+    public void testFlushWithoutRows() {
+        BigInteger[] cuboidIds = { BigInteger.valueOf(0b11) };
+        ColumnarCuboidStatCalculator columnar = new ColumnarCuboidStatCalculator(new int[] { 0, 1 }, cuboidIds,
+                FlatTableToCostUtils.getCuboidBitSet(cuboidIds, 2), newCounters(1), 16);
+        columnar.flush();
+        Row row = RowFactory.create("a", null);
+        columnar.putRow(row);
+        columnar.putRow(row);
+        columnar.flush();
+        columnar.flush();
+        Assert.assertEquals(1, columnar.getHLLCounters()[0].getCountEstimate());
+    }
+
+    private static HLLCounter[] newCounters(int n) {
+        HLLCounter[] counters = new HLLCounter[n];
+        for (int i = 0; i < n; i++) {
+            counters[i] = new HLLCounter(HLL_PRECISION, RegisterType.DENSE);
+        }
+        return counters;
+    }
+
+    private static Object randomValue(Random rand, int column) {
+        switch (column % 3) {
+        case 0:
+            return rand.nextInt(10) == 0 ? null : "v" + rand.nextInt(20);
+        case 1:
+            return rand.nextInt(100);
+        default:
+            return (long) rand.nextInt(1000);
+        }
+    }
+}
@@ -17,18 +17,50 @@
  */
 package org.apache.kylin.source.jdbc;
 
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 
+import org.apache.commons.lang3.StringUtils;
 import org.apache.kylin.common.KylinConfig;
+import org.apache.kylin.guava30.shaded.common.collect.Lists;
+import org.apache.kylin.guava30.shaded.common.collect.Maps;
+import org.apache.kylin.guava30.shaded.common.collect.Sets;
 import org.apache.kylin.sdk.datasource.adaptor.AdaptorConfig;
 import org.apache.kylin.sdk.datasource.adaptor.DefaultAdaptor;
+import org.apache.kylin.sdk.datasource.framework.JdbcConnector;
+import org.apache.kylin.sdk.datasource.framework.SourceConnectorFactory;
+import org.apache.spark.sql.DataFrameReader;
 import org.apache.spark.sql.Dataset;
 import org.apache.spark.sql.Row;
 import org.apache.spark.sql.SparkSession;
 
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
 // for reflection
+@Slf4j
 public class DefaultSourceConnector extends DefaultAdaptor implements ISourceConnector {
 
+    // The column preferred to split the read of a table, tried before its primary key. Not passed to spark.
+    public static final String SPLIT_COLUMN = "kylin.split-column";
+
+    private static final String SPLIT_TABLE_ALIAS = "KYLIN_SPLIT_TABLE";
+
+    private static final Set<Integer> INTEGER_TYPES = Sets.newHashSet(Types.TINYINT, Types.SMALLINT, Types.INTEGER,
+            Types.BIGINT);
+
+    private static final Set<Integer> DECIMAL_TYPES = Sets.newHashSet(Types.NUMERIC, Types.DECIMAL);
+
     public DefaultSourceConnector(AdaptorConfig config) throws Exception {
         super(config);
     }
@@ -38,21 +70,164 @@ public class DefaultSourceConnector extends DefaultAdaptor implements ISourceCon
         super();
     }
 
+    /**
+     * Reads the source table in kylin.source.jdbc.read-partitions parallel queries if it has a split column,
+     * that is its partition column or the leading column of its primary key, of integer or date type.
+     * Otherwise, or if the bounds of the split column can't be sampled, it's read by a single query.
+     */
     @Override
     public Dataset<Row> getSourceData(KylinConfig kylinConfig, SparkSession sparkSession, String sql,
             Map<String, String> params) {
+        Map<String, String> options = Maps.newHashMap(params);
+        String preferredColumn = options.remove(SPLIT_COLUMN);
+        int numPartitions = kylinConfig.getJdbcReadPartitions();
+        SplitBounds bounds = null;
+        if (numPartitions > 1 && options.containsKey("table")) {
+            bounds = findSplitBounds(kylinConfig, sql, options.get("table"), preferredColumn);
+        }
+        if (bounds == null) {
+            return newReader(kylinConfig, sparkSession).option("query", sql).options(options).load();
+        }
+        log.info("Read {} in {} partitions split by {} from {} to {}", options.get("table"), numPartitions,
+                bounds.getColumn(), bounds.getLower(), bounds.getUpper());
+        // spark doesn't split a read with the query option, the query is wrapped as a table instead
+        return newReader(kylinConfig, sparkSession).option("dbtable", "(" + sql + ") " + SPLIT_TABLE_ALIAS)
+                .option("partitionColumn", bounds.getColumn()).option("lowerBound", bounds.getLower())
+                .option("upperBound", bounds.getUpper()).option("numPartitions", numPartitions).options(options)
+                .load();
+    }
+
+    @Override
+    public Dataset<Row> getCountData(KylinConfig kylinConfig, SparkSession sparkSession, String sql,
+            Map<String, String> params) {
+        Map<String, String> options = Maps.newHashMap(params);
+        options.remove(SPLIT_COLUMN);
+        return newReader(kylinConfig, sparkSession).option("query", sql).options(options).load();
+    }
+
+    private DataFrameReader newReader(KylinConfig kylinConfig, SparkSession sparkSession) {
         String url = kylinConfig.getJdbcConnectionUrl();
         String user = kylinConfig.getJdbcUser();
         String password = kylinConfig.getJdbcPass();
         String driver = kylinConfig.getJdbcDriver();
-        return sparkSession.read().format("jdbc").option("url", url).option("user", user).option("password", password)
-                .option("driver", driver).option("query", sql).options(params).load();
+        DataFrameReader reader = sparkSession.read().format("jdbc").option("url", url).option("user", user)
+                .option("password", password).option("driver", driver);
+        if (kylinConfig.getJdbcFetchSize() > 0) {
+            reader = reader.option("fetchsize", kylinConfig.getJdbcFetchSize());
+        }
+        return reader;
     }
 
-    @Override
-    public Dataset<Row> getCountData(KylinConfig kylinConfig, SparkSession sparkSession, String sql,
-            Map<String, String> params) {
-        return getSourceData(kylinConfig, sparkSession, sql, params);
+    private SplitBounds findSplitBounds(KylinConfig kylinConfig, String sql, String table, String preferredColumn) {
+        try (JdbcConnector connector = SourceConnectorFactory.getJdbcConnector(kylinConfig);
+                Connection connection = connector.getConnection()) {
+            return findSplitBounds(connection, sql, table, preferredColumn);
+        } catch (Exception e) {
+            log.warn("Failed to find the split column of {}, read it by a single query.", table, e);
+            return null;
+        }
+    }
+
+    /**
+     * @return null if the table has no split column, or it holds a single value or nulls only
+     */
+    static SplitBounds findSplitBounds(Connection connection, String sql, String table, String preferredColumn)
+            throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        String[] schemaAndTable = StringUtils.split(table, '.');
+        String schema = schemaAndTable.length > 1 ? toStoredCase(metaData, schemaAndTable[0]) : null;
+        String tableName = toStoredCase(metaData, schemaAndTable[schemaAndTable.length - 1]);
+
+        // column name in upper case -> the name and type of the column
+        Map<String, ColumnType> columnTypes = Maps.newHashMap();
+        try (ResultSet rs = metaData.getColumns(null, schema, tableName, null)) {
+            while (rs.next()) {
+                String name = rs.getString("COLUMN_NAME");
+                columnTypes.put(name.toUpperCase(Locale.ROOT),
+                        new ColumnType(name, rs.getInt("DATA_TYPE"), rs.getInt("DECIMAL_DIGITS")));
+            }
+        }
+        List<String> candidates = Lists.newArrayList();
+        if (StringUtils.isNotBlank(preferredColumn)) {
+            candidates.add(preferredColumn);
+        }
+        try (ResultSet rs = metaData.getPrimaryKeys(null, schema, tableName)) {
+            while (rs.next()) {
+                // the other columns of a composite key are hardly spread over the whole range
+                if (rs.getInt("KEY_SEQ") == 1) {
+                    candidates.add(rs.getString("COLUMN_NAME"));
+                }
+            }
+        }
+        for (String candidate : candidates) {
+            ColumnType columnType = columnTypes.get(candidate.toUpperCase(Locale.ROOT));
+            if (columnType != null && (columnType.isInteger() || columnType.getType() == Types.DATE)) {
+                return sampleBounds(connection, sql, columnType);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The metadata patterns are matched case-sensitively, an unquoted identifier is looked up in the case
+     * the database stores it.
+     */
+    private static String toStoredCase(DatabaseMetaData metaData, String identifier) throws SQLException {
+        if (metaData.storesUpperCaseIdentifiers()) {
+            return identifier.toUpperCase(Locale.ROOT);
+        }
+        if (metaData.storesLowerCaseIdentifiers()) {
+            return identifier.toLowerCase(Locale.ROOT);
+        }
+        return identifier;
     }
 
+    private static SplitBounds sampleBounds(Connection connection, String sql, ColumnType column)
+            throws SQLException {
+        String name = column.getName();
+        String boundsSql = String.format(Locale.ROOT, "select min(%s), max(%s) from (%s) %s", name, name, sql,
+                SPLIT_TABLE_ALIAS);
+        try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery(boundsSql)) {
+            if (!rs.next() || rs.getObject(1) == null) {
+                return null;
+            }
+            String lower;
+            String upper;
+            if (column.getType() == Types.DATE) {
+                lower = rs.getDate(1).toString();
+                upper = rs.getDate(2).toString();
+            } else {
+                BigDecimal min = rs.getBigDecimal(1);
+                BigDecimal max = rs.getBigDecimal(2);
+                // spark takes the bounds of a numeric column as long
+                if (min.compareTo(BigDecimal.valueOf(Long.MIN_VALUE)) < 0
+                        || max.compareTo(BigDecimal.valueOf(Long.MAX_VALUE)) > 0) {
+                    return null;
+                }
+                lower = String.valueOf(min.longValue());
+                upper = String.valueOf(max.longValue());
+            }
+            return lower.equals(upper) ? null : new SplitBounds(name, lower, upper);
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    static class SplitBounds {
+        private final String column;
+        private final String lower;
+        private final String upper;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class ColumnType {
+        private final String name;
+        private final int type;
+        private final int scale;
+
+        boolean isInteger() {
+            return INTEGER_TYPES.contains(type) || (DECIMAL_TYPES.contains(type) && scale == 0);
+        }
+    }
 }
@@ -64,6 +64,10 @@ public class JdbcSourceInput implements NSparkCubingEngine.NSparkCubingSource {
         KylinConfig config = table.getConfig();
         ISourceConnector connector = (ISourceConnector) ClassUtil.newInstance(config.getJdbcSourceConnector());
         parameters.put("table", table.getIdentity());
+        // the split column is an option of DefaultSourceConnector only, other connectors may pass it to spark
+        if (connector instanceof DefaultSourceConnector && table.getPartitionColumn() != null) {
+            parameters.put(DefaultSourceConnector.SPLIT_COLUMN, table.getPartitionColumn());
+        }
         log.info("Use source connector: {}", connector.getClass().getCanonicalName());
         Dataset<Row> dataset = connector.getSourceData(config, ss, sql, parameters);
         StructType sparkSchema = dataset.schema();
@@ -0,0 +1,141 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kylin.source.jdbc;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import org.apache.kylin.guava30.shaded.common.collect.Maps;
+import org.apache.kylin.source.jdbc.DefaultSourceConnector.SplitBounds;
+import org.apache.spark.sql.Dataset;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.SparkSession;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class DefaultSourceConnectorTest extends JdbcTestBase {
+    private static final String TABLE = "SSB.SPLIT_TEST";
+    private static final String SQL = "select ID, DT, NAME from " + TABLE;
+    private static final int ROWS = 100;
+
+    private static SparkSession ss;
+
+    @BeforeClass
+    public static void setUp() throws SQLException {
+        JdbcTestBase.setUp();
+        ss = SparkSession.builder().master("local").getOrCreate();
+        try (Statement statement = h2Conn.createStatement()) {
+            statement.execute("create table " + TABLE + " (ID bigint primary key, DT date, NAME varchar(20))");
+        }
+        try (PreparedStatement statement = h2Conn.prepareStatement("insert into " + TABLE + " values (?, ?, ?)")) {
+            for (int i = 1; i <= ROWS; i++) {
+                statement.setLong(1, i);
+                statement.setDate(2, Date.valueOf(LocalDate.of(2012, 1, 1).plusDays(i % 10)));
+                statement.setString(3, "name" + i);
+                statement.execute();
+            }
+        }
+    }
+
+    @AfterClass
+    public static void tearDown() throws SQLException {
+        try (Statement statement = h2Conn.createStatement()) {
+            statement.execute("drop table " + TABLE);
+        }
+        ss.stop();
+    }
+
+    @Test
+    public void testFindSplitBoundsByPrimaryKey() throws SQLException {
+        SplitBounds bounds = DefaultSourceConnector.findSplitBounds(h2Conn, SQL, TABLE, null);
+        Assert.assertEquals("ID", bounds.getColumn());
+        Assert.assertEquals("1", bounds.getLower());
+        Assert.assertEquals("100", bounds.getUpper());
+
+        // not a numeric or date column, fall back to the primary key
+        bounds = DefaultSourceConnector.findSplitBounds(h2Conn, SQL, TABLE, "NAME");
+        Assert.assertEquals("ID", bounds.getColumn());
+
+        // the table name is looked up in the case the database stores it
+        bounds = DefaultSourceConnector.findSplitBounds(h2Conn, SQL, "ssb.split_test", null);
+        Assert.assertEquals("ID", bounds.getColumn());
+    }
+
+    @Test
+    public void testFindSplitBoundsByPreferredColumn() throws SQLException {
+        SplitBounds bounds = DefaultSourceConnector.findSplitBounds(h2Conn, SQL, TABLE, "dt");
+        Assert.assertEquals("DT", bounds.getColumn());
+        Assert.assertEquals("2012-01-01", bounds.getLower());
+        Assert.assertEquals("2012-01-10", bounds.getUpper());
+    }
+
+    @Test
+    public void testNoSplitBounds() throws SQLException {
+        // no primary key
+        Assert.assertNull(DefaultSourceConnector.findSplitBounds(h2Conn, "select * from SSB.CUSTOMER",
+                "SSB.CUSTOMER", null));
+        // a single value
+        Assert.assertNull(DefaultSourceConnector.findSplitBounds(h2Conn, SQL + " where ID = 3", TABLE, null));
+        // no value
+        Assert.assertNull(DefaultSourceConnector.findSplitBounds(h2Conn, SQL + " where ID < 0", TABLE, null));
+    }
+
+    @Test
+    public void testPartitionedRead() {
+        DefaultSourceConnector connector = new DefaultSourceConnector();
+        Dataset<Row> single = connector.getSourceData(getTestConfig(), ss, SQL, newParams(null));
+        Assert.assertEquals(1, single.rdd().getNumPartitions());
+
+        overwriteSystemProp("kylin.source.jdbc.read-partitions", "4");
+        overwriteSystemProp("kylin.source.jdbc.fetch-size", "10");
+        Dataset<Row> byKey = connector.getSourceData(getTestConfig(), ss, SQL, newParams(null));
+        Assert.assertEquals(4, byKey.rdd().getNumPartitions());
+        Assert.assertEquals(sortedIds(single), sortedIds(byKey));
+
+        Dataset<Row> byDate = connector.getSourceData(getTestConfig(), ss, SQL, newParams("DT"));
+        Assert.assertEquals(4, byDate.rdd().getNumPartitions());
+        Assert.assertEquals(sortedIds(single), sortedIds(byDate));
+
+        List<Long> expected = LongStream.rangeClosed(1, ROWS).boxed().collect(Collectors.toList());
+        Assert.assertEquals(expected, sortedIds(byKey));
+        Assert.assertEquals(ROWS, connector.getCountData(getTestConfig(), ss, "select count(*) from " + TABLE,
+                newParams("DT")).first().getLong(0));
+    }
+
+    private static Map<String, String> newParams(String splitColumn) {
+        Map<String, String> params = Maps.newHashMap();
+        params.put("table", TABLE);
+        if (splitColumn != null) {
+            params.put(DefaultSourceConnector.SPLIT_COLUMN, splitColumn);
+        }
+        return params;
+    }
+
+    private static List<Long> sortedIds(Dataset<Row> dataset) {
+        return dataset.collectAsList().stream().map(row -> row.getLong(0)).sorted().collect(Collectors.toList());
+    }
+}
@@ -19,6 +19,7 @@
 package org.apache.kylin.query.mask;
 
 import java.util.List;
+import java.util.Set;
 
 import org.apache.calcite.rel.RelNode;
 import org.apache.kylin.guava30.shaded.common.collect.Lists;
@@ -51,4 +52,9 @@ public class CompositeQueryResultMasks implements QueryResultMask {
         }
         return masked;
     }
+
+    @Override
+    public boolean hasMask(Set<String> tables) {
+        return queryResultMasks.stream().anyMatch(mask -> mask.hasMask(tables));
+    }
 }
@@ -139,6 +139,11 @@ public class QueryDependentColumnMask implements QueryResultMask {
         return dfWithIndexedCol.select(columns).toDF(df.columns());
     }
 
+    @Override
+    public boolean hasMask(Set<String> tables) {
+        return dependentInfo != null && tables.stream().anyMatch(dependentInfo::needMask);
+    }
+
     private String maskDependentCondition(Dataset<Row> dfWithIndexedCol, ResultColumnMaskInfo maskInfo) {
         StringBuilder condExpr = new StringBuilder();
         for (ResultDependentValues dependentValue : maskInfo.dependentValues) {
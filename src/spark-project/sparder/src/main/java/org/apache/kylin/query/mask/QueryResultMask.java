@@ -18,6 +18,8 @@
 
 package org.apache.kylin.query.mask;
 
+import java.util.Set;
+
 import org.apache.calcite.rel.RelNode;
 import org.apache.spark.sql.Dataset;
 import org.apache.spark.sql.Row;
@@ -29,4 +31,10 @@ public interface QueryResultMask {
     void doSetRootRelNode(RelNode relNode);
 
     Dataset<Row> doMaskResult(Dataset<Row> df);
+
+    /**
+     * @param tables identities of tables, like DB.TABLE
+     * @return whether any column of the tables may be masked for the current user
+     */
+    boolean hasMask(Set<String> tables);
 }
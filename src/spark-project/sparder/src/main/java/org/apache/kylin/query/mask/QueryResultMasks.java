@@ -18,6 +18,8 @@
 
 package org.apache.kylin.query.mask;
 
+import java.util.Set;
+
 import org.apache.calcite.rel.RelNode;
 import org.apache.kylin.common.KylinConfig;
 import org.apache.spark.sql.Dataset;
@@ -46,6 +48,10 @@ public final class QueryResultMasks {
         return THREAD_LOCAL.get().doMaskResult(df);
     }
 
+    public static boolean hasMask(Set<String> tables) {
+        return THREAD_LOCAL.get() != null && THREAD_LOCAL.get().hasMask(tables);
+    }
+
     public static void setRootRelNode(RelNode relNode) {
         if (THREAD_LOCAL.get() != null) {
             THREAD_LOCAL.get().doSetRootRelNode(relNode);
@@ -20,6 +20,7 @@ package org.apache.kylin.query.mask;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.TimeZone;
 import java.util.stream.Collectors;
 
@@ -131,6 +132,11 @@ public class QuerySensitiveDataMask implements QueryResultMask {
         return masked ? dfWithIndexedCol.select(columns).toDF(df.columns()) : df;
     }
 
+    @Override
+    public boolean hasMask(Set<String> tables) {
+        return maskInfo != null && tables.stream().anyMatch(maskInfo::hasMask);
+    }
+
     private RelDataType getResultColumnDataType(int columnIdx) {
         return rootRelNode.getRowType().getFieldList().get(columnIdx).getType();
     }
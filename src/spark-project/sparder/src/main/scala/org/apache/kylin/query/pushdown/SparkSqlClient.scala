@@ -191,8 +191,8 @@ object SparkSqlClient {
 
       NProjectManager.getProjectConfig(QueryContext.current().getProject).isQueryUseIterableCollectApi
 
-      val results = if (NProjectManager.getProjectConfig(QueryContext.current().getProject)
-        .isQueryUseIterableCollectApi) {
+      val results = if (QueryContext.current().isIterableResult
+        || NProjectManager.getProjectConfig(QueryContext.current().getProject).isQueryUseIterableCollectApi) {
         df.collectToIterator()
       } else {
         df.toIterator()
@@ -37,6 +37,7 @@ import org.apache.kylin.metadata.project.NProjectManager
 import org.apache.kylin.metadata.query.{BigQueryThresholdUpdater, StructField}
 import org.apache.kylin.metadata.state.QueryShareStateManager
 import org.apache.kylin.query.engine.RelColumnMetaDataExtractor
+import org.apache.kylin.query.engine.data.ResultRow
 import org.apache.kylin.query.engine.exec.ExecuteResult
 import org.apache.kylin.query.pushdown.SparkSqlClient.readPushDownResultRow
 import org.apache.kylin.query.relnode.ContextUtil
@@ -343,8 +344,8 @@ object ResultPlan extends LogEx {
       QueryContext.current.record("executed_plan")
       QueryContext.currentTrace().endLastSpan()
       val jobTrace = new SparkJobTrace(jobGroup, QueryContext.currentTrace(), QueryContext.current().getQueryId, sparkContext)
-      val results = if (NProjectManager.getProjectConfig(QueryContext.current().getProject)
-        .isQueryUseIterableCollectApi) {
+      val results = if (QueryContext.current().isIterableResult
+        || NProjectManager.getProjectConfig(QueryContext.current().getProject).isQueryUseIterableCollectApi) {
         df.collectToIterator()
       } else {
         df.toIterator()
@@ -473,6 +474,8 @@ object ResultPlan extends LogEx {
   }
 
   def readResultRow(resultRows: java.util.Iterator[Row], resultTypes: mutable.Buffer[RelDataTypeField]): lang.Iterable[util.List[String]] = {
+    // only the binary result format needs the values, the json rows don't keep them
+    val keepValues = QueryContext.current().isBinaryResult
     () =>
       new java.util.Iterator[util.List[String]] {
 
@@ -483,9 +486,11 @@ object ResultPlan extends LogEx {
           if (Thread.interrupted()) {
             throw new InterruptedException
           }
-          row.toSeq.zip(resultTypes).map {
+          val values = row.toSeq.map(_.asInstanceOf[AnyRef]).toArray
+          val strings = values.zip(resultTypes).map {
             case (value, relField) => SparderTypeUtil.convertToStringWithCalciteType(value, relField.getType)
-          }.asJava
+          }
+          if (keepValues) new ResultRow(strings, values) else util.Arrays.asList(strings: _*)
         }
       }
   }
@@ -17,70 +17,125 @@
  */
 package org.apache.spark.sql.manager
 
+import java.util.concurrent.TimeUnit
+
 import org.apache.hadoop.fs.Path
 import org.apache.kylin.common.{KapConfig, KylinConfig}
-import org.apache.kylin.metadata.model.{ColumnDesc, NTableMetadataManager}
+import org.apache.kylin.guava30.shaded.common.cache.{Cache, CacheBuilder, Weigher}
+import org.apache.kylin.metadata.model.{ColumnDesc, NTableMetadataManager, TableDesc}
 import org.apache.kylin.query.util.PartitionsFilter.{PARTITIONS, PARTITION_COL}
 import org.apache.spark.internal.Logging
-import org.apache.spark.sql.catalyst.plans.logical.LogicalPlan
+import org.apache.spark.sql.catalyst.analysis.MultiInstanceRelation
+import org.apache.spark.sql.catalyst.plans.logical.{LocalRelation, LogicalPlan}
 import org.apache.spark.sql.execution.datasources.parquet.ParquetFileFormat
 import org.apache.spark.sql.execution.datasources.{HadoopFsRelation, InMemoryFileIndex, LogicalRelation}
 import org.apache.spark.sql.execution.utils.DeriveTableColumnInfo
 import org.apache.spark.sql.functions.col
 import org.apache.spark.sql.types.{StructField, StructType}
 import org.apache.spark.sql.util.SparderTypeUtil
-import org.apache.spark.sql.{SparderEnv, SparkOperation}
-
-import scala.collection.mutable.ListBuffer
+import org.apache.spark.sql.{Dataset, SparderEnv, SparkOperation, SparkSession}
 
 // scalastyle:off
 object SparderLookupManager extends Logging {
 
+  private val INTERNAL_TABLE_PATH = "/Internal/"
+
+  // a relation over the snapshot files only holds the file statuses
+  private val FILE_RELATION_WEIGHT = 1024
+
+  // a snapshot path is never rewritten, the partitions of a partitioned snapshot may be added though
+  private case class LookupKey(session: SparkSession, sourcePath: String, partitions: String)
+
+  private lazy val lookupCache: Cache[LookupKey, LogicalPlan] = {
+    val config = KylinConfig.getInstanceFromEnv
+    CacheBuilder.newBuilder
+      .maximumWeight(config.getQueryLookupCacheMaxBytes)
+      .weigher(new Weigher[LookupKey, LogicalPlan] {
+        override def weigh(key: LookupKey, relation: LogicalPlan): Int = relation match {
+          case local: LocalRelation => local.computeStats().sizeInBytes.min(Int.MaxValue).toInt
+          case _ => FILE_RELATION_WEIGHT
+        }
+      })
+      .expireAfterAccess(config.getQueryLookupCacheExpireSeconds, TimeUnit.SECONDS)
+      .build[LookupKey, LogicalPlan]()
+  }
+
   def create(name: String,
              sourcePath: String,
              kylinConfig: KylinConfig): LogicalPlan = {
-    val names = name.split("@")
-    val projectName = names.apply(0)
-    val tableName = names.apply(1)
-    val metaMgr = NTableMetadataManager.getInstance(kylinConfig, projectName)
-    val tableDesc = metaMgr.getTableDesc(tableName)
-    val dfTableName = Integer.toHexString(System.identityHashCode(name))
-
-    val orderedCol = new ListBuffer[(ColumnDesc, Int)]
-    var partitionCol: (ColumnDesc, Int) = null
-    for ((col, index) <- tableDesc.getColumns.zipWithIndex) {
-      if (!col.getName.equals(tableDesc.getSnapshotPartitionCol)) {
-        orderedCol.append((col, index))
-      } else {
-        partitionCol = (col, index)
-      }
+    val tableDesc = getTableDesc(name, kylinConfig)
+    if (sourcePath.contains(INTERNAL_TABLE_PATH)) {
+      val names = name.split("@")
+      val sql = f"select * from INTERNAL_CATALOG.${names.apply(0)}.${names.apply(1)}"
+      val plan = SparderEnv.getSparkSession.sql(sql).queryExecution.analyzed
+      withColumnAliases(name, dataColumns(tableDesc), plan)
+    } else {
+      val relation = snapshotRelation(tableDesc, sourcePath, SparderEnv.getSparkSession)
+      withColumnAliases(name, dataColumns(tableDesc) ++ partitionColumn(tableDesc), relation)
     }
+  }
 
-    val originSchema = StructType(orderedCol.map { case (col, _) => StructField(col.getName, SparderTypeUtil.toSparkType(col.getType)) })
+  /**
+   * Same as create, but the relation of a snapshot is cached, a small snapshot is decoded once and kept in memory
+   * as a local relation. Scanning a local relation needs neither file listing nor a spark job reading parquet,
+   * and a join with it is broadcast with its exact size.
+   */
+  def getOrCreate(name: String,
+                  sourcePath: String,
+                  kylinConfig: KylinConfig): LogicalPlan = {
+    if (!kylinConfig.isQueryLookupCacheEnabled || sourcePath.contains(INTERNAL_TABLE_PATH)) {
+      return create(name, sourcePath, kylinConfig)
+    }
+    val tableDesc = getTableDesc(name, kylinConfig)
     val sparkSession = SparderEnv.getSparkSession
-    val plan = if (sourcePath.contains("/Internal/")) {
-      val sql = f"select * from INTERNAL_CATALOG.$projectName.$tableName"
-      sparkSession.sql(sql).queryExecution.analyzed
-    } else {
-      val options = new scala.collection.mutable.HashMap[String, String]
-      if (partitionCol != null) {
-        orderedCol.append(partitionCol)
-        options.put(PARTITION_COL, tableDesc.getSnapshotPartitionCol)
-        options.put(PARTITIONS, String.join(",", tableDesc.getSnapshotPartitions.keySet()))
-        options.put("mapreduce.input.pathFilter.class", "org.apache.kylin.query.util.PartitionsFilter")
-      }
-      // create relation
-      val resourcePath = new Path(KapConfig.getInstanceFromEnv.getReadHdfsWorkingDirectory + sourcePath)
-      val fileIndex = new InMemoryFileIndex(sparkSession, Seq(resourcePath), options.toMap, Option(originSchema))
-      val fsRelation = HadoopFsRelation(
-        fileIndex,
-        partitionSchema = fileIndex.partitionSchema,
-        dataSchema = originSchema,
-        bucketSpec = None,
-        new ParquetFileFormat,
-        options.toMap)(sparkSession)
-      LogicalRelation(fsRelation)
+    val partitions = if (tableDesc.getSnapshotPartitionCol == null) ""
+    else String.join(",", tableDesc.getSnapshotPartitions.keySet())
+    val relation = lookupCache.get(LookupKey(sparkSession, sourcePath, partitions),
+      () => cacheableRelation(tableDesc, sourcePath, sparkSession, kylinConfig))
+    // new expression ids for every use, a query may join the same lookup table twice
+    val plan = relation.asInstanceOf[MultiInstanceRelation].newInstance()
+    withColumnAliases(name, dataColumns(tableDesc) ++ partitionColumn(tableDesc), plan)
+  }
+
+  private def cacheableRelation(tableDesc: TableDesc,
+                                sourcePath: String,
+                                sparkSession: SparkSession,
+                                kylinConfig: KylinConfig): LogicalPlan = {
+    val relation = snapshotRelation(tableDesc, sourcePath, sparkSession)
+    val sizeInBytes = relation.relation.sizeInBytes
+    if (sizeInBytes > kylinConfig.getQueryLookupLocalRelationMaxBytes) {
+      return relation
+    }
+    val start = System.currentTimeMillis()
+    val rows = Dataset.ofRows(sparkSession, relation).queryExecution.executedPlan.executeCollect()
+    logInfo(s"Decoded snapshot $sourcePath of ${tableDesc.getIdentity} into ${rows.length} rows" +
+      s" in ${System.currentTimeMillis() - start} ms, file size $sizeInBytes")
+    LocalRelation(relation.output, rows.toSeq)
+  }
+
+  private def snapshotRelation(tableDesc: TableDesc, sourcePath: String, sparkSession: SparkSession): LogicalRelation = {
+    val originSchema = StructType(dataColumns(tableDesc).map { case (col, _) => StructField(col.getName, SparderTypeUtil.toSparkType(col.getType)) })
+    val options = new scala.collection.mutable.HashMap[String, String]
+    if (partitionColumn(tableDesc).isDefined) {
+      options.put(PARTITION_COL, tableDesc.getSnapshotPartitionCol)
+      options.put(PARTITIONS, String.join(",", tableDesc.getSnapshotPartitions.keySet()))
+      options.put("mapreduce.input.pathFilter.class", "org.apache.kylin.query.util.PartitionsFilter")
     }
+    // create relation
+    val resourcePath = new Path(KapConfig.getInstanceFromEnv.getReadHdfsWorkingDirectory + sourcePath)
+    val fileIndex = new InMemoryFileIndex(sparkSession, Seq(resourcePath), options.toMap, Option(originSchema))
+    val fsRelation = HadoopFsRelation(
+      fileIndex,
+      partitionSchema = fileIndex.partitionSchema,
+      dataSchema = originSchema,
+      bucketSpec = None,
+      new ParquetFileFormat,
+      options.toMap)(sparkSession)
+    LogicalRelation(fsRelation)
+  }
+
+  private def withColumnAliases(name: String, orderedCol: Seq[(ColumnDesc, Int)], plan: LogicalPlan): LogicalPlan = {
+    val dfTableName = Integer.toHexString(System.identityHashCode(name))
     val aliasCols = orderedCol.map {
       case (c, index) =>
         col(c.getName).as(DeriveTableColumnInfo(dfTableName, index, c.getName).toString)
@@ -88,9 +143,16 @@ object SparderLookupManager extends Logging {
     SparkOperation.project(aliasCols, plan)
   }
 
-  def getOrCreate(name: String,
-                  sourcePath: String,
-                  kylinConfig: KylinConfig): LogicalPlan = {
-    create(name, sourcePath, kylinConfig)
+  private def getTableDesc(name: String, kylinConfig: KylinConfig): TableDesc = {
+    val names = name.split("@")
+    NTableMetadataManager.getInstance(kylinConfig, names.apply(0)).getTableDesc(names.apply(1))
+  }
+
+  private def dataColumns(tableDesc: TableDesc): Seq[(ColumnDesc, Int)] = {
+    tableDesc.getColumns.zipWithIndex.filterNot { case (col, _) => col.getName.equals(tableDesc.getSnapshotPartitionCol) }
+  }
+
+  private def partitionColumn(tableDesc: TableDesc): Option[(ColumnDesc, Int)] = {
+    tableDesc.getColumns.zipWithIndex.find { case (col, _) => col.getName.equals(tableDesc.getSnapshotPartitionCol) }
   }
 }
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.spark.sql.manager
+
+import org.apache.kylin.common.persistence.transaction.UnitOfWork
+import org.apache.kylin.common.{KapConfig, KylinConfig}
+import org.apache.kylin.metadata.model.{NTableMetadataManager, TableDesc}
+import org.apache.spark.sql.catalyst.plans.Inner
+import org.apache.spark.sql.catalyst.plans.logical.{Join, JoinHint, LocalRelation, LogicalPlan}
+import org.apache.spark.sql.common.{LocalMetadata, SharedSparkSession, SparderBaseFunSuite}
+import org.apache.spark.sql.execution.datasources.LogicalRelation
+import org.apache.spark.sql.{Dataset, SparderEnv}
+
+import scala.collection.JavaConverters._
+
+class SparderLookupManagerSuite extends SparderBaseFunSuite with SharedSparkSession with LocalMetadata {
+
+  import testImplicits._
+
+  private val PROJECT = "default"
+  private val TABLE = "DEFAULT.TEST_COUNTRY"
+  private val LOOKUP_NAME = PROJECT + "@" + TABLE
+  private val SNAPSHOT_DIR = "/" + PROJECT + "/table_snapshot/" + TABLE + "/"
+
+  override def beforeAll(): Unit = {
+    super.beforeAll()
+    SparderEnv.setSparkSession(spark)
+  }
+
+  test("reuse the cached relation with new attribute ids") {
+    val sourcePath = writeSnapshot("hit", Seq("CN", "US"))
+    val first = getOrCreate(sourcePath)
+    val second = getOrCreate(sourcePath)
+
+    val firstRelation = relationOf(first).asInstanceOf[LocalRelation]
+    val secondRelation = relationOf(second).asInstanceOf[LocalRelation]
+    // decoded once
+    assert(firstRelation.data eq secondRelation.data)
+    // a self join needs different attributes on both sides
+    assert(firstRelation.output.map(_.exprId).intersect(secondRelation.output.map(_.exprId)).isEmpty)
+    assert(count(Join(first, second, Inner, None, JoinHint.NONE)) == 4)
+  }
+
+  test("load the relation again once the snapshot changes") {
+    val sourcePath = writeSnapshot("before", Seq("CN"))
+    val before = relationOf(getOrCreate(sourcePath)).asInstanceOf[LocalRelation]
+    assert(before.data.size == 1)
+
+    // a rebuilt snapshot is written to a new path
+    val newSourcePath = writeSnapshot("after", Seq("CN", "US", "JP"))
+    val after = relationOf(getOrCreate(newSourcePath)).asInstanceOf[LocalRelation]
+    assert(!(before.data eq after.data))
+    assert(after.data.size == 3)
+  }
+
+  test("load the relation again once the snapshot partitions change") {
+    val sourcePath = writeSnapshot("partitioned", Seq("CN", "US"), partitioned = true)
+    try {
+      setSnapshotPartitions("CN")
+      val before = getOrCreate(sourcePath)
+      assert(count(before) == 1)
+      assert(relationOf(getOrCreate(sourcePath)).asInstanceOf[LocalRelation].data eq
+        relationOf(before).asInstanceOf[LocalRelation].data)
+
+      setSnapshotPartitions("CN", "US")
+      val after = getOrCreate(sourcePath)
+      assert(count(after) == 2)
+    } finally {
+      setSnapshotPartitions()
+    }
+  }
+
+  test("create the relation every time if the cache is disabled") {
+    overwriteSystemProp("kylin.query.lookup-cache-enabled", "false")
+    val sourcePath = writeSnapshot("disabled", Seq("CN", "US"))
+    val first = relationOf(getOrCreate(sourcePath)).asInstanceOf[LogicalRelation]
+    val second = relationOf(getOrCreate(sourcePath)).asInstanceOf[LogicalRelation]
+    assert(!(first.relation eq second.relation))
+    assert(count(getOrCreate(sourcePath)) == 2)
+  }
+
+  private def getOrCreate(sourcePath: String): LogicalPlan = {
+    SparderLookupManager.getOrCreate(LOOKUP_NAME, sourcePath, KylinConfig.getInstanceFromEnv)
+  }
+
+  private def relationOf(plan: LogicalPlan): LogicalPlan = {
+    plan.collectLeaves().head
+  }
+
+  private def count(plan: LogicalPlan): Long = {
+    Dataset.ofRows(spark, plan).count()
+  }
+
+  private def writeSnapshot(name: String, countries: Seq[String], partitioned: Boolean = false): String = {
+    val sourcePath = SNAPSHOT_DIR + name
+    val path = KapConfig.getInstanceFromEnv.getReadHdfsWorkingDirectory + sourcePath
+    val df = countries.map(country => (country, 1.0, 2.0, "name of " + country))
+      .toDF("COUNTRY", "LATITUDE", "LONGITUDE", "NAME")
+    if (partitioned) {
+      df.write.partitionBy("COUNTRY").parquet(path)
+    } else {
+      df.write.parquet(path)
+    }
+    sourcePath
+  }
+
+  // no partitions resets the snapshot to a non-partitioned one
+  private def setSnapshotPartitions(partitions: String*): Unit = {
+    UnitOfWork.doInTransactionWithRetry(() => {
+      NTableMetadataManager.getInstance(KylinConfig.getInstanceFromEnv, PROJECT)
+        .updateTableDesc(TABLE, (copyForWrite: TableDesc) => {
+          copyForWrite.setSnapshotPartitionCol(if (partitions.isEmpty) null else "COUNTRY")
+          copyForWrite.resetSnapshotPartitions(partitions.toSet.asJava)
+        })
+    }, PROJECT)
+  }
+}
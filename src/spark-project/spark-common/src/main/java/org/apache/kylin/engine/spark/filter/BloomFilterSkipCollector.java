@@ -18,13 +18,11 @@
 
 package org.apache.kylin.engine.spark.filter;
 
-import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.apache.kylin.common.KylinConfig;
-import org.apache.kylin.common.util.AutoReadWriteLock;
 import org.apache.kylin.guava30.shaded.common.cache.Cache;
 import org.apache.kylin.guava30.shaded.common.cache.CacheBuilder;
 import org.slf4j.Logger;
@@ -33,36 +31,28 @@ import org.slf4j.LoggerFactory;
 public class BloomFilterSkipCollector {
     public static final Logger LOGGER = LoggerFactory.getLogger(BloomFilterSkipCollector.class);
 
-    // use guava cache is for auto clean even if there are something went wrong in query
-    public static final Cache<String, AtomicLong> queryTotalBloomBlocks = CacheBuilder
-            .newBuilder().expireAfterAccess(10, TimeUnit.MINUTES).build();
-    public static final Cache<String, AtomicLong> querySkipBloomBlocks = CacheBuilder
-            .newBuilder().expireAfterAccess(10, TimeUnit.MINUTES).build();
-    public static final Cache<String, AtomicLong> querySkipBloomRows = CacheBuilder
-            .newBuilder().expireAfterAccess(10, TimeUnit.MINUTES).build();
-    public static final Cache<String, AtomicLong> queryFooterReadTime = CacheBuilder
-            .newBuilder().expireAfterAccess(10, TimeUnit.MINUTES).build();
-    public static final Cache<String, AtomicLong> queryFooterReadNumber = CacheBuilder
-            .newBuilder().expireAfterAccess(10, TimeUnit.MINUTES).build();
+    // use guava cache is for auto clean even if there are something went wrong in query,
+    // all counters of a query are kept in one record updated without lock, tasks never block each other
+    private static final Cache<String, QueryBloomStats> queryStats = CacheBuilder.newBuilder()
+            .expireAfterAccess(10, TimeUnit.MINUTES).build();
 
     public static final AtomicLong logCounter = new AtomicLong(0);
-    private static final AtomicLong globalBloomBlocks = new AtomicLong(0);
-    private static final AtomicLong globalSkipBloomBlocks = new AtomicLong(0);
-
-    private static final AutoReadWriteLock LOCK = new AutoReadWriteLock(new ReentrantReadWriteLock());
+    private static final LongAdder globalBloomBlocks = new LongAdder();
+    private static final LongAdder globalSkipBloomBlocks = new LongAdder();
 
     public static void addQueryMetrics(
             String queryId, long totalBloomBlocks,
             long skipBloomBlocks, long skipBloomRows, long footerReadTime, long footerReadNumber) {
         long start = System.currentTimeMillis();
-        try (AutoReadWriteLock.AutoLock writeLock = LOCK.lockForWrite()) {
-            addQueryCounter(queryId, queryTotalBloomBlocks, totalBloomBlocks);
-            addQueryCounter(queryId, querySkipBloomBlocks, skipBloomBlocks);
-            addQueryCounter(queryId, querySkipBloomRows, skipBloomRows);
-            addQueryCounter(queryId, queryFooterReadTime, footerReadTime);
-            addQueryCounter(queryId, queryFooterReadNumber, footerReadNumber);
-            globalBloomBlocks.addAndGet(totalBloomBlocks);
-            globalSkipBloomBlocks.addAndGet(skipBloomBlocks);
+        try {
+            QueryBloomStats stats = queryStats.get(queryId, QueryBloomStats::new);
+            stats.totalBloomBlocks.add(totalBloomBlocks);
+            stats.skipBloomBlocks.add(skipBloomBlocks);
+            stats.skipBloomRows.add(skipBloomRows);
+            stats.footerReadTime.add(footerReadTime);
+            stats.footerReadNumber.add(footerReadNumber);
+            globalBloomBlocks.add(totalBloomBlocks);
+            globalSkipBloomBlocks.add(skipBloomBlocks);
         } catch (Exception e) {
             LOGGER.error("Error when add query metrics.", e);
         }
@@ -72,47 +62,66 @@ public class BloomFilterSkipCollector {
         }
     }
 
-    private static void addQueryCounter(String queryId,
-            Cache<String, AtomicLong> counter, long step) throws ExecutionException {
-        AtomicLong totalBlocks = counter.get(queryId, () -> new AtomicLong(0L));
-        totalBlocks.addAndGet(step);
+    /**
+     * @return the collected stats of the query, or null if nothing collected
+     */
+    public static QueryBloomStats getQueryStats(String queryId) {
+        return queryStats.getIfPresent(queryId);
     }
 
     public static void logAndCleanStatus(String queryId) {
-        try {
-            AtomicLong readTime = queryFooterReadTime.get(queryId, () -> new AtomicLong(0L));
-            AtomicLong readNumber = queryFooterReadNumber.get(queryId, () -> new AtomicLong(1L));
-            if (readNumber.get() > 0L && readTime.get() > 0L) {
+        QueryBloomStats stats = queryStats.asMap().remove(queryId);
+        if (stats != null) {
+            long readTime = stats.getFooterReadTime();
+            long readNumber = stats.getFooterReadNumber();
+            if (readNumber > 0L && readTime > 0L) {
                 LOGGER.info("Reading footer avg time is {}, total read time is {}, number of row groups is {}",
-                        readTime.get() / readNumber.get(), readTime.get(), readNumber);
+                        readTime / readNumber, readTime, readNumber);
             }
-            AtomicLong totalBloomBlocks = queryTotalBloomBlocks.getIfPresent(queryId);
-            if (KylinConfig.getInstanceFromEnv().isBloomCollectFilterEnabled()
-                    && totalBloomBlocks != null && totalBloomBlocks.get() > 0) {
-                AtomicLong skipBlocks = querySkipBloomBlocks.get(queryId, () -> new AtomicLong(0L));
-                AtomicLong skipRows = querySkipBloomRows.get(queryId, () -> new AtomicLong(0L));
+            long totalBloomBlocks = stats.getTotalBloomBlocks();
+            if (KylinConfig.getInstanceFromEnv().isBloomCollectFilterEnabled() && totalBloomBlocks > 0) {
                 LOGGER.info("BloomFilter total bloom blocks is {}, skip bloom blocks is {}, skip rows is {}",
-                        totalBloomBlocks.get(), skipBlocks.get(), skipRows.get());
-            }
-            queryFooterReadTime.invalidate(queryId);
-            queryFooterReadNumber.invalidate(queryId);
-            queryTotalBloomBlocks.invalidate(queryId);
-            querySkipBloomBlocks.invalidate(queryId);
-            querySkipBloomRows.invalidate(queryId);
-            logCounter.incrementAndGet();
-            if (logCounter.get() >= 100) {
-                LOGGER.info("Global BloomFilter total bloom blocks is {}, "
-                                + " skip bloom blocks is {}",
-                        globalBloomBlocks.get(), globalSkipBloomBlocks.get());
-                logCounter.set(0);
-            }
-            if (globalBloomBlocks.get() < 0 || globalSkipBloomBlocks.get() < 0) {
-                // globalBloomBlocks number > Long.MAX_VALUE, almost impossible to get here
-                globalBloomBlocks.set(0);
-                globalSkipBloomBlocks.set(0);
+                        totalBloomBlocks, stats.getSkipBloomBlocks(), stats.getSkipBloomRows());
             }
-        } catch (ExecutionException e) {
-            LOGGER.error("Error when log query metrics.", e);
+        }
+        if (logCounter.incrementAndGet() >= 100) {
+            LOGGER.info("Global BloomFilter total bloom blocks is {}, "
+                            + " skip bloom blocks is {}",
+                    globalBloomBlocks.sum(), globalSkipBloomBlocks.sum());
+            logCounter.set(0);
+        }
+        if (globalBloomBlocks.sum() < 0 || globalSkipBloomBlocks.sum() < 0) {
+            // globalBloomBlocks number > Long.MAX_VALUE, almost impossible to get here
+            globalBloomBlocks.reset();
+            globalSkipBloomBlocks.reset();
+        }
+    }
+
+    public static class QueryBloomStats {
+        private final LongAdder totalBloomBlocks = new LongAdder();
+        private final LongAdder skipBloomBlocks = new LongAdder();
+        private final LongAdder skipBloomRows = new LongAdder();
+        private final LongAdder footerReadTime = new LongAdder();
+        private final LongAdder footerReadNumber = new LongAdder();
+
+        public long getTotalBloomBlocks() {
+            return totalBloomBlocks.sum();
+        }
+
+        public long getSkipBloomBlocks() {
+            return skipBloomBlocks.sum();
+        }
+
+        public long getSkipBloomRows() {
+            return skipBloomRows.sum();
+        }
+
+        public long getFooterReadTime() {
+            return footerReadTime.sum();
+        }
+
+        public long getFooterReadNumber() {
+            return footerReadNumber.sum();
         }
     }
 
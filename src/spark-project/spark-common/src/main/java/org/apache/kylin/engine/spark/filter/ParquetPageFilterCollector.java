@@ -18,12 +18,9 @@
 
 package org.apache.kylin.engine.spark.filter;
 
-import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.atomic.LongAdder;
 
-import org.apache.kylin.common.util.AutoReadWriteLock;
 import org.apache.kylin.guava30.shaded.common.cache.Cache;
 import org.apache.kylin.guava30.shaded.common.cache.CacheBuilder;
 import org.slf4j.Logger;
@@ -32,13 +29,9 @@ import org.slf4j.LoggerFactory;
 public class ParquetPageFilterCollector {
 
     public static final Logger LOGGER = LoggerFactory.getLogger(ParquetPageFilterCollector.class);
-    public static final Cache<String, AtomicLong> queryTotalParquetPages = CacheBuilder.newBuilder()
+    // one record per query updated without lock, expired in case the query is not cleaned
+    private static final Cache<String, QueryPageStats> queryStats = CacheBuilder.newBuilder()
             .expireAfterAccess(10, TimeUnit.MINUTES).build();
-    public static final Cache<String, AtomicLong> queryFilteredParquetPages = CacheBuilder.newBuilder()
-            .expireAfterAccess(10, TimeUnit.MINUTES).build();
-    public static final Cache<String, AtomicLong> queryAfterFilterParquetPages = CacheBuilder.newBuilder()
-            .expireAfterAccess(10, TimeUnit.MINUTES).build();
-    private static final AutoReadWriteLock LOCK = new AutoReadWriteLock(new ReentrantReadWriteLock());
 
     private ParquetPageFilterCollector() {
         // for sonar
@@ -46,10 +39,11 @@ public class ParquetPageFilterCollector {
 
     public static void addQueryMetrics(String queryId, long totalPages, long filteredPages, long afterFilterPages) {
         long start = System.currentTimeMillis();
-        try (AutoReadWriteLock.AutoLock writeLock = LOCK.lockForWrite()) {
-            addQueryCounter(queryId, queryTotalParquetPages, totalPages);
-            addQueryCounter(queryId, queryFilteredParquetPages, filteredPages);
-            addQueryCounter(queryId, queryAfterFilterParquetPages, afterFilterPages);
+        try {
+            QueryPageStats stats = queryStats.get(queryId, QueryPageStats::new);
+            stats.totalPages.add(totalPages);
+            stats.filteredPages.add(filteredPages);
+            stats.afterFilterPages.add(afterFilterPages);
         } catch (Exception e) {
             LOGGER.error("Error when add query metrics.", e);
         }
@@ -59,29 +53,41 @@ public class ParquetPageFilterCollector {
         }
     }
 
-    private static void addQueryCounter(String queryId, Cache<String, AtomicLong> counter, long step)
-            throws ExecutionException {
-        AtomicLong pageCnt = counter.get(queryId, () -> new AtomicLong(0L));
-        pageCnt.addAndGet(step);
+    /**
+     * @return the collected stats of the query, or null if nothing collected
+     */
+    public static QueryPageStats getQueryStats(String queryId) {
+        return queryStats.getIfPresent(queryId);
     }
 
     public static void logParquetPages(String queryId) {
-        try {
-            AtomicLong totalPages = queryTotalParquetPages.getIfPresent(queryId);
-            if (totalPages != null && totalPages.get() > 0) {
-                AtomicLong filteredPages = queryFilteredParquetPages.get(queryId, () -> new AtomicLong(0L));
-                AtomicLong afterFilteredPages = queryAfterFilterParquetPages.get(queryId, () -> new AtomicLong(0L));
-                LOGGER.info("Query total parquet pages {}, filtered pages {}, after filter pages {}, filter rate {}",
-                        totalPages.get(), filteredPages.get(), afterFilteredPages.get(),
-                        (double) filteredPages.get() / totalPages.get());
-            }
-            queryTotalParquetPages.invalidate(queryId);
-            queryFilteredParquetPages.invalidate(queryId);
-            queryAfterFilterParquetPages.invalidate(queryId);
+        QueryPageStats stats = queryStats.asMap().remove(queryId);
+        if (stats == null) {
+            return;
+        }
+        long totalPages = stats.getTotalPages();
+        if (totalPages > 0) {
+            long filteredPages = stats.getFilteredPages();
+            LOGGER.info("Query total parquet pages {}, filtered pages {}, after filter pages {}, filter rate {}",
+                    totalPages, filteredPages, stats.getAfterFilterPages(), (double) filteredPages / totalPages);
+        }
+    }
+
+    public static class QueryPageStats {
+        private final LongAdder totalPages = new LongAdder();
+        private final LongAdder filteredPages = new LongAdder();
+        private final LongAdder afterFilterPages = new LongAdder();
 
-        } catch (ExecutionException e) {
-            LOGGER.error("Error when log query metrics.", e);
+        public long getTotalPages() {
+            return totalPages.sum();
         }
 
+        public long getFilteredPages() {
+            return filteredPages.sum();
+        }
+
+        public long getAfterFilterPages() {
+            return afterFilterPages.sum();
+        }
     }
 }
@@ -23,6 +23,7 @@ import java.io.IOException;
 import java.util.Arrays;
 import java.util.Locale;
 
+import org.apache.kylin.common.KylinConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -42,6 +43,8 @@ public class NBucketDictionary {
     private long buildVersion;
 
     private Object2LongMap<String> absoluteDictMap;
+    // Only for column encoding, absoluteDictMap is left empty if the bucket dict is loaded off-heap
+    private NOffHeapBucketDict offHeapDict;
     // Relative dictionary needs to calculate dictionary code according to NGlobalDictMetaInfo's bucketOffsets
     private Object2LongMap<String> relativeDictMap;
 
@@ -53,15 +56,35 @@ public class NBucketDictionary {
             this.absoluteDictMap = new Object2LongOpenHashMap<>();
         } else if (buildVersion == NO_VERSION_SPECIFIED || !Arrays.asList(versions).contains(buildVersion)) {
             logger.info("Initializes dict map with the latest version:{}", versions[versions.length - 1]);
-            this.absoluteDictMap = globalDictStore.getBucketDict(versions[versions.length - 1], metainfo, bucketId,
-                    isForColumnEncoding);
+            initAbsoluteDict(versions[versions.length - 1], metainfo, bucketId, isForColumnEncoding, globalDictStore);
         } else {
             logger.info("Initializes dict map with the specified version:{}", buildVersion);
-            this.absoluteDictMap = globalDictStore.getBucketDict(buildVersion, metainfo, bucketId, isForColumnEncoding);
+            initAbsoluteDict(buildVersion, metainfo, bucketId, isForColumnEncoding, globalDictStore);
         }
         this.relativeDictMap = new Object2LongOpenHashMap<>();
     }
 
+    private void initAbsoluteDict(long version, NGlobalDictMetaInfo metainfo, int bucketId,
+            boolean isForColumnEncoding, NGlobalDictStore globalDictStore) throws IOException {
+        if (isForColumnEncoding && isOffHeapEncodeEnabled()) {
+            this.offHeapDict = globalDictStore.getOffHeapBucketDict(version, metainfo, bucketId, true);
+            if (offHeapDict != null) {
+                logger.info("Bucket dict {} loaded off-heap, size: {}", bucketId, offHeapDict.size());
+                this.absoluteDictMap = new Object2LongOpenHashMap<>();
+                return;
+            }
+        }
+        this.absoluteDictMap = globalDictStore.getBucketDict(version, metainfo, bucketId, isForColumnEncoding);
+    }
+
+    private static boolean isOffHeapEncodeEnabled() {
+        try {
+            return KylinConfig.getInstanceFromEnv().isGlobalDictV2OffHeapEncodeEnabled();
+        } catch (Exception e) {
+            return Boolean.parseBoolean(System.getProperty("kylin.dictionary.globalV2-off-heap-encode-enabled"));
+        }
+    }
+
     private void initDictMap(String baseDir, int bucketId, NGlobalDictMetaInfo metainfo, boolean isForColumnEncoding,
             long buildVersion) throws IOException {
         final NGlobalDictStore globalDictStore = NGlobalDictStoreFactory.getResourceStore(baseDir);
@@ -113,7 +136,8 @@ public class NBucketDictionary {
     }
 
     public long encode(Object value) {
-        long encodeValue = absoluteDictMap.getLong(value.toString());
+        long encodeValue = offHeapDict != null ? offHeapDict.getLong(value)
+                : absoluteDictMap.getLong(value.toString());
         if (encodeValue == 0) {
             throw new IllegalDictEncodeValueException(
                     String.format(Locale.ROOT, "DFTable encode key:%s with error value:%s", value, encodeValue));
@@ -20,6 +20,8 @@ package org.apache.spark.dict;
 
 import static org.apache.spark.dict.NGlobalDictionaryV2.NO_VERSION_SPECIFIED;
 
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.charset.Charset;
@@ -166,16 +168,7 @@ public class NGlobalDictHDFSStore implements NGlobalDictStore {
     public Object2LongMap<String> getBucketDict(long version, NGlobalDictMetaInfo metaInfo, int bucketId,
             boolean isForColumnEncoding) throws IOException {
         Object2LongMap<String> object2IntMap = new Object2LongOpenHashMap<>();
-        Path versionDir = getVersionDir(version);
-        FileStatus[] bucketFiles = fileSystem.listStatus(versionDir, path -> path.getName().endsWith("_" + bucketId));
-
-        // https://olapio.atlassian.net/browse/AL-8865
-        // Only do check and retry when isForColumnEncoding is true
-        bucketFiles = checkAndRetryGetBucketFiles(metaInfo, versionDir, bucketId, isForColumnEncoding, bucketFiles);
-
-        // Log detailed bucket files to confirm that we do not lose
-        // necessary files when do flat table column encoding.
-        logBucketFiles(metaInfo, bucketId, isForColumnEncoding, bucketFiles);
+        FileStatus[] bucketFiles = listBucketFiles(version, metaInfo, bucketId, isForColumnEncoding);
 
         for (FileStatus file : bucketFiles) {
             if (file.getPath().getName().startsWith(DICT_CURR_PREFIX)) {
@@ -189,6 +182,61 @@ public class NGlobalDictHDFSStore implements NGlobalDictStore {
         return object2IntMap;
     }
 
+    @Override
+    public NOffHeapBucketDict getOffHeapBucketDict(long version, NGlobalDictMetaInfo metaInfo, int bucketId,
+            boolean isForColumnEncoding) throws IOException {
+        FileStatus[] bucketFiles = listBucketFiles(version, metaInfo, bucketId, isForColumnEncoding);
+
+        // Entry in dict file: [long value][int length][bytes], entry in off-heap dict: [int length][bytes]
+        long elementCnt = 0;
+        long keyBytes = 0;
+        for (FileStatus file : bucketFiles) {
+            if (isBucketDictFile(file)) {
+                try (FSDataInputStream is = fileSystem.open(file.getPath())) {
+                    int cnt = is.readInt();
+                    elementCnt += cnt;
+                    keyBytes += file.getLen() - Integer.BYTES - (long) Long.BYTES * cnt;
+                }
+            }
+        }
+        if (!NOffHeapBucketDict.canHold(elementCnt, keyBytes)) {
+            logger.info("[bucketId:{}] Bucket dict with {} elements is too large for off-heap", bucketId, elementCnt);
+            return null;
+        }
+
+        NOffHeapBucketDict dict = new NOffHeapBucketDict(elementCnt, keyBytes);
+        // Same order as getBucketDict, so a duplicated key gets the same value
+        for (FileStatus file : bucketFiles) {
+            if (file.getPath().getName().startsWith(DICT_CURR_PREFIX)) {
+                readBucketDict(file.getPath(), metaInfo.getOffset(bucketId), dict);
+            }
+            if (file.getPath().getName().startsWith(DICT_PREV_PREFIX)) {
+                readBucketDict(file.getPath(), 0, dict);
+            }
+        }
+        return dict;
+    }
+
+    private static boolean isBucketDictFile(FileStatus file) {
+        String name = file.getPath().getName();
+        return name.startsWith(DICT_CURR_PREFIX) || name.startsWith(DICT_PREV_PREFIX);
+    }
+
+    private FileStatus[] listBucketFiles(long version, NGlobalDictMetaInfo metaInfo, int bucketId,
+            boolean isForColumnEncoding) throws IOException {
+        Path versionDir = getVersionDir(version);
+        FileStatus[] bucketFiles = fileSystem.listStatus(versionDir, path -> path.getName().endsWith("_" + bucketId));
+
+        // https://olapio.atlassian.net/browse/AL-8865
+        // Only do check and retry when isForColumnEncoding is true
+        bucketFiles = checkAndRetryGetBucketFiles(metaInfo, versionDir, bucketId, isForColumnEncoding, bucketFiles);
+
+        // Log detailed bucket files to confirm that we do not lose
+        // necessary files when do flat table column encoding.
+        logBucketFiles(metaInfo, bucketId, isForColumnEncoding, bucketFiles);
+        return bucketFiles;
+    }
+
     private FileStatus[] checkAndRetryGetBucketFiles(NGlobalDictMetaInfo metaInfo, Path versionDir, int bucketId,
             boolean isForColumnEncoding, FileStatus[] bucketFiles) throws IOException {
         logger.info("[bucketId:{}][isForColumnEncoding:{}]", bucketId, isForColumnEncoding);
@@ -294,6 +342,22 @@ public class NGlobalDictHDFSStore implements NGlobalDictStore {
         return object2IntMap;
     }
 
+    private void readBucketDict(Path dictPath, long offset, NOffHeapBucketDict dict) throws IOException {
+        try (DataInputStream is = new DataInputStream(new BufferedInputStream(fileSystem.open(dictPath)))) {
+            int elementCnt = is.readInt();
+            byte[] bytes = new byte[64];
+            for (int i = 0; i < elementCnt; i++) {
+                long value = is.readLong();
+                int bytesLength = is.readInt();
+                if (bytesLength > bytes.length) {
+                    bytes = new byte[Math.max(bytesLength, bytes.length * 2)];
+                }
+                is.readFully(bytes, 0, bytesLength);
+                dict.put(bytes, bytesLength, value + offset);
+            }
+        }
+    }
+
     @Override
     public void writeBucketCurrDict(String workingPath, int bucketId, Object2LongMap<String> openHashMap)
             throws IOException {
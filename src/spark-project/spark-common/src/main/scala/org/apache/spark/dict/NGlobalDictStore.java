@@ -42,6 +42,15 @@ public interface NGlobalDictStore {
 
     Object2LongMap<String> getBucketDict(long version, NGlobalDictMetaInfo metadata, int bucketId, boolean isForColumnEncoding) throws IOException;
 
+    /**
+     * Load the bucket dict into direct buffers for column encoding
+     * @return the off-heap bucket dict, or null if the bucket is too large to be held off-heap
+     */
+    default NOffHeapBucketDict getOffHeapBucketDict(long version, NGlobalDictMetaInfo metadata, int bucketId,
+            boolean isForColumnEncoding) throws IOException {
+        return NOffHeapBucketDict.of(getBucketDict(version, metadata, bucketId, isForColumnEncoding));
+    }
+
     void writeBucketCurrDict(String workingPath, int bucketId, Object2LongMap<String> openHashMap) throws IOException;
 
     void writeBucketPrevDict(String workingPath, int bucketId, Object2LongMap<String> openHashMap) throws IOException;
@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.spark.dict;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.spark.unsafe.Platform;
+import org.apache.spark.unsafe.types.UTF8String;
+
+import it.unimi.dsi.fastutil.objects.Object2LongMap;
+
+/**
+ * Read only bucket dictionary for column encoding, keys and codes are kept in direct buffers
+ * instead of an on-heap Object2LongMap, so that no String key is materialized.
+ *
+ * Keys are stored as [int length][bytes] in the key buffer, the bytes are the same as in the dict files.
+ * The slot buffer is an open addressing hash table with linear probing, each slot is
+ * [int hash][int key position + 1][long code], a zero key position means an empty slot.
+ */
+public class NOffHeapBucketDict {
+
+    private static final int SLOT_BYTES = 16;
+    private static final int MAX_SLOTS = 1 << 26;
+    private static final boolean UTF8_KEYS = Charset.defaultCharset().equals(StandardCharsets.UTF_8);
+
+    private final ByteBuffer keys;
+    private final ByteBuffer slots;
+    private final int mask;
+    private int size;
+
+    NOffHeapBucketDict(long expectedSize, long keyBytes) {
+        if (!canHold(expectedSize, keyBytes)) {
+            throw new IllegalArgumentException(
+                    "Too large for an off-heap bucket dict, size: " + expectedSize + ", key bytes: " + keyBytes);
+        }
+        int slotCount = slotCountFor(expectedSize);
+        this.keys = ByteBuffer.allocateDirect((int) keyBytes).order(ByteOrder.nativeOrder());
+        this.slots = ByteBuffer.allocateDirect(slotCount * SLOT_BYTES).order(ByteOrder.nativeOrder());
+        this.mask = slotCount - 1;
+    }
+
+    /**
+     * @param keyBytes total bytes of the keys, including a 4-byte length per key
+     */
+    static boolean canHold(long expectedSize, long keyBytes) {
+        return expectedSize >= 0 && expectedSize <= MAX_SLOTS / 2 && keyBytes < Integer.MAX_VALUE;
+    }
+
+    /**
+     * @return the off-heap copy of the map, or null if the map is too large
+     */
+    static NOffHeapBucketDict of(Object2LongMap<String> map) {
+        long keyBytes = 0;
+        for (String key : map.keySet()) {
+            keyBytes += Integer.BYTES + key.getBytes(Charset.defaultCharset()).length;
+        }
+        if (!canHold(map.size(), keyBytes)) {
+            return null;
+        }
+        NOffHeapBucketDict dict = new NOffHeapBucketDict(map.size(), keyBytes);
+        for (Object2LongMap.Entry<String> entry : map.object2LongEntrySet()) {
+            byte[] key = entry.getKey().getBytes(Charset.defaultCharset());
+            dict.put(key, key.length, entry.getLongValue());
+        }
+        return dict;
+    }
+
+    private static int slotCountFor(long expectedSize) {
+        long slotCount = 2;
+        while (slotCount < expectedSize * 2) {
+            slotCount <<= 1;
+        }
+        return (int) slotCount;
+    }
+
+    /**
+     * Put a key in the dict files' charset, the code of an existing key is replaced.
+     */
+    void put(byte[] key, int length, long code) {
+        int hash = hash(key, Platform.BYTE_ARRAY_OFFSET, length);
+        int slot = hash & mask;
+        while (true) {
+            int base = slot * SLOT_BYTES;
+            int keyPosition = slots.getInt(base + 4);
+            if (keyPosition == 0) {
+                if (size > mask / 2) {
+                    throw new IllegalStateException("Off-heap bucket dict is full, size: " + size);
+                }
+                int position = keys.position();
+                keys.putInt(length);
+                keys.put(key, 0, length);
+                slots.putInt(base, hash);
+                slots.putInt(base + 4, position + 1);
+                slots.putLong(base + 8, code);
+                size++;
+                return;
+            }
+            if (slots.getInt(base) == hash && keyEquals(keyPosition - 1, key, Platform.BYTE_ARRAY_OFFSET, length)) {
+                slots.putLong(base + 8, code);
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * @return the code of the value, 0 if absent
+     */
+    public long getLong(Object value) {
+        if (value instanceof UTF8String && UTF8_KEYS) {
+            UTF8String utf8 = (UTF8String) value;
+            return getLong(utf8.getBaseObject(), utf8.getBaseOffset(), utf8.numBytes());
+        }
+        byte[] bytes = value.toString().getBytes(Charset.defaultCharset());
+        return getLong(bytes, Platform.BYTE_ARRAY_OFFSET, bytes.length);
+    }
+
+    private long getLong(Object base, long offset, int length) {
+        int hash = hash(base, offset, length);
+        int slot = hash & mask;
+        while (true) {
+            int slotBase = slot * SLOT_BYTES;
+            int keyPosition = slots.getInt(slotBase + 4);
+            if (keyPosition == 0) {
+                return 0L;
+            }
+            if (slots.getInt(slotBase) == hash && keyEquals(keyPosition - 1, base, offset, length)) {
+                return slots.getLong(slotBase + 8);
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private boolean keyEquals(int keyPosition, Object base, long offset, int length) {
+        if (keys.getInt(keyPosition) != length) {
+            return false;
+        }
+        int position = keyPosition + Integer.BYTES;
+        int i = 0;
+        for (; i + Long.BYTES <= length; i += Long.BYTES) {
+            if (keys.getLong(position + i) != Platform.getLong(base, offset + i)) {
+                return false;
+            }
+        }
+        for (; i < length; i++) {
+            if (keys.get(position + i) != Platform.getByte(base, offset + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(Object base, long offset, int length) {
+        int hash = 0x811C9DC5;
+        for (int i = 0; i < length; i++) {
+            hash ^= Platform.getByte(base, offset + i);
+            hash *= 0x01000193;
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.spark.sql.datasource.storage
+
+import java.math.{BigInteger, BigDecimal => JBigDecimal}
+import java.time.LocalDate
+import java.util.{List => JList}
+import java.{lang, util}
+
+import org.apache.hadoop.conf.Configuration
+import org.apache.hadoop.fs.Path
+import org.apache.kylin.metadata.cube.model.{DimensionRangeInfo, FileZoneMap, LayoutEntity}
+import org.apache.parquet.column.statistics.Statistics
+import org.apache.parquet.hadoop.ParquetFileReader
+import org.apache.parquet.hadoop.metadata.{ColumnPath, ParquetMetadata}
+import org.apache.parquet.hadoop.util.HadoopInputFile
+import org.apache.parquet.io.api.Binary
+import org.apache.parquet.schema.LogicalTypeAnnotation.{DateLogicalTypeAnnotation, DecimalLogicalTypeAnnotation, IntLogicalTypeAnnotation, StringLogicalTypeAnnotation}
+import org.apache.parquet.schema.PrimitiveType
+import org.apache.spark.internal.Logging
+
+import scala.collection.JavaConverters._
+
+/**
+ * Collects the zone maps of the parquet files of a layout from their footers, no data page is read.
+ *
+ * The statistics of the row groups in a file are merged into a single min/max per dimension, so that
+ * [[org.apache.spark.sql.execution.datasource.FilePruner]] can skip whole files before spark plans the splits.
+ * The values are formatted the same way as the dimension range of a segment. The columns whose values can't be
+ * formatted that way, e.g. timestamps and floating numbers, are left out, they are never used to prune files.
+ */
+object FileZoneMapCollector extends Logging {
+
+  def collect(outputPath: Path, layout: LayoutEntity, conf: Configuration): JList[FileZoneMap] = {
+    collect(outputPath, layout.getOrderedDimensions.keySet().asScala.map(_.toString).toSet, conf)
+  }
+
+  private[storage] def collect(outputPath: Path, dimensions: Set[String], conf: Configuration): JList[FileZoneMap] = {
+    val start = System.currentTimeMillis()
+    val fs = outputPath.getFileSystem(conf)
+    val zoneMaps = new util.ArrayList[FileZoneMap]()
+    if (!fs.exists(outputPath)) {
+      return zoneMaps
+    }
+    fs.listStatus(outputPath).filter(status => status.isFile && status.getPath.getName.endsWith(".parquet"))
+      .sortBy(_.getPath.getName)
+      .foreach { status =>
+        val reader = ParquetFileReader.open(HadoopInputFile.fromStatus(status, conf))
+        try {
+          zoneMaps.add(toZoneMap(status.getPath.getName, reader.getFooter, dimensions))
+        } finally {
+          reader.close()
+        }
+      }
+    logInfo(s"Collected zone maps of ${zoneMaps.size()} files in $outputPath, " +
+      s"cost ${System.currentTimeMillis() - start} ms")
+    zoneMaps
+  }
+
+  private[storage] def toZoneMap(fileName: String, footer: ParquetMetadata, dimensions: Set[String]): FileZoneMap = {
+    val zoneMap = new FileZoneMap(fileName)
+    val blocks = footer.getBlocks.asScala.map(block => block.getColumns.asScala.map(c => c.getPath -> c).toMap)
+    zoneMap.setRows(footer.getBlocks.asScala.map(_.getRowCount).sum)
+    footer.getFileMetaData.getSchema.getColumns.asScala
+      .filter(desc => desc.getPath.length == 1 && dimensions.contains(desc.getPath.head))
+      .foreach { desc =>
+        val column = desc.getPath.head
+        val chunks = blocks.flatMap(_.get(ColumnPath.get(desc.getPath: _*)))
+        val stats = chunks.map(_.getStatistics)
+        if (chunks.size == blocks.size && stats.forall(s => s != null && s.isNumNullsSet)) {
+          zoneMap.getNullCounts.put(column, stats.map(_.getNumNulls).sum)
+          // a row group without min/max is fine only if it holds nulls only, otherwise its statistics are dropped
+          val complete = chunks.forall(chunk =>
+            chunk.getStatistics.hasNonNullValue || chunk.getStatistics.getNumNulls == chunk.getValueCount)
+          if (complete) {
+            val primitive = desc.getPrimitiveType
+            val merged = Statistics.createStats(primitive)
+            stats.foreach(s => merged.mergeStatistics(s))
+            if (merged.hasNonNullValue) {
+              (format(primitive, merged.genericGetMin), format(primitive, merged.genericGetMax)) match {
+                case (Some(min), Some(max)) => zoneMap.getRanges.put(column, new DimensionRangeInfo(min, max))
+                case _ =>
+              }
+            }
+          }
+        }
+      }
+    zoneMap
+  }
+
+  private def format(primitive: PrimitiveType, value: Any): Option[String] = {
+    (primitive.getLogicalTypeAnnotation, value) match {
+      case (decimal: DecimalLogicalTypeAnnotation, v: lang.Integer) =>
+        Some(JBigDecimal.valueOf(v.longValue(), decimal.getScale).toPlainString)
+      case (decimal: DecimalLogicalTypeAnnotation, v: lang.Long) =>
+        Some(JBigDecimal.valueOf(v, decimal.getScale).toPlainString)
+      case (decimal: DecimalLogicalTypeAnnotation, v: Binary) =>
+        Some(new JBigDecimal(new BigInteger(v.getBytes), decimal.getScale).toPlainString)
+      case (_: DateLogicalTypeAnnotation, v: lang.Integer) =>
+        Some(LocalDate.ofEpochDay(v.longValue()).toString)
+      case (int: IntLogicalTypeAnnotation, v @ (_: lang.Integer | _: lang.Long)) if int.isSigned =>
+        Some(v.toString)
+      case (null, v @ (_: lang.Integer | _: lang.Long | _: lang.Boolean)) =>
+        Some(v.toString)
+      case (_: StringLogicalTypeAnnotation, v: Binary) =>
+        Some(v.toStringUsingUTF8)
+      case _ =>
+        None
+    }
+  }
+}
@@ -27,7 +27,7 @@ import org.apache.hadoop.fs.Path
 import org.apache.kylin.common.util.HadoopUtil
 import org.apache.kylin.common.{KapConfig, KylinConfig}
 import org.apache.kylin.engine.spark.utils.{Metrics, StorageUtils}
-import org.apache.kylin.metadata.cube.model.{LayoutEntity, NDataSegment, NDataflow}
+import org.apache.kylin.metadata.cube.model.{FileZoneMap, LayoutEntity, NDataSegment, NDataflow}
 import org.apache.spark.internal.Logging
 import org.apache.spark.sql.LayoutEntityConverter._
 import org.apache.spark.sql.catalyst.catalog.CatalogTable
@@ -53,7 +53,8 @@ case class WriteTaskStats(numPartitions: Int,
                           numRows: Long,
                           sourceRows: Long,
                           numBucket: Int,
-                          partitionValues: JList[String])
+                          partitionValues: JList[String],
+                          fileZoneMaps: JList[FileZoneMap] = new util.ArrayList[FileZoneMap]())
 
 abstract class StorageStore extends Logging {
 
@@ -214,8 +215,14 @@ class StorageStoreV1 extends StorageStore {
       LayoutFormatWriter.write(dataFrame, layout, outputPath, kapConfig, storageListener)
     val (fileCount, byteSize) = collectFileCountAndSizeAfterSave(outputPath, outputSpec.hadoopConf)
     checkAndWriterFastBitmapLayout(dataFrame, layout, kapConfig, outputPath)
+    val fileZoneMaps = if (kapConfig.getKylinConfig.isFileZoneMapEnabled && bucketId < 0) {
+      FileZoneMapCollector.collect(outputPath, layout, outputSpec.hadoopConf)
+    } else {
+      new util.ArrayList[FileZoneMap]()
+    }
     WriteTaskStats(0, fileCount, byteSize, outputSpec.rowCount,
-      outputSpec.metrics.getMetrics(Metrics.SOURCE_ROWS_CNT), outputSpec.bucketNum, new util.ArrayList[String]())
+      outputSpec.metrics.getMetrics(Metrics.SOURCE_ROWS_CNT), outputSpec.bucketNum, new util.ArrayList[String](),
+      fileZoneMaps)
   }
 }
 
@@ -292,6 +292,11 @@ case class FilePruner(val session: SparkSession,
       pruneShards
     }
     QueryContext.current().record("shard_pruning")
+    if (projectKylinConfig.isFileZoneMapEnabled) {
+      selected = afterPruning("pruning file with zone map", dataFilters, selected) {
+        pruneFilesZoneMap
+      }
+    }
     val totalFileCount = selected.flatMap(partition => partition.files).size
     QueryContext.current().getMetrics.setFileCount(totalFileCount)
     val totalFileSize = selected.flatMap(partition => partition.files).map(_.getLen).sum
@@ -437,6 +442,33 @@ case class FilePruner(val session: SparkSession,
     filteredStatuses
   }
 
+  private def pruneFilesZoneMap(filters: Seq[Expression],
+                                segDirs: Seq[SegmentDirectory]): Seq[SegmentDirectory] = {
+    val reducedFilters = translateToSourceFilter(filters)
+    if (reducedFilters.isEmpty) {
+      return segDirs
+    }
+    val project = options.getOrElse("project", "")
+    val dimCols = dataflow.getIndexPlan.getEffectiveDimCols
+    segDirs.map { segDir =>
+      val dataLayout = dataflow.getSegment(segDir.segmentID).getLayout(layout.getId)
+      if (dataLayout == null || dataLayout.getFileZoneMaps.isEmpty) {
+        segDir
+      } else {
+        val zoneMaps = dataLayout.getFileZoneMaps.asScala.map(zoneMap => zoneMap.getFileName -> zoneMap).toMap
+        // files without zone map, e.g. written before the zone maps are enabled, are always scanned
+        val files = segDir.files.filter { file =>
+          zoneMaps.get(file.getPath.getName).forall { zoneMap =>
+            SegDimFilters(zoneMap.getRanges, dimCols, dataflow.getId, project, Sets.newHashSet[String](),
+              zoneMap.getNullCounts).foldFilter(reducedFilters.get) != Trivial(false)
+          }
+        }
+        logDebug(s"pruning file with zone map: segment ${segDir.segmentID} ${segDir.files.size} -> ${files.size}")
+        segDir.copy(files = files)
+      }
+    }
+  }
+
   private def translateToSourceFilter(filters: Seq[Expression]): Option[Filter] = {
     filters.map(filter => convertCastFilter(filter))
       .flatMap(f => {
@@ -790,7 +822,8 @@ abstract class PushableColumnBase {
 }
 
 case class SegDimFilters(dimRange: java.util.Map[String, DimensionRangeInfo], dimCols: java.util.Map[Integer, TblColRef],
-                         dataflowId: String, project: String, hitColumns: java.util.Set[String]) extends Logging {
+                         dataflowId: String, project: String, hitColumns: java.util.Set[String],
+                         nullCounts: java.util.Map[String, java.lang.Long] = null) extends Logging {
 
   private def insurance(id: String, value: Any)
                        (func: Any => Filter): Filter = {
@@ -840,8 +873,13 @@ case class SegDimFilters(dimRange: java.util.Map[String, DimensionRangeInfo], di
         }).exists(_.equals(Trivial(true)))
         Trivial(satisfied)
 
-      case IsNull(_) =>
-        Trivial(true)
+      case IsNull(id) =>
+        val col = escapeQuote(id)
+        if (nullCounts != null && nullCounts.containsKey(col)) {
+          Trivial(nullCounts.get(col) > 0)
+        } else {
+          Trivial(true)
+        }
       case IsNotNull(_) =>
         Trivial(true)
       case GreaterThan(id, value: Any) =>
@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.spark.sql.udaf
+
+import org.roaringbitmap.buffer.{ImmutableRoaringBitmap, MutableRoaringBitmap}
+
+import java.io.{ByteArrayOutputStream, DataOutputStream}
+import java.nio.ByteBuffer
+import java.util
+
+/**
+ * Aggregation buffer of a bitmap union, which ORs serialized Roaring64NavigableMaps without deserializing them.
+ *
+ * A serialized Roaring64NavigableMap is a boolean of signedLongs, an int of the bucket count, then for each bucket
+ * an int of the high 32 bits followed by a portable roaring bitmap of the low 32 bits. The bucket of an input is
+ * mapped as an ImmutableRoaringBitmap over the input bytes and ORed into the buffer's bucket of the same high bits,
+ * so only the containers kept by the buffer are ever materialized.
+ *
+ * The first input is kept as it is until a second one arrives, a group of a single bitmap is then counted or
+ * returned without any copy.
+ */
+class BitmapOrBuffer {
+
+  import BitmapOrBuffer.{HEADER_BYTES, UNSIGNED_ORDER}
+
+  private var single: Array[Byte] = _
+  private var signedLongs = false
+  private val buckets = new util.TreeMap[Integer, MutableRoaringBitmap](UNSIGNED_ORDER)
+
+  def isEmpty: Boolean = single == null && buckets.isEmpty
+
+  def or(bytes: Array[Byte]): BitmapOrBuffer = {
+    if (bytes == null || bytes.isEmpty) {
+      return this
+    }
+    if (isEmpty) {
+      single = bytes
+    } else {
+      materialize()
+      forEachBucket(bytes) { (high, bitmap) =>
+        val bucket = buckets.get(high)
+        if (bucket == null) {
+          buckets.put(high, bitmap.toMutableRoaringBitmap)
+        } else {
+          bucket.or(bitmap)
+        }
+      }
+    }
+    this
+  }
+
+  def or(other: BitmapOrBuffer): BitmapOrBuffer = {
+    if (other.single != null) {
+      or(other.single)
+    } else if (!other.buckets.isEmpty) {
+      materialize()
+      signedLongs = other.signedLongs
+      // the other buffer is dropped after a merge, its buckets are taken over
+      other.buckets.forEach { (high, bitmap) =>
+        val bucket = buckets.get(high)
+        if (bucket == null) {
+          buckets.put(high, bitmap)
+        } else {
+          bucket.or(bitmap)
+        }
+      }
+    }
+    this
+  }
+
+  def cardinality: Long = {
+    if (single != null) {
+      BitmapOrBuffer.cardinality(single)
+    } else {
+      var result = 0L
+      buckets.values().forEach(bitmap => result += bitmap.getLongCardinality)
+      result
+    }
+  }
+
+  /**
+   * @return the buffer as a serialized Roaring64NavigableMap
+   */
+  def toBytes: Array[Byte] = {
+    if (single != null) {
+      return single
+    }
+    var size = HEADER_BYTES
+    buckets.values().forEach { bitmap =>
+      bitmap.runOptimize()
+      size += Integer.BYTES + bitmap.serializedSizeInBytes()
+    }
+    val bytes = new ByteArrayOutputStream(size)
+    val out = new DataOutputStream(bytes)
+    out.writeBoolean(signedLongs)
+    out.writeInt(buckets.size())
+    buckets.forEach { (high, bitmap) =>
+      out.writeInt(high)
+      bitmap.serialize(out)
+    }
+    out.flush()
+    bytes.toByteArray
+  }
+
+  private def materialize(): Unit = {
+    if (single != null) {
+      val bytes = single
+      single = null
+      forEachBucket(bytes)((high, bitmap) => buckets.put(high, bitmap.toMutableRoaringBitmap))
+    }
+  }
+
+  private def forEachBucket(bytes: Array[Byte])(f: (Integer, ImmutableRoaringBitmap) => Unit): Unit = {
+    val buffer = ByteBuffer.wrap(bytes)
+    signedLongs = buffer.get() != 0
+    BitmapOrBuffer.forEachBucket(buffer, f)
+  }
+}
+
+object BitmapOrBuffer {
+
+  // signedLongs and the bucket count
+  private val HEADER_BYTES = 1 + Integer.BYTES
+
+  // Roaring64NavigableMap orders the high bits as unsigned ints by default
+  private val UNSIGNED_ORDER: util.Comparator[Integer] = (a: Integer, b: Integer) => Integer.compareUnsigned(a, b)
+
+  /**
+   * @return the cardinality of a serialized Roaring64NavigableMap, read from the container headers
+   */
+  def cardinality(bytes: Array[Byte]): Long = {
+    if (bytes == null || bytes.isEmpty) {
+      return 0L
+    }
+    val buffer = ByteBuffer.wrap(bytes)
+    buffer.get()
+    var result = 0L
+    forEachBucket(buffer, (_, bitmap) => result += bitmap.getLongCardinality)
+    result
+  }
+
+  private def forEachBucket(buffer: ByteBuffer, f: (Integer, ImmutableRoaringBitmap) => Unit): Unit = {
+    val count = buffer.getInt()
+    var i = 0
+    while (i < count) {
+      val high = buffer.getInt()
+      val bitmap = new ImmutableRoaringBitmap(buffer.slice())
+      buffer.position(buffer.position() + bitmap.serializedSizeInBytes())
+      f(high, bitmap)
+      i += 1
+    }
+  }
+}
@@ -74,6 +74,37 @@ sealed abstract class BasicPreciseCountDistinct(
   override val prettyName: String = "precise_count_distinct"
 }
 
+/**
+ * Union of serialized bitmaps, merged by BitmapOrBuffer without deserializing the inputs.
+ */
+@SerialVersionUID(1)
+sealed abstract class BasicPreciseCountDistinctOr(
+    child: Expression,
+    mutableAggBufferOffset: Int = 0,
+    inputAggBufferOffset: Int = 0)
+  extends TypedImperativeAggregate[BitmapOrBuffer] with Serializable with LogEx {
+
+  override def children: Seq[Expression] = child :: Nil
+
+  override def nullable: Boolean = false
+
+  override def createAggregationBuffer(): BitmapOrBuffer = new BitmapOrBuffer
+
+  override def update(buffer: BitmapOrBuffer, input: InternalRow): BitmapOrBuffer = {
+    buffer.or(child.eval(input).asInstanceOf[Array[Byte]])
+  }
+
+  override def merge(buffer: BitmapOrBuffer, input: BitmapOrBuffer): BitmapOrBuffer = {
+    buffer.or(input)
+  }
+
+  override def serialize(buffer: BitmapOrBuffer): Array[Byte] = buffer.toBytes
+
+  override def deserialize(bytes: Array[Byte]): BitmapOrBuffer = new BitmapOrBuffer().or(bytes)
+
+  override val prettyName: String = "precise_count_distinct"
+}
+
 @SerialVersionUID(1)
 case class EncodePreciseCountDistinct(
     child: Expression,
@@ -112,19 +143,13 @@ case class ReusePreciseCountDistinct(
     child: Expression,
     mutableAggBufferOffset: Int = 0,
     inputAggBufferOffset: Int = 0)
-  extends BasicPreciseCountDistinct(child, mutableAggBufferOffset, inputAggBufferOffset) {
+  extends BasicPreciseCountDistinctOr(child, mutableAggBufferOffset, inputAggBufferOffset) {
 
   def this(child: Expression) = this(child, 0, 0)
 
   override def dataType: DataType = BinaryType
 
-  override def update(buffer: Roaring64NavigableMap, input: InternalRow): Roaring64NavigableMap = {
-    val colValue = child.eval(input)
-    buffer.naivelazyor(deserialize(colValue.asInstanceOf[Array[Byte]]))
-    buffer
-  }
-
-  override def eval(buffer: Roaring64NavigableMap): Any = {
+  override def eval(buffer: BitmapOrBuffer): Any = {
     serialize(buffer)
   }
 
@@ -145,20 +170,13 @@ case class PreciseCountDistinct(
     dataType: DataType,
     mutableAggBufferOffset: Int = 0,
     inputAggBufferOffset: Int = 0)
-  extends BasicPreciseCountDistinct(child, mutableAggBufferOffset, inputAggBufferOffset) {
+  extends BasicPreciseCountDistinctOr(child, mutableAggBufferOffset, inputAggBufferOffset) {
 
   def this(child: Expression, dataType: DataType) = this(child, dataType, 0, 0)
 
-  override def update(buffer: Roaring64NavigableMap, input: InternalRow): Roaring64NavigableMap = {
-    val colValue = child.eval(input)
-    buffer.naivelazyor(deserialize(colValue.asInstanceOf[Array[Byte]]))
-    buffer
-  }
-
-  override def eval(buffer: Roaring64NavigableMap): Any = {
-    buffer.repairAfterLazy()
+  override def eval(buffer: BitmapOrBuffer): Any = {
     dataType match {
-      case LongType => buffer.getLongCardinality
+      case LongType => buffer.cardinality
       case BinaryType => serialize(buffer)
       case _ => throw new UnsupportedOperationException("Unsupported data type in count distinct")
     }
@@ -304,8 +322,7 @@ case class PreciseCardinality(override val child: Expression)
   override def prettyName: String = "bitmap_cardinality"
 
   override def nullSafeEval(input: Any): Long = {
-    val data = input.asInstanceOf[Array[Byte]]
-    BitmapSerAndDeSerObj.deserialize(data).getLongCardinality
+    BitmapOrBuffer.cardinality(input.asInstanceOf[Array[Byte]])
   }
 
   override protected def withNewChildInternal(newChild: Expression): PreciseCardinality =
@@ -318,18 +335,11 @@ case class PreciseBitmapBuildBase64WithIndex(
                                  dataType: DataType,
                                  mutableAggBufferOffset: Int = 0,
                                  inputAggBufferOffset: Int = 0)
-  extends BasicPreciseCountDistinct(child, mutableAggBufferOffset, inputAggBufferOffset) {
+  extends BasicPreciseCountDistinctOr(child, mutableAggBufferOffset, inputAggBufferOffset) {
 
   def this(child: Expression, dataType: DataType) = this(child, dataType, 0, 0)
 
-  override def update(buffer: Roaring64NavigableMap, input: InternalRow): Roaring64NavigableMap = {
-    val colValue = child.eval(input)
-    buffer.naivelazyor(deserialize(colValue.asInstanceOf[Array[Byte]]))
-    buffer
-  }
-
-  override def eval(buffer: Roaring64NavigableMap): Any = {
-    buffer.repairAfterLazy()
+  override def eval(buffer: BitmapOrBuffer): Any = {
     val encodeValue = org.apache.commons.codec.binary.Base64.encodeBase64String(serialize(buffer))
     UTF8String.fromString(encodeValue)
   }
@@ -117,7 +117,7 @@ sealed abstract class BaseTopN(precision: Int,
         if (values.head == null) {
           topNCounter.offer(item, null)
         } else {
-          topNCounter.offer(item, values.head.asInstanceOf[Double])
+          topNCounter.offerCount(item, values.head.asInstanceOf[Double])
         }
       }
     }
@@ -203,7 +203,7 @@ case class EncodeTopN(
     if (m == null) {
       counter.offer(dims, null)
     } else {
-      counter.offer(dims, m.toString.toDouble)
+      counter.offerCount(dims, m.toString.toDouble)
     }
     counter
   }
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.kylin.engine.spark.filter;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kylin.common.util.NLocalFileMetadataTestCase;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Many tasks of a few queries reporting scan statistics concurrently.
+ */
+@Ignore("Save UT time")
+public class CollectorContentionBenchmarkTest extends NLocalFileMetadataTestCase {
+
+    private final int threads = 64;
+    private final int queries = 8;
+    private final int timesPerThread = 200_000;
+
+    @Before
+    public void setUp() {
+        createTestMetadata();
+    }
+
+    @After
+    public void tearDown() {
+        cleanupTestMetadata();
+    }
+
+    @Test
+    public void concurrentAddQueryMetricsBenchmark() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch ready = new CountDownLatch(threads);
+        CountDownLatch go = new CountDownLatch(1);
+        for (int i = 0; i < threads; i++) {
+            String queryId = "benchmark_query_" + (i % queries);
+            executor.submit(() -> {
+                ready.countDown();
+                go.await();
+                for (int j = 0; j < timesPerThread; j++) {
+                    BloomFilterSkipCollector.addQueryMetrics(queryId, 2, 1, 100, 10, 1);
+                    ParquetPageFilterCollector.addQueryMetrics(queryId, 10, 5, 5);
+                }
+                return null;
+            });
+        }
+        ready.await();
+        long start = System.nanoTime();
+        go.countDown();
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(10, TimeUnit.MINUTES));
+        long cost = System.nanoTime() - start;
+
+        for (int i = 0; i < queries; i++) {
+            BloomFilterSkipCollector.logAndCleanStatus("benchmark_query_" + i);
+            ParquetPageFilterCollector.logParquetPages("benchmark_query_" + i);
+        }
+        System.out.println("----------------------------");
+        System.out.println("threads : " + threads + ", total calls : " + (long) threads * timesPerThread);
+        System.out.println("avg ns per call : " + cost / ((long) threads * timesPerThread));
+    }
+}
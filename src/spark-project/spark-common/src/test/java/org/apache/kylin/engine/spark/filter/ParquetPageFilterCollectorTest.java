@@ -21,6 +21,11 @@ package org.apache.kylin.engine.spark.filter;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Test;
 
@@ -34,17 +39,41 @@ public class ParquetPageFilterCollectorTest {
         long afterFilterPages = 3L;
 
         ParquetPageFilterCollector.addQueryMetrics(queryId, totalPages, filteredPages, afterFilterPages);
-        assertNotNull(ParquetPageFilterCollector.queryTotalParquetPages.getIfPresent(queryId));
-        assertEquals(ParquetPageFilterCollector.queryTotalParquetPages.getIfPresent(queryId).get(), totalPages);
-        assertNotNull(ParquetPageFilterCollector.queryFilteredParquetPages.getIfPresent(queryId));
-        assertEquals(ParquetPageFilterCollector.queryFilteredParquetPages.getIfPresent(queryId).get(), filteredPages);
-        assertNotNull(ParquetPageFilterCollector.queryAfterFilterParquetPages.getIfPresent(queryId));
-        assertEquals(ParquetPageFilterCollector.queryAfterFilterParquetPages.getIfPresent(queryId).get(),
-                afterFilterPages);
+        ParquetPageFilterCollector.QueryPageStats stats = ParquetPageFilterCollector.getQueryStats(queryId);
+        assertNotNull(stats);
+        assertEquals(totalPages, stats.getTotalPages());
+        assertEquals(filteredPages, stats.getFilteredPages());
+        assertEquals(afterFilterPages, stats.getAfterFilterPages());
+
+        ParquetPageFilterCollector.addQueryMetrics(queryId, totalPages, filteredPages, afterFilterPages);
+        assertEquals(2 * totalPages, stats.getTotalPages());
+        assertEquals(2 * filteredPages, stats.getFilteredPages());
+        assertEquals(2 * afterFilterPages, stats.getAfterFilterPages());
+
+        ParquetPageFilterCollector.logParquetPages(queryId);
+        assertNull(ParquetPageFilterCollector.getQueryStats(queryId));
+    }
+
+    @Test
+    public void testConcurrentAddQueryMetrics() throws InterruptedException {
+        String queryId = "test_concurrent_query_id";
+        int threads = 8;
+        int times = 10000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int i = 0; i < threads; i++) {
+            executor.submit(() -> {
+                for (int j = 0; j < times; j++) {
+                    ParquetPageFilterCollector.addQueryMetrics(queryId, 3, 2, 1);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
 
+        ParquetPageFilterCollector.QueryPageStats stats = ParquetPageFilterCollector.getQueryStats(queryId);
+        assertEquals(3L * threads * times, stats.getTotalPages());
+        assertEquals(2L * threads * times, stats.getFilteredPages());
+        assertEquals((long) threads * times, stats.getAfterFilterPages());
         ParquetPageFilterCollector.logParquetPages(queryId);
-        assertNull(ParquetPageFilterCollector.queryTotalParquetPages.getIfPresent(queryId));
-        assertNull(ParquetPageFilterCollector.queryFilteredParquetPages.getIfPresent(queryId));
-        assertNull(ParquetPageFilterCollector.queryAfterFilterParquetPages.getIfPresent(queryId));
     }
 }
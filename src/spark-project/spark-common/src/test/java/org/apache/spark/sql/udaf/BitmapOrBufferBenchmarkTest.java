@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.spark.sql.udaf;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+
+/**
+ * Union of UV bitmaps of 10M members each, as precise count distinct does on a high cardinality measure.
+ */
+@Ignore("Save UT time")
+public class BitmapOrBufferBenchmarkTest {
+
+    private final int warmUpTimes = 3;
+    private final int testTimes = 5;
+    private final int bitmapCount = 8;
+    private final int members = 10_000_000;
+    private final long userIdRange = 100_000_000L;
+
+    @Test
+    public void orBenchmark() throws IOException {
+        Random random = new Random(1);
+        List<byte[]> inputs = new ArrayList<>();
+        for (int i = 0; i < bitmapCount; i++) {
+            Roaring64NavigableMap bitmap = new Roaring64NavigableMap();
+            for (int j = 0; j < members; j++) {
+                bitmap.addLong((long) (random.nextDouble() * userIdRange));
+            }
+            inputs.add(serialize(bitmap));
+        }
+
+        long cardinality = 0;
+        long deserializeCost = 0;
+        long bufferCost = 0;
+        for (int i = 0; i < warmUpTimes + testTimes; i++) {
+            long start = System.nanoTime();
+            Roaring64NavigableMap union = new Roaring64NavigableMap();
+            for (byte[] input : inputs) {
+                union.naivelazyor(BitmapSerAndDeSerObj.deserialize(input));
+            }
+            union.repairAfterLazy();
+            cardinality = union.getLongCardinality();
+            BitmapSerAndDeSerObj.serialize(union);
+            long deserializeTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            BitmapOrBuffer buffer = new BitmapOrBuffer();
+            for (byte[] input : inputs) {
+                buffer.or(input);
+            }
+            Assert.assertEquals(cardinality, buffer.cardinality());
+            buffer.toBytes();
+            long bufferTime = System.nanoTime() - start;
+
+            if (i >= warmUpTimes) {
+                deserializeCost += deserializeTime;
+                bufferCost += bufferTime;
+            }
+        }
+        System.out.println("----------------------------");
+        System.out.println("bitmaps : " + bitmapCount + ", members : " + members + ", union : " + cardinality);
+        System.out.println("deserialize and or avg ms : " + deserializeCost / testTimes / 1_000_000);
+        System.out.println("serialized or avg ms : " + bufferCost / testTimes / 1_000_000);
+    }
+
+    private static byte[] serialize(Roaring64NavigableMap bitmap) throws IOException {
+        bitmap.runOptimize();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            bitmap.serialize(out);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.spark.sql.datasource.storage
+
+import java.sql.Date
+
+import org.apache.hadoop.fs.Path
+import org.apache.kylin.guava30.shaded.common.collect.{Maps, Sets}
+import org.apache.kylin.metadata.cube.model.FileZoneMap
+import org.apache.kylin.metadata.model.{TableDesc, TblColRef}
+import org.apache.spark.sql.common.{SharedSparkSession, SparderBaseFunSuite}
+import org.apache.spark.sql.execution.datasource.SegDimFilters
+import org.apache.spark.sql.functions._
+import org.apache.spark.sql.sources.{EqualTo, Filter, GreaterThan, IsNull, Trivial}
+import org.apache.spark.util.Utils
+
+import scala.collection.JavaConverters._
+
+class FileZoneMapCollectorSuite extends SparderBaseFunSuite with SharedSparkSession {
+
+  private val dimensions = Set("1", "2", "3", "4", "5", "6")
+
+  test("collect min max and null count of each file") {
+    val (low, high) = writeAndCollect()
+
+    assert(low.getRows == 50 && high.getRows == 50)
+    assert(low.getFileName.endsWith(".parquet"))
+    assert(range(low, "1") == ("0", "49"))
+    assert(range(high, "1") == ("50", "99"))
+    assert(range(low, "2") == ("v000", "v049"))
+    assert(range(low, "3") == ("2012-01-01", "2012-02-19"))
+    assert(range(low, "4") == ("0.00", "12.25"))
+    // timestamps and measures are not collected
+    assert(!low.getRanges.containsKey("5"))
+    assert(!low.getRanges.containsKey("100") && !low.getNullCounts.containsKey("100"))
+    // a file with nulls only has a null count but no range
+    assert(!low.getRanges.containsKey("6"))
+    assert(low.getNullCounts.get("6") == 50L)
+    assert(range(high, "6") == ("50", "99"))
+    assert(high.getNullCounts.get("6") == 0L)
+  }
+
+  test("fold filters with file zone map") {
+    val (low, high) = writeAndCollect()
+    val table = TableDesc.mockup("test")
+    val dimCols = Maps.newHashMap[Integer, TblColRef]()
+    dimCols.put(1, TblColRef.mockup(table, 1, "1", "integer"))
+    dimCols.put(2, TblColRef.mockup(table, 2, "2", "varchar"))
+    dimCols.put(3, TblColRef.mockup(table, 3, "3", "date"))
+    dimCols.put(6, TblColRef.mockup(table, 6, "6", "integer"))
+
+    def fold(zoneMap: FileZoneMap, filter: Filter): Filter = {
+      SegDimFilters(zoneMap.getRanges, dimCols, "df", "project", Sets.newHashSet[String](), zoneMap.getNullCounts)
+        .foldFilter(filter)
+    }
+
+    assert(fold(low, EqualTo("1", 70)) == Trivial(false))
+    assert(fold(high, EqualTo("1", 70)) == Trivial(true))
+    assert(fold(low, EqualTo("2", "v010")) == Trivial(true))
+    assert(fold(high, EqualTo("2", "v010")) == Trivial(false))
+    assert(fold(low, GreaterThan("3", Date.valueOf("2012-03-01"))) == Trivial(false))
+    assert(fold(high, GreaterThan("3", Date.valueOf("2012-03-01"))) == Trivial(true))
+    assert(fold(low, IsNull("6")) == Trivial(true))
+    assert(fold(high, IsNull("6")) == Trivial(false))
+    // no range of a file with nulls only, it can't be pruned by value
+    assert(fold(low, EqualTo("6", 70)) == Trivial(true))
+  }
+
+  private def writeAndCollect(): (FileZoneMap, FileZoneMap) = {
+    val path = new Path(Utils.createTempDir().getAbsolutePath, "layout")
+    spark.range(0, 100).repartitionByRange(2, col("id"))
+      .select(
+        col("id").cast("int").as("1"),
+        format_string("v%03d", col("id")).as("2"),
+        expr("date_add(date'2012-01-01', cast(id as int))").as("3"),
+        (col("id") / 4).cast("decimal(10,2)").as("4"),
+        current_timestamp().as("5"),
+        when(col("id") < 50, lit(null)).otherwise(col("id")).as("6"),
+        col("id").as("100"))
+      .write.parquet(path.toString)
+
+    val zoneMaps = FileZoneMapCollector.collect(path, dimensions, spark.sparkContext.hadoopConfiguration).asScala
+    assert(zoneMaps.size == 2)
+    val sorted = zoneMaps.sortBy(_.getRanges.get("1").getMin.toInt)
+    (sorted.head, sorted.last)
+  }
+
+  private def range(zoneMap: FileZoneMap, column: String): (String, String) = {
+    val info = zoneMap.getRanges.get(column)
+    (info.getMin, info.getMax)
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.spark.sql.udaf
+
+import org.apache.spark.sql.catalyst.expressions.{BoundReference, GenericInternalRow}
+import org.apache.spark.sql.common.SparderBaseFunSuite
+import org.apache.spark.sql.types.{BinaryType, LongType}
+import org.roaringbitmap.longlong.Roaring64NavigableMap
+
+import scala.util.Random
+
+class BitmapOrBufferSuite extends SparderBaseFunSuite {
+
+  private def randomBitmap(random: Random, size: Int): Roaring64NavigableMap = {
+    val bitmap = new Roaring64NavigableMap()
+    Range(0, size).foreach { _ =>
+      // values spread over a few high buckets, including ones with the sign bit of the high int
+      val high = random.nextInt(4) match {
+        case 0 => 0L
+        case 1 => 1L
+        case 2 => 0x80000000L
+        case _ => 0xFFFFFFFFL
+      }
+      bitmap.add((high << 32) | (random.nextInt(1 << 20).toLong & 0xFFFFFFFFL))
+    }
+    bitmap
+  }
+
+  test("or serialized bitmaps") {
+    val random = new Random(7)
+    val inputs = Range(0, 5).map(i => randomBitmap(random, 1000 * i))
+    val expected = new Roaring64NavigableMap()
+    val buffer = new BitmapOrBuffer
+    assert(buffer.isEmpty)
+    assert(buffer.cardinality == 0)
+    assert(BitmapSerAndDeSerObj.deserialize(buffer.toBytes).isEmpty)
+
+    inputs.foreach { bitmap =>
+      expected.or(bitmap)
+      buffer.or(BitmapSerAndDeSerObj.serialize(bitmap))
+      assert(buffer.cardinality == expected.getLongCardinality)
+      assert(BitmapSerAndDeSerObj.deserialize(buffer.toBytes) == expected)
+    }
+    buffer.or(Array.empty[Byte])
+    buffer.or(null: Array[Byte])
+    assert(BitmapSerAndDeSerObj.deserialize(buffer.toBytes) == expected)
+    assert(BitmapOrBuffer.cardinality(buffer.toBytes) == expected.getLongCardinality)
+    assert(BitmapOrBuffer.cardinality(Array.empty[Byte]) == 0)
+
+    // merge a materialized buffer into another one
+    val other = new BitmapOrBuffer().or(BitmapSerAndDeSerObj.serialize(inputs(1)))
+      .or(BitmapSerAndDeSerObj.serialize(randomBitmap(random, 3000)))
+    val merged = new BitmapOrBuffer().or(BitmapSerAndDeSerObj.serialize(inputs(2))).or(other)
+    val expectedMerged = BitmapSerAndDeSerObj.deserialize(other.toBytes)
+    expectedMerged.or(inputs(2))
+    assert(BitmapSerAndDeSerObj.deserialize(merged.toBytes) == expectedMerged)
+  }
+
+  test("single bitmap is returned as it is") {
+    val bytes = BitmapSerAndDeSerObj.serialize(randomBitmap(new Random(11), 100))
+    val buffer = new BitmapOrBuffer().or(bytes)
+    assert(buffer.toBytes eq bytes)
+  }
+
+  test("precise count distinct on serialized bitmaps") {
+    val random = new Random(13)
+    val inputs = Range(0, 4).map(i => randomBitmap(random, 500 * (i + 1)))
+    val expected = new Roaring64NavigableMap()
+    inputs.foreach(expected.or)
+
+    val value = BoundReference(0, BinaryType, nullable = true)
+    val count = PreciseCountDistinct(value, LongType)
+    val union = ReusePreciseCountDistinct(value)
+    val partial1 = count.createAggregationBuffer()
+    val partial2 = count.createAggregationBuffer()
+    inputs.zipWithIndex.foreach { case (bitmap, i) =>
+      val row = new GenericInternalRow(1)
+      row.update(0, BitmapSerAndDeSerObj.serialize(bitmap))
+      count.update(if (i % 2 == 0) partial1 else partial2, row)
+    }
+    count.update(partial1, new GenericInternalRow(1))
+
+    val buffer = count.createAggregationBuffer()
+    count.merge(buffer, count.deserialize(count.serialize(partial1)))
+    count.merge(buffer, count.deserialize(count.serialize(partial2)))
+    assert(count.eval(buffer) == expected.getLongCardinality)
+    val bytes = union.eval(buffer).asInstanceOf[Array[Byte]]
+    assert(BitmapSerAndDeSerObj.deserialize(bytes) == expected)
+    assert(PreciseCardinality(value).nullSafeEval(bytes) == expected.getLongCardinality)
+  }
+}
@@ -31,6 +31,7 @@ import org.apache.kylin.metadata.model._
 import org.apache.kylin.parser.AbstractDataParser
 import org.apache.kylin.source.SourceFactory
 import org.apache.kylin.streaming.common.CreateFlatTableEntry
+import org.apache.kylin.streaming.constants.StreamingConstants
 import org.apache.spark.sql.catalyst.encoders.RowEncoder
 import org.apache.spark.sql.types._
 import org.apache.spark.sql.util.SparderTypeUtil
@@ -94,7 +95,8 @@ class CreateStreamingFlatTable(entry: CreateFlatTableEntry) extends
         }
       )
     val rootFactTable = changeSchemaToAliasDotName(
-      CreateStreamingFlatTable.castDF(originFactTable, schema, partitionColumn(), entry.parserName).alias(model.getRootFactTable.getAlias),
+      CreateStreamingFlatTable.castDF(originFactTable, schema, partitionColumn(), entry.parserName,
+        config.isStreamingProjectedJsonParserEnabled).alias(model.getRootFactTable.getAlias),
       model.getRootFactTable.getAlias)
 
     factTableDataset =
@@ -157,13 +159,21 @@ object CreateStreamingFlatTable {
     new CreateStreamingFlatTable(createFlatTableEntry)
   }
 
-  def castDF(df: DataFrame, parsedSchema: StructType, partitionColumn: String, parserName: String): DataFrame = {
+  def castDF(df: DataFrame, parsedSchema: StructType, partitionColumn: String, parserName: String,
+             projectedJsonParser: Boolean = false): DataFrame = {
+    // the projected parser gives the same rows as the default json parser only
+    val useProjectedParser = projectedJsonParser && StreamingConstants.DEFAULT_PARSER_NAME.equals(parserName)
     df.selectExpr("CAST(value AS STRING) as rawValue")
       .mapPartitions { rows =>
         val dataParser: AbstractDataParser[ByteBuffer] = AbstractDataParser
           .getDataParser(parserName, Thread.currentThread.getContextClassLoader)
+        val projectedParser = if (useProjectedParser) {
+          new ProjectedJsonRowParser(parsedSchema, partitionColumn)
+        } else {
+          null
+        }
 
-        val newRows = new PartitionRowIterator(rows, parsedSchema, partitionColumn, dataParser)
+        val newRows = new PartitionRowIterator(rows, parsedSchema, partitionColumn, dataParser, projectedParser)
         newRows.filter(row => row.size == parsedSchema.length)
       }(RowEncoder(parsedSchema))
   }
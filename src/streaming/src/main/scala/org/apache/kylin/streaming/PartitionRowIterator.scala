@@ -37,17 +37,18 @@ import scala.collection.mutable
 class PartitionRowIterator(iter: Iterator[Row],
                            parsedSchema: StructType,
                            partitionColumn: String,
-                           dateParser: AbstractDataParser[ByteBuffer]) extends Iterator[Row] {
+                           dateParser: AbstractDataParser[ByteBuffer],
+                           projectedParser: ProjectedJsonRowParser) extends Iterator[Row] {
+  import PartitionRowIterator._
+
   private val logger = LoggerFactory.getLogger(classOf[PartitionRowIterator])
 
   private val EMPTY_ROW = Row()
 
-  private val DATE_PATTERN = Array[String](DateFormat.COMPACT_DATE_PATTERN,
-    DateFormat.DEFAULT_DATE_PATTERN,
-    DateFormat.DEFAULT_DATE_PATTERN_WITH_SLASH,
-    DateFormat.DEFAULT_DATETIME_PATTERN_WITH_TIMEZONE,
-    DateFormat.DEFAULT_DATETIME_PATTERN_WITHOUT_MILLISECONDS,
-    DateFormat.DEFAULT_DATETIME_PATTERN_WITH_MILLISECONDS)
+  def this(iter: Iterator[Row], parsedSchema: StructType, partitionColumn: String,
+           dateParser: AbstractDataParser[ByteBuffer]) = {
+    this(iter, parsedSchema, partitionColumn, dateParser, null)
+  }
 
   def hasNext: Boolean = {
     iter.hasNext
@@ -69,6 +70,12 @@ class PartitionRowIterator(iter: Iterator[Row],
   }
 
   def parseToRow(input: String): Row = {
+    if (projectedParser != null) {
+      val row = projectedParser.parse(input)
+      if (row != null) {
+        return row
+      }
+    }
     val jsonMap: mutable.Map[String, AnyRef] = dateParser.process(StandardCharsets.UTF_8.encode(input)).asScala
       .map(pair => (pair._1.toLowerCase(Locale.ROOT), pair._2))
 
@@ -115,3 +122,12 @@ class PartitionRowIterator(iter: Iterator[Row],
     new Timestamp(timestamp)
   }
 }
+
+object PartitionRowIterator {
+  val DATE_PATTERN: Array[String] = Array[String](DateFormat.COMPACT_DATE_PATTERN,
+    DateFormat.DEFAULT_DATE_PATTERN,
+    DateFormat.DEFAULT_DATE_PATTERN_WITH_SLASH,
+    DateFormat.DEFAULT_DATETIME_PATTERN_WITH_TIMEZONE,
+    DateFormat.DEFAULT_DATETIME_PATTERN_WITHOUT_MILLISECONDS,
+    DateFormat.DEFAULT_DATETIME_PATTERN_WITH_MILLISECONDS)
+}
@@ -0,0 +1,306 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kylin.streaming
+
+import com.fasterxml.jackson.core.{JsonFactory, JsonParser, JsonToken}
+import org.apache.commons.lang3.time.FastDateFormat
+import org.apache.kylin.guava30.shaded.common.base.Preconditions
+import org.apache.spark.sql.Row
+import org.apache.spark.sql.catalyst.expressions.GenericRow
+import org.apache.spark.sql.types._
+
+import java.lang
+import java.sql.{Date, Timestamp}
+import java.text.{ParseException, ParsePosition}
+import java.util
+import java.util.{Calendar, Locale, TimeZone}
+
+/**
+ * Parse a json message of the default parser straight into a row of the parsed schema.
+ *
+ * The result is the same as TimedJsonStreamParser + PartitionRowIterator.parseToRow, but
+ *  - only the paths leading to the schema columns are read, other fields are skipped by the jackson streaming api
+ *  - values are converted and written into the row directly, no flattened map is built
+ *  - date patterns are compiled once, instead of on every DateUtils.parseDate
+ *
+ * A message where two keys map to the same flattened path that may be read (ignoring case), is not parsed,
+ * since the flattened map renames the duplicated keys, parse returns null and the caller falls back to it.
+ */
+class ProjectedJsonRowParser(parsedSchema: StructType, partitionColumn: String) {
+
+  import ProjectedJsonRowParser._
+
+  private val factory = new JsonFactory()
+
+  private val fieldCount = parsedSchema.fields.length
+  private val dataTypes: Array[DataType] = parsedSchema.fields.map(_.dataType)
+  private val isPartitionColumn: Array[Boolean] = parsedSchema.fields.map(_.name.equalsIgnoreCase(partitionColumn))
+
+  // distinct lower case column names, and the columns of each name
+  private val nameSlots = new util.HashMap[String, Integer]()
+  private val slotColumns: Array[Array[Int]] = {
+    val columns = new util.ArrayList[Array[Int]]()
+    parsedSchema.fields.indices.foreach { index =>
+      val name = parsedSchema.fields(index).name.toLowerCase(Locale.ROOT)
+      val slot = nameSlots.get(name)
+      if (slot == null) {
+        nameSlots.put(name, columns.size())
+        columns.add(Array(index))
+      } else {
+        columns.set(slot.intValue(), columns.get(slot.intValue()) :+ index)
+      }
+    }
+    columns.toArray(new Array[Array[Int]](0))
+  }
+
+  // lower case paths of the objects and arrays a column may be flattened from
+  private val columnPrefixes: util.Set[String] = {
+    val prefixes = new util.HashSet[String]()
+    nameSlots.keySet().forEach { name =>
+      var idx = name.indexOf('_')
+      while (idx >= 0) {
+        prefixes.add(name.substring(0, idx))
+        idx = name.indexOf('_', idx + 1)
+      }
+    }
+    prefixes
+  }
+
+  // path as in the message -> resolved code, see resolve
+  private val resolvedPaths = new util.HashMap[String, Integer]()
+
+  // DateUtils.parseDate with DATE_PATTERN, the patterns are tried in the same order
+  private val dateFormats: Array[FastDateFormat] = PartitionRowIterator.DATE_PATTERN
+    .map(pattern => FastDateFormat.getInstance(pattern, TimeZone.getDefault))
+  private val calendar = Calendar.getInstance(TimeZone.getDefault, Locale.getDefault)
+  calendar.setLenient(true)
+  private val position = new ParsePosition(0)
+
+  private val filled = new Array[Boolean](slotColumns.length)
+  // leaves at paths which are only column prefixes, a duplicated one is renamed as path_1 in the flattened map
+  private val prefixLeaves = new util.TreeSet[String](String.CASE_INSENSITIVE_ORDER)
+  private var values: Array[Any] = _
+  private var duplicated = false
+
+  /**
+   * @return the row, or null if two keys of the message map to the same column
+   */
+  def parse(input: String): Row = {
+    values = new Array[Any](fieldCount)
+    util.Arrays.fill(filled, false)
+    prefixLeaves.clear()
+    duplicated = false
+    val parser = factory.createParser(input)
+    try {
+      val token = parser.nextToken()
+      if (token != null) {
+        readValue(parser, token, "", resolve("") | PREFIX)
+      }
+    } finally {
+      parser.close()
+    }
+    if (duplicated) null else new GenericRow(values)
+  }
+
+  /**
+   * @return column name slot + 1 in the low bits or 0 if the path is not a column,
+   *         with the PREFIX bit set if a column may be flattened from under the path
+   */
+  private def resolve(path: String): Int = {
+    val cached = resolvedPaths.get(path)
+    if (cached != null) {
+      return cached.intValue()
+    }
+    val lowerPath = path.toLowerCase(Locale.ROOT)
+    val slot = nameSlots.get(lowerPath)
+    var code = if (slot == null) 0 else slot.intValue() + 1
+    if (columnPrefixes.contains(lowerPath)) {
+      code |= PREFIX
+    }
+    if (resolvedPaths.size() < MAX_RESOLVED_PATHS) {
+      resolvedPaths.put(path, code)
+    }
+    code
+  }
+
+  private def readValue(parser: JsonParser, token: JsonToken, path: String, code: Int): Unit = {
+    token match {
+      case JsonToken.START_OBJECT =>
+        if ((code & PREFIX) == 0) {
+          parser.skipChildren()
+          return
+        }
+        var next = parser.nextToken()
+        while (next == JsonToken.FIELD_NAME) {
+          val name = parser.getCurrentName
+          val childPath = if (path.isEmpty) name else path + "_" + name
+          readChild(parser, parser.nextToken(), childPath)
+          next = parser.nextToken()
+        }
+      case JsonToken.START_ARRAY =>
+        var next = parser.nextToken()
+        if (next == JsonToken.END_ARRAY) {
+          // an empty array is flattened to an empty string
+          setValue(path, code, parser, JsonToken.VALUE_STRING, EMPTY_STRING)
+          return
+        }
+        var i = 0
+        while (next != JsonToken.END_ARRAY) {
+          if ((code & PREFIX) == 0) {
+            parser.skipChildren()
+          } else {
+            readChild(parser, next, path + "_" + i)
+          }
+          i += 1
+          next = parser.nextToken()
+        }
+      case _ =>
+        setValue(path, code, parser, token, null)
+    }
+  }
+
+  private def readChild(parser: JsonParser, token: JsonToken, childPath: String): Unit = {
+    val childCode = resolve(childPath)
+    if (childCode == 0) {
+      parser.skipChildren()
+    } else {
+      readValue(parser, token, childPath, childCode)
+    }
+  }
+
+  private def setValue(path: String, code: Int, parser: JsonParser, token: JsonToken, text: String): Unit = {
+    val slot = (code & ~PREFIX) - 1
+    if (slot < 0) {
+      if (!prefixLeaves.add(path)) {
+        duplicated = true
+      }
+      return
+    }
+    if (filled(slot)) {
+      duplicated = true
+      return
+    }
+    filled(slot) = true
+    val columns = slotColumns(slot)
+    var i = 0
+    while (i < columns.length) {
+      values(columns(i)) = convert(parser, token, text, columns(i))
+      i += 1
+    }
+  }
+
+  /**
+   * Same conversion as PartitionRowIterator.parseValue on the value in the flattened map.
+   */
+  private def convert(parser: JsonParser, token: JsonToken, text: String, index: Int): Any = {
+    val dataType = dataTypes(index)
+    if (dataType == StringType) {
+      return jsonValue(parser, token, text)
+    }
+    if (token == JsonToken.VALUE_STRING && (if (text != null) text.isEmpty else parser.getTextLength == 0)) {
+      return null
+    }
+    val numberType = if (token == JsonToken.VALUE_NUMBER_INT) parser.getNumberType else null
+    dataType match {
+      case IntegerType if numberType == JsonParser.NumberType.INT => parser.getIntValue
+      case LongType if numberType == JsonParser.NumberType.INT || numberType == JsonParser.NumberType.LONG =>
+        parser.getLongValue
+      case DoubleType if token == JsonToken.VALUE_NUMBER_FLOAT || numberType == JsonParser.NumberType.INT
+        || numberType == JsonParser.NumberType.LONG => parser.getDoubleValue
+      case BooleanType if token == JsonToken.VALUE_TRUE || token == JsonToken.VALUE_FALSE =>
+        token == JsonToken.VALUE_TRUE
+      case _ =>
+        val strValue = textValue(parser, token, text)
+        dataType match {
+          case ShortType => lang.Short.parseShort(strValue)
+          case IntegerType => Integer.parseInt(strValue)
+          case LongType => lang.Long.parseLong(strValue)
+          case DoubleType => lang.Double.parseDouble(strValue)
+          case FloatType => lang.Float.parseFloat(strValue)
+          case BooleanType => lang.Boolean.parseBoolean(strValue)
+          case TimestampType => processTimestamp(index, strValue)
+          case DateType => new Date(parseDate(strValue).getTime)
+          case DecimalType() => BigDecimal(strValue)
+          case _ => jsonValue(parser, token, text)
+        }
+    }
+  }
+
+  /**
+   * @return the value TimedJsonStreamParser puts into the flattened map
+   */
+  private def jsonValue(parser: JsonParser, token: JsonToken, text: String): AnyRef = {
+    if (text != null) {
+      return text
+    }
+    token match {
+      case JsonToken.VALUE_NUMBER_INT => parser.getNumberType match {
+        case JsonParser.NumberType.INT => Integer.valueOf(parser.getIntValue)
+        case JsonParser.NumberType.LONG => lang.Long.valueOf(parser.getLongValue)
+        case _ => parser.getBigIntegerValue.toString
+      }
+      case JsonToken.VALUE_NUMBER_FLOAT => lang.Double.valueOf(parser.getDoubleValue)
+      case JsonToken.VALUE_TRUE => lang.Boolean.TRUE
+      case JsonToken.VALUE_FALSE => lang.Boolean.FALSE
+      case JsonToken.VALUE_NULL => NULL_TEXT
+      case _ => parser.getText
+    }
+  }
+
+  private def textValue(parser: JsonParser, token: JsonToken, text: String): String = {
+    if (text != null) {
+      text
+    } else if (token == JsonToken.VALUE_STRING) {
+      parser.getText
+    } else {
+      jsonValue(parser, token, text).toString
+    }
+  }
+
+  private def processTimestamp(index: Int, value: String): Timestamp = {
+    val timestamp = parseDate(value).getTime
+    if (isPartitionColumn(index)) {
+      Preconditions.checkArgument(timestamp >= 0, "invalid value %s", value)
+    }
+    new Timestamp(timestamp)
+  }
+
+  private def parseDate(value: String): util.Date = {
+    var i = 0
+    while (i < dateFormats.length) {
+      calendar.clear()
+      position.setIndex(0)
+      try {
+        if (dateFormats(i).parse(value, position, calendar) && position.getIndex == value.length) {
+          return calendar.getTime
+        }
+      } catch {
+        case _: IllegalArgumentException => // leniency is preventing calendar from being set
+      }
+      i += 1
+    }
+    throw new ParseException("Unable to parse the date: " + value, -1)
+  }
+}
+
+object ProjectedJsonRowParser {
+  private val PREFIX = 1 << 30
+  private val MAX_RESOLVED_PATHS = 4096
+  private val EMPTY_STRING = ""
+  private val NULL_TEXT = "null"
+}
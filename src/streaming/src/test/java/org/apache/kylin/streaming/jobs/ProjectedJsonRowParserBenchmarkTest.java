@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kylin.streaming.jobs;
+
+import static org.apache.spark.sql.types.DataTypes.DoubleType;
+import static org.apache.spark.sql.types.DataTypes.LongType;
+import static org.apache.spark.sql.types.DataTypes.StringType;
+import static org.apache.spark.sql.types.DataTypes.TimestampType;
+
+import java.nio.ByteBuffer;
+import java.util.Locale;
+
+import org.apache.kylin.parser.AbstractDataParser;
+import org.apache.kylin.streaming.PartitionRowIterator;
+import org.apache.kylin.streaming.ProjectedJsonRowParser;
+import org.apache.kylin.streaming.constants.StreamingConstants;
+import org.apache.spark.sql.types.StructType;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Compare the single thread throughput of the projected parser with the flattened map of the default parser.
+ */
+@Ignore("Save UT time")
+public class ProjectedJsonRowParserBenchmarkTest {
+
+    private static final int MESSAGES = 200000;
+
+    private final int warmUpTimes = 3;
+    private final int testTimes = 5;
+
+    @Test
+    public void parseBenchmark() throws Exception {
+        AbstractDataParser<ByteBuffer> dataParser = AbstractDataParser.getDataParser(
+                StreamingConstants.DEFAULT_PARSER_NAME, Thread.currentThread().getContextClassLoader());
+        StructType schema = new StructType().add("id", LongType).add("user_name", StringType)
+                .add("price", DoubleType).add("ts", TimestampType);
+        String[] messages = new String[MESSAGES];
+        for (int i = 0; i < MESSAGES; i++) {
+            messages[i] = String.format(Locale.ROOT,
+                    "{\"id\":%d,\"user\":{\"name\":\"u%d\",\"address\":{\"city\":\"c%d\",\"zip\":\"%05d\"}},"
+                            + "\"price\":%d.5,\"ts\":\"2021-10-01 10:20:30\",\"items\":[{\"sku\":%d,\"qty\":2},"
+                            + "{\"sku\":%d,\"qty\":1}],\"remark\":\"some text of the message %d\"}",
+                    i, i % 1000, i % 100, i % 100000, i % 500, i, i + 1, i);
+        }
+        ProjectedJsonRowParser projected = new ProjectedJsonRowParser(schema, "ts");
+        PartitionRowIterator legacy = new PartitionRowIterator(null, schema, "ts", dataParser);
+
+        for (int i = 0; i < warmUpTimes; i++) {
+            for (String message : messages) {
+                projected.parse(message);
+                legacy.parseToRow(message);
+            }
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < testTimes; i++) {
+            for (String message : messages) {
+                projected.parse(message);
+            }
+        }
+        long projectedTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < testTimes; i++) {
+            for (String message : messages) {
+                legacy.parseToRow(message);
+            }
+        }
+        long legacyTime = System.nanoTime() - start;
+
+        System.out.println("----------------------------");
+        System.out.println("projected parser, messages/s : " + MESSAGES * testTimes * 1000000000L / projectedTime);
+        System.out.println("flattened map, messages/s : " + MESSAGES * testTimes * 1000000000L / legacyTime);
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.kylin.streaming.jobs;
+
+import static org.apache.spark.sql.types.DataTypes.BooleanType;
+import static org.apache.spark.sql.types.DataTypes.DateType;
+import static org.apache.spark.sql.types.DataTypes.DoubleType;
+import static org.apache.spark.sql.types.DataTypes.FloatType;
+import static org.apache.spark.sql.types.DataTypes.IntegerType;
+import static org.apache.spark.sql.types.DataTypes.LongType;
+import static org.apache.spark.sql.types.DataTypes.ShortType;
+import static org.apache.spark.sql.types.DataTypes.StringType;
+import static org.apache.spark.sql.types.DataTypes.TimestampType;
+
+import java.nio.ByteBuffer;
+
+import org.apache.kylin.parser.AbstractDataParser;
+import org.apache.kylin.streaming.PartitionRowIterator;
+import org.apache.kylin.streaming.ProjectedJsonRowParser;
+import org.apache.kylin.streaming.constants.StreamingConstants;
+import org.apache.spark.sql.Row;
+import org.apache.spark.sql.types.DecimalType;
+import org.apache.spark.sql.types.StructType;
+import org.junit.Assert;
+import org.junit.Test;
+
+import lombok.val;
+
+public class ProjectedJsonRowParserTest {
+
+    private static final AbstractDataParser<ByteBuffer> dataParser;
+
+    static {
+        try {
+            dataParser = AbstractDataParser.getDataParser(StreamingConstants.DEFAULT_PARSER_NAME,
+                    Thread.currentThread().getContextClassLoader());
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Test
+    public void testSameAsFlattenedMap() {
+        val schema = new StructType().add("id", LongType).add("NAME", StringType).add("price", DoubleType)
+                .add("amount", DecimalType.apply(10, 2)).add("user_age", IntegerType).add("user_tags_1", StringType)
+                .add("flag", BooleanType).add("cnt", ShortType).add("rate", FloatType).add("big", StringType)
+                .add("nothing", StringType).add("empty", StringType).add("empty_int", IntegerType)
+                .add("ts", TimestampType).add("dt", DateType).add("name", StringType);
+        String[] messages = { //
+                "{\"id\":1,\"name\":\"a\",\"price\":1.5,\"amount\":\"12.30\","
+                        + "\"user\":{\"age\":20,\"tags\":[\"x\",\"y\"]},"
+                        + "\"flag\":true,\"cnt\":3,\"rate\":0.5,\"big\":123456789012345678901234567890,"
+                        + "\"nothing\":null,\"empty\":[],\"empty_int\":\"\","
+                        + "\"ts\":\"2021-10-01 10:20:30\",\"dt\":\"20211001\",\"other\":{\"deep\":[1,{\"a\":2}]}}",
+                "{\"ID\":2147483648,\"Name\":7,\"price\":3,\"amount\":1.25,\"USER\":{\"AGE\":\"21\"},\"flag\":\"TRUE\","
+                        + "\"ts\":\"2021-10-01\",\"dt\":\"2021/10/01\"}",
+                "{\"user_age\":22,\"price\":1e3,\"flag\":false,\"ts\":\"2021-10-01 10:20:30.123\"}", //
+                "{}", //
+                "[1,2]", //
+                "{\"user\":[]}" };
+        val projected = new ProjectedJsonRowParser(schema, "ts");
+        val iterator = new PartitionRowIterator(null, schema, "ts", dataParser);
+        for (String message : messages) {
+            Row row = projected.parse(message);
+            Assert.assertNotNull(message, row);
+            Assert.assertEquals(message, iterator.parseToRow(message), row);
+        }
+    }
+
+    @Test
+    public void testDuplicatedKeysFallback() {
+        val schema = new StructType().add("a", IntegerType).add("a_1", IntegerType).add("b_c", StringType);
+        val projected = new ProjectedJsonRowParser(schema, "");
+        val iterator = new PartitionRowIterator(null, schema, "", dataParser, projected);
+        val legacyIterator = new PartitionRowIterator(null, schema, "", dataParser);
+        String[] messages = { //
+                "{\"a\":1,\"A\":2}", //
+                "{\"b_c\":\"x\",\"b\":{\"c\":\"y\"}}", //
+                "{\"b\":1,\"B\":2}" };
+        for (String message : messages) {
+            Assert.assertNull(message, projected.parse(message));
+            Assert.assertEquals(message, legacyIterator.parseToRow(message), iterator.parseToRow(message));
+        }
+    }
+
+    @Test
+    public void testInvalidValue() {
+        val schema = new StructType().add("value", IntegerType);
+        val projected = new ProjectedJsonRowParser(schema, "value");
+        Assert.assertThrows(NumberFormatException.class, () -> projected.parse("{\"value\":\"ab\"}"));
+        Assert.assertThrows(NumberFormatException.class, () -> projected.parse("{\"value\":1.5}"));
+
+        val timestampSchema = new StructType().add("ts", TimestampType);
+        Assert.assertThrows(IllegalArgumentException.class,
+                () -> new ProjectedJsonRowParser(timestampSchema, "ts").parse("{\"ts\":\"1960-01-01\"}"));
+    }
+}